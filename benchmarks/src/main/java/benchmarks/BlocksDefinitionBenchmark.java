@@ -0,0 +1,67 @@
+package benchmarks;
+
+import io.BlocksDefinitionReader;
+import io.BlocksFromSymbolsFactory;
+import io.FormatException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of reading block definitions files, bundled ones and
+ * synthetic ones of growing size.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BlocksDefinitionBenchmark {
+    @Param({"standard", "balloons", "star_wars", "1KB", "64KB", "1MB",
+            "50MB"})
+    private String input;
+
+    private String text;
+    private int bytes;
+
+    /**
+     * Makes the input text.
+     *
+     * @throws IOException problem reading a bundled file
+     */
+    @Setup
+    public void setUp() throws IOException {
+        text = ParsingInputs.blockDefinitions(input);
+        bytes = ParsingInputs.bytes(text);
+    }
+
+    /**
+     * Reads the block definitions of the input.
+     *
+     * @param counters the parsed megabytes
+     * @return the blocks factory
+     * @throws FormatException wrong format
+     * @throws IOException     problem reading
+     */
+    @Benchmark
+    public BlocksFromSymbolsFactory fromReader(ParseCounters counters)
+            throws FormatException, IOException {
+        BlocksFromSymbolsFactory factory = new BlocksDefinitionReader()
+                .fromReader(new StringReader(text));
+        counters.parsed(bytes, 0);
+        return factory;
+    }
+}
@@ -0,0 +1,219 @@
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files in CSV format (-rf csv), such as a checked
+ * in baseline and a new run, and prints the change of every result.
+ * <p>
+ * Usage: java benchmarks.CompareResults baseline.csv current.csv
+ * [threshold_percent]
+ * <p>
+ * A result is marked "better" or "worse" when it moved by more than the
+ * threshold (5% by default) and by more than the two error margins
+ * together. Results in operations per time are better when higher; results
+ * per operation, such as times and bytes allocated per operation, are
+ * better when lower. The exit code is 1 if any result is worse.
+ */
+public class CompareResults {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Compares the result files from the command line.
+     *
+     * @param args the baseline file, the current file and the threshold
+     * @throws IOException problem reading the files
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java benchmarks.CompareResults"
+                    + " baseline.csv current.csv [threshold_percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2
+                ? Double.parseDouble(args[2]) : 5;
+        Map<String, Result> baseline = read(args[0]);
+        Map<String, Result> current = read(args[1]);
+
+        boolean worse = false;
+        System.out.printf("%-70s %14s %14s %8s%n", "benchmark", "baseline",
+                "current", "change");
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-70s %14s %14.3f %8s  new%n",
+                        entry.getKey(), "-", now.score, "");
+                continue;
+            }
+            double change = before.score == 0 ? 0
+                    : (now.score - before.score) / before.score * 100;
+            String verdict = "";
+            boolean significant = Math.abs(change) > threshold
+                    && Math.abs(now.score - before.score)
+                    > now.error + before.error;
+            int direction = direction(now.unit);
+            if (significant && direction != 0) {
+                boolean better = change * direction > 0;
+                verdict = better ? "better" : "worse";
+                worse |= !better;
+            }
+            System.out.printf("%-70s %14.3f %14.3f %+7.1f%%  %s %s%n",
+                    entry.getKey(), before.score, now.score, change,
+                    now.unit, verdict);
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf("%-70s  missing%n", key);
+            }
+        }
+        System.exit(worse ? 1 : 0);
+    }
+
+    /**
+     * Returns which way a result unit is better.
+     *
+     * @param unit the unit
+     * @return 1 if higher is better, -1 if lower is better, 0 if unknown
+     */
+    private static int direction(String unit) {
+        if (unit.startsWith("ops/")) {
+            return 1;
+        } else if (unit.endsWith("/op")) {
+            return -1;
+        }
+        return 0;
+    }
+
+    /**
+     * Reads a JMH result file in CSV format.
+     *
+     * @param fileName the file name
+     * @return the results, by benchmark name and parameters
+     * @throws IOException problem reading the file
+     */
+    static Map<String, Result> read(String fileName)
+            throws IOException {
+        Map<String, Result> results = new LinkedHashMap<String, Result>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(fileName), UTF8));
+        try {
+            String line = reader.readLine();
+            if (line == null) {
+                return results;
+            }
+            List<String> header = split(line);
+            int score = header.indexOf("Score");
+            int error = header.indexOf("Score Error (99.9%)");
+            int unit = header.indexOf("Unit");
+            while ((line = reader.readLine()) != null) {
+                List<String> fields = split(line);
+                if (fields.size() != header.size()) {
+                    continue;
+                }
+
+                // The benchmark and its parameters name the result
+                StringBuilder key = new StringBuilder(fields.get(0)
+                        .replaceFirst("^benchmarks\\.", ""));
+                for (int i = unit + 1; i < fields.size(); i++) {
+                    if (!fields.get(i).isEmpty()) {
+                        key.append(' ').append(header.get(i)
+                                .replace("Param: ", "")).append('=')
+                                .append(fields.get(i));
+                    }
+                }
+                results.put(key.toString(), new Result(
+                        parse(fields.get(score)), parse(fields.get(error)),
+                        fields.get(unit)));
+            }
+        } finally {
+            reader.close();
+        }
+        return results;
+    }
+
+    /**
+     * Reads a number of a result file.
+     *
+     * @param field the field
+     * @return the number, 0 if it's not a number
+     */
+    private static double parse(String field) {
+        try {
+            double value = Double.parseDouble(field);
+            return Double.isNaN(value) ? 0 : value;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Splits a CSV line into its fields.
+     *
+     * @param line the line
+     * @return the fields, unquoted
+     */
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<String>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length()
+                        && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * A benchmark result.
+     */
+    static final class Result {
+        private final double score;
+        private final double error;
+        private final String unit;
+
+        /**
+         * Creates the result.
+         *
+         * @param score the score
+         * @param error the error margin
+         * @param unit  the score unit
+         */
+        Result(double score, double error, String unit) {
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        /**
+         * Returns the score.
+         *
+         * @return the score
+         */
+        double getScore() {
+            return score;
+        }
+    }
+}
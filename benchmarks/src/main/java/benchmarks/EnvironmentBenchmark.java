@@ -0,0 +1,79 @@
+package benchmarks;
+
+import gameplay.GameEnvironment;
+import graphics.Line;
+import graphics.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sprites.Block;
+import sprites.ball.CollisionInfo;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the closest collision query of a ball, against a grid of
+ * blocks of growing size.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EnvironmentBenchmark {
+    private static final int LINES = 1024; // a power of two, for the mask
+    private static final int BLOCK_WIDTH = 20;
+    private static final int BLOCK_HEIGHT = 10;
+
+    @Param({"10", "100", "1000", "10000"})
+    private int collidables;
+
+    private GameEnvironment environment;
+    private Line[] trajectories;
+    private int next = 0;
+
+    /**
+     * Fills the environment with a square grid of blocks, and makes ball
+     * trajectories all over it.
+     */
+    @Setup
+    public void setUp() {
+        environment = new GameEnvironment();
+        int columns = (int) Math.ceil(Math.sqrt(collidables));
+        for (int i = 0; i < collidables; i++) {
+            environment.addCollidable(new Block(
+                    new Point(i % columns * BLOCK_WIDTH,
+                            i / columns * BLOCK_HEIGHT),
+                    BLOCK_WIDTH, BLOCK_HEIGHT));
+        }
+
+        Random random = new Random(42);
+        int rows = (collidables + columns - 1) / columns;
+        trajectories = new Line[LINES];
+        for (int i = 0; i < LINES; i++) {
+            trajectories[i] = LineBenchmark.randomLine(random, 0, 0,
+                    columns * BLOCK_WIDTH, rows * BLOCK_HEIGHT, 8);
+        }
+    }
+
+    /**
+     * Finds the closest collision of a trajectory.
+     *
+     * @return the collision, null if none
+     */
+    @Benchmark
+    public CollisionInfo getClosestCollision() {
+        return environment.getClosestCollision(
+                trajectories[next++ & (LINES - 1)]);
+    }
+}
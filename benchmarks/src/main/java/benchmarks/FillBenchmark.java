@@ -0,0 +1,102 @@
+package benchmarks;
+
+import io.ColorsParser;
+import io.FillParser;
+import io.FormatException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sprites.Fill;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of parsing the colors and fills of block definitions and
+ * level backgrounds, by name, by RGB and by image. Images are decoded once,
+ * in the setup; later fills of an image load it from the image cache's
+ * files, as when levels are loaded again.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FillBenchmark {
+    // As the fill parser passes them - without the closing parenthesis
+    private static final String[] COLORS = {"black", "lightGray", "yellow",
+            "RGB(12,200,255", "red", "RGB(0,0,0", "white", "RGB(255,128,7"};
+    private static final String[] FILLS = {"color(black)",
+            "color(RGB(12,200,255))", "color(yellow)", "color(lightGray)",
+            "color(RGB(255,128,7))", "color(RGB(0,0,0))", "color(white)",
+            "color(red)"};
+    private static final String[] IMAGES = {
+            "image(background_images/night.jpg)",
+            "image(block_images/luke.jpg)",
+            "image(background_images/clouds.png)",
+            "image(block_images/vader.jpg)"};
+    private static final int MASK = 7; // the arrays have 8 entries
+    private static final int IMAGES_MASK = 3;
+
+    private int next = 0;
+
+    /**
+     * Decodes the images of the fills into the image cache.
+     *
+     * @throws FormatException wrong format
+     * @throws IOException     missing image
+     */
+    @Setup
+    public void setUp() throws FormatException, IOException {
+        for (String image : IMAGES) {
+            FillParser.fillFromString(image);
+        }
+    }
+
+    /**
+     * Parses the next color, a name or RGB.
+     *
+     * @return the color
+     * @throws FormatException wrong format
+     */
+    @Benchmark
+    public Color colorFromString() throws FormatException {
+        next = (next + 1) & MASK;
+        return ColorsParser.colorFromString(COLORS[next]);
+    }
+
+    /**
+     * Parses the next color fill.
+     *
+     * @return the fill
+     * @throws FormatException wrong format
+     * @throws IOException     never, colors have no files
+     */
+    @Benchmark
+    public Fill fillFromString() throws FormatException, IOException {
+        next = (next + 1) & MASK;
+        return FillParser.fillFromString(FILLS[next]);
+    }
+
+    /**
+     * Parses the next image fill.
+     *
+     * @return the fill
+     * @throws FormatException wrong format
+     * @throws IOException     missing image
+     */
+    @Benchmark
+    public Fill imageFillFromString() throws FormatException, IOException {
+        next = (next + 1) & IMAGES_MASK;
+        return FillParser.fillFromString(IMAGES[next]);
+    }
+}
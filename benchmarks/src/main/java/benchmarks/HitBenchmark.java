@@ -0,0 +1,98 @@
+package benchmarks;
+
+import biuoop.KeyboardSensor;
+import graphics.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sprites.Block;
+import sprites.Paddle;
+import sprites.ball.Velocity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of bouncing a ball off a block and off the paddle, at the
+ * sides, the top and the corners.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HitBenchmark {
+    private static final int POINTS = 8; // a power of two, for the mask
+
+    private Block block;
+    private Paddle paddle;
+    private Point[] blockPoints;
+    private Point[] paddlePoints;
+    private Velocity velocity;
+    private int next = 0;
+
+    /**
+     * Makes a block without hit points, so it never breaks, and a paddle,
+     * with collision points all around them.
+     */
+    @Setup
+    public void setUp() {
+        block = new Block(new Point(100, 100), 50, 20);
+        paddle = new Paddle(new KeyboardSensor() {
+            public boolean isPressed(String key) {
+                return false;
+            }
+        }, 300, 100);
+        blockPoints = around(block.getUpperLeft(), 50, 20);
+        Point paddleCorner = paddle.getUpperLeft();
+        paddlePoints = around(paddleCorner, paddle.getWidth(),
+                paddle.getHeight());
+        velocity = new Velocity(120, -150);
+    }
+
+    /**
+     * Makes collision points on the corners and sides of a rectangle.
+     *
+     * @param upperLeft the rectangle's upper left corner
+     * @param width     the rectangle's width
+     * @param height    the rectangle's height
+     * @return the points
+     */
+    private static Point[] around(Point upperLeft, double width,
+                                  double height) {
+        double x = upperLeft.getX();
+        double y = upperLeft.getY();
+        return new Point[] {
+                new Point(x, y), new Point(x + width, y),
+                new Point(x, y + height), new Point(x + width, y + height),
+                new Point(x + width / 3, y), new Point(x + width, y + 1),
+                new Point(x + width / 2, y + height), new Point(x, y + 1)};
+    }
+
+    /**
+     * Bounces the ball off the block.
+     *
+     * @return the new velocity
+     */
+    @Benchmark
+    public Velocity blockHit() {
+        return block.hit(blockPoints[next++ & (POINTS - 1)], velocity);
+    }
+
+    /**
+     * Bounces the ball off the paddle.
+     *
+     * @return the new velocity
+     */
+    @Benchmark
+    public Velocity paddleHit() {
+        return paddle.hit(paddlePoints[next++ & (POINTS - 1)], velocity);
+    }
+}
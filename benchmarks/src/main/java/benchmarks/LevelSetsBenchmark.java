@@ -0,0 +1,96 @@
+package benchmarks;
+
+import animation.MenuAnimation;
+import biuoop.KeyboardSensor;
+import gameplay.GameFlow;
+import io.FormatException;
+import io.LevelSetsReader;
+import io.LevelSpecificationReader;
+import menu.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of making the level sets menu, which loads the levels of
+ * every set: the bundled level sets file, and synthetic ones with more
+ * sets of the bundled level files. The sets file is small next to the
+ * levels it loads, which the menu keeps with their decoded background
+ * images - a 4 KB one holds about 230 levels - so the sizes stop there.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LevelSetsBenchmark {
+    @Param({"bundled", "1KB", "4KB"})
+    private String input;
+
+    private String text;
+    private int bytes;
+    private int levels;
+    private LevelSetsReader reader;
+
+    /**
+     * Makes the input text, counts the levels of its sets, and makes a
+     * reader with a game flow that is never run.
+     *
+     * @throws FormatException wrong format
+     * @throws IOException     problem reading the files
+     */
+    @Setup
+    public void setUp() throws FormatException, IOException {
+        text = ParsingInputs.levelSets(input);
+        bytes = ParsingInputs.bytes(text);
+        Map<String, Integer> fileLevels = new HashMap<String, Integer>();
+        for (String[] entry
+                : LevelSetsReader.readEntries(new StringReader(text))) {
+            if (!fileLevels.containsKey(entry[2])) {
+                fileLevels.put(entry[2], new LevelSpecificationReader()
+                        .fromResource(entry[2]).size());
+            }
+            levels += fileLevels.get(entry[2]);
+        }
+        KeyboardSensor keyboard = new KeyboardSensor() {
+            public boolean isPressed(String key) {
+                return false;
+            }
+        };
+        reader = new LevelSetsReader(keyboard,
+                new GameFlow(null, keyboard, 3));
+    }
+
+    /**
+     * Makes the menu of the input's level sets.
+     *
+     * @param counters the parsed megabytes of the sets file, and the
+     *                 levels loaded
+     * @return the menu
+     * @throws FormatException wrong format
+     * @throws IOException     problem reading
+     */
+    @Benchmark
+    public MenuAnimation<Task<Void>> fromReader(ParseCounters counters)
+            throws FormatException, IOException {
+        MenuAnimation<Task<Void>> menu
+                = reader.fromReader(new StringReader(text));
+        counters.parsed(bytes, levels);
+        return menu;
+    }
+}
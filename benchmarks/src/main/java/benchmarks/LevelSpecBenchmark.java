@@ -0,0 +1,68 @@
+package benchmarks;
+
+import gameplay.LevelInformation;
+import io.FormatException;
+import io.LevelSpecificationReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of reading level specification files, the bundled ones and
+ * synthetic ones of growing size. Every level also reads its block
+ * definitions file from the class path, as when a level set is chosen.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class LevelSpecBenchmark {
+    @Param({"easy", "hard", "supercool", "1KB", "64KB", "1MB", "50MB"})
+    private String input;
+
+    private String text;
+    private int bytes;
+
+    /**
+     * Makes the input text.
+     *
+     * @throws IOException problem reading a bundled file
+     */
+    @Setup
+    public void setUp() throws IOException {
+        text = ParsingInputs.levels(input);
+        bytes = ParsingInputs.bytes(text);
+    }
+
+    /**
+     * Reads the levels of the input.
+     *
+     * @param counters the parsed megabytes and levels
+     * @return the levels
+     * @throws FormatException wrong format
+     * @throws IOException     problem reading
+     */
+    @Benchmark
+    public List<LevelInformation> fromReader(ParseCounters counters)
+            throws FormatException, IOException {
+        List<LevelInformation> levels = new LevelSpecificationReader()
+                .fromReader(new StringReader(text));
+        counters.parsed(bytes, levels.size());
+        return levels;
+    }
+}
@@ -0,0 +1,109 @@
+package benchmarks;
+
+import graphics.Line;
+import graphics.Point;
+import graphics.Rectangle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the line geometry under the collision queries: line to line
+ * intersections and a ball trajectory against a block.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LineBenchmark {
+    private static final int LINES = 1024; // a power of two, for the mask
+
+    private Line[] trajectories;
+    private Line[] others;
+    private Rectangle block;
+    private final Point intersection = new Point(0, 0);
+    private int next = 0;
+
+    /**
+     * Makes ball-sized trajectories around a block, some of them hitting it.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        block = new Rectangle(new Point(400, 300), 50, 20);
+        trajectories = new Line[LINES];
+        others = new Line[LINES];
+        for (int i = 0; i < LINES; i++) {
+            trajectories[i] = randomLine(random, 380, 280, 90, 60, 8);
+            others[i] = randomLine(random, 380, 280, 90, 60, 8);
+        }
+    }
+
+    /**
+     * Makes a short line starting in an area.
+     *
+     * @param random the random numbers
+     * @param x      left of the area
+     * @param y      top of the area
+     * @param width  width of the area
+     * @param height height of the area
+     * @param length most length along each axis
+     * @return the line
+     */
+    static Line randomLine(Random random, double x, double y, double width,
+                           double height, double length) {
+        Point start = new Point(x + random.nextDouble() * width,
+                y + random.nextDouble() * height);
+        Point end = new Point(
+                start.getX() + (random.nextDouble() * 2 - 1) * length,
+                start.getY() + (random.nextDouble() * 2 - 1) * length);
+        return new Line(start, end);
+    }
+
+    /**
+     * Intersects two lines, which cross or miss each other.
+     *
+     * @return the intersection point, null if none
+     */
+    @Benchmark
+    public Point intersectionWith() {
+        int i = next++ & (LINES - 1);
+        return trajectories[i].intersectionWith(others[i]);
+    }
+
+    /**
+     * Finds where a trajectory first meets the block, if it does.
+     *
+     * @return the intersection point, null if none
+     */
+    @Benchmark
+    public Point closestIntersectionToStartOfLine() {
+        int i = next++ & (LINES - 1);
+        return trajectories[i].closestIntersectionToStartOfLine(block);
+    }
+
+    /**
+     * Finds where a trajectory first meets the block, into a reused point,
+     * as the collision queries of the game do.
+     *
+     * @return true if the trajectory meets the block
+     */
+    @Benchmark
+    public boolean closestIntersectionToStartOfLineReused() {
+        int i = next++ & (LINES - 1);
+        return trajectories[i].closestIntersectionToStartOfLine(block,
+                intersection);
+    }
+}
@@ -0,0 +1,46 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * What the parsing benchmarks got through, reported by JMH next to the
+ * operations as rates in the benchmark's time unit: megabytes and levels
+ * per second.
+ */
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+@State(Scope.Thread)
+public class ParseCounters {
+    /**
+     * Megabytes (2^20 bytes) of input parsed.
+     */
+    public double megabytes;
+
+    /**
+     * Levels made out of the input.
+     */
+    public long levels;
+
+    /**
+     * Starts counting again for the next iteration.
+     */
+    @Setup(Level.Iteration)
+    public void reset() {
+        megabytes = 0;
+        levels = 0;
+    }
+
+    /**
+     * Counts a parsed input.
+     *
+     * @param bytes       size of the input
+     * @param inputLevels number of levels made out of it
+     */
+    void parsed(int bytes, int inputLevels) {
+        megabytes += bytes / (double) (1 << 20);
+        levels += inputLevels;
+    }
+}
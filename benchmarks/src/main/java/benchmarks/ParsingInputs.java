@@ -0,0 +1,237 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.Random;
+
+/**
+ * Inputs of the parsing benchmarks: the bundled resources, or synthetic
+ * files of a given size in the same formats.
+ * <p>
+ * An input is named by a size - "1KB", "64KB", "1MB", "50MB" - or by a
+ * bundled file. Synthetic files are made from a fixed seed, so every run
+ * parses the same text, and use only the bundled block definitions and
+ * colors, so they measure the parser and not image decoding.
+ */
+final class ParsingInputs {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String BLOCKS_FILE
+            = "definitions/standard_block_definitions.txt";
+    private static final String BLOCK_SYMBOLS = "Gbyrgpwco";
+    private static final String[] COLORS = {"black", "blue", "cyan", "gray",
+            "lightGray", "green", "orange", "pink", "red", "white", "yellow"};
+    private static final String[] LEVEL_FILES = {
+            "definitions/easy_level_definitions.txt",
+            "definitions/hard_level_definitions.txt",
+            "definitions/supercool_level_definitions.txt"};
+    private static final int ROW_BLOCKS = 15;
+    private static final long SEED = 42;
+
+    /**
+     * No instances.
+     */
+    private ParsingInputs() {
+    }
+
+    /**
+     * Returns the size in bytes of a synthetic input name.
+     *
+     * @param input the input name, such as "64KB"
+     * @return the size, or -1 if the name is not a size
+     */
+    static int sizeOf(String input) {
+        if (input.endsWith("MB")) {
+            return Integer.parseInt(input.substring(0, input.length() - 2))
+                    << 20;
+        } else if (input.endsWith("KB")) {
+            return Integer.parseInt(input.substring(0, input.length() - 2))
+                    << 10;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a level specification file: a bundled one, by its set name
+     * such as "easy", or a synthetic one.
+     *
+     * @param input the input name
+     * @return the file text
+     * @throws IOException problem reading a bundled file
+     */
+    static String levels(String input) throws IOException {
+        int size = sizeOf(input);
+        if (size < 0) {
+            return resource("definitions/" + input + "_level_definitions.txt");
+        }
+        Random random = new Random(SEED);
+        StringBuilder text = new StringBuilder(size + 1024);
+        for (int level = 0; text.length() < size; level++) {
+            appendLevel(text, level, random);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Returns a block definitions file: a bundled one, by its name such as
+     * "standard", or a synthetic one.
+     *
+     * @param input the input name
+     * @return the file text
+     * @throws IOException problem reading a bundled file
+     */
+    static String blockDefinitions(String input) throws IOException {
+        int size = sizeOf(input);
+        if (size < 0) {
+            return resource("definitions/" + input
+                    + "_block_definitions.txt");
+        }
+        Random random = new Random(SEED);
+        StringBuilder text = new StringBuilder(size + 256);
+        text.append("default height:25 width:50 stroke:color(black)"
+                + " hit_points:1\n");
+        while (text.length() < size) {
+            // Symbols repeat - later definitions replace earlier ones
+            char symbol = (char) ('a' + random.nextInt(26));
+            text.append("bdef symbol:").append(symbol)
+                    .append(" hit_points:").append(1 + random.nextInt(3))
+                    .append(" fill:").append(color(random))
+                    .append(" fill-2:").append(color(random)).append('\n');
+            if (random.nextInt(8) == 0) {
+                text.append("sdef symbol:")
+                        .append((char) ('0' + random.nextInt(10)))
+                        .append(" width:").append(10 + random.nextInt(40))
+                        .append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Returns a level sets file: the bundled one, for "bundled", or a
+     * synthetic one whose sets use the bundled level files in turn.
+     *
+     * @param input the input name
+     * @return the file text
+     * @throws IOException problem reading the bundled file
+     */
+    static String levelSets(String input) throws IOException {
+        int size = sizeOf(input);
+        if (size < 0) {
+            return resource("level_sets.txt");
+        }
+        StringBuilder text = new StringBuilder(size + 128);
+        for (int set = 0; text.length() < size; set++) {
+            text.append("s").append(set).append(":Set ").append(set)
+                    .append('\n')
+                    .append(LEVEL_FILES[set % LEVEL_FILES.length])
+                    .append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Returns the size of a text as stored in a file.
+     *
+     * @param text the text
+     * @return number of bytes in UTF-8
+     */
+    static int bytes(String text) {
+        return text.getBytes(UTF8).length;
+    }
+
+    /**
+     * Appends a level of random rows of the standard blocks.
+     *
+     * @param text   the file text
+     * @param level  number of the level
+     * @param random the generator
+     */
+    private static void appendLevel(StringBuilder text, int level,
+                                    Random random) {
+        int rows = 1 + random.nextInt(8);
+        StringBuilder blocks = new StringBuilder();
+        int numBlocks = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int i = 0; i < ROW_BLOCKS; i++) {
+                if (random.nextInt(5) == 0) {
+                    blocks.append('-');
+                } else {
+                    blocks.append(BLOCK_SYMBOLS.charAt(
+                            random.nextInt(BLOCK_SYMBOLS.length())));
+                    numBlocks++;
+                }
+            }
+            blocks.append('\n');
+        }
+
+        text.append("# Level ").append(level).append('\n')
+                .append("START_LEVEL\n")
+                .append("level_name:Level ").append(level).append('\n')
+                .append("ball_velocities:");
+        int balls = 1 + random.nextInt(4);
+        for (int i = 0; i < balls; i++) {
+            text.append(i == 0 ? "" : " ").append(random.nextInt(121) - 60)
+                    .append(',').append(300 + random.nextInt(200));
+        }
+        text.append('\n')
+                .append("background:").append(color(random)).append('\n')
+                .append("paddle_speed:").append(300 + random.nextInt(400))
+                .append('\n')
+                .append("paddle_width:").append(80 + random.nextInt(200))
+                .append('\n')
+                .append("block_definitions:").append(BLOCKS_FILE)
+                .append('\n')
+                .append("blocks_start_x:25\n")
+                .append("blocks_start_y:").append(40 + random.nextInt(60))
+                .append('\n')
+                .append("row_height:25\n")
+                .append("num_blocks:").append(numBlocks).append('\n')
+                .append("START_BLOCKS\n").append(blocks)
+                .append("END_BLOCKS\n")
+                .append("END_LEVEL\n\n");
+    }
+
+    /**
+     * Returns a random color fill, by name or by RGB.
+     *
+     * @param random the generator
+     * @return the fill text
+     */
+    private static String color(Random random) {
+        if (random.nextBoolean()) {
+            return "color(" + COLORS[random.nextInt(COLORS.length)] + ")";
+        }
+        return "color(RGB(" + random.nextInt(256) + ","
+                + random.nextInt(256) + "," + random.nextInt(256) + "))";
+    }
+
+    /**
+     * Reads a bundled resource.
+     *
+     * @param name the resource name
+     * @return the resource text
+     * @throws IOException problem reading, or missing resource
+     */
+    private static String resource(String name) throws IOException {
+        InputStream is = ClassLoader.getSystemClassLoader()
+                .getResourceAsStream(name);
+        if (is == null) {
+            throw new IOException("Missing resource " + name);
+        }
+        Reader reader = new InputStreamReader(is, UTF8);
+        try {
+            StringBuilder text = new StringBuilder();
+            char[] buffer = new char[8192];
+            int n;
+            while ((n = reader.read(buffer)) > 0) {
+                text.append(buffer, 0, n);
+            }
+            return text.toString();
+        } finally {
+            reader.close();
+        }
+    }
+}
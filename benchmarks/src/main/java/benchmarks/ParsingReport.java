@@ -0,0 +1,78 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Prints the parsing benchmarks of a JMH result file in CSV format, run
+ * with "-prof gc": the megabytes and levels parsed per second, and the
+ * bytes allocated per level - the bytes allocated per operation shared
+ * among the levels the operation made.
+ * <p>
+ * Usage: java benchmarks.ParsingReport parsing.csv
+ */
+public class ParsingReport {
+    private static final String ALLOCATED = ":gc.alloc.rate.norm";
+
+    /**
+     * Prints the report of the result file from the command line.
+     *
+     * @param args the result file
+     * @throws IOException problem reading the file
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java benchmarks.ParsingReport"
+                    + " parsing.csv");
+            System.exit(2);
+        }
+        Map<String, CompareResults.Result> results
+                = CompareResults.read(args[0]);
+
+        System.out.printf("%-60s %12s %10s %12s %12s%n", "benchmark",
+                "ops/s", "MB/s", "levels/s", "KB/level");
+        for (Map.Entry<String, CompareResults.Result> entry
+                : results.entrySet()) {
+            // The counters are named "benchmark:counter parameters"
+            String key = entry.getKey();
+            if (key.indexOf(':') >= 0) {
+                continue;
+            }
+            CompareResults.Result megabytes = results.get(
+                    counterKey(key, ":megabytes"));
+            if (megabytes == null) {
+                continue; // not a parsing benchmark
+            }
+            double ops = entry.getValue().getScore();
+            CompareResults.Result levels = results.get(
+                    counterKey(key, ":levels"));
+            CompareResults.Result allocated = results.get(
+                    counterKey(key, ALLOCATED));
+            double levelsPerSecond = levels == null ? 0 : levels.getScore();
+
+            String perLevel = "-";
+            if (levelsPerSecond > 0 && allocated != null) {
+                double levelsPerOp = levelsPerSecond / ops;
+                perLevel = String.format("%12.1f",
+                        allocated.getScore() / levelsPerOp / 1024);
+            }
+            System.out.printf("%-60s %12.3f %10.2f %12.0f %12s%n", key, ops,
+                    megabytes.getScore(), levelsPerSecond, perLevel);
+        }
+    }
+
+    /**
+     * Returns the result key of a counter of a benchmark.
+     *
+     * @param key     the benchmark's result key
+     * @param counter the counter suffix, such as ":levels"
+     * @return the counter's result key
+     */
+    private static String counterKey(String key, String counter) {
+        int space = key.indexOf(' ');
+        if (space < 0) {
+            return key + counter;
+        }
+        return key.substring(0, space) + counter + key.substring(space);
+    }
+}
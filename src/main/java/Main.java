@@ -1,9 +1,16 @@
 import animation.AnimationRunner;
 import biuoop.KeyboardSensor;
+import io.DefinitionsWatcher;
 import io.FormatException;
+import io.LevelRepository;
+import profiling.GameMetrics;
 import run.Arkanoid;
+import scores.LeaderboardServer;
+import scores.SharedScoresFile;
 import utils.Finals;
 
+import javax.management.JMException;
+import java.io.File;
 import java.io.IOException;
 
 /**
@@ -19,8 +26,22 @@ public class Main {
     public static void main(String[] args) {
         AnimationRunner runner = new AnimationRunner(
                 Finals.getInstance().getFramesPerSec());
-        KeyboardSensor keyboardSensor
-                = runner.getGui().getKeyboardSensor();
+        KeyboardSensor keyboardSensor = runner.getKeyboardSensor();
+
+        // Dev mode - reload the definitions files when they change
+        if (Finals.getInstance().isDevMode()) {
+            watchDefinitions();
+        }
+
+        // Let remote monitors read the game metrics
+        if (GameMetrics.ENABLED) {
+            registerMetrics();
+        }
+
+        // This game serves the site leaderboard
+        if (Finals.getInstance().getLeaderboardPort() != 0) {
+            serveLeaderboard();
+        }
 
         // Create the game
         Arkanoid game = new Arkanoid(
@@ -38,6 +59,44 @@ public class Main {
         }
     }
 
+    /**
+     * Starts watching the resources directory for changed definitions.
+     */
+    private static void watchDefinitions() {
+        File resourceDir = new File(Finals.getInstance().getDevResourceDir());
+        try {
+            DefinitionsWatcher.start(resourceDir,
+                    LevelRepository.getInstance());
+        } catch (IOException e) {
+            System.out.println("Can't watch " + resourceDir + ": " + e);
+        }
+    }
+
+    /**
+     * Registers the game metrics with the platform's JMX server.
+     */
+    private static void registerMetrics() {
+        try {
+            GameMetrics.getInstance().register();
+        } catch (JMException e) {
+            System.out.println("Can't register the game metrics: " + e);
+        }
+    }
+
+    /**
+     * Starts the site leaderboard service over the game's scores file.
+     */
+    private static void serveLeaderboard() {
+        int port = Finals.getInstance().getLeaderboardPort();
+        try {
+            new LeaderboardServer(port, SharedScoresFile.getInstance())
+                    .start();
+        } catch (IOException e) {
+            System.out.println("Can't serve the leaderboard on port " + port
+                    + ": " + e);
+        }
+    }
+
     /**
      * Gets the name of the level sets file. If not specified in args - returns
      * default.
@@ -1,37 +1,194 @@
 package animation;
 
+import biuoop.DialogManager;
 import biuoop.DrawSurface;
 import biuoop.GUI;
+import biuoop.KeyboardSensor;
 import biuoop.Sleeper;
+import io.LevelRepository;
+import profiling.FrameEvent;
+import profiling.FrameProfiler;
+import profiling.GameEvents;
+import profiling.GameMetrics;
+import profiling.StutterDetector;
+import render.NullRenderer;
+import render.SurfaceRenderer;
 import utils.Finals;
 
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
 /**
  * An animation runner. Gets a specified animation and can run it.
+ * <p>
+ * With a render thread, the animation's frames are not drawn on the screen
+ * by the game thread: they are recorded as {@link FrameSnapshot}s and
+ * handed to a render thread, which draws and shows the latest one. A slow
+ * show then delays only the screen, and the game keeps its tick; the keys
+ * are still read by the game on every tick. The frame times measured by the
+ * profiler, the metrics and the stutter detector are then the game
+ * thread's, without the show.
+ * <p>
+ * With metrics on, the frames are drawn through a {@link SurfaceRenderer},
+ * which counts their draw calls and filled pixels for the metrics.
+ * <p>
+ * With -Darkanoid.capture=dir, the frames are also captured to files, by a
+ * {@link FrameCapture}.
+ * <p>
+ * An {@link IdleAnimation} whose frame is already on the screen is not
+ * drawn again: the runner waits for a key, up to {@link #IDLE_WAKE_MILLIS},
+ * and plays the frame on a surface that draws nothing, so the animation
+ * still reads the keys. Its frame is shown again when its version changes,
+ * after another animation was shown, and every {@link #IDLE_REPAINT_MILLIS}
+ * in case the window lost it. Frames waited for are not counted by the
+ * metrics or the profiler. Dev mode, the profiler, the capture and
+ * -Darkanoid.idleRender=false draw every frame.
  */
 public class AnimationRunner {
+    private static final int MAX_ERROR_LINES = 6;
+    private static final int ERROR_LINE_HEIGHT = 18;
+    private static final long IDLE_WAKE_MILLIS = 500;
+    private static final long IDLE_REPAINT_MILLIS = 1000;
     private Sleeper sleeper;
-    private GUI gui;
+    private Screen screen;
     private double moveTimeSec;
+    private long budgetNanos;
+    private LevelRepository repository = null;
+    private SnapshotExchange exchange = null;
+    private RenderLoop renderLoop = null;
+    private FrameCapture capture = null;
+    private boolean idleRender;
+    private NullRenderer idleSurface = null;
+    private Animation shownAnimation = null; // the frame on the screen
+    private int shownVersion = 0;
+    private long shownAt = 0;
 
     /**
-     * Creates an animation runner.
+     * Creates an animation runner, which opens the game window. It has a
+     * render thread if the game runs with -Darkanoid.renderThread=true, and
+     * a page flipping window if it runs with -Darkanoid.buffers=n.
      *
      * @param framesPerSecond num of frames to be changed per one second.
      */
     public AnimationRunner(int framesPerSecond) {
-        this.sleeper = new Sleeper();
-        this.gui = new GUI("Arkanoid", Finals.getInstance().getGameWidth(),
-                Finals.getInstance().getGameHeight());
+        this(openScreen(), new Sleeper(), framesPerSecond,
+                Finals.getInstance().isRenderThread());
+    }
+
+    /**
+     * Creates an animation runner on a screen.
+     *
+     * @param screen          the screen to show the frames on
+     * @param sleeper         waits between the frames
+     * @param framesPerSecond num of frames to be changed per one second.
+     * @param renderThread    true to show the frames from a render thread
+     */
+    public AnimationRunner(Screen screen, Sleeper sleeper,
+                           int framesPerSecond, boolean renderThread) {
+        this.sleeper = sleeper;
+        this.screen = screen;
         this.moveTimeSec = 1.0 / framesPerSecond;
+        this.budgetNanos = 1000000000L / framesPerSecond;
+        if (Finals.getInstance().isDevMode()) {
+            this.repository = LevelRepository.getInstance();
+        }
+        if (renderThread) {
+            this.exchange = new SnapshotExchange(
+                    Finals.getInstance().getGameWidth(),
+                    Finals.getInstance().getGameHeight());
+        }
+        if (Finals.getInstance().getCaptureDir() != null) {
+            startCapture(new File(Finals.getInstance().getCaptureDir()),
+                    "raw".equals(Finals.getInstance().getCaptureFormat()));
+        }
+        this.idleRender = Finals.getInstance().isIdleRender()
+                && !FrameProfiler.ENABLED && repository == null
+                && capture == null;
+    }
+
+    /**
+     * Opens the game window the game runs with.
+     *
+     * @return the window
+     */
+    private static Screen openScreen() {
+        Finals finals = Finals.getInstance();
+        if (finals.getScreenBuffers() > 0) {
+            return new CanvasScreen("Arkanoid", finals.getGameWidth(),
+                    finals.getGameHeight(), finals.getScreenBuffers());
+        }
+        return new GuiScreen("Arkanoid", finals.getGameWidth(),
+                finals.getGameHeight());
+    }
+
+    /**
+     * Starts capturing the frames to files.
+     *
+     * @param dir the directory written to
+     * @param raw true for a raw RGB stream, false for PNG files
+     */
+    private void startCapture(File dir, boolean raw) {
+        FrameCapture frames = new FrameCapture(dir, raw,
+                Finals.getInstance().getGameWidth(),
+                Finals.getInstance().getGameHeight());
+        try {
+            frames.start();
+            this.capture = frames;
+        } catch (IOException e) {
+            System.out.println("Can't capture the frames: " + e);
+        }
     }
 
     /**
      * Gets the gui instance.
      *
-     * @return gui
+     * @return gui, null if the runner doesn't show the game window
      */
     public GUI getGui() {
-        return gui;
+        if (screen instanceof GuiScreen) {
+            return ((GuiScreen) screen).getGui();
+        }
+        return null;
+    }
+
+    /**
+     * Gets the keyboard of the runner's screen.
+     *
+     * @return the keyboard sensor
+     */
+    public KeyboardSensor getKeyboardSensor() {
+        return screen.getKeyboardSensor();
+    }
+
+    /**
+     * Gets the dialogs of the runner's screen.
+     *
+     * @return the dialog manager
+     */
+    public DialogManager getDialogManager() {
+        return screen.getDialogManager();
+    }
+
+    /**
+     * Returns the number of frames the render thread had no time to show,
+     * as a newer frame came first.
+     *
+     * @return number of frames, 0 without a render thread
+     */
+    public long getSkippedFrames() {
+        return exchange == null ? 0 : exchange.getSkipped();
+    }
+
+    /**
+     * Returns the number of frames the capture had no time to write, as
+     * the encoder was behind.
+     *
+     * @return number of frames, 0 without a capture
+     */
+    public long getDroppedCaptures() {
+        return capture == null ? 0 : capture.getDropped();
     }
 
     /**
@@ -40,14 +197,114 @@ public class AnimationRunner {
      * @param animation the animation object
      */
     public void run(Animation animation) {
+        // The outer run starts the render thread; nested runs, like the
+        // pause screen of a level, use it too
+        if (exchange != null && renderLoop == null) {
+            renderLoop = new RenderLoop(screen, exchange);
+            renderLoop.start();
+            try {
+                runFrames(animation);
+            } finally {
+                renderLoop.stop();
+                renderLoop = null;
+            }
+        } else {
+            runFrames(animation);
+        }
+    }
+
+    /**
+     * Runs the frames of the animation until it has to stop.
+     *
+     * @param animation the animation object
+     */
+    private void runFrames(Animation animation) {
+        if (StutterDetector.ENABLED) {
+            StutterDetector.getInstance().restart();
+        }
+        SurfaceRenderer renderer = GameMetrics.ENABLED
+                ? new SurfaceRenderer(null) : null;
+
         // Run the animation until it decides to stop
         while (!animation.shouldStop()) {
+            // An unchanged frame is not drawn again - wait for a key
+            if (isUnchanged(animation)) {
+                screen.awaitKey(IDLE_WAKE_MILLIS);
+                if (idleSurface == null) {
+                    idleSurface = new NullRenderer();
+                }
+                animation.doOneFrame(idleSurface, moveTimeSec);
+                if (StutterDetector.ENABLED) {
+                    StutterDetector.getInstance().restart();
+                }
+                continue;
+            }
+
             long startTime = System.currentTimeMillis(); // timing
+            long frameStart = FrameProfiler.ENABLED || GameMetrics.ENABLED
+                    || StutterDetector.ENABLED ? System.nanoTime() : 0;
+            FrameEvent frameEvent = GameEvents.beginFrame(animation);
 
-            // Show one frame
-            DrawSurface d = gui.getDrawSurface();
-            animation.doOneFrame(d, moveTimeSec);
-            gui.show(d);
+            // Show one frame - or record it for the render thread
+            DrawSurface shown = renderLoop != null ? exchange.beginFrame()
+                    : screen.getDrawSurface();
+            DrawSurface d = shown;
+            if (renderer != null) {
+                renderer.setSurface(shown);
+                renderer.resetCounters();
+                d = renderer;
+            }
+
+            // A captured frame is recorded first, and then drawn
+            FrameSnapshot captured = capture != null ? capture.beginFrame()
+                    : null;
+            DrawSurface frame = captured != null ? captured : d;
+            animation.doOneFrame(frame, moveTimeSec);
+            if (repository != null) {
+                drawErrors(frame, repository.getErrors());
+            }
+            if (FrameProfiler.ENABLED) {
+                drawProfile(frame);
+            }
+            if (captured != null) {
+                captured.drawOn(d);
+                capture.publish(captured);
+            }
+            if (renderer != null) {
+                GameMetrics.getInstance().frameDrawn(renderer.getDrawCalls(),
+                        renderer.getFilledPixels());
+            }
+            long showStart = FrameProfiler.ENABLED || frameEvent != null
+                    ? System.nanoTime() : 0;
+            if (renderLoop != null) {
+                exchange.publish();
+            } else {
+                screen.show(shown);
+            }
+            if (idleRender) {
+                frameShown(animation);
+            }
+            if (frameEvent != null) {
+                frameEvent.setShowTime(System.nanoTime() - showStart);
+                GameEvents.endFrame(frameEvent);
+            }
+            if (FrameProfiler.ENABLED) {
+                FrameProfiler profiler = FrameProfiler.getInstance();
+                profiler.end(FrameProfiler.SHOW, showStart);
+                profiler.end(FrameProfiler.FRAME, frameStart);
+                profiler.endFrame();
+            }
+            if (GameMetrics.ENABLED || StutterDetector.ENABLED) {
+                long frameEnd = System.nanoTime();
+                if (GameMetrics.ENABLED) {
+                    GameMetrics.getInstance().frameRendered(
+                            frameEnd - frameStart, budgetNanos);
+                }
+                if (StutterDetector.ENABLED) {
+                    StutterDetector.getInstance().frameEnded(frameStart,
+                            frameEnd);
+                }
+            }
 
             // Wait needed time
             long usedTime = System.currentTimeMillis() - startTime;
@@ -57,5 +314,73 @@ public class AnimationRunner {
                 this.sleeper.sleepFor(milliSecondLeftToSleep);
             }
         }
+        if (StutterDetector.ENABLED) {
+            StutterDetector.getInstance().restart();
+        }
+    }
+
+    /**
+     * Checks whether the animation's frame is the one on the screen, so it
+     * needn't be drawn again.
+     *
+     * @param animation the animation
+     * @return true if the frame on the screen is still the animation's
+     */
+    private boolean isUnchanged(Animation animation) {
+        if (!idleRender || animation != shownAnimation
+                || !(animation instanceof IdleAnimation)) {
+            return false;
+        }
+        IdleAnimation idle = (IdleAnimation) animation;
+        return idle.isIdle() && idle.getFrameVersion() == shownVersion
+                && System.currentTimeMillis() - shownAt < IDLE_REPAINT_MILLIS;
+    }
+
+    /**
+     * Remembers the animation whose frame was just shown. A nested run
+     * shows its own frames, so the outer animation is shown again after it.
+     *
+     * @param animation the animation
+     */
+    private void frameShown(Animation animation) {
+        shownAnimation = animation;
+        shownVersion = animation instanceof IdleAnimation
+                ? ((IdleAnimation) animation).getFrameVersion() : 0;
+        shownAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Draws the frame times over the frame, if the player shows them.
+     *
+     * @param d the frame surface
+     */
+    private void drawProfile(DrawSurface d) {
+        FrameProfiler profiler = FrameProfiler.getInstance();
+        profiler.toggleOn(screen.getKeyboardSensor().isPressed(
+                Finals.getInstance().getProfilerKey()));
+        profiler.drawOn(d, moveTimeSec * 1000);
+    }
+
+    /**
+     * Draws the errors of the definitions files over the frame, in dev mode.
+     *
+     * @param d      the frame surface
+     * @param errors the errors to draw
+     */
+    private void drawErrors(DrawSurface d, List<String> errors) {
+        if (errors.isEmpty()) {
+            return;
+        }
+        int lines = Math.min(errors.size(), MAX_ERROR_LINES);
+        int height = lines * ERROR_LINE_HEIGHT + 10;
+        int top = d.getHeight() - height;
+
+        d.setColor(new Color(140, 0, 0));
+        d.fillRectangle(0, top, d.getWidth(), height);
+        d.setColor(Color.WHITE);
+        for (int i = 0; i < lines; i++) {
+            d.drawText(10, top + (i + 1) * ERROR_LINE_HEIGHT,
+                    errors.get(i), 14);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,60 @@
+package animation;
+
+import biuoop.DrawSurface;
+import render.CompatibleImages;
+import render.GraphicsSurface;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * The static art of a screen - a background that doesn't change while the
+ * screen is shown - drawn once on an image of the surface's size, and then
+ * shown as the image on every frame. The art is drawn again only if the
+ * surface's size changes, on a new image, as frames may keep the old one.
+ * <p>
+ * The art must cover the whole surface; what changes is drawn over it.
+ */
+abstract class CachedArt {
+    private BufferedImage image = null;
+
+    /**
+     * Shows the art on a surface, drawing it first if needed.
+     *
+     * @param d the surface
+     */
+    public void drawOn(DrawSurface d) {
+        int width = d.getWidth();
+        int height = d.getHeight();
+        if (image == null || image.getWidth() != width
+                || image.getHeight() != height) {
+            image = drawImage(width, height);
+        }
+        d.drawImage(0, 0, image);
+    }
+
+    /**
+     * Draws the art. Called once, and again if the surface is resized.
+     *
+     * @param d a surface of the size of the art
+     */
+    protected abstract void draw(DrawSurface d);
+
+    /**
+     * Draws the art on a new image.
+     *
+     * @param width  the image width
+     * @param height the image height
+     * @return the image
+     */
+    private BufferedImage drawImage(int width, int height) {
+        BufferedImage art = CompatibleImages.create(width, height, true);
+        Graphics2D g = art.createGraphics();
+        try {
+            draw(new GraphicsSurface(g, width, height));
+        } finally {
+            g.dispose();
+        }
+        return art;
+    }
+}
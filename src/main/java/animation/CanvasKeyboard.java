@@ -0,0 +1,151 @@
+package animation;
+
+import biuoop.KeyboardSensor;
+
+import java.awt.event.FocusEvent;
+import java.awt.event.FocusListener;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The keyboard of a {@link CanvasScreen}, naming the keys as biuoop does:
+ * the arrows, space and enter by the {@link KeyboardSensor} constants,
+ * letters and digits by their lower case character, and other keys by
+ * their lower case Java name. The keys are pressed on the event thread and
+ * read by the game thread, which may also wait for them to change.
+ */
+final class CanvasKeyboard extends KeyAdapter
+        implements KeyboardSensor, FocusListener {
+    private final Set<String> pressed = Collections.newSetFromMap(
+            new ConcurrentHashMap<String, Boolean>());
+    private volatile long changes = 0;
+    private volatile Thread waiter = null;
+    private long seenChanges = 0; // by the waiting thread
+
+    /**
+     * Checks whether a key is pressed.
+     *
+     * @param key the key name
+     * @return true if pressed
+     */
+    public boolean isPressed(String key) {
+        return pressed.contains(key);
+    }
+
+    /**
+     * Waits until a key is pressed or released after the last wait ended,
+     * or the time passes. A change while the keys were read since then
+     * ends the wait at once.
+     *
+     * @param timeoutMillis most time to wait
+     */
+    void awaitChange(long timeoutMillis) {
+        long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        waiter = Thread.currentThread();
+        try {
+            for (long left = deadline - System.nanoTime();
+                 changes == seenChanges && left > 0;
+                 left = deadline - System.nanoTime()) {
+                LockSupport.parkNanos(this, left);
+            }
+        } finally {
+            waiter = null;
+        }
+        seenChanges = changes;
+    }
+
+    /**
+     * Marks a key pressed.
+     *
+     * @param e the key event
+     */
+    public void keyPressed(KeyEvent e) {
+        pressed.add(name(e.getKeyCode()));
+        if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+            pressed.add(RETURN_KEY);
+        }
+        changed();
+    }
+
+    /**
+     * Marks a key released.
+     *
+     * @param e the key event
+     */
+    public void keyReleased(KeyEvent e) {
+        pressed.remove(name(e.getKeyCode()));
+        if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+            pressed.remove(RETURN_KEY);
+        }
+        changed();
+    }
+
+    /**
+     * Does nothing when the window gets the keys.
+     *
+     * @param e the focus event
+     */
+    public void focusGained(FocusEvent e) {
+    }
+
+    /**
+     * Releases all the keys when the window loses the keys, as their
+     * releases won't come.
+     *
+     * @param e the focus event
+     */
+    public void focusLost(FocusEvent e) {
+        pressed.clear();
+        changed();
+    }
+
+    /**
+     * Counts a change of the keys, and wakes the waiting thread. Called by
+     * the event thread only.
+     */
+    private void changed() {
+        changes++;
+        Thread waiting = waiter;
+        if (waiting != null) {
+            LockSupport.unpark(waiting);
+        }
+    }
+
+    /**
+     * Returns the name of a key. The name is by the key code, not the
+     * character, so a key is released by the name it was pressed by.
+     *
+     * @param code the key code
+     * @return the name
+     */
+    private static String name(int code) {
+        switch (code) {
+            case KeyEvent.VK_LEFT:
+                return LEFT_KEY;
+            case KeyEvent.VK_RIGHT:
+                return RIGHT_KEY;
+            case KeyEvent.VK_UP:
+                return UP_KEY;
+            case KeyEvent.VK_DOWN:
+                return DOWN_KEY;
+            case KeyEvent.VK_SPACE:
+                return SPACE_KEY;
+            case KeyEvent.VK_ENTER:
+                return ENTER_KEY;
+            default:
+                break;
+        }
+        if ((code >= KeyEvent.VK_0 && code <= KeyEvent.VK_9)
+                || (code >= KeyEvent.VK_A && code <= KeyEvent.VK_Z)) {
+            return String.valueOf(Character.toLowerCase((char) code));
+        }
+        return KeyEvent.getKeyText(code).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,316 @@
+package animation;
+
+import biuoop.DialogManager;
+import biuoop.DrawSurface;
+import biuoop.KeyboardSensor;
+import profiling.GameMetrics;
+import render.GraphicsSurface;
+import render.RedrawnImage;
+
+import java.awt.AWTException;
+import java.awt.AlphaComposite;
+import java.awt.BufferCapabilities;
+import java.awt.Canvas;
+import java.awt.Dimension;
+import java.awt.Frame;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.ImageCapabilities;
+import java.awt.Toolkit;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A game window that shows the frames by page flipping: the frame is drawn
+ * on a back buffer of a canvas, and the buffers are flipped, so a frame is
+ * never seen half drawn and is not copied again on its way. Where the
+ * window system can't flip, the back buffer is copied instead, still whole.
+ * <p>
+ * Images drawn on the window are kept in video memory as volatile images,
+ * so static layers - backgrounds and cached texts - are copied from there.
+ * An image drawn must not change afterwards, unless it is a
+ * {@link RedrawnImage}: its copy is made again when its version changes.
+ * The window system may take the memory of a back buffer or a
+ * volatile image at any time: an image is then copied again from its own,
+ * and a frame whose buffer was lost is replaced by the next one, a frame
+ * later. Both are counted, here and in the {@link GameMetrics}.
+ * <p>
+ * Nothing here needs a graphics card; under Xvfb the buffers and images
+ * are kept in memory by the software pipeline.
+ */
+public class CanvasScreen implements Screen {
+    private final Frame frame;
+    private final Canvas canvas;
+    private final BufferStrategy strategy;
+    private final boolean pageFlipping;
+    private final LayerSurface surface;
+    private final CanvasKeyboard keyboard = new CanvasKeyboard();
+    private final DialogManager dialogs;
+    private long buffersLost = 0;
+    private long buffersRestored = 0;
+    private long layersRestored = 0;
+
+    /**
+     * Opens the window.
+     *
+     * @param title   the window title
+     * @param width   the width of the game in the window
+     * @param height  the height of the game in the window
+     * @param buffers number of buffers flipped, 2 or 3
+     */
+    public CanvasScreen(String title, int width, int height, int buffers) {
+        if (buffers < 2 || buffers > 3) {
+            throw new IllegalArgumentException("Can't flip " + buffers
+                    + " buffers, only 2 or 3");
+        }
+        this.canvas = new Canvas();
+        this.canvas.setPreferredSize(new Dimension(width, height));
+        this.canvas.setIgnoreRepaint(true);
+        this.canvas.addKeyListener(keyboard);
+        this.canvas.addFocusListener(keyboard);
+        this.frame = new Frame(title);
+        this.frame.setIgnoreRepaint(true);
+        this.frame.setResizable(false);
+        this.frame.add(canvas);
+        this.frame.pack();
+        this.frame.setLocationRelativeTo(null);
+        this.frame.addWindowListener(new WindowAdapter() {
+            public void windowClosing(WindowEvent e) {
+                System.exit(0);
+            }
+        });
+        this.frame.setVisible(true);
+        this.canvas.requestFocus();
+
+        // Flip the buffers if the window system can, copy them otherwise
+        boolean flipping;
+        try {
+            canvas.createBufferStrategy(buffers, new BufferCapabilities(
+                    new ImageCapabilities(true), new ImageCapabilities(true),
+                    BufferCapabilities.FlipContents.UNDEFINED));
+            flipping = true;
+        } catch (AWTException e) {
+            canvas.createBufferStrategy(buffers);
+            flipping = false;
+        }
+        this.strategy = canvas.getBufferStrategy();
+        this.pageFlipping = flipping
+                && strategy.getCapabilities().isPageFlipping();
+        this.surface = new LayerSurface(width, height);
+        this.dialogs = new SwingDialogs(frame);
+    }
+
+    /**
+     * Checks whether the buffers are flipped, rather than copied.
+     *
+     * @return true when page flipping
+     */
+    public boolean isPageFlipping() {
+        return pageFlipping;
+    }
+
+    /**
+     * Returns the number of frames whose back buffer was lost before it
+     * was shown.
+     *
+     * @return number of frames
+     */
+    public long getBuffersLost() {
+        return buffersLost;
+    }
+
+    /**
+     * Returns the number of frames whose back buffer was restored while
+     * they were drawn.
+     *
+     * @return number of frames
+     */
+    public long getBuffersRestored() {
+        return buffersRestored;
+    }
+
+    /**
+     * Returns the number of times a volatile image was restored and copied
+     * again.
+     *
+     * @return number of restores
+     */
+    public long getLayersRestored() {
+        return layersRestored;
+    }
+
+    /**
+     * Returns the back buffer to draw the next frame on.
+     *
+     * @return the surface
+     */
+    public DrawSurface getDrawSurface() {
+        surface.setGraphics((Graphics2D) strategy.getDrawGraphics());
+        return surface;
+    }
+
+    /**
+     * Shows a drawn frame by flipping the buffers.
+     *
+     * @param d the surface the frame was drawn on
+     */
+    public void show(DrawSurface d) {
+        surface.getGraphics().dispose();
+
+        // A lost buffer is not drawn again - every frame draws everything,
+        // so the next one mends it
+        if (strategy.contentsRestored()) {
+            buffersRestored++;
+            if (GameMetrics.ENABLED) {
+                GameMetrics.getInstance().bufferRestored();
+            }
+        }
+        strategy.show();
+        if (strategy.contentsLost()) {
+            buffersLost++;
+            if (GameMetrics.ENABLED) {
+                GameMetrics.getInstance().bufferLost();
+            }
+        }
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    /**
+     * Returns the keyboard of the window.
+     *
+     * @return the keyboard sensor
+     */
+    public KeyboardSensor getKeyboardSensor() {
+        return keyboard;
+    }
+
+    /**
+     * Waits until a key of the window is pressed or released, or the time
+     * passes.
+     *
+     * @param timeoutMillis most time to wait
+     */
+    public void awaitKey(long timeoutMillis) {
+        keyboard.awaitChange(timeoutMillis);
+    }
+
+    /**
+     * Returns the dialogs of the window.
+     *
+     * @return the dialog manager
+     */
+    public DialogManager getDialogManager() {
+        return dialogs;
+    }
+
+    /**
+     * A back buffer surface, which draws images from their volatile copies.
+     */
+    private final class LayerSurface extends GraphicsSurface {
+        private final Map<Image, Layer> layers
+                = new WeakHashMap<Image, Layer>();
+
+        /**
+         * Creates the surface.
+         *
+         * @param width  the surface width
+         * @param height the surface height
+         */
+        LayerSurface(int width, int height) {
+            super(null, width, height);
+        }
+
+        /**
+         * Draws an image from its volatile copy, made or mended first if
+         * needed.
+         *
+         * @param x   the left x
+         * @param y   the top y
+         * @param img the image
+         */
+        public void drawImage(int x, int y, Image img) {
+            if (!(img instanceof BufferedImage)) {
+                super.drawImage(x, y, img);
+                return;
+            }
+            BufferedImage image = (BufferedImage) img;
+            int version = image instanceof RedrawnImage
+                    ? ((RedrawnImage) image).getVersion() : 0;
+            GraphicsConfiguration config = canvas.getGraphicsConfiguration();
+            Layer kept = layers.get(image);
+            VolatileImage layer = kept == null ? null : kept.copy;
+            int state = layer == null ? VolatileImage.IMAGE_INCOMPATIBLE
+                    : layer.validate(config);
+            if (state == VolatileImage.IMAGE_INCOMPATIBLE) {
+                if (layer != null) {
+                    layer.flush();
+                }
+                layer = config.createCompatibleVolatileImage(
+                        image.getWidth(), image.getHeight(),
+                        image.getTransparency());
+                layer.validate(config);
+                copy(image, layer);
+                if (kept == null) {
+                    kept = new Layer();
+                    layers.put(image, kept);
+                }
+                kept.copy = layer;
+                kept.version = version;
+            } else if (state == VolatileImage.IMAGE_RESTORED) {
+                copy(image, layer);
+                kept.version = version;
+                countLayerRestored();
+            } else if (kept.version != version) {
+                copy(image, layer);
+                kept.version = version;
+            }
+            getGraphics().drawImage(layer, x, y, null);
+
+            // Lost while drawn - draw the image itself this time
+            if (layer.contentsLost()) {
+                super.drawImage(x, y, image);
+                countLayerRestored();
+            }
+        }
+
+        /**
+         * Copies an image to its volatile copy, transparency included.
+         *
+         * @param image the image
+         * @param layer the volatile copy
+         */
+        private void copy(BufferedImage image, VolatileImage layer) {
+            Graphics2D g = layer.createGraphics();
+            try {
+                g.setComposite(AlphaComposite.Src);
+                g.drawImage(image, 0, 0, null);
+            } finally {
+                g.dispose();
+            }
+        }
+
+        /**
+         * Counts a volatile image restored.
+         */
+        private void countLayerRestored() {
+            layersRestored++;
+            if (GameMetrics.ENABLED) {
+                GameMetrics.getInstance().bufferRestored();
+            }
+        }
+    }
+
+    /**
+     * The volatile copy of an image, and the version of the image copied.
+     */
+    private static final class Layer {
+        private VolatileImage copy;
+        private int version;
+    }
+}
@@ -0,0 +1,254 @@
+package animation;
+
+import render.ImageRenderer;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Captures the frames of an animation runner to files, for trailers and
+ * bug reports, without slowing the game.
+ * <p>
+ * The game thread records each frame as a {@link FrameSnapshot}, taken
+ * from a small pool, and queues it; an encoder thread draws the queued
+ * frames on an image and writes them. When the encoder falls behind and
+ * the pool is empty, the frame is not captured and is counted as dropped -
+ * the game never waits for the encoder. Every frame has an index, counted
+ * from the first frame of the capture, so the dropped frames are the
+ * missing indexes.
+ * <p>
+ * The frames are written as PNG files named by their index, or as one raw
+ * stream of 8 bit RGB pixels, "frames.rgb", with the indexes of its frames
+ * in "frames.txt". A raw stream is quicker to write, so fewer frames are
+ * dropped, and video encoders read it as is.
+ * <p>
+ * The queued frames are written when the game exits.
+ */
+final class FrameCapture implements Runnable {
+    private static final int BUFFERS = 8;
+    private static final long WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long EXIT_WAIT_MILLIS = 10000;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File dir;
+    private final boolean raw;
+    private final BlockingQueue<FrameSnapshot> free;
+    private final BlockingQueue<FrameSnapshot> queued;
+    private volatile boolean running = true;
+    private volatile long dropped = 0;
+    private volatile long captured = 0;
+    private Thread thread = null;
+
+    // Owned by the game thread
+    private long frames = 0;
+
+    // Owned by the encoder thread
+    private final ImageRenderer image;
+    private OutputStream stream = null;
+    private PrintWriter index = null;
+    private byte[] pixels = null;
+
+    /**
+     * Creates the capture of frames of a surface's size.
+     *
+     * @param dir    the directory written to
+     * @param raw    true for a raw RGB stream, false for PNG files
+     * @param width  the surface width
+     * @param height the surface height
+     */
+    FrameCapture(File dir, boolean raw, int width, int height) {
+        this.dir = dir;
+        this.raw = raw;
+        this.free = new ArrayBlockingQueue<FrameSnapshot>(BUFFERS);
+        this.queued = new ArrayBlockingQueue<FrameSnapshot>(BUFFERS);
+        for (int i = 0; i < BUFFERS; i++) {
+            free.add(new FrameSnapshot(width, height));
+        }
+        this.image = new ImageRenderer(width, height);
+    }
+
+    /**
+     * Starts the encoder thread, and writes the queued frames on exit.
+     *
+     * @throws IOException the directory can't be made
+     */
+    void start() throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Can't make directory " + dir);
+        }
+        ImageIO.setUseCache(false); // encode in memory, not to temp files
+        thread = new Thread(this, "capture");
+        thread.setDaemon(true);
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread("capture exit") {
+            public void run() {
+                FrameCapture.this.stop();
+            }
+        });
+    }
+
+    /**
+     * Returns an empty snapshot to record the next frame on. Called by the
+     * game thread.
+     *
+     * @return the snapshot, null if the frame is dropped
+     */
+    FrameSnapshot beginFrame() {
+        frames++;
+        FrameSnapshot snapshot = running ? free.poll() : null;
+        if (snapshot == null) {
+            dropped++;
+            return null;
+        }
+        snapshot.clear();
+        snapshot.setSequence(frames - 1);
+        return snapshot;
+    }
+
+    /**
+     * Queues a recorded frame for the encoder. Called by the game thread.
+     *
+     * @param snapshot the frame, from {@link #beginFrame()}
+     */
+    void publish(FrameSnapshot snapshot) {
+        // Never full - there are only as many snapshots as places
+        queued.offer(snapshot);
+    }
+
+    /**
+     * Returns the number of frames not captured, as the encoder was behind
+     * or failed.
+     *
+     * @return number of frames
+     */
+    long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Returns the number of frames written.
+     *
+     * @return number of frames
+     */
+    long getCaptured() {
+        return captured;
+    }
+
+    /**
+     * Writes the queued frames until stopped, and then the rest of them.
+     */
+    public void run() {
+        try {
+            while (running || !queued.isEmpty()) {
+                FrameSnapshot frame = queued.poll(WAIT_NANOS,
+                        TimeUnit.NANOSECONDS);
+                if (frame != null) {
+                    write(frame);
+                    free.offer(frame);
+                }
+            }
+        } catch (IOException e) {
+            running = false;
+            System.out.println("Frame capture stopped: " + e);
+        } catch (InterruptedException e) {
+            running = false;
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Stops capturing, and waits a while for the queued frames to be
+     * written.
+     */
+    void stop() {
+        running = false;
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(EXIT_WAIT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.printf("Captured %d frames to %s, dropped %d%n",
+                captured, dir, dropped + queued.size());
+    }
+
+    /**
+     * Draws a frame and writes it.
+     *
+     * @param frame the frame
+     * @throws IOException problem writing
+     */
+    private void write(FrameSnapshot frame) throws IOException {
+        image.clear(Color.WHITE);
+        frame.drawOn(image);
+        if (raw) {
+            writeRaw(frame.getSequence());
+        } else {
+            image.writePng(new File(dir, String.format(Locale.ROOT,
+                    "frame-%06d.png", frame.getSequence())));
+        }
+        captured++;
+    }
+
+    /**
+     * Adds the drawn frame to the raw stream, and its index to the index
+     * file.
+     *
+     * @param frameIndex the frame index
+     * @throws IOException problem writing
+     */
+    private void writeRaw(long frameIndex) throws IOException {
+        if (stream == null) {
+            stream = new BufferedOutputStream(new FileOutputStream(
+                    new File(dir, "frames.rgb")));
+            index = new PrintWriter(new OutputStreamWriter(
+                    new FileOutputStream(new File(dir, "frames.txt")),
+                    UTF8));
+            pixels = new byte[image.getWidth() * image.getHeight() * 3];
+        }
+        int[] rgb = ((DataBufferInt) image.getImage().getRaster()
+                .getDataBuffer()).getData();
+        for (int i = 0, b = 0; i < rgb.length; i++) {
+            pixels[b++] = (byte) (rgb[i] >> 16);
+            pixels[b++] = (byte) (rgb[i] >> 8);
+            pixels[b++] = (byte) rgb[i];
+        }
+        stream.write(pixels);
+        index.println(frameIndex);
+        if (index.checkError()) {
+            throw new IOException("Can't write the frame index");
+        }
+    }
+
+    /**
+     * Closes the raw stream and the index file, if open.
+     */
+    private void close() {
+        if (index != null) {
+            index.close();
+        }
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                System.out.println("Can't close the frame stream: " + e);
+            }
+        }
+    }
+}
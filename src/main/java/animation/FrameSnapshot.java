@@ -0,0 +1,381 @@
+package animation;
+
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.Polygon;
+import java.util.Arrays;
+
+/**
+ * A frame kept as the draw calls that made it, to be drawn later on another
+ * surface, on another thread.
+ * <p>
+ * The calls are kept by value - numbers, colors, images and texts, which
+ * don't change - so the sprites may move on while the frame is drawn. A
+ * snapshot is cleared and used again for a later frame; its arrays grow to
+ * the largest frame and are kept, so recording doesn't allocate.
+ */
+public class FrameSnapshot implements DrawSurface {
+    private static final int DRAW_CIRCLE = 0;
+    private static final int DRAW_IMAGE = 1;
+    private static final int DRAW_LINE = 2;
+    private static final int DRAW_OVAL = 3;
+    private static final int DRAW_POLYGON = 4;
+    private static final int DRAW_RECTANGLE = 5;
+    private static final int DRAW_TEXT = 6;
+    private static final int FILL_CIRCLE = 7;
+    private static final int FILL_OVAL = 8;
+    private static final int FILL_POLYGON = 9;
+    private static final int FILL_RECTANGLE = 10;
+    private static final int SET_COLOR = 11;
+
+    private final int width;
+    private final int height;
+    private int[] calls = new int[256];
+    private int[] numbers = new int[1024];
+    private Object[] values = new Object[256];
+    private int callCount = 0;
+    private int numberCount = 0;
+    private int valueCount = 0;
+    private long sequence = 0;
+
+    /**
+     * Creates an empty snapshot of a surface's size.
+     *
+     * @param width  the surface width
+     * @param height the surface height
+     */
+    public FrameSnapshot(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Empties the snapshot for a new frame.
+     */
+    public void clear() {
+        // Let go of the images and texts of the last frame
+        Arrays.fill(values, 0, valueCount, null);
+        callCount = 0;
+        numberCount = 0;
+        valueCount = 0;
+    }
+
+    /**
+     * Returns the number of the frame in the snapshot.
+     *
+     * @return the frame number, 0 before the first frame
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Sets the number of the frame in the snapshot.
+     *
+     * @param frame the frame number
+     */
+    void setSequence(long frame) {
+        this.sequence = frame;
+    }
+
+    /**
+     * Returns the number of draw calls kept.
+     *
+     * @return number of calls
+     */
+    public int getCallCount() {
+        return callCount;
+    }
+
+    /**
+     * Draws the kept frame on a surface, with the same calls in the same
+     * order.
+     *
+     * @param d the surface
+     */
+    public void drawOn(DrawSurface d) {
+        int n = 0;
+        int v = 0;
+        for (int i = 0; i < callCount; i++) {
+            switch (calls[i]) {
+                case DRAW_CIRCLE:
+                    d.drawCircle(numbers[n], numbers[n + 1], numbers[n + 2]);
+                    n += 3;
+                    break;
+                case DRAW_IMAGE:
+                    d.drawImage(numbers[n], numbers[n + 1],
+                            (Image) values[v++]);
+                    n += 2;
+                    break;
+                case DRAW_LINE:
+                    d.drawLine(numbers[n], numbers[n + 1], numbers[n + 2],
+                            numbers[n + 3]);
+                    n += 4;
+                    break;
+                case DRAW_OVAL:
+                    d.drawOval(numbers[n], numbers[n + 1], numbers[n + 2],
+                            numbers[n + 3]);
+                    n += 4;
+                    break;
+                case DRAW_POLYGON:
+                    d.drawPolygon((Polygon) values[v++]);
+                    break;
+                case DRAW_RECTANGLE:
+                    d.drawRectangle(numbers[n], numbers[n + 1],
+                            numbers[n + 2], numbers[n + 3]);
+                    n += 4;
+                    break;
+                case DRAW_TEXT:
+                    d.drawText(numbers[n], numbers[n + 1],
+                            (String) values[v++], numbers[n + 2]);
+                    n += 3;
+                    break;
+                case FILL_CIRCLE:
+                    d.fillCircle(numbers[n], numbers[n + 1], numbers[n + 2]);
+                    n += 3;
+                    break;
+                case FILL_OVAL:
+                    d.fillOval(numbers[n], numbers[n + 1], numbers[n + 2],
+                            numbers[n + 3]);
+                    n += 4;
+                    break;
+                case FILL_POLYGON:
+                    d.fillPolygon((Polygon) values[v++]);
+                    break;
+                case FILL_RECTANGLE:
+                    d.fillRectangle(numbers[n], numbers[n + 1],
+                            numbers[n + 2], numbers[n + 3]);
+                    n += 4;
+                    break;
+                default: // SET_COLOR
+                    d.setColor((Color) values[v++]);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Keeps a circle.
+     *
+     * @param x the center x
+     * @param y the center y
+     * @param r the radius
+     */
+    public void drawCircle(int x, int y, int r) {
+        add(DRAW_CIRCLE, 3);
+        put(x);
+        put(y);
+        put(r);
+    }
+
+    /**
+     * Keeps an image.
+     *
+     * @param x   the left x
+     * @param y   the top y
+     * @param img the image
+     */
+    public void drawImage(int x, int y, Image img) {
+        add(DRAW_IMAGE, 2);
+        put(x);
+        put(y);
+        putValue(img);
+    }
+
+    /**
+     * Keeps a line.
+     *
+     * @param x1 the start x
+     * @param y1 the start y
+     * @param x2 the end x
+     * @param y2 the end y
+     */
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        add(DRAW_LINE, 4);
+        put(x1);
+        put(y1);
+        put(x2);
+        put(y2);
+    }
+
+    /**
+     * Keeps an oval.
+     *
+     * @param x          the left x
+     * @param y          the top y
+     * @param ovalWidth  the width
+     * @param ovalHeight the height
+     */
+    public void drawOval(int x, int y, int ovalWidth, int ovalHeight) {
+        add(DRAW_OVAL, 4);
+        put(x);
+        put(y);
+        put(ovalWidth);
+        put(ovalHeight);
+    }
+
+    /**
+     * Keeps a polygon. Polygons may change, so a copy is kept.
+     *
+     * @param p the polygon
+     */
+    public void drawPolygon(Polygon p) {
+        add(DRAW_POLYGON, 0);
+        putValue(new Polygon(p.xpoints, p.ypoints, p.npoints));
+    }
+
+    /**
+     * Keeps a rectangle.
+     *
+     * @param x          the left x
+     * @param y          the top y
+     * @param rectWidth  the width
+     * @param rectHeight the height
+     */
+    public void drawRectangle(int x, int y, int rectWidth, int rectHeight) {
+        add(DRAW_RECTANGLE, 4);
+        put(x);
+        put(y);
+        put(rectWidth);
+        put(rectHeight);
+    }
+
+    /**
+     * Keeps a text.
+     *
+     * @param x        the left x
+     * @param y        the base line y
+     * @param s        the text
+     * @param fontSize the font size
+     */
+    public void drawText(int x, int y, String s, int fontSize) {
+        add(DRAW_TEXT, 3);
+        put(x);
+        put(y);
+        put(fontSize);
+        putValue(s);
+    }
+
+    /**
+     * Keeps a filled circle.
+     *
+     * @param x the center x
+     * @param y the center y
+     * @param r the radius
+     */
+    public void fillCircle(int x, int y, int r) {
+        add(FILL_CIRCLE, 3);
+        put(x);
+        put(y);
+        put(r);
+    }
+
+    /**
+     * Keeps a filled oval.
+     *
+     * @param x          the left x
+     * @param y          the top y
+     * @param ovalWidth  the width
+     * @param ovalHeight the height
+     */
+    public void fillOval(int x, int y, int ovalWidth, int ovalHeight) {
+        add(FILL_OVAL, 4);
+        put(x);
+        put(y);
+        put(ovalWidth);
+        put(ovalHeight);
+    }
+
+    /**
+     * Keeps a filled polygon. Polygons may change, so a copy is kept.
+     *
+     * @param p the polygon
+     */
+    public void fillPolygon(Polygon p) {
+        add(FILL_POLYGON, 0);
+        putValue(new Polygon(p.xpoints, p.ypoints, p.npoints));
+    }
+
+    /**
+     * Keeps a filled rectangle.
+     *
+     * @param x          the left x
+     * @param y          the top y
+     * @param rectWidth  the width
+     * @param rectHeight the height
+     */
+    public void fillRectangle(int x, int y, int rectWidth, int rectHeight) {
+        add(FILL_RECTANGLE, 4);
+        put(x);
+        put(y);
+        put(rectWidth);
+        put(rectHeight);
+    }
+
+    /**
+     * Returns the height of the surface the frame is for.
+     *
+     * @return the height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the width of the surface the frame is for.
+     *
+     * @return the width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Keeps a color change.
+     *
+     * @param color the color
+     */
+    public void setColor(Color color) {
+        add(SET_COLOR, 0);
+        putValue(color);
+    }
+
+    /**
+     * Adds a call, making room for its numbers.
+     *
+     * @param call  the call
+     * @param count number of numbers the call takes
+     */
+    private void add(int call, int count) {
+        if (callCount == calls.length) {
+            calls = Arrays.copyOf(calls, calls.length * 2);
+        }
+        if (numberCount + count > numbers.length) {
+            numbers = Arrays.copyOf(numbers, numbers.length * 2);
+        }
+        calls[callCount++] = call;
+    }
+
+    /**
+     * Adds a number of the last call. Room was made by {@link #add}.
+     *
+     * @param number the number
+     */
+    private void put(int number) {
+        numbers[numberCount++] = number;
+    }
+
+    /**
+     * Adds a value of the last call.
+     *
+     * @param value the color, image, text or polygon
+     */
+    private void putValue(Object value) {
+        if (valueCount == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        values[valueCount++] = value;
+    }
+}
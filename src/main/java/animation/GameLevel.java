@@ -1,14 +1,19 @@
 package animation;
 
 import biuoop.DrawSurface;
-import biuoop.KeyboardSensor;
 import gameplay.GameEnvironment;
 import gameplay.LevelInformation;
 import gameplay.SpriteCollection;
 import graphics.Point;
+import io.LevelRepository;
 import listeners.BallRemover;
 import listeners.BlockRemover;
 import listeners.ScoreTrackingListener;
+import profiling.FrameEvent;
+import profiling.FrameProfiler;
+import profiling.GameEvents;
+import profiling.GameMetrics;
+import replay.InputSource;
 import sprites.Block;
 import sprites.Collidable;
 import sprites.Wall;
@@ -25,6 +30,7 @@ import utils.Counter;
 import utils.Finals;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This class holds all the sprites and is in charge of animation.
@@ -34,30 +40,46 @@ public class GameLevel implements Animation {
     private boolean running;
     private SpriteCollection sprites;
     private GameEnvironment environment;
-    private KeyboardSensor keyboard;
+    private InputSource keyboard;
     private Counter blocksToRemove;
     private Counter ballsCount;
     private Counter playerScore;
     private Counter livesLeft;
     private LevelInformation levelInfo;
+    private LevelRepository repository = null;
+    private int levelVersion;
+    private Sprite background;
+    private LevelIndicator levelIndicator;
+    private List<Block> levelBlocks = new ArrayList<Block>();
+    private Paddle paddle = null;
 
     /**
      * Creates the game level.
      *
      * @param levelInfo      current level information
-     * @param keyboardSensor keyboard sensor of the game
-     * @param runner         the game's animation runner
+     * @param keyboardSensor keyboard of the game, read once a tick
+     * @param runner         the game's animation runner, null if the level
+     *                       is only simulated
      * @param score          user's current score
      * @param livesLeft      player's lives left
      */
-    public GameLevel(LevelInformation levelInfo, KeyboardSensor keyboardSensor,
+    public GameLevel(LevelInformation levelInfo, InputSource keyboardSensor,
                      AnimationRunner runner, Counter score, Counter livesLeft) {
+        this.levelInfo = levelInfo;
+
+        // In dev mode play the newest version of the level
+        if (Finals.getInstance().isDevMode()) {
+            this.repository = LevelRepository.getInstance();
+            this.levelVersion = repository.getVersion();
+            this.levelInfo = repository.latest(levelInfo);
+        }
+
         // Current level properties
         this.sprites = new SpriteCollection();
         this.environment = new GameEnvironment();
-        this.blocksToRemove = new Counter(levelInfo.numberOfBlocksToRemove());
-        this.ballsCount = new Counter(levelInfo.numberOfBalls());
-        this.levelInfo = levelInfo;
+        this.blocksToRemove
+                = new Counter(this.levelInfo.numberOfBlocksToRemove());
+        this.ballsCount = new Counter(this.levelInfo.numberOfBalls());
 
         // Game properties
         this.runner = runner;
@@ -80,7 +102,8 @@ public class GameLevel implements Animation {
      * game
      */
     public void initialize() {
-        levelInfo.getBackground().addToGame(this); // add the background
+        this.background = levelInfo.getBackground();
+        this.background.addToGame(this); // add the background
         createStatusBar();
         createBorders();
         addLevelBlocks();
@@ -91,6 +114,8 @@ public class GameLevel implements Animation {
      */
     private void addLevelBlocks() {
         for (Block block : levelInfo.blocks()) {
+            levelBlocks.add(block);
+
             // Add hit listeners to the block
             block.addHitListener(new BlockRemover(this, blocksToRemove));
             block.addHitListener(new ScoreTrackingListener(playerScore));
@@ -135,7 +160,8 @@ public class GameLevel implements Animation {
         ArrayList<Indicator> statusIndicators = new ArrayList<Indicator>();
         statusIndicators.add(new LivesIndicator(this.livesLeft));
         statusIndicators.add(new ScoreIndicator(this.playerScore));
-        statusIndicators.add(new LevelIndicator(this.levelInfo.levelName()));
+        this.levelIndicator = new LevelIndicator(this.levelInfo.levelName());
+        statusIndicators.add(this.levelIndicator);
 
         // Create a status bar
         new StatusBar(statusIndicators).addToGame(this);
@@ -154,18 +180,56 @@ public class GameLevel implements Animation {
      * Loads a level.
      */
     public void playOneTurn() {
-        this.placeBallsAndPaddle();
-        if (this.ballsCount.getValue() == 0) {
-            this.ballsCount.increase(this.levelInfo.numberOfBalls());
-        }
+        startTurn();
 
         // Count down
         this.runner.run(new CountdownAnimation(2, 3, this.sprites));
 
         // Run the game
-        this.running = true;
         this.runner.run(this); // run the turn
+        endTurn();
+    }
+
+    /**
+     * Starts a turn: places the balls and the paddle.
+     */
+    public void startTurn() {
+        this.placeBallsAndPaddle();
+        if (this.ballsCount.getValue() == 0) {
+            this.ballsCount.increase(this.levelInfo.numberOfBalls());
+        }
+        this.running = true;
+    }
+
+    /**
+     * Moves the game one tick forward, and checks whether the turn is over.
+     *
+     * @param dt seconds passed since last tick
+     */
+    public void playTick(double dt) {
+        this.keyboard.nextTick();
+        long start = FrameProfiler.ENABLED ? System.nanoTime() : 0;
+        this.sprites.notifyAllTimePassed(dt);
+        if (FrameProfiler.ENABLED) {
+            FrameProfiler.getInstance().end(FrameProfiler.TIME_PASSED, start);
+        }
+        if (GameMetrics.ENABLED) {
+            GameMetrics.getInstance().setLiveBalls(ballsCount.getValue());
+        }
+
+        // Check if we need to stop the game
+        if (blocksToRemove.getValue() <= 0) {
+            running = false;
+        } else if (ballsCount.getValue() <= 0) {
+            running = false;
+        }
+    }
 
+    /**
+     * Ends a turn: takes a life if the balls are gone, or gives the bonus if
+     * the blocks are gone.
+     */
+    public void endTurn() {
         // No more balls - decrease lives count
         if (!this.areBallsLeft()) {
             this.livesLeft.decrease(1);
@@ -206,11 +270,19 @@ public class GameLevel implements Animation {
     }
 
     /**
-     * Creates a new paddle and adds it to the game.
+     * Creates the paddle and adds it to the game on the first turn, and puts
+     * it back in place on the next turns.
      */
     private void createPaddle() {
-        Paddle.getInstance(this.keyboard, this.levelInfo.paddleSpeed(),
-                this.levelInfo.paddleWidth()).addToGame(this);
+        if (this.paddle == null) {
+            this.paddle = new Paddle(this.keyboard,
+                    this.levelInfo.paddleSpeed(),
+                    this.levelInfo.paddleWidth());
+            this.paddle.addToGame(this);
+        } else {
+            this.paddle.reset(this.levelInfo.paddleSpeed(),
+                    this.levelInfo.paddleWidth());
+        }
     }
 
     /**
@@ -220,14 +292,24 @@ public class GameLevel implements Animation {
      * @param dt seconds passed since last move
      */
     public void doOneFrame(DrawSurface d, double dt) {
+        if (this.repository != null) {
+            reloadIfChanged();
+        }
+        FrameEvent frame = GameEvents.currentFrame();
+        long start = FrameProfiler.ENABLED || frame != null
+                ? System.nanoTime() : 0;
         this.sprites.drawAllOn(d);
-        this.sprites.notifyAllTimePassed(dt);
-
-        // Check if we need to stop the game
-        if (blocksToRemove.getValue() <= 0) {
-            running = false;
-        } else if (ballsCount.getValue() <= 0) {
-            running = false;
+        if (FrameProfiler.ENABLED) {
+            FrameProfiler.getInstance().end(FrameProfiler.DRAW, start);
+        }
+        if (frame != null) {
+            long drawEnd = System.nanoTime();
+            frame.setLevel(this.levelInfo.levelName());
+            frame.addDrawTime(drawEnd - start);
+            playTick(dt);
+            frame.addUpdateTime(System.nanoTime() - drawEnd);
+        } else {
+            playTick(dt);
         }
 
         // Check if we need to pause
@@ -244,6 +326,38 @@ public class GameLevel implements Animation {
         }
     }
 
+    /**
+     * Replaces the background, blocks and name of the level if its files
+     * changed. The balls and the paddle take the changes on the next turn.
+     */
+    private void reloadIfChanged() {
+        int version = this.repository.getVersion();
+        if (version == this.levelVersion) {
+            return;
+        }
+        this.levelVersion = version;
+        LevelInformation latest = this.repository.latest(this.levelInfo);
+        if (latest == this.levelInfo) {
+            return;
+        }
+        this.levelInfo = latest;
+
+        // Replace the background in place, to keep it under everything
+        Sprite newBackground = latest.getBackground();
+        this.sprites.replaceSprite(this.background, newBackground);
+        this.background = newBackground;
+        this.levelIndicator.setLevelName(latest.levelName());
+
+        // Start the blocks over
+        for (Block block : this.levelBlocks) {
+            block.removeFromGame(this);
+        }
+        this.levelBlocks.clear();
+        this.blocksToRemove.increase(latest.numberOfBlocksToRemove()
+                - this.blocksToRemove.getValue());
+        addLevelBlocks();
+    }
+
     /**
      * Returnes whether the game should stop.
      *
@@ -9,8 +9,15 @@ import java.awt.Color;
 /**
  * Represents the pause screen.
  */
-public class GameOverScreen implements Animation {
-    private int score;
+public class GameOverScreen implements IdleAnimation {
+    private String scoreText;
+    private String rankMessage = null;
+    private int frameVersion = 0;
+    private CachedArt background = new CachedArt() {
+        protected void draw(DrawSurface d) {
+            drawBackground(d);
+        }
+    };
 
     /**
      * Create the end screen.
@@ -18,7 +25,17 @@ public class GameOverScreen implements Animation {
      * @param finalScore is the final score
      */
     public GameOverScreen(int finalScore) {
-        this.score = finalScore;
+        this.scoreText = "Game Over. Your score is: " + finalScore;
+    }
+
+    /**
+     * Sets a message about the rank of the score, shown under the score.
+     *
+     * @param message the rank message
+     */
+    public void setRankMessage(String message) {
+        this.rankMessage = message;
+        this.frameVersion++;
     }
 
     /**
@@ -29,7 +46,7 @@ public class GameOverScreen implements Animation {
      */
     public void doOneFrame(DrawSurface d, double dt) {
         // Draw the screen
-        drawBackground(d);
+        background.drawOn(d);
         drawMessage(d);
     }
 
@@ -40,12 +57,18 @@ public class GameOverScreen implements Animation {
      */
     private void drawMessage(DrawSurface d) {
         d.setColor(Color.BLACK);
-        d.drawText(100, d.getHeight() / 2,
-                "Game Over. Your score is: " + score, 32);
+        d.drawText(100, d.getHeight() / 2, scoreText, 32);
+
+        // Where the score stands among all the scores
+        if (rankMessage != null) {
+            d.setColor(Color.WHITE);
+            d.drawText(100, d.getHeight() / 2 + 50, rankMessage, 24);
+        }
     }
 
     /**
-     * Draws the background of the screen.
+     * Draws the background of the screen, once, on the cached image shown
+     * under the message.
      *
      * @param d draw surface
      */
@@ -69,4 +92,22 @@ public class GameOverScreen implements Animation {
     public boolean shouldStop() {
         return true;
     }
-}
\ No newline at end of file
+
+    /**
+     * Checks whether the frame changes only when the version does.
+     *
+     * @return true - the score stays until the player goes on
+     */
+    public boolean isIdle() {
+        return true;
+    }
+
+    /**
+     * Returns the version of the frame, changed by a new rank message.
+     *
+     * @return the version
+     */
+    public int getFrameVersion() {
+        return frameVersion;
+    }
+}
@@ -0,0 +1,83 @@
+package animation;
+
+import biuoop.DialogManager;
+import biuoop.DrawSurface;
+import biuoop.GUI;
+import biuoop.KeyboardSensor;
+import biuoop.Sleeper;
+
+/**
+ * The game window of biuoop as a screen.
+ */
+public class GuiScreen implements Screen {
+    private static final long KEY_POLL_MILLIS = 50;
+
+    private final GUI gui;
+    private final Sleeper sleeper = new Sleeper();
+
+    /**
+     * Opens the game window.
+     *
+     * @param title  the window title
+     * @param width  the window width
+     * @param height the window height
+     */
+    public GuiScreen(String title, int width, int height) {
+        this.gui = new GUI(title, width, height);
+    }
+
+    /**
+     * Returns the game window.
+     *
+     * @return the gui
+     */
+    public GUI getGui() {
+        return gui;
+    }
+
+    /**
+     * Returns a surface to draw the next frame on.
+     *
+     * @return the surface
+     */
+    public DrawSurface getDrawSurface() {
+        return gui.getDrawSurface();
+    }
+
+    /**
+     * Shows a drawn frame in the window.
+     *
+     * @param d the surface the frame was drawn on
+     */
+    public void show(DrawSurface d) {
+        gui.show(d);
+    }
+
+    /**
+     * Returns the keyboard of the window.
+     *
+     * @return the keyboard sensor
+     */
+    public KeyboardSensor getKeyboardSensor() {
+        return gui.getKeyboardSensor();
+    }
+
+    /**
+     * Waits a while for the keys. biuoop doesn't tell when the keys change,
+     * so the wait is short.
+     *
+     * @param timeoutMillis most time to wait
+     */
+    public void awaitKey(long timeoutMillis) {
+        sleeper.sleepFor(Math.min(timeoutMillis, KEY_POLL_MILLIS));
+    }
+
+    /**
+     * Returns the dialogs of the window.
+     *
+     * @return the dialog manager
+     */
+    public DialogManager getDialogManager() {
+        return gui.getDialogManager();
+    }
+}
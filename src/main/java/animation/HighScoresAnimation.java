@@ -9,8 +9,14 @@ import java.awt.Color;
 /**
  * Represents the high scores screen animations.
  */
-public class HighScoresAnimation implements Animation {
+public class HighScoresAnimation implements IdleAnimation {
     private HighScoresTable scores;
+    private int frameVersion = 0;
+    private CachedArt background = new CachedArt() {
+        protected void draw(DrawSurface d) {
+            drawBackground(d);
+        }
+    };
 
     /**
      * Create a high scores animation screen.
@@ -21,6 +27,16 @@ public class HighScoresAnimation implements Animation {
         this.scores = scores;
     }
 
+    /**
+     * Replaces the table shown, such as when a newer one arrives.
+     *
+     * @param table the scores table
+     */
+    public void setTable(HighScoresTable table) {
+        this.scores = table;
+        this.frameVersion++;
+    }
+
     /**
      * One animation step.
      *
@@ -28,7 +44,7 @@ public class HighScoresAnimation implements Animation {
      * @param dt is the time of the move
      */
     public void doOneFrame(DrawSurface d, double dt) {
-        drawBackground(d);
+        background.drawOn(d);
         if (scores == null) {
             showNoScores(d);
         } else {
@@ -68,7 +84,8 @@ public class HighScoresAnimation implements Animation {
     }
 
     /**
-     * Draws the background of the screen.
+     * Draws the background of the screen. The medals never change, so they
+     * are drawn once, on a cached image.
      *
      * @param d draw surface
      */
@@ -119,4 +136,22 @@ public class HighScoresAnimation implements Animation {
     public boolean shouldStop() {
         return true;
     }
-}
\ No newline at end of file
+
+    /**
+     * Checks whether the frame changes only when the version does.
+     *
+     * @return true - the table changes only when replaced
+     */
+    public boolean isIdle() {
+        return true;
+    }
+
+    /**
+     * Returns the version of the frame.
+     *
+     * @return the version, changed by every new table
+     */
+    public int getFrameVersion() {
+        return frameVersion;
+    }
+}
@@ -0,0 +1,26 @@
+package animation;
+
+/**
+ * An animation whose frame changes only now and then - a menu, or a screen
+ * waiting for a key. While its frame is on the screen and hasn't changed,
+ * the animation runner doesn't draw it again: it waits for a key instead of
+ * the next frame, and plays the frame on a surface that draws nothing, so
+ * the animation still sees the keys.
+ */
+public interface IdleAnimation extends Animation {
+    /**
+     * Checks whether the frame changes only when the version does. An
+     * animation wrapping another is idle only if the other is.
+     *
+     * @return true if idle
+     */
+    boolean isIdle();
+
+    /**
+     * Returns the version of the frame, which changes whenever the frame
+     * does.
+     *
+     * @return the version
+     */
+    int getFrameVersion();
+}
@@ -6,7 +6,7 @@ import biuoop.KeyboardSensor;
 /**
  * Decorator wrapper - an animation that can be stopped by a key press.
  */
-public class KeyPressStoppableAnimation implements Animation {
+public class KeyPressStoppableAnimation implements IdleAnimation {
     private KeyboardSensor keyboardSensor;
     private String key;
     private Animation animation;
@@ -64,5 +64,27 @@ public class KeyPressStoppableAnimation implements Animation {
         stop = false;    // update the flag for future use not to stop
         return isToStop;
     }
-}
 
+    /**
+     * Checks whether the frame changes only when the version does: whether
+     * the wrapped animation is idle.
+     *
+     * @return true if idle
+     */
+    public boolean isIdle() {
+        return this.animation instanceof IdleAnimation
+                && ((IdleAnimation) this.animation).isIdle();
+    }
+
+    /**
+     * Returns the version of the wrapped animation's frame.
+     *
+     * @return the version, 0 if the animation isn't idle
+     */
+    public int getFrameVersion() {
+        if (this.animation instanceof IdleAnimation) {
+            return ((IdleAnimation) this.animation).getFrameVersion();
+        }
+        return 0;
+    }
+}
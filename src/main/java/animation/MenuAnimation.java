@@ -15,14 +15,20 @@ import java.util.TreeMap;
  *
  * @param <T>
  */
-public class MenuAnimation<T> implements Animation, Menu<T> {
+public class MenuAnimation<T> implements IdleAnimation, Menu<T> {
     private T status = null;
     private Map<String, T> menuOptions = new TreeMap<String, T>();
     private List<String> messages = new ArrayList<String>();
     private KeyboardSensor keyboardSensor;
     private AnimationRunner runner;
     private boolean stop = false;
+    private int frameVersion = 0;
     private Map<String, Menu<T>> subMenus = new TreeMap<String, Menu<T>>();
+    private CachedArt background = new CachedArt() {
+        protected void draw(DrawSurface d) {
+            drawBackground(d);
+        }
+    };
 
     /**
      * Creates a "leaf" menu: cannot run any sub-menu.
@@ -55,6 +61,7 @@ public class MenuAnimation<T> implements Animation, Menu<T> {
     public void addSelection(String key, String message, T returnVal) {
         this.menuOptions.put(key, returnVal);
         this.messages.add(message);
+        this.frameVersion++;
     }
 
     /**
@@ -67,6 +74,7 @@ public class MenuAnimation<T> implements Animation, Menu<T> {
     public void addSubMenu(String key, String message, Menu<T> subMenu) {
         subMenus.put(key, subMenu);
         messages.add(message);
+        frameVersion++;
     }
 
     /**
@@ -85,7 +93,7 @@ public class MenuAnimation<T> implements Animation, Menu<T> {
      * @param dt is the time of the move
      */
     public void doOneFrame(DrawSurface d, double dt) {
-        drawBackground(d);
+        background.drawOn(d);
         displayChoices(d);
         checkUserAction();
     }
@@ -102,7 +110,26 @@ public class MenuAnimation<T> implements Animation, Menu<T> {
     }
 
     /**
-     * Draws the menu background.
+     * Checks whether the frame changes only when the version does.
+     *
+     * @return true - the menu waits for the player's choice
+     */
+    public boolean isIdle() {
+        return true;
+    }
+
+    /**
+     * Returns the version of the frame, changed by every new option.
+     *
+     * @return the version
+     */
+    public int getFrameVersion() {
+        return frameVersion;
+    }
+
+    /**
+     * Draws the menu background - once, on the cached image shown under
+     * the choices.
      *
      * @param d draw surface
      */
@@ -9,7 +9,13 @@ import java.awt.Color;
 /**
  * Represents the pause screen.
  */
-public class PauseScreen implements Animation {
+public class PauseScreen implements IdleAnimation {
+    private CachedArt screen = new CachedArt() {
+        protected void draw(DrawSurface d) {
+            drawScreen(d);
+        }
+    };
+
     /**
      * Prepare one animation step.
      *
@@ -17,6 +23,16 @@ public class PauseScreen implements Animation {
      * @param dt time passed since last move
      */
     public void doOneFrame(DrawSurface d, double dt) {
+        screen.drawOn(d);
+    }
+
+    /**
+     * Draws the screen. Nothing on it changes, so it's drawn once and
+     * cached.
+     *
+     * @param d draw surface
+     */
+    private void drawScreen(DrawSurface d) {
         Color backgColor = new Color(205, 252, 228);
         Color textColor = new Color(51, 175, 150);
 
@@ -37,4 +53,22 @@ public class PauseScreen implements Animation {
     public boolean shouldStop() {
         return false;
     }
-}
\ No newline at end of file
+
+    /**
+     * Checks whether the frame changes only when the version does.
+     *
+     * @return true - the screen waits for the player
+     */
+    public boolean isIdle() {
+        return true;
+    }
+
+    /**
+     * Returns the version of the frame.
+     *
+     * @return the version, always 0 - nothing on it changes
+     */
+    public int getFrameVersion() {
+        return 0;
+    }
+}
@@ -0,0 +1,88 @@
+package animation;
+
+import biuoop.DrawSurface;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The render thread of an animation runner: draws the latest frame snapshot
+ * of the game thread on the screen and shows it, whenever there is a new
+ * one. A slow show delays only the next frame on the screen, never the game.
+ */
+final class RenderLoop implements Runnable {
+    private static final long WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Screen screen;
+    private final SnapshotExchange exchange;
+    private volatile boolean running = true;
+    private Thread thread;
+
+    /**
+     * Creates the render loop.
+     *
+     * @param screen   the screen to show the frames on
+     * @param exchange the snapshots of the game thread
+     */
+    RenderLoop(Screen screen, SnapshotExchange exchange) {
+        this.screen = screen;
+        this.exchange = exchange;
+    }
+
+    /**
+     * Starts the render thread.
+     */
+    void start() {
+        thread = new Thread(this, "render");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the render thread, after it shows the last published frame.
+     */
+    void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Shows the new frames until stopped.
+     */
+    public void run() {
+        while (running) {
+            FrameSnapshot frame = exchange.awaitFrame(WAIT_NANOS);
+            if (frame != null) {
+                show(frame);
+            }
+        }
+
+        // The last frame of the animation stays on the screen
+        FrameSnapshot last = exchange.awaitFrame(0);
+        if (last != null) {
+            show(last);
+        }
+    }
+
+    /**
+     * Draws a frame on the screen and shows it.
+     *
+     * @param frame the frame
+     */
+    private void show(FrameSnapshot frame) {
+        DrawSurface d = screen.getDrawSurface();
+        frame.drawOn(d);
+        screen.show(d);
+    }
+}
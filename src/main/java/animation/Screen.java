@@ -0,0 +1,49 @@
+package animation;
+
+import biuoop.DialogManager;
+import biuoop.DrawSurface;
+import biuoop.KeyboardSensor;
+
+/**
+ * Where an animation runner shows its frames and reads the keys from: the
+ * game window, or a screen standing for it.
+ */
+public interface Screen {
+    /**
+     * Returns a surface to draw the next frame on.
+     *
+     * @return the surface
+     */
+    DrawSurface getDrawSurface();
+
+    /**
+     * Shows a drawn frame.
+     *
+     * @param d the surface the frame was drawn on
+     */
+    void show(DrawSurface d);
+
+    /**
+     * Returns the keyboard of the screen.
+     *
+     * @return the keyboard sensor
+     */
+    KeyboardSensor getKeyboardSensor();
+
+    /**
+     * Waits until a key is pressed or released, or the time passes. A
+     * screen that can't tell when the keys change waits a shorter while,
+     * so the keys are read again soon.
+     *
+     * @param timeoutMillis most time to wait
+     */
+    void awaitKey(long timeoutMillis);
+
+    /**
+     * Returns the dialogs of the screen, such as the high score name
+     * question.
+     *
+     * @return the dialog manager
+     */
+    DialogManager getDialogManager();
+}
@@ -0,0 +1,100 @@
+package animation;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands frame snapshots from the game thread to the render thread, without
+ * locks: three snapshots are swapped between the frame being recorded, the
+ * latest recorded frame, and the frame being drawn. The game thread never
+ * waits for the render thread; a frame the render thread had no time for is
+ * replaced by the next one.
+ * <p>
+ * {@link #beginFrame()} and {@link #publish()} are called by the game
+ * thread only, {@link #awaitFrame(long)} by the render thread only.
+ */
+final class SnapshotExchange {
+    private final AtomicReference<FrameSnapshot> latest;
+    private volatile long published = 0;
+    private volatile Thread reader = null;
+
+    // Owned by the game thread
+    private FrameSnapshot recording;
+    private long recorded = 0;
+
+    // Owned by the render thread
+    private FrameSnapshot drawing;
+    private long taken = 0;
+    private long skipped = 0;
+
+    /**
+     * Creates the exchange with snapshots of a surface's size.
+     *
+     * @param width  the surface width
+     * @param height the surface height
+     */
+    SnapshotExchange(int width, int height) {
+        this.recording = new FrameSnapshot(width, height);
+        this.drawing = new FrameSnapshot(width, height);
+        this.latest = new AtomicReference<FrameSnapshot>(
+                new FrameSnapshot(width, height));
+    }
+
+    /**
+     * Returns an empty snapshot to record the next frame on.
+     *
+     * @return the snapshot
+     */
+    FrameSnapshot beginFrame() {
+        recording.clear();
+        return recording;
+    }
+
+    /**
+     * Makes the recorded frame the latest one, and wakes the render thread.
+     */
+    void publish() {
+        recording.setSequence(++recorded);
+        recording = latest.getAndSet(recording);
+        published = recorded;
+        Thread waiting = reader;
+        if (waiting != null) {
+            LockSupport.unpark(waiting);
+        }
+    }
+
+    /**
+     * Waits for a frame newer than the last one taken, and takes the latest
+     * frame.
+     *
+     * @param timeoutNanos most time to wait
+     * @return the frame, null if none came in time or the thread was woken
+     * without one
+     */
+    FrameSnapshot awaitFrame(long timeoutNanos) {
+        // The frame taken last may be newer than the one seen published:
+        // the game thread swaps a frame in before it counts it published
+        reader = Thread.currentThread();
+        if (published <= taken) {
+            LockSupport.parkNanos(this, timeoutNanos);
+            if (published <= taken) {
+                return null;
+            }
+        }
+
+        // At least as new as the frame seen published, so newer than taken
+        drawing = latest.getAndSet(drawing);
+        skipped += drawing.getSequence() - taken - 1;
+        taken = drawing.getSequence();
+        return drawing;
+    }
+
+    /**
+     * Returns the number of frames replaced before they were drawn.
+     *
+     * @return number of frames, as counted by the render thread
+     */
+    long getSkipped() {
+        return skipped;
+    }
+}
@@ -0,0 +1,142 @@
+package animation;
+
+import biuoop.DialogManager;
+
+import javax.swing.JOptionPane;
+import java.awt.EventQueue;
+import java.awt.Frame;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * The dialogs of a {@link CanvasScreen}, shown by Swing over its window.
+ * The calling thread waits for the player's answer, while the dialog is
+ * shown on the event thread.
+ */
+final class SwingDialogs implements DialogManager {
+    private final Frame owner;
+
+    /**
+     * Creates the dialogs of a window.
+     *
+     * @param owner the window
+     */
+    SwingDialogs(Frame owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Asks the player a question.
+     *
+     * @param title        the dialog title
+     * @param message      the question
+     * @param defaultValue the answer shown first
+     * @return the answer, the default one if the player cancels
+     */
+    public String showQuestionDialog(final String title,
+                                     final String message,
+                                     final String defaultValue) {
+        final String[] answer = {defaultValue};
+        onEventThread(new Runnable() {
+            public void run() {
+                Object value = JOptionPane.showInputDialog(owner, message,
+                        title, JOptionPane.QUESTION_MESSAGE, null, null,
+                        defaultValue);
+                if (value != null) {
+                    answer[0] = value.toString();
+                }
+            }
+        });
+        return answer[0];
+    }
+
+    /**
+     * Asks the player a yes or no question.
+     *
+     * @param title   the dialog title
+     * @param message the question
+     * @return true for yes
+     */
+    public boolean showYesNoDialog(final String title,
+                                   final String message) {
+        final boolean[] answer = {false};
+        onEventThread(new Runnable() {
+            public void run() {
+                answer[0] = JOptionPane.showConfirmDialog(owner, message,
+                        title, JOptionPane.YES_NO_OPTION)
+                        == JOptionPane.YES_OPTION;
+            }
+        });
+        return answer[0];
+    }
+
+    /**
+     * Tells the player something.
+     *
+     * @param title   the dialog title
+     * @param message the message
+     */
+    public void showInformationDialog(String title, String message) {
+        showMessage(title, message, JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Tells the player of an error.
+     *
+     * @param title   the dialog title
+     * @param message the message
+     */
+    public void showErrorDialog(String title, String message) {
+        showMessage(title, message, JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * Shows a message until the player closes it.
+     *
+     * @param title   the dialog title
+     * @param message the message
+     * @param type    the message type of the option pane
+     */
+    private void showMessage(final String title, final String message,
+                             final int type) {
+        onEventThread(new Runnable() {
+            public void run() {
+                JOptionPane.showMessageDialog(owner, message, title, type);
+            }
+        });
+    }
+
+    /**
+     * Runs a dialog on the event thread, and waits for it.
+     *
+     * @param dialog the dialog
+     */
+    private static void onEventThread(Runnable dialog) {
+        if (EventQueue.isDispatchThread()) {
+            dialog.run();
+            return;
+        }
+        FutureTask<Void> task = new FutureTask<Void>(dialog, null);
+        EventQueue.invokeLater(task);
+
+        // The dialog is shown once; an interrupt only stops the waiting
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    task.get();
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("The dialog failed",
+                    e.getCause());
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -10,8 +10,15 @@ import java.awt.Color;
 /**
  * Represents the "you win" screen.
  */
-public class WinScreen implements Animation {
-    private int score;
+public class WinScreen implements IdleAnimation {
+    private String scoreText;
+    private String rankMessage = null;
+    private int frameVersion = 0;
+    private CachedArt background = new CachedArt() {
+        protected void draw(DrawSurface d) {
+            drawBackground(d);
+        }
+    };
 
     /**
      * Create the end screen.
@@ -19,7 +26,17 @@ public class WinScreen implements Animation {
      * @param finalScore is the final score
      */
     public WinScreen(int finalScore) {
-        this.score = finalScore;
+        this.scoreText = "You Win! Your score is: " + finalScore;
+    }
+
+    /**
+     * Sets a message about the rank of the score, shown under the score.
+     *
+     * @param message the rank message
+     */
+    public void setRankMessage(String message) {
+        this.rankMessage = message;
+        this.frameVersion++;
     }
 
     /**
@@ -30,7 +47,7 @@ public class WinScreen implements Animation {
      */
     public void doOneFrame(DrawSurface d, double dt) {
         // Draw the screen
-        drawBackground(d);
+        background.drawOn(d);
         drawMessage(d);
     }
 
@@ -44,7 +61,8 @@ public class WinScreen implements Animation {
     }
 
     /**
-     * Draws the background of the screen.
+     * Draws the background of the screen. The sun and its rays are drawn
+     * once, on a cached image.
      *
      * @param d draw surface
      */
@@ -75,7 +93,30 @@ public class WinScreen implements Animation {
      */
     private void drawMessage(DrawSurface d) {
         d.setColor(Color.BLACK);
-        d.drawText(100, d.getHeight() / 2,
-                "You Win! Your score is: " + score, 32);
+        d.drawText(100, d.getHeight() / 2, scoreText, 32);
+
+        // Where the score stands among all the scores
+        if (rankMessage != null) {
+            d.setColor(Color.WHITE);
+            d.drawText(100, d.getHeight() / 2 + 50, rankMessage, 24);
+        }
+    }
+
+    /**
+     * Checks whether the frame changes only when the version does.
+     *
+     * @return true - the score stays until the player goes on
+     */
+    public boolean isIdle() {
+        return true;
+    }
+
+    /**
+     * Returns the version of the frame, changed by a new rank message.
+     *
+     * @return the version
+     */
+    public int getFrameVersion() {
+        return frameVersion;
     }
-}
\ No newline at end of file
+}
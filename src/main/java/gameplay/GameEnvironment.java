@@ -5,23 +5,31 @@ import biuoop.DrawSurface;
 import graphics.Line;
 import graphics.Point;
 import graphics.Rectangle;
+import profiling.FrameProfiler;
+import profiling.GameMetrics;
 import sprites.Block;
 import sprites.Collidable;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.ArrayList;
 
 /**
  * The game environment - contains all the objects on the game screen.
+ * <p>
+ * The collision queries don't allocate: the point and the info they return
+ * are reused by the next query, so they must be used before it.
  */
 public class GameEnvironment {
-    private LinkedList<Collidable> collidables;
+    private ArrayList<Collidable> collidables;
+    private final Point intersection = new Point(0, 0);
+    private final Point collisionPoint = new Point(0, 0);
+    private final CollisionInfo collision
+            = new CollisionInfo(collisionPoint, null);
 
     /**
      * Creates the game environment and adds blocks on screen sides.
      */
     public GameEnvironment() {
-        this.collidables = new LinkedList<Collidable>();
+        this.collidables = new ArrayList<Collidable>();
     }
 
     /**
@@ -31,6 +39,9 @@ public class GameEnvironment {
      */
     public void addCollidable(Collidable c) {
         this.collidables.add(c);
+        if (GameMetrics.ENABLED) {
+            GameMetrics.getInstance().setLiveCollidables(collidables.size());
+        }
     }
 
     /**
@@ -40,6 +51,9 @@ public class GameEnvironment {
      */
     public void removeCollidable(Collidable c) {
         this.collidables.remove(c);
+        if (GameMetrics.ENABLED) {
+            GameMetrics.getInstance().setLiveCollidables(collidables.size());
+        }
     }
 
     /**
@@ -48,11 +62,9 @@ public class GameEnvironment {
      * @param d draw surface
      */
     public void drawGameBlocks(DrawSurface d) {
-        // Make a copy to prevent exceptions if the list changes
-        List<Collidable> collidablesCopy
-                = new LinkedList<Collidable>(this.collidables);
-        for (Collidable block : collidablesCopy) {
-            ((Block) block).drawOn(d);
+        // Drawing doesn't change the list - no need to copy it
+        for (int i = 0; i < this.collidables.size(); i++) {
+            ((Block) this.collidables.get(i)).drawOn(d);
         }
     }
 
@@ -63,46 +75,59 @@ public class GameEnvironment {
      * @return Gets collision with the closest object, null if no collision
      */
     public CollisionInfo getClosestCollision(Line trajectory) {
+        long start = FrameProfiler.ENABLED ? System.nanoTime() : 0;
+        CollisionInfo closest = findClosestCollision(trajectory);
+        if (FrameProfiler.ENABLED) {
+            FrameProfiler.getInstance().end(FrameProfiler.COLLISIONS, start);
+        }
+        if (GameMetrics.ENABLED) {
+            GameMetrics.getInstance().collisionQuery(collidables.size());
+        }
+        return closest;
+    }
+
+    /**
+     * Looks for the closest collision on the track line.
+     *
+     * @param trajectory the line to check collision
+     * @return the collision with the closest object, null if no collision
+     */
+    private CollisionInfo findClosestCollision(Line trajectory) {
         double minDistance = -1;
         double currDistance;
-        Point currIntersection;
-        Point closestIntersection = null;
+        double closestX = 0;
+        double closestY = 0;
         Collidable closestObject = null;
 
-        // Make a copy to prevent exceptions if the list changes
-        List<Collidable> collidablesCopy
-                = new LinkedList<Collidable>(this.collidables);
-
-        // Go over all the collidables
-        for (Collidable collidable : collidablesCopy) {
+        // Go over all the collidables - the list doesn't change meanwhile
+        for (int i = 0; i < this.collidables.size(); i++) {
+            Collidable collidable = this.collidables.get(i);
             Rectangle rectangle = collidable.getCollisionRectangle();
             // Get the intersection point with current rectangle
-            currIntersection = trajectory
-                    .closestIntersectionToStartOfLine(rectangle);
-            if (currIntersection == null) {
+            if (!trajectory.closestIntersectionToStartOfLine(rectangle,
+                    intersection)) {
                 continue;
             }
 
             // If it's the closest point yet - save it
-            currDistance = trajectory.start().distance(currIntersection);
+            currDistance = trajectory.start().distance(intersection);
 
             if (currDistance == 0) { // if it's the same point - don't count it
                 continue;
             }
             if ((minDistance == -1) || (currDistance < minDistance)) {
                 minDistance = currDistance;
-                closestIntersection = currIntersection;
+                closestX = intersection.getX();
+                closestY = intersection.getY();
                 closestObject = collidable;
             }
         }
 
-        if (closestIntersection != null) {
+        if (closestObject != null) {
             // Round the coordinates and return
-            double roundX = Math.round(closestIntersection.getX());
-            double roundY = Math.round(closestIntersection.getY());
-            closestIntersection.setX(roundX);
-            closestIntersection.setY(roundY);
-            return new CollisionInfo(closestIntersection, closestObject);
+            collisionPoint.set(closestX, closestY);
+            collision.set(collisionPoint, closestObject);
+            return collision;
         }
         return null; // no collision
     }
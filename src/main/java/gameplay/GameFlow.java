@@ -6,17 +6,32 @@ import animation.Animation;
 import animation.WinScreen;
 import animation.GameOverScreen;
 import animation.HighScoresAnimation;
+import animation.IdleAnimation;
 import animation.KeyPressStoppableAnimation;
 import biuoop.DialogManager;
+import biuoop.DrawSurface;
 import biuoop.KeyboardSensor;
+import replay.RecordingSensor;
+import replay.ReplaySubmission;
 import scores.HighScoresTable;
+import scores.LeaderboardClient;
 import scores.ScoreInfo;
+import scores.ScoreNotSentException;
+import scores.ScoresRanking;
+import scores.ScoresStore;
+import scores.ScoresWriter;
+import scores.SharedScoresFile;
 import utils.Counter;
 import utils.Finals;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Class in charge of creating the game levels and running them one after
@@ -25,9 +40,14 @@ import java.util.List;
 public class GameFlow {
     private KeyboardSensor keyboardSensor;
     private AnimationRunner animationRunner;
-    private HighScoresTable scoresTable;
+    private SharedScoresFile scoresFile;
+    private ScoresStore localScores = new ScoresStore();
     private Counter playerScore;
     private Counter livesLeft;
+    private int startLives;
+    private String levelSet = "";
+    private String levelsFile = null;
+    private RecordingSensor recorder;
 
     /**
      * Creates the game flow.
@@ -40,13 +60,21 @@ public class GameFlow {
                     int lives) {
         this.animationRunner = runner;
         this.keyboardSensor = keySensor;
-        this.playerScore = new Counter(0);
-        this.livesLeft = new Counter(lives);
+        this.startLives = lives;
+    }
 
-        // Load the high scores table
-        this.scoresTable
-                = new HighScoresTable(Finals.getInstance().getScoresToKeep());
-        loadScores();
+    /**
+     * Run the game with the list of levels chosen from a level set.
+     *
+     * @param levels     list of levels information in running order
+     * @param setKey     key of the level set, saved with the score
+     * @param levelsFile the levels file, saved with the recorded game
+     */
+    public void runLevels(List<LevelInformation> levels, String setKey,
+                          String levelsFile) {
+        this.levelSet = setKey;
+        this.levelsFile = levelsFile;
+        runLevels(levels);
     }
 
     /**
@@ -57,10 +85,17 @@ public class GameFlow {
     public void runLevels(List<LevelInformation> levels) {
         boolean playerWon = true;
 
+        // Every game starts anew - one flow plays all the games of a run
+        this.playerScore = new Counter(0);
+        this.livesLeft = new Counter(this.startLives);
+
+        // Record the paddle keys, to send with the score
+        this.recorder = new RecordingSensor(keyboardSensor);
+
         // Run levels as they are in list
         for (LevelInformation levelInfo : levels) {
             // Create the current level
-            GameLevel level = new GameLevel(levelInfo, keyboardSensor,
+            GameLevel level = new GameLevel(levelInfo, recorder,
                     animationRunner, playerScore, livesLeft);
             level.initialize();
 
@@ -81,29 +116,70 @@ public class GameFlow {
     }
 
     /**
-     * Load the scores from file to the table.
+     * Runs an action on all the scores: the shared scores file, or the
+     * scores of this run if it can't be used.
+     *
+     * @param action the action
+     * @param <T>    type of the action result
+     * @return the action result
      */
-    private void loadScores() {
-        File scoresFile = new File(Finals.getInstance().getScoresFileName());
-        if (scoresFile.exists()) {
+    private <T> T withScores(SharedScoresFile.Action<T> action) {
+        if (this.scoresFile != null) {
             try {
-                this.scoresTable.load(scoresFile);
+                return this.scoresFile.withLock(action);
             } catch (IOException e) {
                 e.printStackTrace();
+                this.scoresFile = null; // keep the scores of this run only
             }
         }
+        return action.run(this.localScores);
+    }
+
+    /**
+     * Submits the player's score to the scores file in the background, or
+     * keeps it in the scores of this run if the file can't be used.
+     *
+     * @param scoreInfo the player's score
+     */
+    private void submitScore(ScoreInfo scoreInfo) {
+        if (this.scoresFile != null) {
+            ScoresWriter.getInstance().submit(this.scoresFile, scoreInfo);
+        } else {
+            this.localScores.insert(scoreInfo);
+        }
     }
 
     /**
-     * Save high scores to file.
+     * Waits a limited time for the leaderboard.
+     *
+     * @param result the leaderboard request
+     * @param <T>    type of the request result
+     * @return the result, null if it failed or took too long
      */
-    private void saveScores() {
-        File scoresFile = new File(Finals.getInstance().getScoresFileName());
+    private static <T> T waitForLeaderboard(Future<T> result) {
         try {
-            this.scoresTable.save(scoresFile);
-        } catch (IOException e) {
-            e.printStackTrace();
+            return result.get(Finals.getInstance()
+                    .getLeaderboardTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.out.println("Leaderboard failed: " + e.getCause());
+        } catch (TimeoutException e) {
+            System.out.println("Leaderboard didn't answer in time");
         }
+        result.cancel(false);
+        return null;
+    }
+
+    /**
+     * Makes a table of the best scores.
+     *
+     * @param top the best scores, from the highest
+     * @return the table
+     */
+    private static HighScoresTable makeTable(List<ScoreInfo> top) {
+        return new HighScoresTable(Finals.getInstance().getScoresToKeep(),
+                ScoresStore.fromSorted(top));
     }
 
     /**
@@ -112,14 +188,82 @@ public class GameFlow {
      * @param playerWon indication whether the player won
      */
     private void finishGame(boolean playerWon) {
+        try {
+            this.scoresFile = SharedScoresFile.getInstance();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        // Pull the site leaderboard while the end screen shows
+        final int scoresToKeep = Finals.getInstance().getScoresToKeep();
+        LeaderboardClient leaderboard = LeaderboardClient.getInstance();
+        Future<LeaderboardClient.Leaderboard> siteTop = null;
+        if (leaderboard != null) {
+            siteTop = leaderboard.fetchTop(scoresToKeep);
+        }
+
         // Display the end screen - win or lose
         displayEndScreen(playerWon);
 
-        // Add the player's score if needed, and display the scores table
-        if (this.scoresTable.isToAdd(this.playerScore.getValue())) {
-            addHighScore();
+        // Ask for a name if it's a high score - of the site if it answers,
+        // of the local scores if not
+        final int currScore = this.playerScore.getValue();
+        LeaderboardClient.Leaderboard board = null;
+        if (siteTop != null) {
+            board = waitForLeaderboard(siteTop);
+        }
+        boolean isHighScore;
+        if (board != null) {
+            isHighScore = makeTable(board.getTop()).isToAdd(currScore);
+        } else {
+            isHighScore = withScores(
+                    new SharedScoresFile.Action<Boolean>() {
+                        public Boolean run(ScoresRanking scores) {
+                            return new HighScoresTable(scoresToKeep, scores)
+                                    .isToAdd(currScore);
+                        }
+                    });
+        }
+        String playerName = isHighScore ? getPlayerName() : "";
+        ScoreInfo scoreInfo = new ScoreInfo(playerName, currScore,
+                System.currentTimeMillis(), this.levelSet);
+        queueReplay(scoreInfo);
+
+        // Submit to the site leaderboard in the background - the local
+        // table shows meanwhile - or keep the score in the local file
+        if (leaderboard != null) {
+            SiteScores siteScores = new SiteScores(leaderboard, scoreInfo,
+                    new HighScoresAnimation(getLocalTable()));
+            displayHighScores(siteScores);
+            siteScores.finish();
+        } else {
+            // The table shows the score before the file has it
+            HighScoresTable table = getLocalTable();
+            table.add(scoreInfo);
+            submitScore(scoreInfo);
+            displayHighScores(new HighScoresAnimation(table));
+        }
+    }
+
+    /**
+     * Saves the recorded game with its score to the replay queue, to be
+     * verified later. Games played in dev mode may have changed levels
+     * while playing, so they are not saved.
+     *
+     * @param scoreInfo the player's score
+     */
+    private void queueReplay(ScoreInfo scoreInfo) {
+        Finals finals = Finals.getInstance();
+        if (this.levelsFile == null || finals.isDevMode()) {
+            return;
+        }
+        ReplaySubmission submission = new ReplaySubmission(scoreInfo,
+                this.levelsFile, this.startLives, this.recorder.getLog());
+        try {
+            submission.saveTo(new File(finals.getReplayQueueDir()));
+        } catch (IOException e) {
+            e.printStackTrace();
         }
-        displayHighScores();
     }
 
     /**
@@ -133,10 +277,15 @@ public class GameFlow {
         int currScore = this.playerScore.getValue();
 
         // Decide which screen we need
+        String rankMessage = getRankMessage(currScore);
         if (playerWon) {
-            endScreen = new WinScreen(currScore);
+            WinScreen winScreen = new WinScreen(currScore);
+            winScreen.setRankMessage(rankMessage);
+            endScreen = winScreen;
         } else {
-            endScreen = new GameOverScreen(currScore);
+            GameOverScreen gameOverScreen = new GameOverScreen(currScore);
+            gameOverScreen.setRankMessage(rankMessage);
+            endScreen = gameOverScreen;
         }
 
         // Wrap the screen with a stoppable animation
@@ -146,34 +295,62 @@ public class GameFlow {
         this.animationRunner.run(stoppableEndScreen);
     }
 
+    /**
+     * Makes a message about the place of the score among all the scores.
+     *
+     * @param score the player's score
+     * @return the rank message
+     */
+    private String getRankMessage(final int score) {
+        return withScores(new SharedScoresFile.Action<String>() {
+            public String run(ScoresRanking scores) {
+                return String.format(
+                        "Rank %d of %d - better than %.1f%% of games",
+                        scores.rank(score), scores.size() + 1,
+                        scores.percentileOf(score));
+            }
+        });
+    }
+
+    /**
+     * Makes a table of the best local scores. It is a copy - other games may
+     * change the file meanwhile.
+     *
+     * @return the table
+     */
+    private HighScoresTable getLocalTable() {
+        return withScores(localTable());
+    }
+
+    /**
+     * Returns an action that makes a table of the best scores it is run on.
+     *
+     * @return the action
+     */
+    private static SharedScoresFile.Action<HighScoresTable> localTable() {
+        final int scoresToKeep = Finals.getInstance().getScoresToKeep();
+        return new SharedScoresFile.Action<HighScoresTable>() {
+            public HighScoresTable run(ScoresRanking scores) {
+                return makeTable(scores.topK(scoresToKeep));
+            }
+        };
+    }
+
     /**
      * Displays the high scores screen.
+     *
+     * @param scores the high scores animation
      */
-    private void displayHighScores() {
+    private void displayHighScores(Animation scores) {
         // Create the screen
         KeyPressStoppableAnimation scoresScreen = new
-                KeyPressStoppableAnimation(this.keyboardSensor,
-                new HighScoresAnimation(this.scoresTable),
+                KeyPressStoppableAnimation(this.keyboardSensor, scores,
                 Finals.getInstance().getStopAnimationKey());
 
         // Run the screen animation
         this.animationRunner.run(scoresScreen);
     }
 
-    /**
-     * Adds new high score and saves updated table to file.
-     */
-    private void addHighScore() {
-        // Create new score info
-        int currScore = this.playerScore.getValue();
-        String playerName = getPlayerName();
-        ScoreInfo scoreInfo = new ScoreInfo(playerName, currScore);
-
-        // Add and save
-        scoresTable.add(scoreInfo);
-        saveScores();
-    }
-
     /**
      * Gets a name from the user.
      *
@@ -181,7 +358,7 @@ public class GameFlow {
      */
     private String getPlayerName() {
         DialogManager dialog
-                = this.animationRunner.getGui().getDialogManager();
+                = this.animationRunner.getDialogManager();
         String name = dialog.showQuestionDialog("New high score!",
                 "What is your name?", "");
 
@@ -198,4 +375,208 @@ public class GameFlow {
     private boolean areLivesLeft() {
         return this.livesLeft.getValue() > 0;
     }
-}
\ No newline at end of file
+
+    /**
+     * The high scores screen of a score submitted to the site leaderboard.
+     * The local table shows first; the submission and then the site's top
+     * scores are checked on every frame, and the site's table replaces the
+     * local one when it arrives. A score the site didn't take in time is
+     * withdrawn and kept in the local file - unless it was already sent,
+     * as the site may still take it, and it must not be counted twice. The
+     * score is written and the local table read again on the scores
+     * writer's thread, and the table shows when it is read; a frame never
+     * waits for the file.
+     */
+    private final class SiteScores implements IdleAnimation {
+        private final LeaderboardClient leaderboard;
+        private final ScoreInfo scoreInfo;
+        private final HighScoresAnimation screen;
+        private Future<ScoreInfo> submitted;
+        private Future<LeaderboardClient.Leaderboard> top = null;
+        private Future<HighScoresTable> localTop = null;
+        private long deadline;
+
+        /**
+         * Submits the score.
+         *
+         * @param leaderboard the site leaderboard
+         * @param scoreInfo   the player's score
+         * @param screen      the screen, showing the local table
+         */
+        SiteScores(LeaderboardClient leaderboard, ScoreInfo scoreInfo,
+                   HighScoresAnimation screen) {
+            this.leaderboard = leaderboard;
+            this.scoreInfo = scoreInfo;
+            this.screen = screen;
+            this.submitted = leaderboard.submit(scoreInfo);
+            this.deadline = System.currentTimeMillis()
+                    + Finals.getInstance().getLeaderboardTimeoutMillis();
+        }
+
+        /**
+         * Checks the replies, then shows the table.
+         *
+         * @param d  is the surface
+         * @param dt is the time of the move
+         */
+        public void doOneFrame(DrawSurface d, double dt) {
+            checkSubmission();
+            checkTop();
+            checkLocalTop();
+            screen.doOneFrame(d, dt);
+        }
+
+        /**
+         * Indicates whether the screen should stop.
+         *
+         * @return true / false
+         */
+        public boolean shouldStop() {
+            return screen.shouldStop();
+        }
+
+        /**
+         * Checks whether the frame changes only when the version does.
+         *
+         * @return true if the screen is idle
+         */
+        public boolean isIdle() {
+            return screen.isIdle();
+        }
+
+        /**
+         * Returns the version of the screen's frame.
+         *
+         * @return the version
+         */
+        public int getFrameVersion() {
+            return screen.getFrameVersion();
+        }
+
+        /**
+         * Settles a submission still unanswered when the screen was left:
+         * withdraws it if it wasn't sent, or waits a limited time for its
+         * answer if it was.
+         */
+        void finish() {
+            if (submitted == null) {
+                return;
+            }
+            if (submitted.cancel(false)) {
+                submitScore(scoreInfo);
+                return;
+            }
+            try {
+                submitted.get(Finals.getInstance()
+                        .getLeaderboardTimeoutMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                submissionFailed(e.getCause());
+            } catch (TimeoutException e) {
+                System.out.println("Leaderboard may have the score still");
+            }
+            submitted = null;
+        }
+
+        /**
+         * Checks the submission: pulls the site's top scores when it was
+         * taken, and keeps the score locally if it can't be.
+         */
+        private void checkSubmission() {
+            if (submitted == null) {
+                return;
+            }
+            if (submitted.isDone()) {
+                try {
+                    submitted.get();
+                    top = leaderboard.fetchTop(
+                            Finals.getInstance().getScoresToKeep());
+                    deadline = System.currentTimeMillis() + Finals
+                            .getInstance().getLeaderboardTimeoutMillis();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    submissionFailed(e.getCause());
+                }
+                submitted = null;
+            } else if (System.currentTimeMillis() > deadline
+                    && submitted.cancel(false)) {
+                System.out.println("Leaderboard didn't answer in time");
+                keepLocally();
+                submitted = null;
+            }
+        }
+
+        /**
+         * Checks the site's top scores, and shows them when they arrive.
+         */
+        private void checkTop() {
+            if (top == null) {
+                return;
+            }
+            if (top.isDone()) {
+                try {
+                    screen.setTable(makeTable(top.get().getTop()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    System.out.println("Leaderboard failed: "
+                            + e.getCause());
+                } catch (CancellationException e) {
+                    System.out.println("Leaderboard failed: " + e);
+                }
+                top = null;
+            } else if (System.currentTimeMillis() > deadline) {
+                System.out.println("Leaderboard didn't answer in time");
+                top.cancel(true);
+                top = null;
+            }
+        }
+
+        /**
+         * Handles a failed submission: keeps the score locally if it surely
+         * didn't reach the site.
+         *
+         * @param cause the failure
+         */
+        private void submissionFailed(Throwable cause) {
+            System.out.println("Leaderboard failed: " + cause);
+            if (cause instanceof ScoreNotSentException) {
+                keepLocally();
+            }
+        }
+
+        /**
+         * Checks the local table read again, and shows it when it is read.
+         */
+        private void checkLocalTop() {
+            if (localTop == null || !localTop.isDone()) {
+                return;
+            }
+            try {
+                screen.setTable(localTop.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                e.getCause().printStackTrace();
+            }
+            localTop = null;
+        }
+
+        /**
+         * Keeps the score in the local file, and reads the local table
+         * again in the background - or right away, if only the scores of
+         * this run are kept.
+         */
+        private void keepLocally() {
+            submitScore(scoreInfo);
+            if (scoresFile == null) {
+                screen.setTable(getLocalTable());
+            } else {
+                localTop = ScoresWriter.getInstance().read(scoresFile,
+                        localTable());
+            }
+        }
+    }
+}
@@ -54,7 +54,8 @@ public interface LevelInformation {
 
     /**
      * The Blocks that make up this level. Each block contains it's size, color
-     * and location.
+     * and location. Every call returns new blocks, so the level can be played
+     * again.
      *
      * @return blocks
      */
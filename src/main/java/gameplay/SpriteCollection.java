@@ -1,23 +1,28 @@
 package gameplay;
 
 import biuoop.DrawSurface;
+import profiling.GameMetrics;
 import sprites.Sprite;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * Collection of all the sprites on the game field.
+ * <p>
+ * The sprites are copied before every pass, as a pass may add or remove
+ * sprites; the copy goes to an array that is kept between passes, and
+ * grows as sprites are added, so a pass doesn't allocate.
  */
 public class SpriteCollection {
-    private LinkedList<Sprite> sprites;
+    private ArrayList<Sprite> sprites;
+    private Sprite[] pass = new Sprite[16];
 
     /**
      * Creates an empty sprite collection.
      */
     public SpriteCollection() {
-        sprites = new LinkedList<Sprite>();
+        sprites = new ArrayList<Sprite>();
     }
 
     /**
@@ -27,6 +32,12 @@ public class SpriteCollection {
      */
     public void addSprite(Sprite s) {
         sprites.add(s);
+        if (pass.length < sprites.size()) {
+            pass = new Sprite[sprites.size() * 2];
+        }
+        if (GameMetrics.ENABLED) {
+            GameMetrics.getInstance().setLiveSprites(sprites.size());
+        }
     }
 
     /**
@@ -36,6 +47,25 @@ public class SpriteCollection {
      */
     public void removeSprite(Sprite s) {
         sprites.remove(s);
+        if (GameMetrics.ENABLED) {
+            GameMetrics.getInstance().setLiveSprites(sprites.size());
+        }
+    }
+
+    /**
+     * Replaces a sprite with another one, at the same drawing order. If the
+     * old sprite is not in the collection, the new one is added on top.
+     *
+     * @param oldSprite sprite to remove
+     * @param newSprite sprite to put instead
+     */
+    public void replaceSprite(Sprite oldSprite, Sprite newSprite) {
+        int index = sprites.indexOf(oldSprite);
+        if (index < 0) {
+            addSprite(newSprite);
+        } else {
+            sprites.set(index, newSprite);
+        }
     }
 
     /**
@@ -44,14 +74,15 @@ public class SpriteCollection {
      * @param dt time passed in seconds
      */
     public void notifyAllTimePassed(double dt) {
-        // Copy the sprites collection before iterating, to prevent exceptions
-        // in case the list changes while iterating
-        List<Sprite> spritesCopy = new ArrayList<Sprite>(sprites);
+        // Copy the sprites before iterating, as the list may change
+        Sprite[] spritesCopy = sprites.toArray(pass);
+        int count = sprites.size();
 
         // Notify the sprites time passed
-        for (Sprite sprite : spritesCopy) {
-            sprite.timePassed(dt);
+        for (int i = 0; i < count; i++) {
+            spritesCopy[i].timePassed(dt);
         }
+        endPass(spritesCopy, count);
     }
 
     /**
@@ -60,13 +91,24 @@ public class SpriteCollection {
      * @param d draw surface
      */
     public void drawAllOn(DrawSurface d) {
-        // Copy the sprites collection before iterating, to prevent exceptions
-        // in case the list changes while iterating
-        List<Sprite> spritesCopy = new ArrayList<Sprite>(sprites);
+        // Copy the sprites before iterating, as the list may change
+        Sprite[] spritesCopy = sprites.toArray(pass);
+        int count = sprites.size();
 
         // Draw all the sprites
-        for (Sprite sprite : spritesCopy) {
-            sprite.drawOn(d);
+        for (int i = 0; i < count; i++) {
+            spritesCopy[i].drawOn(d);
         }
+        endPass(spritesCopy, count);
+    }
+
+    /**
+     * Clears the copy of a pass, so it doesn't keep removed sprites.
+     *
+     * @param spritesCopy the copy
+     * @param count       number of sprites in it
+     */
+    private void endPass(Sprite[] spritesCopy, int count) {
+        Arrays.fill(spritesCopy, 0, count, null);
     }
-}
\ No newline at end of file
+}
@@ -52,6 +52,20 @@ public class Line {
                 other.end.getX(), other.end.getY());
     }
 
+    /**
+     * Moves the line, rounding the points as the constructor does. The points
+     * returned by {@link #start()} and {@link #end()} move with it.
+     *
+     * @param x1 x of the start point
+     * @param y1 y of the start point
+     * @param x2 x of the end point
+     * @param y2 y of the end point
+     */
+    public void set(double x1, double y1, double x2, double y2) {
+        this.start.set(x1, y1);
+        this.end.set(x2, y2);
+    }
+
     /**
      * Gets the intersection point of lines.
      *
@@ -59,20 +73,38 @@ public class Line {
      * @return the intersection point, null if they don't intersect
      */
     public Point intersectionWith(Line other) {
-        // Check if lines intersect
-        if (!this.isIntersecting(other)) {
+        Point result = new Point(0, 0);
+        if (!intersection(other.start.getX(), other.start.getY(),
+                other.end.getX(), other.end.getY(), result)) {
             return null;
         }
+        return result;
+    }
 
+    /**
+     * Gets the intersection point with another line, given by its points.
+     *
+     * @param otherX1 x of the other line's start
+     * @param otherY1 y of the other line's start
+     * @param otherX2 x of the other line's end
+     * @param otherY2 y of the other line's end
+     * @param result  the point to move to the intersection, rounded
+     * @return true if the lines intersect, false otherwise
+     */
+    private boolean intersection(double otherX1, double otherY1,
+                                 double otherX2, double otherY2,
+                                 Point result) {
         // Name the parameters - for convenience
         double thisX1 = this.start.getX();
         double thisX2 = this.end.getX();
         double thisY1 = this.start.getY();
         double thisY2 = this.end.getY();
-        double otherX1 = other.start().getX();
-        double otherX2 = other.end().getX();
-        double otherY1 = other.start().getY();
-        double otherY2 = other.end().getY();
+
+        // Check if lines intersect
+        if (!Line2D.linesIntersect(thisX1, thisY1, thisX2, thisY2,
+                otherX1, otherY1, otherX2, otherY2)) {
+            return false;
+        }
 
         // Say a line is defined by an equation: a*x + b*y = c.
 
@@ -89,10 +121,10 @@ public class Line {
         // Get the intersection point
         double det = a1 * b2 - a2 * b1;
         if (det == 0) {
-            return null; // Lines are parallel - return null
+            return false; // Lines are parallel
         }
-        return new Point((b2 * c1 - b1 * c2) / det,
-                (a1 * c2 - a2 * c1) / det);
+        result.set((b2 * c1 - b1 * c2) / det, (a1 * c2 - a2 * c1) / det);
+        return true;
     }
 
     @Override
@@ -130,22 +162,72 @@ public class Line {
      * @return the first intersection with the rectangle
      */
     public Point closestIntersectionToStartOfLine(Rectangle rect) {
-        Point result = null;
+        Point result = new Point(0, 0);
+        if (!closestIntersectionToStartOfLine(rect, result)) {
+            return null;
+        }
+        return result;
+    }
 
-        // Get all intersections
-        ArrayList<Point> intersections = getRectangleIntersections(rect);
+    /**
+     * Finds the first intersection of the line with a given rectangle,
+     * without allocating: the result is written to a given point. Finds the
+     * same point as {@link #closestIntersectionToStartOfLine(Rectangle)}.
+     *
+     * @param rect   rectangle
+     * @param result the point to move to the first intersection
+     * @return true if the line meets the rectangle, false otherwise
+     */
+    public boolean closestIntersectionToStartOfLine(Rectangle rect,
+                                                    Point result) {
+        // Find the rect's vertexes, rounded as points
+        Point upperLeft = rect.getUpperLeft();
+        double left = Math.round(upperLeft.getX());
+        double top = Math.round(upperLeft.getY());
+        double right = Math.round(upperLeft.getX() + rect.getWidth());
+        double bottom = Math.round(upperLeft.getY() + rect.getHeight());
 
-        // Find the closest intersection
+        // Check the sides in order - upper, lower, left and right
         double minDist = -1;
-        double currDist;
-        for (Point intersection : intersections) {
-            currDist = intersection.distance(this.start());
-            if ((minDist == -1) || (currDist < minDist)) {
-                result = intersection;
-                minDist = currDist;
-            }
+        minDist = closerIntersection(left, top, right, top, result, minDist);
+        minDist = closerIntersection(left, bottom, right, bottom, result,
+                minDist);
+        minDist = closerIntersection(left, top, left, bottom, result,
+                minDist);
+        minDist = closerIntersection(right, top, right, bottom, result,
+                minDist);
+        return minDist != -1;
+    }
+
+    /**
+     * Moves the result to the intersection with a side of a rectangle, if
+     * there is one and it's closer to the start than the closest yet.
+     *
+     * @param x1      x of the side's start
+     * @param y1      y of the side's start
+     * @param x2      x of the side's end
+     * @param y2      y of the side's end
+     * @param result  the closest intersection yet
+     * @param minDist distance of the closest intersection, -1 if none
+     * @return distance of the closest intersection, -1 if none
+     */
+    private double closerIntersection(double x1, double y1, double x2,
+                                      double y2, Point result,
+                                      double minDist) {
+        double closestX = result.getX();
+        double closestY = result.getY();
+        if (!intersection(x1, y1, x2, y2, result)) {
+            return minDist;
         }
-        return result;
+        double currDist = result.distance(this.start);
+        if ((minDist == -1) || (currDist < minDist)) {
+            return currDist;
+        }
+
+        // Not closer - keep the closest one
+        result.setX(closestX);
+        result.setY(closestY);
+        return minDist;
     }
 
     /**
@@ -80,6 +80,17 @@ public class Point {
         return result;
     }
 
+    /**
+     * Moves the point, rounding the coordinates as the constructor does.
+     *
+     * @param newX is x coordinate of the point
+     * @param newY is y coordinate of the point
+     */
+    public void set(double newX, double newY) {
+        this.x = Math.round(newX);
+        this.y = Math.round(newY);
+    }
+
     /**
      * Set the newX coordinate.
      *
@@ -113,34 +113,40 @@ public class Rectangle implements Shape {
 
     /**
      * Checks whether the point is one of the lower corners of this rect.
+     * Points are compared rounded, as {@link Point#equals(Object)} does.
      *
      * @param point the point to check
      * @return true if it's a lower corner, false otherwise
      */
     public boolean isLowerCorner(Point point) {
         // Get lower points
-        Point lowerLeft
-                = new Point(upperLeft.getX(), upperLeft.getY() + height);
-        Point lowerRight
-                = new Point(upperLeft.getX() + width, lowerLeft.getY());
+        long lowerY = Math.round(upperLeft.getY() + height);
+        long leftX = Math.round(upperLeft.getX());
+        long rightX = Math.round(upperLeft.getX() + width);
 
         // Return the result
-        return (point.equals(lowerLeft) || point.equals(lowerRight));
+        long x = Math.round(point.getX());
+        return Math.round(point.getY()) == lowerY
+                && (x == leftX || x == rightX);
     }
 
     /**
      * Checks whether the point is one of the upper corners of this rect.
+     * Points are compared rounded, as {@link Point#equals(Object)} does.
      *
      * @param point the point to check
      * @return true if it's an upper corner, false otherwise
      */
     public boolean isUpperCorner(Point point) {
-        // Get the second upper corner
-        Point upperRight
-                = new Point(upperLeft.getX() + width, upperLeft.getY());
+        // Get upper points
+        long upperY = Math.round(upperLeft.getY());
+        long leftX = Math.round(upperLeft.getX());
+        long rightX = Math.round(upperLeft.getX() + width);
 
         // Return the result
-        return (point.equals(upperLeft) || point.equals(upperRight));
+        long x = Math.round(point.getX());
+        return Math.round(point.getY()) == upperY
+                && (x == leftX || x == rightX);
     }
 
     /**
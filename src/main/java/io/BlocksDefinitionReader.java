@@ -2,8 +2,8 @@ package io;
 
 import sprites.Fill;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.LineNumberReader;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -24,8 +24,23 @@ public class BlocksDefinitionReader {
      */
     public BlocksFromSymbolsFactory fromReader(java.io.Reader reader)
             throws FormatException, IOException {
-        BufferedReader inputStream;
-        inputStream = new BufferedReader(reader);
+        return fromReader(reader, null);
+    }
+
+    /**
+     * Creates the blocks factory from file reader. Format errors report the
+     * file name and the line they occurred at.
+     *
+     * @param reader   the file reader
+     * @param fileName name of the file, used in error messages
+     * @return the prepared factory
+     * @throws FormatException wrong file format
+     * @throws IOException problem with file
+     */
+    public BlocksFromSymbolsFactory fromReader(java.io.Reader reader,
+                                               String fileName)
+            throws FormatException, IOException {
+        LineNumberReader inputStream = new LineNumberReader(reader);
 
         // Read a line of data and parse it
         String line;
@@ -34,11 +49,39 @@ public class BlocksDefinitionReader {
             if (line.startsWith("#") || line.trim().isEmpty()) {
                 continue;
             }
-            parseDefinitionsLine(line);
+            try {
+                parseDefinitionsLine(line);
+            } catch (FormatException e) {
+                throw locate(e, fileName, inputStream.getLineNumber());
+            } catch (NumberFormatException e) {
+                throw locate(new FormatException("Wrong number: "
+                        + e.getMessage()), fileName,
+                        inputStream.getLineNumber());
+            }
         }
         return blocksFactory;
     }
 
+    /**
+     * Adds the file name and line to a format exception, unless it already
+     * has them.
+     *
+     * @param e        the exception
+     * @param fileName name of the file
+     * @param line     line number
+     * @return exception with location
+     */
+    private FormatException locate(FormatException e, String fileName,
+                                   int line) {
+        if (e.hasLocation()) {
+            return e;
+        }
+        FormatException located
+                = new FormatException(e.getMessage(), fileName, line, -1);
+        located.initCause(e);
+        return located;
+    }
+
     /**
      * Parses one line of definitions - block, spacer or defaults.
      *
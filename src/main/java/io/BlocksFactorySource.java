@@ -0,0 +1,20 @@
+package io;
+
+import java.io.IOException;
+
+/**
+ * Gives the block factories of block definitions files, for levels that use
+ * them.
+ */
+public interface BlocksFactorySource {
+    /**
+     * Returns the factory of blocks defined in the given file.
+     *
+     * @param blocksFile the block definitions file name
+     * @return the blocks factory
+     * @throws FormatException wrong format
+     * @throws IOException     problem with the file
+     */
+    BlocksFromSymbolsFactory getBlocksFactory(String blocksFile)
+            throws FormatException, IOException;
+}
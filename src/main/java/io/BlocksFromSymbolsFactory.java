@@ -46,7 +46,7 @@ public class BlocksFromSymbolsFactory {
                 Integer height = defHeight;
                 Integer hitPoints = defHitPoints;
                 Fill fill = defFill;
-                Map<Integer, Fill> fills = defFills;
+                Map<Integer, Fill> fills = new TreeMap<Integer, Fill>(defFills);
                 Color stroke = defStrokeColor;
 
                 if (blockDefMap.containsKey("width")) {
@@ -62,7 +62,7 @@ public class BlocksFromSymbolsFactory {
                     fill = (Fill) blockDefMap.get("fill");
                 }
                 if (blockDefMap.containsKey("fill-k")) {
-                    // Add the fills to default fills. Override old ones
+                    // Add the fills to the default ones. Override old ones
                     TreeMap newFills = (TreeMap) blockDefMap.get("fill-k");
                     for (Object s : newFills.keySet()) {
                         fills.put((Integer) s, (Fill) newFills.get(s));
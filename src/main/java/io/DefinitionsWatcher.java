@@ -0,0 +1,167 @@
+package io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the resources directory in dev mode and tells the level repository
+ * about every definitions file that changed.
+ * <p>
+ * Editors usually save a file in a few steps, so the changes are collected
+ * until the directory is quiet for a moment, and every file is reported once.
+ */
+public class DefinitionsWatcher implements Runnable {
+    private static final long SETTLE_MILLIS = 50;
+    private static final String EXTENSION = ".txt";
+
+    private final Path root;
+    private final WatchService watchService;
+    private final LevelRepository repository;
+    private final Map<WatchKey, Path> dirs = new HashMap<WatchKey, Path>();
+
+    /**
+     * Creates the watcher and registers the resources directory and all its
+     * sub directories.
+     *
+     * @param rootDir    the resources directory
+     * @param repository the repository to tell about changes
+     * @throws IOException problem watching the directory
+     */
+    public DefinitionsWatcher(File rootDir, LevelRepository repository)
+            throws IOException {
+        this.root = rootDir.toPath().toAbsolutePath();
+        this.repository = repository;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        registerTree(root);
+    }
+
+    /**
+     * Starts watching the directory on a new background thread.
+     *
+     * @param rootDir    the resources directory
+     * @param repository the repository to tell about changes
+     * @return the running watcher
+     * @throws IOException problem watching the directory
+     */
+    public static DefinitionsWatcher start(File rootDir,
+                                           LevelRepository repository)
+            throws IOException {
+        DefinitionsWatcher watcher
+                = new DefinitionsWatcher(rootDir, repository);
+        Thread thread = new Thread(watcher, "definitions-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        return watcher;
+    }
+
+    /**
+     * Stops watching.
+     */
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Waits for changes and reports them until closed.
+     */
+    public void run() {
+        try {
+            while (true) {
+                Set<String> changed = new LinkedHashSet<String>();
+                WatchKey key = watchService.take();
+
+                // Collect the changes until there are no more for a moment
+                while (key != null) {
+                    collect(key, changed);
+                    key = watchService.poll(SETTLE_MILLIS,
+                            TimeUnit.MILLISECONDS);
+                }
+
+                for (String fileName : changed) {
+                    repository.fileChanged(fileName);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            return; // closed - stop watching
+        }
+    }
+
+    /**
+     * Adds the definitions files of the key's events to the changed files.
+     *
+     * @param key     the signalled key
+     * @param changed the changed resource names to add to
+     */
+    private void collect(WatchKey key, Set<String> changed) {
+        Path dir = dirs.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (dir == null
+                    || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+
+            // A new directory - watch it too
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                    && Files.isDirectory(path)) {
+                try {
+                    registerTree(path);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                continue;
+            }
+
+            if (path.getFileName().toString().endsWith(EXTENSION)) {
+                changed.add(root.relativize(path).toString()
+                        .replace(File.separatorChar, '/'));
+            }
+        }
+        if (!key.reset()) {
+            dirs.remove(key); // the directory was deleted
+        }
+    }
+
+    /**
+     * Registers a directory and all its sub directories.
+     *
+     * @param start the top directory
+     * @throws IOException problem registering
+     */
+    private void registerTree(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir,
+                                                     BasicFileAttributes a)
+                    throws IOException {
+                WatchKey key = dir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+                dirs.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -2,7 +2,6 @@ package io;
 
 import sprites.Fill;
 
-import javax.imageio.ImageIO;
 import java.awt.Image;
 import java.io.IOException;
 import java.io.InputStream;
@@ -58,12 +57,17 @@ public class FillParser {
                 "Can't parse information - wrong file format " + file);
 
         // Read the image
-        InputStream stream =
-                ClassLoader.getSystemClassLoader().getResourceAsStream(file);
+        InputStream stream = ResourceLoader.open(file);
         if (stream == null) {
-            throw formatException;
+            throw new FormatException("Missing image file " + file);
+        }
+        try {
+            backgImage = ImageCache.getInstance().read(file, stream);
+        } catch (IOException e) {
+            throw new FormatException("Can't decode image file " + file);
+        } finally {
+            stream.close();
         }
-        backgImage = ImageIO.read(stream);
 
         // If succeeded reading the image - return the new fill
         if (backgImage != null) {
@@ -5,6 +5,10 @@ package io;
  * format.
  */
 public class FormatException extends Exception {
+    private String fileName = null;
+    private int line = -1;
+    private int column = -1;
+
     /**
      * Creates formay exception.
      *
@@ -22,4 +26,78 @@ public class FormatException extends Exception {
     public FormatException() {
         super("Can't parse information - wrong file format ");
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates a format exception with the place in the file it occurred at.
+     *
+     * @param message  exception message
+     * @param fileName name of the file, null if unknown
+     * @param line     line number (starts at 1), -1 if unknown
+     * @param column   column number (starts at 1), -1 if unknown
+     */
+    public FormatException(String message, String fileName, int line,
+                           int column) {
+        super(message);
+        this.fileName = fileName;
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * Returns the name of the file with the wrong format.
+     *
+     * @return file name, null if unknown
+     */
+    public String getFileName() {
+        return this.fileName;
+    }
+
+    /**
+     * Returns the line with the wrong format.
+     *
+     * @return line number (starts at 1), -1 if unknown
+     */
+    public int getLine() {
+        return this.line;
+    }
+
+    /**
+     * Returns the column with the wrong format.
+     *
+     * @return column number (starts at 1), -1 if unknown
+     */
+    public int getColumn() {
+        return this.column;
+    }
+
+    /**
+     * Checks whether the place of the error in the file is known.
+     *
+     * @return true if the line is known
+     */
+    public boolean hasLocation() {
+        return this.line > 0;
+    }
+
+    /**
+     * Returns the exception message prefixed with "file:line:column: ".
+     *
+     * @return the message with the error location
+     */
+    public String getDescription() {
+        StringBuilder location = new StringBuilder();
+        if (fileName != null) {
+            location.append(fileName).append(':');
+        }
+        if (line > 0) {
+            location.append(line).append(':');
+            if (column > 0) {
+                location.append(column).append(':');
+            }
+        }
+        if (location.length() > 0) {
+            location.append(' ');
+        }
+        return location.append(getMessage()).toString();
+    }
+}
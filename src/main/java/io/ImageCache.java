@@ -0,0 +1,385 @@
+package io;
+
+import profiling.ImageDecodeEvent;
+import utils.Finals;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Disk cache of decoded images. Decoding the JPEG backgrounds is the slowest
+ * part of loading the levels, so the decoded pixels are saved to the cache
+ * directory, keyed by the resource name and a hash of its content. Next time
+ * the file is memory mapped and copied straight into a new image.
+ * <p>
+ * When the cache grows over its size limit, the least recently used files are
+ * deleted.
+ */
+public final class ImageCache {
+    private static final int MAGIC = 0x41524742; // "ARGB"
+    private static final int HEADER_INTS = 4;
+    private static final String EXTENSION = ".argb";
+    private static ImageCache instance;
+
+    private final File dir;
+    private final long maxBytes;
+    private final boolean enabled;
+    private final List<String> report = new ArrayList<String>();
+    private int hits = 0;
+    private int misses = 0;
+    private long totalNanos = 0;
+
+    /**
+     * Creates an image cache.
+     *
+     * @param dir      the cache directory
+     * @param maxBytes maximal total size of the cache files
+     * @param enabled  false to always decode the images
+     */
+    public ImageCache(File dir, long maxBytes, boolean enabled) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the cache of the game, as configured in the finals.
+     *
+     * @return the image cache
+     */
+    public static synchronized ImageCache getInstance() {
+        if (ImageCache.instance == null) {
+            Finals finals = Finals.getInstance();
+            ImageCache.instance = new ImageCache(
+                    new File(finals.getImageCacheDir()),
+                    finals.getImageCacheMaxBytes(),
+                    finals.isImageCacheEnabled());
+        }
+        return ImageCache.instance;
+    }
+
+    /**
+     * Reads an image, from the cache if it is there.
+     *
+     * @param resource the resource name of the image
+     * @param stream   the image file stream
+     * @return the image, null if it can't be decoded
+     * @throws IOException problem reading the stream
+     */
+    public BufferedImage read(String resource, InputStream stream)
+            throws IOException {
+        long start = System.nanoTime();
+        ImageDecodeEvent event = new ImageDecodeEvent();
+        event.begin();
+        if (!enabled) {
+            BufferedImage image = ImageIO.read(stream);
+            record(resource, "decoded", start);
+            commit(event, resource, false, image);
+            return image;
+        }
+
+        // Look for the image by its content
+        byte[] content = readAll(stream);
+        File file = new File(dir, getFileName(resource, content));
+        BufferedImage image = load(file);
+        if (image != null) {
+            record(resource, "cached", start);
+            commit(event, resource, true, image);
+            return image;
+        }
+
+        // Not in cache - decode and save
+        image = ImageIO.read(new ByteArrayInputStream(content));
+        if (image != null) {
+            store(file, image);
+        }
+        record(resource, "decoded", start);
+        commit(event, resource, false, image);
+        return image;
+    }
+
+    /**
+     * Records the reading of an image, if the flight recorder takes it.
+     *
+     * @param event    the image event
+     * @param resource the resource name of the image
+     * @param cached   whether the image came from the cache
+     * @param image    the image, null if it couldn't be decoded
+     */
+    private static void commit(ImageDecodeEvent event, String resource,
+                               boolean cached, BufferedImage image) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.set(resource, cached, image == null ? 0 : image.getWidth(),
+                    image == null ? 0 : image.getHeight());
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns a report of the images read so far.
+     *
+     * @return the lines of the report
+     */
+    public synchronized List<String> getReport() {
+        List<String> lines = new ArrayList<String>(report);
+        lines.add(String.format("%d cached, %d decoded, total %.2f ms",
+                hits, misses, totalNanos / 1e6));
+        return lines;
+    }
+
+    /**
+     * Deletes all the cache files.
+     */
+    public synchronized void clear() {
+        for (File file : listCacheFiles()) {
+            if (!file.delete()) {
+                System.out.println("Failed deleting " + file);
+            }
+        }
+    }
+
+    /**
+     * Adds one image read to the report.
+     *
+     * @param resource the resource name
+     * @param how      "cached" or "decoded"
+     * @param start    nano time the read started at
+     */
+    private synchronized void record(String resource, String how,
+                                     long start) {
+        long nanos = System.nanoTime() - start;
+        if (how.equals("cached")) {
+            hits++;
+        } else {
+            misses++;
+        }
+        totalNanos += nanos;
+        report.add(String.format("%8.2f ms  %-8s %s", nanos / 1e6, how,
+                resource));
+    }
+
+    /**
+     * Loads an image from a cache file.
+     *
+     * @param file the cache file
+     * @return the image, null if the file is missing or not valid
+     */
+    private BufferedImage load(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                FileChannel channel = raf.getChannel();
+                MappedByteBuffer mapped = channel.map(
+                        FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                IntBuffer ints = mapped.order(ByteOrder.nativeOrder())
+                        .asIntBuffer();
+
+                // Check the header: magic, width, height, alpha
+                if (ints.remaining() < HEADER_INTS || ints.get() != MAGIC) {
+                    return null;
+                }
+                int width = ints.get();
+                int height = ints.get();
+                boolean alpha = ints.get() != 0;
+                if (width <= 0 || height <= 0
+                        || ints.remaining() != width * height) {
+                    return null;
+                }
+
+                // Copy the pixels straight into the image buffer
+                int[] pixels = new int[width * height];
+                ints.get(pixels);
+                file.setLastModified(System.currentTimeMillis());
+                return createImage(pixels, width, height, alpha);
+            } finally {
+                raf.close();
+            }
+        } catch (IOException e) {
+            return null; // broken cache file - decode again
+        }
+    }
+
+    /**
+     * Creates an image over the given pixels, without copying them.
+     *
+     * @param pixels the pixels, one int per pixel
+     * @param width  image width
+     * @param height image height
+     * @param alpha  whether the pixels have alpha
+     * @return the new image
+     */
+    private static BufferedImage createImage(int[] pixels, int width,
+                                             int height, boolean alpha) {
+        DataBufferInt buffer = new DataBufferInt(pixels, pixels.length);
+        ColorModel model;
+        int[] masks;
+        if (alpha) {
+            model = ColorModel.getRGBdefault();
+            masks = new int[] {0xff0000, 0xff00, 0xff, 0xff000000};
+        } else {
+            model = new DirectColorModel(24, 0xff0000, 0xff00, 0xff);
+            masks = new int[] {0xff0000, 0xff00, 0xff};
+        }
+        WritableRaster raster = Raster.createPackedRaster(buffer, width,
+                height, width, masks, null);
+        return new BufferedImage(model, raster, false, null);
+    }
+
+    /**
+     * Saves the decoded image to a cache file. Failing to save only means the
+     * image will be decoded again next time.
+     *
+     * @param file  the cache file
+     * @param image the decoded image
+     */
+    private void store(File file, BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        boolean alpha = image.getColorModel().hasAlpha();
+
+        ByteBuffer buffer = ByteBuffer.allocate(4 * (HEADER_INTS
+                + pixels.length)).order(ByteOrder.nativeOrder());
+        buffer.asIntBuffer().put(MAGIC).put(width).put(height)
+                .put(alpha ? 1 : 0).put(pixels);
+        try {
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                return;
+            }
+
+            // Write to a temporary file first, so readers never see half a file
+            File temp = File.createTempFile("image", ".tmp", dir);
+            RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+            try {
+                FileChannel channel = raf.getChannel();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } finally {
+                raf.close();
+            }
+            if (!temp.renameTo(file)) {
+                temp.delete();
+            }
+            evict();
+        } catch (IOException e) {
+            System.out.println("Failed caching image " + file);
+        }
+    }
+
+    /**
+     * Deletes the least recently used cache files until the cache fits its
+     * size limit.
+     */
+    private synchronized void evict() {
+        List<File> files = listCacheFiles();
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+
+        // Delete the oldest first
+        File[] byAge = files.toArray(new File[files.size()]);
+        Arrays.sort(byAge, new Comparator<File>() {
+            public int compare(File a, File b) {
+                return Long.compare(a.lastModified(), b.lastModified());
+            }
+        });
+        for (File file : byAge) {
+            if (total <= maxBytes) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+            }
+        }
+    }
+
+    /**
+     * Lists the cache files in the cache directory.
+     *
+     * @return the cache files
+     */
+    private List<File> listCacheFiles() {
+        List<File> files = new ArrayList<File>();
+        File[] all = dir.listFiles();
+        if (all != null) {
+            for (File file : all) {
+                if (file.getName().endsWith(EXTENSION)) {
+                    files.add(file);
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Builds the cache file name from the resource name and content hash.
+     *
+     * @param resource the resource name
+     * @param content  the image file content
+     * @return the cache file name
+     */
+    private static String getFileName(String resource, byte[] content) {
+        StringBuilder name = new StringBuilder(
+                resource.replaceAll("[^A-Za-z0-9._-]", "_"));
+        name.append('-');
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(content);
+            for (int i = 0; i < 8; i++) {
+                name.append(String.format("%02x", hash[i]));
+            }
+        } catch (NoSuchAlgorithmException e) {
+            name.append(Arrays.hashCode(content)).append('_')
+                    .append(content.length);
+        }
+        return name.append(EXTENSION).toString();
+    }
+
+    /**
+     * Reads the whole stream.
+     *
+     * @param stream stream to read
+     * @return the stream content
+     * @throws IOException problem reading
+     */
+    private static byte[] readAll(InputStream stream) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = stream.read(chunk)) != -1) {
+            content.write(chunk, 0, read);
+        }
+        return content.toByteArray();
+    }
+}
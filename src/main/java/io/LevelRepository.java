@@ -0,0 +1,335 @@
+package io;
+
+import gameplay.LevelInformation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps the parsed level files and block definitions of the game in dev mode,
+ * and re-parses them when they change.
+ * <p>
+ * When a level file changes only that file is parsed again. When a block
+ * definitions file changes, it is parsed again and only the level files using
+ * it are rebuilt. If parsing fails, the last good version is kept and the
+ * error is kept for display until the file is fixed.
+ */
+public final class LevelRepository {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static LevelRepository instance;
+
+    private final Set<String> levelFiles = new TreeSet<String>();
+    private final Map<String, List<LevelInformation>> levels
+            = new HashMap<String, List<LevelInformation>>();
+    private final Map<String, BlocksFromSymbolsFactory> factories
+            = new HashMap<String, BlocksFromSymbolsFactory>();
+    private final Map<String, Set<String>> blocksUsers
+            = new HashMap<String, Set<String>>();
+    private final Map<LevelInformation, LevelKey> origins
+            = new WeakHashMap<LevelInformation, LevelKey>();
+    private final Map<String, String> errors = new TreeMap<String, String>();
+    private volatile List<String> errorList = Collections.emptyList();
+    private volatile int version = 0;
+
+    /**
+     * Returns the repository of the game.
+     *
+     * @return the level repository
+     */
+    public static synchronized LevelRepository getInstance() {
+        if (LevelRepository.instance == null) {
+            LevelRepository.instance = new LevelRepository();
+        }
+        return LevelRepository.instance;
+    }
+
+    /**
+     * Returns the levels of a level file, parsing it if needed.
+     *
+     * @param levelFile the level file name
+     * @return the levels, empty if the file never parsed successfully
+     */
+    public synchronized List<LevelInformation> getLevels(String levelFile) {
+        if (levelFiles.add(levelFile)) {
+            parseLevels(levelFile);
+            updateErrors();
+        }
+        List<LevelInformation> fileLevels = levels.get(levelFile);
+        if (fileLevels == null) {
+            return new ArrayList<LevelInformation>();
+        }
+        return new ArrayList<LevelInformation>(fileLevels);
+    }
+
+    /**
+     * Returns the newest version of a level.
+     *
+     * @param level a level returned by this repository
+     * @return the newest version of the level, the level itself if it was
+     * not changed
+     */
+    public synchronized LevelInformation latest(LevelInformation level) {
+        LevelKey key = origins.get(level);
+        if (key == null) {
+            return level;
+        }
+        List<LevelInformation> fileLevels = levels.get(key.file);
+        if (fileLevels == null || key.index >= fileLevels.size()) {
+            return level; // the level was removed - keep playing the old one
+        }
+        return fileLevels.get(key.index);
+    }
+
+    /**
+     * Returns the version of the repository. It changes every time a file is
+     * parsed again.
+     *
+     * @return the version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the errors of the files which failed parsing. Doesn't wait for
+     * a parse in progress.
+     *
+     * @return error descriptions, one per file
+     */
+    public List<String> getErrors() {
+        return errorList;
+    }
+
+    /**
+     * Keeps an error of a file not parsed by the repository, to be displayed.
+     *
+     * @param fileName the file name
+     * @param e        the error
+     */
+    public synchronized void reportError(String fileName, Exception e) {
+        errors.put(fileName, describe(fileName, e));
+        updateErrors();
+    }
+
+    /**
+     * Removes the error of a file not parsed by the repository.
+     *
+     * @param fileName the file name
+     */
+    public synchronized void clearError(String fileName) {
+        if (errors.remove(fileName) != null) {
+            updateErrors();
+        }
+    }
+
+    /**
+     * Parses again a file that changed, and the levels that depend on it.
+     * Files that were never used by the game are ignored.
+     *
+     * @param fileName the resource name of the changed file
+     */
+    public synchronized void fileChanged(String fileName) {
+        boolean changed = false;
+
+        // Block definitions - parse and rebuild the levels using them
+        if (blocksUsers.containsKey(fileName)) {
+            changed = true;
+            if (parseFactory(fileName) != null) {
+                Set<String> users = blocksUsers.get(fileName);
+                if (users != null) {
+                    for (String levelFile : new ArrayList<String>(users)) {
+                        parseLevels(levelFile);
+                    }
+                }
+            }
+        }
+
+        // Level file - parse it alone
+        if (levelFiles.contains(fileName)) {
+            changed = true;
+            parseLevels(fileName);
+        }
+
+        if (changed) {
+            updateErrors();
+            version++;
+        }
+    }
+
+    /**
+     * Parses a level file and keeps its levels. On failure the old levels are
+     * kept and the error is recorded.
+     *
+     * @param levelFile the level file name
+     */
+    private void parseLevels(String levelFile) {
+        final Set<String> used = new TreeSet<String>();
+        try {
+            InputStream is = ResourceLoader.open(levelFile);
+            if (is == null) {
+                throw new FormatException("Missing level file", levelFile,
+                        -1, -1);
+            }
+            List<LevelInformation> parsed;
+            Reader reader = new InputStreamReader(is, UTF8);
+            try {
+                // Take the blocks factories from here, to know the users
+                LevelSpecificationReader levelReader
+                        = new LevelSpecificationReader();
+                levelReader.setBlocksFactorySource(new BlocksFactorySource() {
+                    public BlocksFromSymbolsFactory getBlocksFactory(
+                            String blocksFile)
+                            throws FormatException, IOException {
+                        used.add(blocksFile);
+                        return getFactory(blocksFile);
+                    }
+                });
+                parsed = levelReader.fromReader(reader, levelFile);
+            } finally {
+                reader.close();
+            }
+
+            // Parsed successfully - replace the levels
+            levels.put(levelFile, parsed);
+            for (int i = 0; i < parsed.size(); i++) {
+                origins.put(parsed.get(i), new LevelKey(levelFile, i));
+            }
+            for (Set<String> users : blocksUsers.values()) {
+                users.remove(levelFile);
+            }
+            errors.remove(levelFile);
+        } catch (FormatException e) {
+            errors.put(levelFile, describe(levelFile, e));
+        } catch (IOException e) {
+            errors.put(levelFile, describe(levelFile, e));
+        }
+
+        // Remember which block definitions the file uses
+        for (String blocksFile : used) {
+            Set<String> users = blocksUsers.get(blocksFile);
+            if (users == null) {
+                users = new TreeSet<String>();
+                blocksUsers.put(blocksFile, users);
+            }
+            users.add(levelFile);
+        }
+    }
+
+    /**
+     * Returns the blocks factory of a block definitions file, parsing it the
+     * first time.
+     *
+     * @param blocksFile the block definitions file name
+     * @return the blocks factory
+     * @throws FormatException wrong format
+     * @throws IOException     problem with the file
+     */
+    private BlocksFromSymbolsFactory getFactory(String blocksFile)
+            throws FormatException, IOException {
+        BlocksFromSymbolsFactory factory = factories.get(blocksFile);
+        if (factory == null) {
+            factory = readFactory(blocksFile);
+            factories.put(blocksFile, factory);
+        }
+        return factory;
+    }
+
+    /**
+     * Parses a block definitions file again and keeps the new factory. On
+     * failure the old factory is kept and the error is recorded.
+     *
+     * @param blocksFile the block definitions file name
+     * @return the new factory, null if parsing failed
+     */
+    private BlocksFromSymbolsFactory parseFactory(String blocksFile) {
+        try {
+            BlocksFromSymbolsFactory factory = readFactory(blocksFile);
+            factories.put(blocksFile, factory);
+            errors.remove(blocksFile);
+            return factory;
+        } catch (FormatException e) {
+            errors.put(blocksFile, describe(blocksFile, e));
+        } catch (IOException e) {
+            errors.put(blocksFile, describe(blocksFile, e));
+        }
+        return null;
+    }
+
+    /**
+     * Reads a block definitions file.
+     *
+     * @param blocksFile the block definitions file name
+     * @return the blocks factory
+     * @throws FormatException wrong format
+     * @throws IOException     problem with the file
+     */
+    private static BlocksFromSymbolsFactory readFactory(String blocksFile)
+            throws FormatException, IOException {
+        InputStream is = ResourceLoader.open(blocksFile);
+        if (is == null) {
+            throw new FormatException("Missing block definitions file "
+                    + blocksFile);
+        }
+        Reader reader = new InputStreamReader(is, UTF8);
+        try {
+            return new BlocksDefinitionReader().fromReader(reader,
+                    blocksFile);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Publishes the errors for display.
+     */
+    private void updateErrors() {
+        errorList = Collections.unmodifiableList(
+                new ArrayList<String>(errors.values()));
+    }
+
+    /**
+     * Makes a one line description of an error.
+     *
+     * @param fileName the file that failed
+     * @param e        the error
+     * @return the description
+     */
+    private static String describe(String fileName, Exception e) {
+        if (e instanceof FormatException
+                && ((FormatException) e).hasLocation()) {
+            return ((FormatException) e).getDescription();
+        }
+        return fileName + ": " + e.getMessage();
+    }
+
+    /**
+     * Place of a level: its file and its index in the file.
+     */
+    private static final class LevelKey {
+        private final String file;
+        private final int index;
+
+        /**
+         * Creates the key.
+         *
+         * @param file  the level file name
+         * @param index index of the level in the file
+         */
+        LevelKey(String file, int index) {
+            this.file = file;
+            this.index = index;
+        }
+    }
+}
@@ -5,12 +5,11 @@ import biuoop.KeyboardSensor;
 import gameplay.GameFlow;
 import gameplay.LevelInformation;
 import menu.Task;
+import utils.Finals;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -43,26 +42,48 @@ public class LevelSetsReader {
             throws FormatException, IOException {
         MenuAnimation<Task<Void>> menu
                 = new MenuAnimation<Task<Void>>(keyboardSensor);
+
+        // Go over level sets and add them to the menu
+        for (String[] levelSet : readEntries(reader)) {
+            String key = levelSet[0];
+            String message = "Press \"" + key + "\" for " + levelSet[1];
+
+            // Add the new entry to the menu
+            menu.addSelection(key, message, getLevelSetTask(key,
+                    levelSet[2]));
+        }
+
+        // Finished all the levels. Return the prepared list
+        return menu;
+    }
+
+    /**
+     * Reads the level sets file without loading the levels.
+     *
+     * @param reader the level sets file reader
+     * @return list of level sets: key, name and levels file name
+     * @throws FormatException wrong specification format
+     * @throws IOException     problem with the file
+     */
+    public static List<String[]> readEntries(java.io.Reader reader)
+            throws FormatException, IOException {
+        List<String[]> entries = new ArrayList<String[]>();
         BufferedReader stream = new BufferedReader(reader);
 
-        // Go over level sections and make levels
+        // Go over level sets
         String nameLine = stream.readLine();
         while (nameLine != null) {
             // Get the levelset name parameters: 0 - key, 1 - name
             String[] nameParams = splitNameParams(nameLine);
-            String key = nameParams[0];
-            String message = "Press \"" + key + "\" for " + nameParams[1];
 
             // Read the description line
             String levelsFilename = getLevelFilename(stream);
 
-            // Add the new entry to the menu
-            menu.addSelection(key, message, getLevelSetTask(levelsFilename));
+            entries.add(new String[] {nameParams[0], nameParams[1],
+                    levelsFilename});
             nameLine = stream.readLine();
         }
-
-        // Finished all the levels. Return the prepared list
-        return menu;
+        return entries;
     }
 
     /**
@@ -73,7 +94,7 @@ public class LevelSetsReader {
      * @throws IOException     problem reading
      * @throws FormatException wrong format
      */
-    private String getLevelFilename(BufferedReader stream)
+    private static String getLevelFilename(BufferedReader stream)
             throws IOException, FormatException {
         String levelSetFilename = stream.readLine();
         if (levelSetFilename == null) {
@@ -89,7 +110,7 @@ public class LevelSetsReader {
      * @return array of params
      * @throws FormatException wrong file format
      */
-    private String[] splitNameParams(String nameLine) throws FormatException {
+    private static String[] splitNameParams(String nameLine) throws FormatException {
         String[] nameParams = nameLine.split(":");
         if (nameParams.length != 2) {
             throw new FormatException();
@@ -100,20 +121,52 @@ public class LevelSetsReader {
     /**
      * Creates the task that runs the proper level set.
      *
+     * @param setKey         the key of the level set
      * @param levelsFilename the name of the level set file
      * @return the new task that runs the proper level set
      * @throws IOException     problem with the file
      * @throws FormatException wrong file format
      */
-    private Task<Void> getLevelSetTask(String levelsFilename)
+    private Task<Void> getLevelSetTask(final String setKey,
+                                       final String levelsFilename)
             throws IOException, FormatException {
+        if (Finals.getInstance().isDevMode()) {
+            return getReloadingTask(setKey, levelsFilename);
+        }
+
         // Crate list of levels out of the proper file
         final List<LevelInformation> levels = getLevels(levelsFilename);
 
         // Return the new task running the levels
         return new Task<Void>() {
             public Void run() {
-                gameFlow.runLevels(levels);
+                gameFlow.runLevels(levels, setKey, levelsFilename);
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Creates the task that runs the proper level set in dev mode. The levels
+     * are taken when the task runs, so changes to the files are played.
+     *
+     * @param setKey         the key of the level set
+     * @param levelsFilename the name of the level set file
+     * @return the new task that runs the proper level set
+     */
+    private Task<Void> getReloadingTask(final String setKey,
+                                        final String levelsFilename) {
+        // Parse now, so errors are shown on the menu
+        final LevelRepository repository = LevelRepository.getInstance();
+        repository.getLevels(levelsFilename);
+
+        return new Task<Void>() {
+            public Void run() {
+                List<LevelInformation> levels
+                        = repository.getLevels(levelsFilename);
+                if (!levels.isEmpty()) { // otherwise the error is displayed
+                    gameFlow.runLevels(levels, setKey, levelsFilename);
+                }
                 return null;
             }
         };
@@ -129,31 +182,6 @@ public class LevelSetsReader {
      */
     private List<LevelInformation> getLevels(String levelsFilename)
             throws IOException, FormatException {
-        InputStreamReader stream = null;
-        List<LevelInformation> levels = null;
-
-        // Try to open file and read the levels
-        try {
-            // Open stream
-            InputStream is = ClassLoader.getSystemClassLoader()
-                    .getResourceAsStream(levelsFilename);
-            if (is == null) {
-                throw new IOException();
-            }
-            Charset utf8 = Charset.forName("UTF-8");
-            stream = new InputStreamReader(is, utf8);
-
-            // Read levels
-            LevelSpecificationReader levelReader
-                    = new LevelSpecificationReader();
-            levels = levelReader.fromReader(stream);
-
-        } finally {
-            if (stream != null) {
-                stream.close();
-            }
-        }
-
-        return levels;
+        return new LevelSpecificationReader().fromResource(levelsFilename);
     }
 }
@@ -1,14 +1,17 @@
 package io;
 
 import gameplay.LevelInformation;
+import profiling.LevelParseEvent;
 import sprites.Background;
 import sprites.Block;
 import sprites.Sprite;
 import sprites.ball.Velocity;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -16,6 +19,35 @@ import java.util.List;
  * Can read level specs file and create levels.
  */
 public class LevelSpecificationReader {
+    private String fileName = null;
+    private List<FormatException> problems = null;
+    private int maxRowWidth;
+    private BlocksFactorySource factorySource = null;
+
+    /**
+     * Makes the reader collect problems which don't prevent the game from
+     * running: block rows wider than the given width, and "num_blocks" bigger
+     * than the number of blocks that can be destroyed.
+     *
+     * @param problemsList list to add the problems to
+     * @param rowWidth     the maximal x coordinate a block may reach
+     */
+    public void collectProblems(List<FormatException> problemsList,
+                                int rowWidth) {
+        this.problems = problemsList;
+        this.maxRowWidth = rowWidth;
+    }
+
+    /**
+     * Makes the reader take the block factories from the given source,
+     * instead of reading the block definitions files itself.
+     *
+     * @param source the block factories source
+     */
+    public void setBlocksFactorySource(BlocksFactorySource source) {
+        this.factorySource = source;
+    }
+
     /**
      * Reads the level specs file and makes a list of levels informations.
      *
@@ -26,28 +58,151 @@ public class LevelSpecificationReader {
      */
     public List<LevelInformation> fromReader(java.io.Reader reader)
             throws FormatException, IOException {
+        return fromReader(reader, null);
+    }
+
+    /**
+     * Reads a level specs file from the game resources, or from the disk,
+     * and makes a list of levels informations.
+     *
+     * @param levelFile name of the file
+     * @return list of level informations
+     * @throws FormatException wrong specification format
+     * @throws IOException     problem with the file, or missing file
+     */
+    public List<LevelInformation> fromResource(String levelFile)
+            throws FormatException, IOException {
+        InputStream is = ResourceLoader.open(levelFile);
+        if (is == null) {
+            throw new IOException("Missing level file " + levelFile);
+        }
+        java.io.Reader reader = new InputStreamReader(is,
+                Charset.forName("UTF-8"));
+        try {
+            return fromReader(reader, levelFile);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads the level specs file and makes a list of levels informations.
+     * Format errors report the file name and the line they occurred at.
+     *
+     * @param reader    the level specs file reader
+     * @param levelFile name of the file, used in error messages
+     * @return list of level informations
+     * @throws FormatException wrong specification format
+     * @throws IOException     problem with the file
+     */
+    public List<LevelInformation> fromReader(java.io.Reader reader,
+                                             String levelFile)
+            throws FormatException, IOException {
+        LevelParseEvent event = new LevelParseEvent();
+        event.begin();
+        try {
+            List<LevelInformation> levels = parseLevels(reader, levelFile);
+            event.setLevels(levels.size());
+            return levels;
+        } catch (FormatException e) {
+            event.setError(e.getMessage());
+            throw e;
+        } catch (IOException e) {
+            event.setError(e.toString());
+            throw e;
+        } finally {
+            // Record the parse if the flight recorder takes it
+            event.end();
+            if (event.shouldCommit()) {
+                event.setFile(levelFile);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Reads the level specs file and makes a list of levels informations.
+     *
+     * @param reader    the level specs file reader
+     * @param levelFile name of the file, used in error messages
+     * @return list of level informations
+     * @throws FormatException wrong specification format
+     * @throws IOException     problem with the file
+     */
+    private List<LevelInformation> parseLevels(java.io.Reader reader,
+                                               String levelFile)
+            throws FormatException, IOException {
         List<LevelInformation> levels = new ArrayList<LevelInformation>();
-        BufferedReader stream = new BufferedReader(reader);
+        LineNumberReader stream = new LineNumberReader(reader);
+        this.fileName = levelFile;
 
         // Go over level sections and make levels
-        String line = stream.readLine();
-        while (line != null) {
-            if (isToSkip(line)) {
+        try {
+            String line = stream.readLine();
+            while (line != null) {
+                if (isToSkip(line)) {
+                    line = stream.readLine();
+                    continue;
+                }
+                if (line.contentEquals("START_LEVEL")) {
+                    levels.add(parseLevelInfo(stream));
+                } else {
+                    throw new FormatException("Expected START_LEVEL");
+                }
                 line = stream.readLine();
-                continue;
             }
-            if (line.contentEquals("START_LEVEL")) {
-                levels.add(parseLevelInfo(stream));
-            } else {
-                throw new FormatException();
-            }
-            line = stream.readLine();
+        } catch (FormatException e) {
+            throw locate(e, stream.getLineNumber(), -1);
+        } catch (NumberFormatException e) {
+            throw locate(new FormatException("Wrong number: "
+                    + e.getMessage()), stream.getLineNumber(), -1);
         }
 
         // Finished all the levels. Return the prepared list
         return levels;
     }
 
+    /**
+     * Adds the file name and the place in file to a format exception, unless
+     * it already has them.
+     *
+     * @param e      the exception
+     * @param line   line number
+     * @param column column number, -1 if unknown
+     * @return exception with location
+     */
+    private FormatException locate(FormatException e, int line, int column) {
+        if (e.hasLocation()) {
+            return e;
+        }
+        FormatException located
+                = new FormatException(e.getMessage(), fileName, line, column);
+        located.initCause(e);
+        return located;
+    }
+
+    /**
+     * Reads the next line which is not a comment or empty.
+     *
+     * @param stream   reader to read from
+     * @param expected what we wait for, for the error message
+     * @return next line
+     * @throws IOException     problem reading file
+     * @throws FormatException the file ended
+     */
+    private String nextLine(LineNumberReader stream, String expected)
+            throws IOException, FormatException {
+        String line = stream.readLine();
+        while (line != null && isToSkip(line)) {
+            line = stream.readLine();
+        }
+        if (line == null) {
+            throw new FormatException("Unexpected end of file, expected "
+                    + expected);
+        }
+        return line;
+    }
+
     /**
      * Checks if the line is to be skipped.
      *
@@ -66,9 +221,8 @@ public class LevelSpecificationReader {
      * @throws IOException     problem reading file
      * @throws FormatException wrong format
      */
-    private LevelInformation parseLevelInfo(BufferedReader stream) throws
+    private LevelInformation parseLevelInfo(LineNumberReader stream) throws
             FormatException, IOException {
-        FormatException wrongFormat = new FormatException();
         String levelName = null;
         List<Velocity> velocities = null;
         Sprite background = null;
@@ -79,17 +233,11 @@ public class LevelSpecificationReader {
         Integer rowHeight = null;
         Integer numBlocks = null;
         String blocksFile = null;
+        int numBlocksLine = -1;
 
         // Read lines until blocks section
-        String line = stream.readLine();
+        String line = nextLine(stream, "START_BLOCKS");
         while (!line.contentEquals("START_BLOCKS")) {
-            if (line == null) {
-                throw wrongFormat;
-            }
-            if (isToSkip(line)) {
-                continue;
-            }
-
             // Separate the tag and the data
             String[] paramSplit = splitParameter(line);
             String tag = paramSplit[0];
@@ -116,32 +264,32 @@ public class LevelSpecificationReader {
                 rowHeight = Integer.decode(value);
             } else if (tag.contentEquals("num_blocks")) {
                 numBlocks = Integer.decode(value);
+                numBlocksLine = stream.getLineNumber();
             } else {
-                throw wrongFormat;
+                throw new FormatException("Unknown tag: " + tag);
             }
-            line = stream.readLine();
+            line = nextLine(stream, "START_BLOCKS");
         }
 
-        // Create list of blocks
-        List<Block> blocks = getBlocks(
-                stream, blocksFile, blocksStartX, blocksStartY, rowHeight);
-
         // Verify we have all the needed fields
         if (levelName == null || velocities == null
                 || background == null || paddleSpeed == null
                 || paddleWidth == null || blocksFile == null
                 || blocksStartX == null || blocksStartY == null
                 || rowHeight == null || numBlocks == null) {
-            throw new FormatException();
+            throw new FormatException("Missing level fields");
         }
 
+        // Create list of blocks
+        List<Block> blocks = getBlocks(
+                stream, blocksFile, blocksStartX, blocksStartY, rowHeight);
+        checkBlocksNumber(blocks, numBlocks, numBlocksLine);
+
         // Read lines until end of level
-        line = stream.readLine();
-        while (!line.contentEquals("END_LEVEL")) {
-            if (!isToSkip(line)) {
-                throw wrongFormat; // lines after the end of BLOCKS section
-            }
-            line = stream.readLine();
+        line = nextLine(stream, "END_LEVEL");
+        if (!line.contentEquals("END_LEVEL")) {
+            // lines after the end of BLOCKS section
+            throw new FormatException("Expected END_LEVEL");
         }
 
         // Create the new level from parsed data and return it
@@ -149,6 +297,33 @@ public class LevelSpecificationReader {
                 levelName, background, blocks, numBlocks);
     }
 
+    /**
+     * Adds a problem if the level needs more blocks to be removed than there
+     * are blocks that can be destroyed.
+     *
+     * @param blocks    the level blocks
+     * @param numBlocks number of blocks to remove
+     * @param line      line of the "num_blocks" field
+     */
+    private void checkBlocksNumber(List<Block> blocks, int numBlocks,
+                                   int line) {
+        if (problems == null) {
+            return;
+        }
+        int destructible = 0;
+        for (Block block : blocks) {
+            if (block.getHitPoints() > 0) {
+                destructible++;
+            }
+        }
+        if (numBlocks > destructible) {
+            problems.add(new FormatException("num_blocks is " + numBlocks
+                    + " but only " + destructible
+                    + " blocks can be destroyed", fileName, line,
+                    "num_blocks:".length() + 1));
+        }
+    }
+
     /**
      * Creates a level information object with the specified params.
      *
@@ -194,7 +369,12 @@ public class LevelSpecificationReader {
             }
 
             public List<Block> blocks() {
-                return blocks;
+                // New blocks every time - blocks change while playing
+                List<Block> copies = new ArrayList<Block>(blocks.size());
+                for (Block block : blocks) {
+                    copies.add(new Block(block));
+                }
+                return copies;
             }
 
             public int numberOfBlocksToRemove() {
@@ -271,7 +451,7 @@ public class LevelSpecificationReader {
     private String[] splitParameter(String parameter) throws FormatException {
         String[] paramSplit = parameter.split(":");
         if (paramSplit.length != 2) {
-            throw new FormatException();
+            throw new FormatException("Expected tag:value");
         }
         return paramSplit;
     }
@@ -288,11 +468,10 @@ public class LevelSpecificationReader {
      * @throws FormatException wrong format
      * @throws IOException     problem reading from file
      */
-    private List<Block> getBlocks(BufferedReader stream, String blocksFile,
+    private List<Block> getBlocks(LineNumberReader stream, String blocksFile,
                                   int blocksStartX, int blocksStartY,
                                   int rowHeight)
             throws FormatException, IOException {
-        FormatException wrongFormat = new FormatException();
         List<Block> blocks = new ArrayList<Block>();
         String line;
         int xPos = blocksStartX;
@@ -302,22 +481,15 @@ public class LevelSpecificationReader {
         BlocksFromSymbolsFactory blocksFactory = getBlocksFactory(blocksFile);
 
         // Read lines until end of blocks section
-        line = stream.readLine();
+        line = nextLine(stream, "END_BLOCKS");
         while (!line.contentEquals("END_BLOCKS")) {
-            if (line == null) {
-                throw wrongFormat;
-            }
-            if (isToSkip(line)) {
-                continue;
-            }
-
-            createBlocksRow(
-                    blocks, xPos, yPos, blocksFactory, line.toCharArray());
+            createBlocksRow(blocks, xPos, yPos, blocksFactory,
+                    line.toCharArray(), stream.getLineNumber());
 
             // Next block row
             xPos = blocksStartX;
             yPos += rowHeight;
-            line = stream.readLine();
+            line = nextLine(stream, "END_BLOCKS");
         }
 
         return blocks;
@@ -333,15 +505,22 @@ public class LevelSpecificationReader {
      */
     private BlocksFromSymbolsFactory getBlocksFactory(String blocksFile)
             throws FormatException, IOException {
+        if (factorySource != null) {
+            return factorySource.getBlocksFactory(blocksFile);
+        }
         BlocksDefinitionReader blocksReader = new BlocksDefinitionReader();
         InputStreamReader stream = null;
         BlocksFromSymbolsFactory blocksFactory = null;
 
         // Try to open the block definitions file and read it
         try {
-            stream = new InputStreamReader(ClassLoader.getSystemClassLoader()
-                    .getResourceAsStream(blocksFile));
-            blocksFactory = blocksReader.fromReader(stream);
+            InputStream is = ResourceLoader.open(blocksFile);
+            if (is == null) {
+                throw new FormatException(
+                        "Missing block definitions file " + blocksFile);
+            }
+            stream = new InputStreamReader(is);
+            blocksFactory = blocksReader.fromReader(stream, blocksFile);
 
         } finally {
             if (stream != null) {
@@ -360,24 +539,37 @@ public class LevelSpecificationReader {
      * @param yPos          the starting y position
      * @param blocksFactory factory of blocks by symbols
      * @param symbols       the symbols array representing line of blocks
+     * @param line          number of the line in the file
      * @throws FormatException wrong format
      */
     private void createBlocksRow(List<Block> blocks, int xPos, int yPos,
                                  BlocksFromSymbolsFactory blocksFactory,
-                                 char[] symbols) throws FormatException {
+                                 char[] symbols, int line)
+            throws FormatException {
+        boolean tooWide = false;
+
         // Go over all the symbols and create blocks
-        for (char charSymbol : symbols) {
-            String symbol = String.valueOf(charSymbol);
+        for (int i = 0; i < symbols.length; i++) {
+            String symbol = String.valueOf(symbols[i]);
             if (blocksFactory.isBlockSymbol(symbol)) {
                 // Block - create the new block
                 Block newBlock = blocksFactory.getBlock(symbol, xPos, yPos);
                 xPos += newBlock.getWidth(); // move the x position
                 blocks.add(newBlock);
+
+                // Report the first block out of the field
+                if (problems != null && !tooWide && xPos > maxRowWidth) {
+                    tooWide = true;
+                    problems.add(new FormatException("Block row is wider than "
+                            + maxRowWidth + " px", fileName, line, i + 1));
+                }
             } else if (blocksFactory.isSpaceSymbol(symbol)) {
                 // Spacer - move the x position
                 xPos += blocksFactory.getSpaceWidth(symbol);
             } else {
-                throw new FormatException(); // wrong symbol
+                // wrong symbol
+                throw new FormatException("Unknown block symbol: " + symbol,
+                        fileName, line, i + 1);
             }
         }
     }
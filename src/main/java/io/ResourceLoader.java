@@ -0,0 +1,58 @@
+package io;
+
+import utils.Finals;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+
+/**
+ * Opens the game resources - level files, block definitions and images.
+ * <p>
+ * In dev mode the resources are read from the resources directory on the
+ * disk first, so changes to the files are seen without rebuilding the game.
+ * Otherwise they are read from the class path.
+ */
+public final class ResourceLoader {
+
+    /**
+     * Not to be created.
+     */
+    private ResourceLoader() {
+    }
+
+    /**
+     * Opens a resource.
+     *
+     * @param name the resource name, e.g. "definitions/easy.txt"
+     * @return stream of the resource, null if there is no such resource
+     */
+    public static InputStream open(String name) {
+        File file = getDevFile(name);
+        if (file != null && file.isFile()) {
+            try {
+                return new FileInputStream(file);
+            } catch (FileNotFoundException e) {
+                // Deleted meanwhile - try the class path
+                return ClassLoader.getSystemClassLoader()
+                        .getResourceAsStream(name);
+            }
+        }
+        return ClassLoader.getSystemClassLoader().getResourceAsStream(name);
+    }
+
+    /**
+     * Returns the file of the resource in the dev resources directory.
+     *
+     * @param name the resource name
+     * @return the file, null if not in dev mode
+     */
+    public static File getDevFile(String name) {
+        Finals finals = Finals.getInstance();
+        if (!finals.isDevMode()) {
+            return null;
+        }
+        return new File(finals.getDevResourceDir(), name);
+    }
+}
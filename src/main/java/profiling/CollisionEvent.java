@@ -0,0 +1,44 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of a ball hitting a collidable.
+ */
+@Name("arkanoid.Collision")
+@Label("Collision")
+@Category("Arkanoid")
+@Description("A ball hit a collidable and bounced")
+@Enabled(false)
+@StackTrace(false)
+public class CollisionEvent extends Event {
+    @Label("Ball")
+    @Description("Identity hash code of the ball")
+    int ball;
+
+    @Label("Collidable Type")
+    String collidableType;
+
+    @Label("Distance")
+    @Description("Distance the ball moved to the collision point, in pixels")
+    double distance;
+
+    /**
+     * Sets the collision details.
+     *
+     * @param ballId         identity of the ball
+     * @param collidableName class name of the hit collidable
+     * @param pixels         distance to the collision point
+     */
+    public void set(int ballId, String collidableName, double pixels) {
+        this.ball = ballId;
+        this.collidableType = collidableName;
+        this.distance = pixels;
+    }
+}
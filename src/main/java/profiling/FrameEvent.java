@@ -0,0 +1,85 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event of a frame, with the time of its phases. The phases
+ * of the game level are filled by the level while the frame runs.
+ */
+@Name("arkanoid.Frame")
+@Label("Frame")
+@Category("Arkanoid")
+@Description("A frame of an animation, sleeping excluded")
+@Enabled(false)
+@StackTrace(false)
+public class FrameEvent extends Event {
+    @Label("Animation")
+    String animation;
+
+    @Label("Level")
+    String level;
+
+    @Label("Draw Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long drawTime;
+
+    @Label("Update Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long updateTime;
+
+    @Label("Show Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long showTime;
+
+    /**
+     * Sets the running animation.
+     *
+     * @param name the animation class name
+     */
+    public void setAnimation(String name) {
+        this.animation = name;
+    }
+
+    /**
+     * Sets the played level.
+     *
+     * @param name the level name
+     */
+    public void setLevel(String name) {
+        this.level = name;
+    }
+
+    /**
+     * Adds time spent drawing the sprites.
+     *
+     * @param nanos the time in nanoseconds
+     */
+    public void addDrawTime(long nanos) {
+        this.drawTime += nanos;
+    }
+
+    /**
+     * Adds time spent moving the sprites.
+     *
+     * @param nanos the time in nanoseconds
+     */
+    public void addUpdateTime(long nanos) {
+        this.updateTime += nanos;
+    }
+
+    /**
+     * Sets the time spent showing the frame on the screen.
+     *
+     * @param nanos the time in nanoseconds
+     */
+    public void setShowTime(long nanos) {
+        this.showTime = nanos;
+    }
+}
@@ -0,0 +1,211 @@
+package profiling;
+
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+
+/**
+ * Measures where the time of every frame goes, and draws the measures over
+ * the game.
+ * <p>
+ * Profiling is turned on by running with -Darkanoid.profile=true. Every
+ * probe is guarded by {@link #ENABLED}, a constant once the class is loaded,
+ * so when profiling is off the JIT drops the probes and their
+ * System.nanoTime calls altogether:
+ * <pre>
+ * long start = FrameProfiler.ENABLED ? System.nanoTime() : 0;
+ * ...
+ * if (FrameProfiler.ENABLED) {
+ *     FrameProfiler.getInstance().end(FrameProfiler.DRAW, start);
+ * }
+ * </pre>
+ * The sections may nest - the time passed section holds the collision
+ * queries and the hit listeners. The game loop is the only user, so nothing
+ * is synchronized.
+ */
+public final class FrameProfiler {
+    /**
+     * Whether profiling is on.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean(
+            "arkanoid.profile");
+    /**
+     * Drawing the sprites.
+     */
+    public static final int DRAW = 0;
+    /**
+     * Moving the sprites.
+     */
+    public static final int TIME_PASSED = 1;
+    /**
+     * Looking for the closest collision of a ball.
+     */
+    public static final int COLLISIONS = 2;
+    /**
+     * Telling the hit listeners of a block about a hit.
+     */
+    public static final int LISTENERS = 3;
+    /**
+     * Showing the frame on the screen.
+     */
+    public static final int SHOW = 4;
+    /**
+     * The whole frame, sleeping excluded.
+     */
+    public static final int FRAME = 5;
+
+    private static final String[] NAMES = {"draw", "time passed",
+            "collisions", "listeners", "show", "frame"};
+    private static final int SECTIONS = NAMES.length;
+    private static final int WINDOW = 120; // frames to average
+    private static final int LINE_HEIGHT = 16;
+    private static final Color HUD_BACKGROUND = new Color(0, 0, 0, 170);
+    private static final FrameProfiler INSTANCE = new FrameProfiler();
+
+    private final long[] frameNanos = new long[SECTIONS];
+    private final int[] frameCalls = new int[SECTIONS];
+    private final long[][] nanosHistory = new long[SECTIONS][WINDOW];
+    private final int[][] callsHistory = new int[SECTIONS][WINDOW];
+    private int next = 0;
+    private int frames = 0;
+    private boolean visible = true;
+    private boolean keyWasPressed = false;
+
+    /**
+     * Creates the profiler.
+     */
+    private FrameProfiler() {
+    }
+
+    /**
+     * Returns the profiler of the game.
+     *
+     * @return the profiler
+     */
+    public static FrameProfiler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Adds the time of a section run to the current frame.
+     *
+     * @param section the section
+     * @param start   System.nanoTime when the section started
+     */
+    public void end(int section, long start) {
+        frameNanos[section] += System.nanoTime() - start;
+        frameCalls[section]++;
+    }
+
+    /**
+     * Ends the current frame: keeps its times and starts a new one.
+     */
+    public void endFrame() {
+        for (int i = 0; i < SECTIONS; i++) {
+            nanosHistory[i][next] = frameNanos[i];
+            callsHistory[i][next] = frameCalls[i];
+            frameNanos[i] = 0;
+            frameCalls[i] = 0;
+        }
+        next = (next + 1) % WINDOW;
+        if (frames < WINDOW) {
+            frames++;
+        }
+    }
+
+    /**
+     * Returns the average time of a section in the last frames.
+     *
+     * @param section the section
+     * @return time per frame in milliseconds
+     */
+    public double getAverageMillis(int section) {
+        if (frames == 0) {
+            return 0;
+        }
+        long total = 0;
+        for (int i = 0; i < frames; i++) {
+            total += nanosHistory[section][i];
+        }
+        return total / 1e6 / frames;
+    }
+
+    /**
+     * Returns the longest time of a section in one of the last frames.
+     *
+     * @param section the section
+     * @return time in milliseconds
+     */
+    public double getMaxMillis(int section) {
+        long max = 0;
+        for (int i = 0; i < frames; i++) {
+            max = Math.max(max, nanosHistory[section][i]);
+        }
+        return max / 1e6;
+    }
+
+    /**
+     * Returns the average number of runs of a section in the last frames.
+     *
+     * @param section the section
+     * @return runs per frame
+     */
+    public double getAverageCalls(int section) {
+        if (frames == 0) {
+            return 0;
+        }
+        long total = 0;
+        for (int i = 0; i < frames; i++) {
+            total += callsHistory[section][i];
+        }
+        return (double) total / frames;
+    }
+
+    /**
+     * Shows or hides the measures when the key is pressed. Holding the key
+     * toggles once.
+     *
+     * @param keyPressed whether the toggle key is pressed now
+     */
+    public void toggleOn(boolean keyPressed) {
+        if (keyPressed && !keyWasPressed) {
+            visible = !visible;
+        }
+        keyWasPressed = keyPressed;
+    }
+
+    /**
+     * Draws the measures in the corner of the frame, if they're shown.
+     *
+     * @param d            the frame surface
+     * @param budgetMillis the time a frame may take
+     */
+    public void drawOn(DrawSurface d, double budgetMillis) {
+        if (!visible) {
+            return;
+        }
+        int left = d.getWidth() - 290;
+        int top = 30;
+        d.setColor(HUD_BACKGROUND);
+        d.fillRectangle(left, top, 280, (SECTIONS + 2) * LINE_HEIGHT + 8);
+
+        // The frame time against the budget - red when over it
+        double frame = getAverageMillis(FRAME);
+        int y = top + LINE_HEIGHT;
+        d.setColor(frame > budgetMillis ? Color.RED : Color.GREEN);
+        d.drawText(left + 8, y, String.format(
+                "frame %.2f / %.2f ms (%.0f%%)", frame, budgetMillis,
+                100 * frame / budgetMillis), 13);
+        y += LINE_HEIGHT;
+        d.setColor(Color.WHITE);
+        d.drawText(left + 8, y, "section       avg ms   max ms   runs", 13);
+
+        // One line a section
+        for (int i = 0; i < SECTIONS; i++) {
+            y += LINE_HEIGHT;
+            d.drawText(left + 8, y, String.format("%-12s %7.3f %8.3f %6.1f",
+                    NAMES[i], getAverageMillis(i), getMaxMillis(i),
+                    getAverageCalls(i)), 13);
+        }
+    }
+}
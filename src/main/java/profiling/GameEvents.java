@@ -0,0 +1,77 @@
+package profiling;
+
+/**
+ * Keeps the flight recorder event of the frame being shown, so the parts of
+ * the frame can add their times to it.
+ * <p>
+ * The events are off by default and are turned on in a recording's
+ * settings, e.g. -XX:StartFlightRecording with a settings file that enables
+ * "arkanoid.Frame". While they're off, only a check that the event is
+ * enabled is left of each probe. Used by the game thread only.
+ */
+public final class GameEvents {
+    // Never committed - only asked whether their event types are enabled,
+    // so the probes don't allocate an event while recording is off
+    private static final FrameEvent FRAME_PROBE = new FrameEvent();
+    private static final CollisionEvent COLLISION_PROBE
+            = new CollisionEvent();
+
+    private static FrameEvent frame = null;
+
+    /**
+     * Not to be created.
+     */
+    private GameEvents() {
+    }
+
+    /**
+     * Starts the event of a new frame, if frame events are recorded.
+     *
+     * @param animation the animation showing the frame
+     * @return the event, null if frame events are not recorded
+     */
+    public static FrameEvent beginFrame(Object animation) {
+        if (!FRAME_PROBE.isEnabled()) {
+            frame = null;
+            return null;
+        }
+        FrameEvent event = new FrameEvent();
+        event.setAnimation(animation.getClass().getSimpleName());
+        event.begin();
+        frame = event;
+        return event;
+    }
+
+    /**
+     * Checks whether collision events are recorded, before making one.
+     *
+     * @return true if they are recorded
+     */
+    public static boolean isCollisionRecorded() {
+        return COLLISION_PROBE.isEnabled();
+    }
+
+    /**
+     * Returns the event of the frame being shown.
+     *
+     * @return the event, null if frame events are not recorded
+     */
+    public static FrameEvent currentFrame() {
+        return frame;
+    }
+
+    /**
+     * Ends the event of the frame and records it.
+     *
+     * @param event the event, may be null
+     */
+    public static void endFrame(FrameEvent event) {
+        frame = null;
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.commit();
+            }
+        }
+    }
+}
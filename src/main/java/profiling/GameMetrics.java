@@ -0,0 +1,473 @@
+package profiling;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters of the game loop and the physics, for monitoring cabinets from
+ * afar through JMX.
+ * <p>
+ * The game thread only adds to atomic counters, which takes no lock and no
+ * memory; everything else - percentiles and rates - is worked out when a
+ * monitor reads it. Metrics are on unless the game runs with
+ * -Darkanoid.metrics=false; like the profiler's, the updates are guarded by
+ * a constant flag, so they cost nothing when off.
+ * <p>
+ * Frame times go to a histogram of logarithmic buckets, as in HDR
+ * histograms: every power of two is split into four buckets, so a bucket is
+ * at most a quarter of its value wide.
+ */
+public final class GameMetrics implements GameMetricsMXBean {
+    /**
+     * Whether metrics are collected.
+     */
+    public static final boolean ENABLED = !"false".equals(
+            System.getProperty("arkanoid.metrics"));
+    /**
+     * The JMX name of the metrics.
+     */
+    public static final String OBJECT_NAME = "arkanoid:type=GameMetrics";
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 30 * SUB_BUCKETS; // up to ~18 min
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final GameMetrics INSTANCE = new GameMetrics();
+
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLongArray frameTimes = new AtomicLongArray(BUCKETS);
+    private final AtomicLong maxFrameNanos = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong candidateTests = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicInteger liveSprites = new AtomicInteger();
+    private final AtomicInteger liveCollidables = new AtomicInteger();
+    private final AtomicInteger liveBalls = new AtomicInteger();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final AtomicLong lastFrameAllocated = new AtomicLong(-1);
+    private final AtomicLong allocationFrames = new AtomicLong();
+    private final AtomicLong drawnFrames = new AtomicLong();
+    private final AtomicLong drawCalls = new AtomicLong();
+    private final AtomicLong filledPixels = new AtomicLong();
+    private final AtomicLong lastFrameDrawCalls = new AtomicLong();
+    private final AtomicLong buffersLost = new AtomicLong();
+    private final AtomicLong buffersRestored = new AtomicLong();
+    private final Rate queriesRate = new Rate();
+    private final Rate hitsRate = new Rate();
+    private final com.sun.management.ThreadMXBean threads;
+    private long lastAllocated = -1; // game thread only
+    private long probeBytes = 0;
+
+    /**
+     * Creates the metrics.
+     */
+    private GameMetrics() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean)
+                .isThreadAllocatedMemorySupported()) {
+            this.threads = (com.sun.management.ThreadMXBean) bean;
+            this.threads.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            this.threads = null;
+        }
+    }
+
+    /**
+     * Returns the metrics of the game.
+     *
+     * @return the metrics
+     */
+    public static GameMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Makes the metrics readable by JMX monitors.
+     *
+     * @throws JMException problem registering the metrics
+     */
+    public void register() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                new ObjectName(OBJECT_NAME));
+    }
+
+    /**
+     * Counts a shown frame. Called by the game thread.
+     *
+     * @param nanos       the time the frame took, sleeping excluded
+     * @param budgetNanos the time a frame may take
+     */
+    public void frameRendered(long nanos, long budgetNanos) {
+        frames.incrementAndGet();
+        if (nanos > budgetNanos) {
+            droppedFrames.incrementAndGet();
+        }
+        frameTimes.incrementAndGet(bucketOf(nanos / 1000));
+        long max = maxFrameNanos.get();
+        while (nanos > max && !maxFrameNanos.compareAndSet(max, nanos)) {
+            max = maxFrameNanos.get();
+        }
+        countAllocations();
+    }
+
+    /**
+     * Counts the drawing of a frame. Called by the game thread.
+     *
+     * @param calls  number of draw calls of the frame
+     * @param pixels number of pixels the frame filled
+     */
+    public void frameDrawn(long calls, long pixels) {
+        drawnFrames.incrementAndGet();
+        drawCalls.addAndGet(calls);
+        filledPixels.addAndGet(pixels);
+        lastFrameDrawCalls.lazySet(calls);
+    }
+
+    /**
+     * Counts a shown frame whose back buffer was lost, as the window system
+     * took its memory. Called by the thread showing the frames.
+     */
+    public void bufferLost() {
+        buffersLost.incrementAndGet();
+    }
+
+    /**
+     * Counts a back buffer or cached image the window system took and gave
+     * back, so it was drawn again. Called by the thread showing the frames.
+     */
+    public void bufferRestored() {
+        buffersRestored.incrementAndGet();
+    }
+
+    /**
+     * Counts a closest collision query.
+     *
+     * @param candidates number of collidables tested
+     */
+    public void collisionQuery(int candidates) {
+        queries.incrementAndGet();
+        candidateTests.addAndGet(candidates);
+    }
+
+    /**
+     * Counts a block hit.
+     */
+    public void hit() {
+        hits.incrementAndGet();
+    }
+
+    /**
+     * Sets the number of sprites of the current level.
+     *
+     * @param count number of sprites
+     */
+    public void setLiveSprites(int count) {
+        liveSprites.lazySet(count);
+    }
+
+    /**
+     * Sets the number of balls in play.
+     *
+     * @param count number of balls
+     */
+    public void setLiveBalls(int count) {
+        liveBalls.lazySet(count);
+    }
+
+    /**
+     * Sets the number of collidables of the current level.
+     *
+     * @param count number of collidables
+     */
+    public void setLiveCollidables(int count) {
+        liveCollidables.lazySet(count);
+    }
+
+    /**
+     * Adds the bytes the game thread allocated since the last frame. The
+     * measure itself may allocate on some JVMs, so its own cost is measured
+     * the first time and taken off.
+     */
+    private void countAllocations() {
+        if (threads == null) {
+            return;
+        }
+        long id = Thread.currentThread().getId();
+        long allocated = threads.getThreadAllocatedBytes(id);
+        if (lastAllocated < 0) {
+            probeBytes = threads.getThreadAllocatedBytes(id) - allocated;
+            lastAllocated = threads.getThreadAllocatedBytes(id);
+            return;
+        }
+        long frameBytes = Math.max(0, allocated - lastAllocated - probeBytes);
+        lastAllocated = allocated;
+        allocatedBytes.addAndGet(frameBytes);
+        allocationFrames.incrementAndGet();
+        lastFrameAllocated.lazySet(frameBytes);
+    }
+
+    /**
+     * Returns the histogram bucket of a frame time.
+     *
+     * @param micros the time in microseconds
+     * @return the bucket
+     */
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS))
+                & (SUB_BUCKETS - 1);
+        int bucket = (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    /**
+     * Returns the lowest frame time of a histogram bucket.
+     *
+     * @param bucket the bucket
+     * @return the time in microseconds
+     */
+    static long bucketStart(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = SUB_BUCKETS + bucket % SUB_BUCKETS;
+        return sub << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Returns a percentile of the frame times.
+     *
+     * @param percentile the percentile, 0 to 100
+     * @return the end of the bucket it falls in, in milliseconds
+     */
+    private double frameTimePercentile(double percentile) {
+        long[] counts = getFrameTimeCounts();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100 * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return (i + 1 < BUCKETS ? bucketStart(i + 1)
+                        : bucketStart(i)) / 1000.0;
+            }
+        }
+        return bucketStart(BUCKETS - 1) / 1000.0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getFramesRendered() {
+        return frames.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long[] getFrameTimeBucketsMicros() {
+        long[] bounds = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            bounds[i] = bucketStart(i);
+        }
+        return bounds;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long[] getFrameTimeCounts() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = frameTimes.get(i);
+        }
+        return counts;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public double getFrameTimeP50Millis() {
+        return frameTimePercentile(50);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public double getFrameTimeP99Millis() {
+        return frameTimePercentile(99);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public double getFrameTimeMaxMillis() {
+        return maxFrameNanos.get() / 1e6;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getCollisionQueries() {
+        return queries.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public double getCollisionQueriesPerSecond() {
+        return queriesRate.read(queries.get());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public double getCandidateTestsPerQuery() {
+        long count = queries.get();
+        return count == 0 ? 0 : (double) candidateTests.get() / count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public double getHitsPerSecond() {
+        return hitsRate.read(hits.get());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getLiveSprites() {
+        return liveSprites.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getLiveBalls() {
+        return liveBalls.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getLiveCollidables() {
+        return liveCollidables.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public double getAllocatedBytesPerFrame() {
+        long count = allocationFrames.get();
+        if (threads == null) {
+            return -1;
+        }
+        return count == 0 ? 0 : (double) allocatedBytes.get() / count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getLastFrameAllocatedBytes() {
+        return lastFrameAllocated.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public double getDrawCallsPerFrame() {
+        long count = drawnFrames.get();
+        return count == 0 ? 0 : (double) drawCalls.get() / count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getLastFrameDrawCalls() {
+        return lastFrameDrawCalls.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public double getFilledPixelsPerFrame() {
+        long count = drawnFrames.get();
+        return count == 0 ? 0 : (double) filledPixels.get() / count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getBuffersLost() {
+        return buffersLost.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getBuffersRestored() {
+        return buffersRestored.get();
+    }
+
+    /**
+     * The rate of a counter between two reads of it. Used by the monitor
+     * threads only.
+     */
+    private static final class Rate {
+        private final long startNanos = System.nanoTime();
+        private long lastCount = 0;
+        private long lastNanos = startNanos;
+        private double lastRate = 0;
+
+        /**
+         * Returns the rate since the last read, or the last rate if it was
+         * read less than a second ago.
+         *
+         * @param count the counter now
+         * @return count per second
+         */
+        synchronized double read(long count) {
+            long now = System.nanoTime();
+            if (now - lastNanos >= NANOS_PER_SECOND) {
+                lastRate = (count - lastCount) * 1e9 / (now - lastNanos);
+                lastCount = count;
+                lastNanos = now;
+            } else if (lastNanos == startNanos && now > startNanos) {
+                lastRate = count * 1e9 / (now - startNanos); // first read
+            }
+            return lastRate;
+        }
+    }
+}
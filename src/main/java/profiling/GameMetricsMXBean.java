@@ -0,0 +1,167 @@
+package profiling;
+
+/**
+ * The game loop and physics counters, as seen by JMX monitors, under the
+ * name "arkanoid:type=GameMetrics".
+ */
+public interface GameMetricsMXBean {
+    /**
+     * Returns the number of frames shown.
+     *
+     * @return number of frames
+     */
+    long getFramesRendered();
+
+    /**
+     * Returns the number of frames that took longer than a frame may take.
+     *
+     * @return number of frames
+     */
+    long getDroppedFrames();
+
+    /**
+     * Returns the lower bounds of the frame time histogram buckets.
+     *
+     * @return bounds in microseconds, from the lowest
+     */
+    long[] getFrameTimeBucketsMicros();
+
+    /**
+     * Returns the number of frames in every frame time histogram bucket.
+     *
+     * @return numbers of frames, by bucket
+     */
+    long[] getFrameTimeCounts();
+
+    /**
+     * Returns the median frame time.
+     *
+     * @return time in milliseconds, up to the histogram's precision
+     */
+    double getFrameTimeP50Millis();
+
+    /**
+     * Returns the 99th percentile of the frame time.
+     *
+     * @return time in milliseconds, up to the histogram's precision
+     */
+    double getFrameTimeP99Millis();
+
+    /**
+     * Returns the longest frame time.
+     *
+     * @return time in milliseconds
+     */
+    double getFrameTimeMaxMillis();
+
+    /**
+     * Returns the number of closest collision queries.
+     *
+     * @return number of queries
+     */
+    long getCollisionQueries();
+
+    /**
+     * Returns the closest collision queries per second, since the last
+     * time it was read.
+     *
+     * @return queries per second
+     */
+    double getCollisionQueriesPerSecond();
+
+    /**
+     * Returns the average number of collidables tested by a query.
+     *
+     * @return tests per query
+     */
+    double getCandidateTestsPerQuery();
+
+    /**
+     * Returns the number of block hits.
+     *
+     * @return number of hits
+     */
+    long getHits();
+
+    /**
+     * Returns the block hits per second, since the last time it was read.
+     *
+     * @return hits per second
+     */
+    double getHitsPerSecond();
+
+    /**
+     * Returns the number of sprites of the current level.
+     *
+     * @return number of sprites
+     */
+    int getLiveSprites();
+
+    /**
+     * Returns the number of balls in play.
+     *
+     * @return number of balls
+     */
+    int getLiveBalls();
+
+    /**
+     * Returns the number of collidables of the current level.
+     *
+     * @return number of collidables
+     */
+    int getLiveCollidables();
+
+    /**
+     * Returns the average number of bytes the game thread allocates in a
+     * frame.
+     *
+     * @return bytes per frame, -1 if the JVM doesn't measure it
+     */
+    double getAllocatedBytesPerFrame();
+
+    /**
+     * Returns the number of bytes the game thread allocated in the last
+     * frame.
+     *
+     * @return bytes, -1 if the JVM doesn't measure it
+     */
+    long getLastFrameAllocatedBytes();
+
+    /**
+     * Returns the average number of draw calls of a frame.
+     *
+     * @return draw calls per frame
+     */
+    double getDrawCallsPerFrame();
+
+    /**
+     * Returns the number of draw calls of the last frame.
+     *
+     * @return draw calls
+     */
+    long getLastFrameDrawCalls();
+
+    /**
+     * Returns the average number of pixels a frame fills, overdraw
+     * included.
+     *
+     * @return pixels per frame
+     */
+    double getFilledPixelsPerFrame();
+
+    /**
+     * Returns the number of frames of a page flipping window whose back
+     * buffer was lost before it was shown.
+     *
+     * @return number of frames, 0 with biuoop's window
+     */
+    long getBuffersLost();
+
+    /**
+     * Returns the number of times a page flipping window's back buffer or
+     * cached image was restored and drawn again.
+     *
+     * @return number of restores, 0 with biuoop's window
+     */
+    long getBuffersRestored();
+}
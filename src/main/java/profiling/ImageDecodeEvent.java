@@ -0,0 +1,47 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of reading a level image, decoded or from the image
+ * cache.
+ */
+@Name("arkanoid.ImageDecode")
+@Label("Image Decode")
+@Category("Arkanoid")
+@Description("A level image was read")
+@Enabled(false)
+public class ImageDecodeEvent extends Event {
+    @Label("Resource")
+    String resource;
+
+    @Label("Cached")
+    @Description("Whether the image came from the image cache")
+    boolean cached;
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+
+    /**
+     * Sets the read image.
+     *
+     * @param name      the image resource name
+     * @param fromCache whether it came from the image cache
+     * @param w         the image width, 0 if it couldn't be read
+     * @param h         the image height, 0 if it couldn't be read
+     */
+    public void set(String name, boolean fromCache, int w, int h) {
+        this.resource = name;
+        this.cached = fromCache;
+        this.width = w;
+        this.height = h;
+    }
+}
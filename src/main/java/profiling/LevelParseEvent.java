@@ -0,0 +1,54 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of reading a level specs file.
+ */
+@Name("arkanoid.LevelParse")
+@Label("Level Parse")
+@Category("Arkanoid")
+@Description("A level specs file was read")
+@Enabled(false)
+public class LevelParseEvent extends Event {
+    @Label("File")
+    String file;
+
+    @Label("Levels")
+    int levels;
+
+    @Label("Error")
+    String error;
+
+    /**
+     * Sets the read file.
+     *
+     * @param name the file name
+     */
+    public void setFile(String name) {
+        this.file = name;
+    }
+
+    /**
+     * Sets the number of levels read.
+     *
+     * @param count number of levels
+     */
+    public void setLevels(int count) {
+        this.levels = count;
+    }
+
+    /**
+     * Sets the error that stopped the reading.
+     *
+     * @param message the error message
+     */
+    public void setError(String message) {
+        this.error = message;
+    }
+}
@@ -0,0 +1,36 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of writing scores to the disk.
+ */
+@Name("arkanoid.ScoresSave")
+@Label("Scores Save")
+@Category("Arkanoid")
+@Description("Scores were written to a scores file")
+@Enabled(false)
+public class ScoresSaveEvent extends Event {
+    @Label("File")
+    String file;
+
+    @Label("Scores")
+    @Description("Number of scores written")
+    int scores;
+
+    /**
+     * Sets the save details.
+     *
+     * @param name  the scores file name
+     * @param count number of scores written
+     */
+    public void set(String name, int count) {
+        this.file = name;
+        this.scores = count;
+    }
+}
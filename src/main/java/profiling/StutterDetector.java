@@ -0,0 +1,249 @@
+package profiling;
+
+import utils.Finals;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Keeps the timings and the game state of the last frames in a ring, and
+ * saves them to a stutter file when a frame takes too long, so hitches on
+ * a cabinet can be looked into later with tools.StutterReport.
+ * <p>
+ * A frame is a stutter if the time since the last frame ended, or its own
+ * time when there was no last frame, is over the threshold. Frames of
+ * another animation run in the middle - a pause screen - and the waits
+ * between runs are not counted. The game state is taken from the game
+ * metrics. Keeping a frame writes a few numbers to arrays; only a stutter
+ * allocates, and its file is written on a background thread. At most one
+ * file is saved every few seconds, and only the newest files are kept.
+ * <p>
+ * Used by the game thread only. Off if the stutter threshold is set to 0.
+ */
+public final class StutterDetector {
+    /**
+     * Whether stutters are looked for.
+     */
+    public static final boolean ENABLED
+            = Finals.getInstance().getStutterMillis() > 0;
+
+    private static final long MIN_SAVE_INTERVAL_NANOS = 10000000000L;
+    private static final int MAX_FILES = 50;
+    private static final StutterDetector INSTANCE = new StutterDetector(
+            Finals.getInstance().getStutterHistoryFrames(),
+            Finals.getInstance().getStutterMillis(),
+            new File(Finals.getInstance().getStutterDir()));
+
+    private final int size;
+    private final long thresholdNanos;
+    private final File dir;
+    private final GarbageCollectorMXBean[] collectors;
+    private final ExecutorService writer;
+
+    // The ring of frames
+    private final long[] startNanos;
+    private final int[] intervalMicros;
+    private final int[] workMicros;
+    private final int[] sprites;
+    private final int[] balls;
+    private final int[] collisions;
+    private final int[] gcCount;
+    private final int[] gcMillis;
+    private int next = 0;
+    private int frames = 0;
+
+    private long lastFrameEnd = 0;
+    private boolean interrupted = true;
+    private long lastQueries = 0;
+    private long lastGcCount = -1;
+    private long lastGcMillis = 0;
+    private long lastSave = 0;
+    private boolean saved = false;
+
+    /**
+     * Creates the detector.
+     *
+     * @param size            number of frames to keep
+     * @param thresholdMillis the frame time from which a frame is a stutter
+     * @param dir             the directory to save the stutter files in
+     */
+    StutterDetector(int size, int thresholdMillis, File dir) {
+        this.size = size;
+        this.thresholdNanos = thresholdMillis * 1000000L;
+        this.dir = dir;
+        List<GarbageCollectorMXBean> beans
+                = ManagementFactory.getGarbageCollectorMXBeans();
+        this.collectors = beans.toArray(
+                new GarbageCollectorMXBean[beans.size()]);
+        this.writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "stutter-writer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.startNanos = new long[size];
+        this.intervalMicros = new int[size];
+        this.workMicros = new int[size];
+        this.sprites = new int[size];
+        this.balls = new int[size];
+        this.collisions = new int[size];
+        this.gcCount = new int[size];
+        this.gcMillis = new int[size];
+    }
+
+    /**
+     * Returns the stutter detector of the game.
+     *
+     * @return the detector
+     */
+    public static StutterDetector getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Tells the detector an animation run starts or ends, so the time until
+     * the next frame is not taken for a stutter.
+     */
+    public void restart() {
+        interrupted = true;
+    }
+
+    /**
+     * Keeps a shown frame, and saves the history if it's a stutter.
+     *
+     * @param frameStart System.nanoTime when the frame started
+     * @param frameEnd   System.nanoTime when the frame ended
+     */
+    public void frameEnded(long frameStart, long frameEnd) {
+        long work = frameEnd - frameStart;
+        long interval = interrupted ? 0 : frameEnd - lastFrameEnd;
+        boolean wasInterrupted = interrupted;
+        interrupted = false;
+        lastFrameEnd = frameEnd;
+
+        // Garbage collections since the last frame
+        long gcs = 0;
+        long gcTime = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            gcs += Math.max(0, collector.getCollectionCount());
+            gcTime += Math.max(0, collector.getCollectionTime());
+        }
+        if (lastGcCount < 0) {
+            lastGcCount = gcs;
+            lastGcMillis = gcTime;
+        }
+        long queries = GameMetrics.getInstance().getCollisionQueries();
+
+        // Keep the frame
+        startNanos[next] = frameStart;
+        intervalMicros[next] = (int) Math.min(interval / 1000,
+                Integer.MAX_VALUE);
+        workMicros[next] = (int) Math.min(work / 1000, Integer.MAX_VALUE);
+        sprites[next] = GameMetrics.getInstance().getLiveSprites();
+        balls[next] = GameMetrics.getInstance().getLiveBalls();
+        collisions[next] = (int) (queries - lastQueries);
+        gcCount[next] = (int) (gcs - lastGcCount);
+        gcMillis[next] = (int) (gcTime - lastGcMillis);
+        next = (next + 1) % size;
+        frames = Math.min(frames + 1, size);
+        lastQueries = queries;
+        lastGcCount = gcs;
+        lastGcMillis = gcTime;
+
+        // A frame cut by another animation's run is not a stutter
+        long time = wasInterrupted ? work : interval;
+        if (time > thresholdNanos && !wasNested(frameStart)
+                && (!saved || frameEnd - lastSave >= MIN_SAVE_INTERVAL_NANOS)) {
+            saved = true;
+            lastSave = frameEnd;
+            save(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Checks whether another animation ran inside a frame.
+     *
+     * @param frameStart System.nanoTime when the frame started
+     * @return true if a frame of another run ended inside it
+     */
+    private boolean wasNested(long frameStart) {
+        if (frames < 2) {
+            return false;
+        }
+        int previous = (next - 2 + size) % size;
+        return startNanos[previous] > frameStart;
+    }
+
+    /**
+     * Copies the history, from the oldest frame, and saves it on the
+     * background thread.
+     *
+     * @param wallTime time of the stutter
+     */
+    private void save(long wallTime) {
+        final StutterDump dump = new StutterDump(frames, wallTime,
+                (int) (thresholdNanos / 1000));
+        int first = (next - frames + size) % size;
+        long base = startNanos[first];
+        for (int i = 0; i < frames; i++) {
+            int j = (first + i) % size;
+            dump.setFrame(i, startNanos[j] - base, intervalMicros[j],
+                    workMicros[j], sprites[j], balls[j], collisions[j],
+                    gcCount[j], gcMillis[j]);
+        }
+        writer.execute(new Runnable() {
+            public void run() {
+                write(dump);
+            }
+        });
+    }
+
+    /**
+     * Writes a history to a new stutter file, and deletes the oldest files.
+     *
+     * @param dump the history
+     */
+    private void write(StutterDump dump) {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            System.out.println("Can't create " + dir);
+            return;
+        }
+        File file = new File(dir, "stutter-" + dump.getWallTime() + ".bin");
+        try {
+            dump.save(file);
+        } catch (IOException e) {
+            System.out.println("Can't save " + file + ": " + e);
+            return;
+        }
+
+        // Keep the newest files - the names sort by time
+        String[] names = dir.list();
+        if (names == null) {
+            return;
+        }
+        Arrays.sort(names);
+        int stutterFiles = 0;
+        for (String name : names) {
+            if (name.startsWith("stutter-") && name.endsWith(".bin")) {
+                stutterFiles++;
+            }
+        }
+        for (String name : names) {
+            if (stutterFiles <= MAX_FILES) {
+                break;
+            }
+            if (name.startsWith("stutter-") && name.endsWith(".bin")
+                    && new File(dir, name).delete()) {
+                stutterFiles--;
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package profiling;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * The history of the frames before a stutter, as saved to a stutter file.
+ * <p>
+ * The file is a header - magic, version, the time of the stutter and the
+ * stutter threshold - followed by the frames from the oldest, 28 bytes
+ * each: start time, frame interval and work time, sprites, balls, collision
+ * queries, and the garbage collections and their time during the frame.
+ */
+public class StutterDump {
+    private static final int MAGIC = 0x41524B53; // "ARKS"
+    private static final int VERSION = 1;
+
+    private final long wallTime;
+    private final int thresholdMicros;
+    private final long[] startNanos;
+    private final int[] intervalMicros;
+    private final int[] workMicros;
+    private final short[] sprites;
+    private final short[] balls;
+    private final int[] collisions;
+    private final short[] gcCount;
+    private final short[] gcMillis;
+
+    /**
+     * Creates an empty history.
+     *
+     * @param frames          number of frames
+     * @param wallTime        time of the stutter, in milliseconds since 1970
+     * @param thresholdMicros the frame time from which a frame is a stutter
+     */
+    public StutterDump(int frames, long wallTime, int thresholdMicros) {
+        this.wallTime = wallTime;
+        this.thresholdMicros = thresholdMicros;
+        this.startNanos = new long[frames];
+        this.intervalMicros = new int[frames];
+        this.workMicros = new int[frames];
+        this.sprites = new short[frames];
+        this.balls = new short[frames];
+        this.collisions = new int[frames];
+        this.gcCount = new short[frames];
+        this.gcMillis = new short[frames];
+    }
+
+    /**
+     * Sets a frame of the history.
+     *
+     * @param i           the frame number, from the oldest
+     * @param start       start time of the frame, in nanoseconds, relative
+     *                    to the first frame
+     * @param interval    time since the last frame ended, in microseconds,
+     *                    0 if unknown
+     * @param work        time the frame took, sleeping excluded, in
+     *                    microseconds
+     * @param spriteCount number of sprites
+     * @param ballCount   number of balls
+     * @param queries     number of collision queries
+     * @param gcs         number of garbage collections
+     * @param gcTime      time of the garbage collections, in milliseconds
+     */
+    public void setFrame(int i, long start, int interval, int work,
+                         int spriteCount, int ballCount, int queries,
+                         int gcs, int gcTime) {
+        startNanos[i] = start;
+        intervalMicros[i] = interval;
+        workMicros[i] = work;
+        sprites[i] = (short) Math.min(spriteCount, Short.MAX_VALUE);
+        balls[i] = (short) Math.min(ballCount, Short.MAX_VALUE);
+        collisions[i] = queries;
+        gcCount[i] = (short) Math.min(gcs, Short.MAX_VALUE);
+        gcMillis[i] = (short) Math.min(gcTime, Short.MAX_VALUE);
+    }
+
+    /**
+     * Reads a stutter file.
+     *
+     * @param file the file
+     * @return the history
+     * @throws IOException problem reading, or not a stutter file
+     */
+    public static StutterDump load(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(file + " is not a stutter file");
+            }
+            long wallTime = in.readLong();
+            int threshold = in.readInt();
+            int frames = in.readInt();
+            if (frames < 0 || frames > 1000000) {
+                throw new IOException(file + " is not a stutter file");
+            }
+            StutterDump dump = new StutterDump(frames, wallTime, threshold);
+            for (int i = 0; i < frames; i++) {
+                dump.setFrame(i, in.readLong(), in.readInt(), in.readInt(),
+                        in.readShort(), in.readShort(), in.readInt(),
+                        in.readShort(), in.readShort());
+            }
+            return dump;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes the history to a file. The file appears whole.
+     *
+     * @param file the file
+     * @throws IOException problem writing
+     */
+    public void save(File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        File temp = File.createTempFile("stutter-", ".tmp", dir);
+        try {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temp)));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(wallTime);
+                out.writeInt(thresholdMicros);
+                out.writeInt(getFrames());
+                for (int i = 0; i < getFrames(); i++) {
+                    out.writeLong(startNanos[i]);
+                    out.writeInt(intervalMicros[i]);
+                    out.writeInt(workMicros[i]);
+                    out.writeShort(sprites[i]);
+                    out.writeShort(balls[i]);
+                    out.writeInt(collisions[i]);
+                    out.writeShort(gcCount[i]);
+                    out.writeShort(gcMillis[i]);
+                }
+            } finally {
+                out.close();
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath());
+            }
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * Returns the number of frames.
+     *
+     * @return number of frames
+     */
+    public int getFrames() {
+        return startNanos.length;
+    }
+
+    /**
+     * Returns the time of the stutter.
+     *
+     * @return time in milliseconds since 1970
+     */
+    public long getWallTime() {
+        return wallTime;
+    }
+
+    /**
+     * Returns the frame time from which a frame is a stutter.
+     *
+     * @return time in microseconds
+     */
+    public int getThresholdMicros() {
+        return thresholdMicros;
+    }
+
+    /**
+     * Returns the start time of a frame, relative to the first frame.
+     *
+     * @param i the frame number
+     * @return time in nanoseconds
+     */
+    public long getStartNanos(int i) {
+        return startNanos[i];
+    }
+
+    /**
+     * Returns the time between the end of the last frame and a frame's end.
+     *
+     * @param i the frame number
+     * @return time in microseconds, 0 if unknown
+     */
+    public int getIntervalMicros(int i) {
+        return intervalMicros[i];
+    }
+
+    /**
+     * Returns the time a frame took, sleeping excluded.
+     *
+     * @param i the frame number
+     * @return time in microseconds
+     */
+    public int getWorkMicros(int i) {
+        return workMicros[i];
+    }
+
+    /**
+     * Returns the number of sprites at a frame.
+     *
+     * @param i the frame number
+     * @return number of sprites
+     */
+    public int getSprites(int i) {
+        return sprites[i];
+    }
+
+    /**
+     * Returns the number of balls at a frame.
+     *
+     * @param i the frame number
+     * @return number of balls
+     */
+    public int getBalls(int i) {
+        return balls[i];
+    }
+
+    /**
+     * Returns the number of collision queries of a frame.
+     *
+     * @param i the frame number
+     * @return number of queries
+     */
+    public int getCollisions(int i) {
+        return collisions[i];
+    }
+
+    /**
+     * Returns the number of garbage collections during a frame.
+     *
+     * @param i the frame number
+     * @return number of collections
+     */
+    public int getGcCount(int i) {
+        return gcCount[i];
+    }
+
+    /**
+     * Returns the time of the garbage collections during a frame.
+     *
+     * @param i the frame number
+     * @return time in milliseconds
+     */
+    public int getGcMillis(int i) {
+        return gcMillis[i];
+    }
+}
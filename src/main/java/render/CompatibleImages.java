@@ -0,0 +1,61 @@
+package render;
+
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+
+/**
+ * Makes images for art drawn once and shown many times - cached texts and
+ * backgrounds - in the screen's own pixel format, so showing them is a
+ * plain copy that Java2D can keep in video memory. Without a screen, the
+ * images are plain RGB ones.
+ */
+public final class CompatibleImages {
+    /**
+     * Not to be created.
+     */
+    private CompatibleImages() {
+    }
+
+    /**
+     * Makes an image in the screen's pixel format.
+     *
+     * @param width  the image width
+     * @param height the image height
+     * @param opaque true if every pixel will be drawn, false if some are
+     *               transparent
+     * @return the image, fully transparent or black
+     */
+    public static BufferedImage create(int width, int height,
+                                       boolean opaque) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, opaque
+                    ? BufferedImage.TYPE_INT_RGB
+                    : BufferedImage.TYPE_INT_ARGB);
+        }
+        GraphicsConfiguration config = GraphicsEnvironment
+                .getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDefaultConfiguration();
+        return config.createCompatibleImage(width, height, opaque
+                ? Transparency.OPAQUE : Transparency.TRANSLUCENT);
+    }
+
+    /**
+     * Makes an image in the screen's pixel format, for art drawn on again
+     * after it was shown.
+     *
+     * @param width  the image width
+     * @param height the image height
+     * @param opaque true if every pixel will be drawn, false if some are
+     *               transparent
+     * @return the image, fully transparent or black
+     */
+    public static RedrawnImage createRedrawn(int width, int height,
+                                             boolean opaque) {
+        ColorModel model = create(1, 1, opaque).getColorModel();
+        return new RedrawnImage(model,
+                model.createCompatibleWritableRaster(width, height));
+    }
+}
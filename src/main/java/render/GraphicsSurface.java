@@ -0,0 +1,221 @@
+package render;
+
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Polygon;
+
+/**
+ * A draw surface that draws with Java2D graphics: of an image in memory, so
+ * frames can be drawn without a screen, or of a window's back buffer. The
+ * graphics can be replaced, so one surface serves a new buffer every frame.
+ */
+public class GraphicsSurface implements DrawSurface {
+    private static final int CACHED_FONTS = 128;
+
+    private final int width;
+    private final int height;
+    private final Font[] fonts = new Font[CACHED_FONTS];
+    private Graphics2D g;
+
+    /**
+     * Creates a surface drawing with graphics.
+     *
+     * @param g      the graphics, may be null until set
+     * @param width  the surface width
+     * @param height the surface height
+     */
+    public GraphicsSurface(Graphics2D g, int width, int height) {
+        this.g = g;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Replaces the graphics drawn with.
+     *
+     * @param graphics the graphics
+     */
+    public void setGraphics(Graphics2D graphics) {
+        this.g = graphics;
+    }
+
+    /**
+     * Returns the graphics drawn with.
+     *
+     * @return the graphics
+     */
+    public Graphics2D getGraphics() {
+        return g;
+    }
+
+    /**
+     * Draws a circle.
+     *
+     * @param x the center x
+     * @param y the center y
+     * @param r the radius
+     */
+    public void drawCircle(int x, int y, int r) {
+        g.drawOval(x - r, y - r, 2 * r, 2 * r);
+    }
+
+    /**
+     * Draws an image.
+     *
+     * @param x   the left x
+     * @param y   the top y
+     * @param img the image
+     */
+    public void drawImage(int x, int y, Image img) {
+        g.drawImage(img, x, y, null);
+    }
+
+    /**
+     * Draws a line.
+     *
+     * @param x1 the start x
+     * @param y1 the start y
+     * @param x2 the end x
+     * @param y2 the end y
+     */
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        g.drawLine(x1, y1, x2, y2);
+    }
+
+    /**
+     * Draws an oval.
+     *
+     * @param x      the left x
+     * @param y      the top y
+     * @param width  the width
+     * @param height the height
+     */
+    public void drawOval(int x, int y, int width, int height) {
+        g.drawOval(x, y, width, height);
+    }
+
+    /**
+     * Draws a polygon.
+     *
+     * @param p the polygon
+     */
+    public void drawPolygon(Polygon p) {
+        g.drawPolygon(p);
+    }
+
+    /**
+     * Draws a rectangle.
+     *
+     * @param x      the left x
+     * @param y      the top y
+     * @param width  the width
+     * @param height the height
+     */
+    public void drawRectangle(int x, int y, int width, int height) {
+        g.drawRect(x, y, width, height);
+    }
+
+    /**
+     * Draws a text.
+     *
+     * @param x        the left x
+     * @param y        the base line y
+     * @param s        the text
+     * @param fontSize the font size
+     */
+    public void drawText(int x, int y, String s, int fontSize) {
+        g.setFont(font(fontSize));
+        g.drawString(s, x, y);
+    }
+
+    /**
+     * Fills a circle.
+     *
+     * @param x the center x
+     * @param y the center y
+     * @param r the radius
+     */
+    public void fillCircle(int x, int y, int r) {
+        g.fillOval(x - r, y - r, 2 * r, 2 * r);
+    }
+
+    /**
+     * Fills an oval.
+     *
+     * @param x      the left x
+     * @param y      the top y
+     * @param width  the width
+     * @param height the height
+     */
+    public void fillOval(int x, int y, int width, int height) {
+        g.fillOval(x, y, width, height);
+    }
+
+    /**
+     * Fills a polygon.
+     *
+     * @param p the polygon
+     */
+    public void fillPolygon(Polygon p) {
+        g.fillPolygon(p);
+    }
+
+    /**
+     * Fills a rectangle.
+     *
+     * @param x      the left x
+     * @param y      the top y
+     * @param width  the width
+     * @param height the height
+     */
+    public void fillRectangle(int x, int y, int width, int height) {
+        g.fillRect(x, y, width, height);
+    }
+
+    /**
+     * Returns the height of the surface.
+     *
+     * @return the height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the width of the surface.
+     *
+     * @return the width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Sets the color of the next calls.
+     *
+     * @param color the color
+     */
+    public void setColor(Color color) {
+        g.setColor(color);
+    }
+
+    /**
+     * Returns the font of a size, made once for the usual sizes.
+     *
+     * @param size the font size
+     * @return the font
+     */
+    private Font font(int size) {
+        if (size < 0 || size >= CACHED_FONTS) {
+            return new Font(Font.SANS_SERIF, Font.PLAIN, size);
+        }
+        if (fonts[size] == null) {
+            fonts[size] = new Font(Font.SANS_SERIF, Font.PLAIN, size);
+        }
+        return fonts[size];
+    }
+}
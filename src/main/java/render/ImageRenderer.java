@@ -0,0 +1,70 @@
+package render;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A renderer that draws on an image in memory, so frames can be drawn
+ * without a screen - for screenshots, and to compare a frame with a
+ * reference image.
+ */
+public class ImageRenderer extends SurfaceRenderer {
+    private final BufferedImage image;
+
+    /**
+     * Creates a renderer with a new white image.
+     *
+     * @param width  the image width
+     * @param height the image height
+     */
+    public ImageRenderer(int width, int height) {
+        this(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+        clear(Color.WHITE);
+    }
+
+    /**
+     * Creates a renderer drawing on an image.
+     *
+     * @param image the image
+     */
+    public ImageRenderer(BufferedImage image) {
+        super(new GraphicsSurface(image.createGraphics(), image.getWidth(),
+                image.getHeight()));
+        this.image = image;
+    }
+
+    /**
+     * Returns the image drawn on.
+     *
+     * @return the image
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Fills the whole image with a color, for a new frame. Not counted.
+     *
+     * @param color the color
+     */
+    public void clear(Color color) {
+        getSurface().setColor(color);
+        getSurface().fillRectangle(0, 0, image.getWidth(),
+                image.getHeight());
+    }
+
+    /**
+     * Writes the image to a PNG file.
+     *
+     * @param file the file
+     * @throws IOException problem writing
+     */
+    public void writePng(File file) throws IOException {
+        if (!ImageIO.write(image, "png", file)) {
+            throw new IOException("No PNG writer for " + file);
+        }
+    }
+}
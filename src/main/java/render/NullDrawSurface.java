@@ -0,0 +1,164 @@
+package render;
+
+import biuoop.DrawSurface;
+import utils.Finals;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.Polygon;
+
+/**
+ * A draw surface of the game's size that draws nothing, so frames can be
+ * played, drawing included, without a screen.
+ */
+public class NullDrawSurface implements DrawSurface {
+    private final int width;
+    private final int height;
+
+    /**
+     * Creates a surface of the game's size.
+     */
+    public NullDrawSurface() {
+        Finals finals = Finals.getInstance();
+        this.width = finals.getGameWidth();
+        this.height = finals.getGameHeight();
+    }
+
+    /**
+     * Draws nothing.
+     *
+     * @param x the center x
+     * @param y the center y
+     * @param r the radius
+     */
+    public void drawCircle(int x, int y, int r) {
+    }
+
+    /**
+     * Draws nothing.
+     *
+     * @param x   the left x
+     * @param y   the top y
+     * @param img the image
+     */
+    public void drawImage(int x, int y, Image img) {
+    }
+
+    /**
+     * Draws nothing.
+     *
+     * @param x1 the start x
+     * @param y1 the start y
+     * @param x2 the end x
+     * @param y2 the end y
+     */
+    public void drawLine(int x1, int y1, int x2, int y2) {
+    }
+
+    /**
+     * Draws nothing.
+     *
+     * @param x      the left x
+     * @param y      the top y
+     * @param width  the width
+     * @param height the height
+     */
+    public void drawOval(int x, int y, int width, int height) {
+    }
+
+    /**
+     * Draws nothing.
+     *
+     * @param p the polygon
+     */
+    public void drawPolygon(Polygon p) {
+    }
+
+    /**
+     * Draws nothing.
+     *
+     * @param x      the left x
+     * @param y      the top y
+     * @param width  the width
+     * @param height the height
+     */
+    public void drawRectangle(int x, int y, int width, int height) {
+    }
+
+    /**
+     * Draws nothing.
+     *
+     * @param x        the left x
+     * @param y        the baseline y
+     * @param s        the text
+     * @param fontSize the font size
+     */
+    public void drawText(int x, int y, String s, int fontSize) {
+    }
+
+    /**
+     * Draws nothing.
+     *
+     * @param x the center x
+     * @param y the center y
+     * @param r the radius
+     */
+    public void fillCircle(int x, int y, int r) {
+    }
+
+    /**
+     * Draws nothing.
+     *
+     * @param x      the left x
+     * @param y      the top y
+     * @param width  the width
+     * @param height the height
+     */
+    public void fillOval(int x, int y, int width, int height) {
+    }
+
+    /**
+     * Draws nothing.
+     *
+     * @param p the polygon
+     */
+    public void fillPolygon(Polygon p) {
+    }
+
+    /**
+     * Draws nothing.
+     *
+     * @param x      the left x
+     * @param y      the top y
+     * @param width  the width
+     * @param height the height
+     */
+    public void fillRectangle(int x, int y, int width, int height) {
+    }
+
+    /**
+     * Returns the game's height.
+     *
+     * @return the height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the game's width.
+     *
+     * @return the width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Does nothing.
+     *
+     * @param color the color
+     */
+    public void setColor(Color color) {
+    }
+}
@@ -0,0 +1,14 @@
+package render;
+
+/**
+ * A renderer that draws nothing and only counts, so frames can be played,
+ * drawing included, as fast as the game goes.
+ */
+public class NullRenderer extends SurfaceRenderer {
+    /**
+     * Creates a renderer of the game's size.
+     */
+    public NullRenderer() {
+        super(new NullDrawSurface());
+    }
+}
@@ -0,0 +1,40 @@
+package render;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * An image that is drawn on again after it was shown, such as the status
+ * bar's. Each time it is drawn on, its version is counted up, so copies
+ * kept of it - the canvas screen's volatile ones - are made again.
+ */
+public class RedrawnImage extends BufferedImage {
+    private volatile int version = 0;
+
+    /**
+     * Creates the image.
+     *
+     * @param model  the color model
+     * @param raster the pixels, compatible with the model
+     */
+    RedrawnImage(ColorModel model, WritableRaster raster) {
+        super(model, raster, model.isAlphaPremultiplied(), null);
+    }
+
+    /**
+     * Marks the image drawn on again. Called after drawing it.
+     */
+    public void redrawn() {
+        version++;
+    }
+
+    /**
+     * Returns the version of the image.
+     *
+     * @return the number of times it was drawn on again
+     */
+    public int getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,34 @@
+package render;
+
+import biuoop.DrawSurface;
+
+/**
+ * A surface the sprites draw on, which counts what is drawn. The sprites
+ * draw on a {@link DrawSurface}, so any renderer takes their drawing: the
+ * game window's surface, an image, or nothing at all.
+ * <p>
+ * A draw call is any call that draws; setting the color is not one. Filled
+ * pixels are the area of the filled shapes and of the images, as drawn,
+ * before they are clipped to the surface; lines, outlines and texts fill
+ * none.
+ */
+public interface Renderer extends DrawSurface {
+    /**
+     * Returns the number of draw calls since the counters were reset.
+     *
+     * @return number of calls
+     */
+    long getDrawCalls();
+
+    /**
+     * Returns the number of pixels filled since the counters were reset.
+     *
+     * @return number of pixels
+     */
+    long getFilledPixels();
+
+    /**
+     * Sets the counters to 0.
+     */
+    void resetCounters();
+}
@@ -0,0 +1,261 @@
+package render;
+
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.Polygon;
+
+/**
+ * A renderer that draws on another surface, such as the game window's, and
+ * counts the calls on the way. The surface can be replaced, so one renderer
+ * serves a new surface every frame.
+ */
+public class SurfaceRenderer implements Renderer {
+    private DrawSurface surface;
+    private long drawCalls = 0;
+    private long filledPixels = 0;
+
+    /**
+     * Creates a renderer drawing on a surface.
+     *
+     * @param surface the surface, may be null until set
+     */
+    public SurfaceRenderer(DrawSurface surface) {
+        this.surface = surface;
+    }
+
+    /**
+     * Replaces the surface drawn on. The counters go on.
+     *
+     * @param newSurface the surface
+     */
+    public void setSurface(DrawSurface newSurface) {
+        this.surface = newSurface;
+    }
+
+    /**
+     * Returns the surface drawn on.
+     *
+     * @return the surface
+     */
+    public DrawSurface getSurface() {
+        return surface;
+    }
+
+    /**
+     * Returns the number of draw calls since the counters were reset.
+     *
+     * @return number of calls
+     */
+    public long getDrawCalls() {
+        return drawCalls;
+    }
+
+    /**
+     * Returns the number of pixels filled since the counters were reset.
+     *
+     * @return number of pixels
+     */
+    public long getFilledPixels() {
+        return filledPixels;
+    }
+
+    /**
+     * Sets the counters to 0.
+     */
+    public void resetCounters() {
+        drawCalls = 0;
+        filledPixels = 0;
+    }
+
+    /**
+     * Draws a circle.
+     *
+     * @param x the center x
+     * @param y the center y
+     * @param r the radius
+     */
+    public void drawCircle(int x, int y, int r) {
+        drawCalls++;
+        surface.drawCircle(x, y, r);
+    }
+
+    /**
+     * Draws an image.
+     *
+     * @param x   the left x
+     * @param y   the top y
+     * @param img the image
+     */
+    public void drawImage(int x, int y, Image img) {
+        drawCalls++;
+        int width = img.getWidth(null);
+        int height = img.getHeight(null);
+        if (width > 0 && height > 0) {
+            filledPixels += (long) width * height;
+        }
+        surface.drawImage(x, y, img);
+    }
+
+    /**
+     * Draws a line.
+     *
+     * @param x1 the start x
+     * @param y1 the start y
+     * @param x2 the end x
+     * @param y2 the end y
+     */
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        drawCalls++;
+        surface.drawLine(x1, y1, x2, y2);
+    }
+
+    /**
+     * Draws an oval.
+     *
+     * @param x      the left x
+     * @param y      the top y
+     * @param width  the width
+     * @param height the height
+     */
+    public void drawOval(int x, int y, int width, int height) {
+        drawCalls++;
+        surface.drawOval(x, y, width, height);
+    }
+
+    /**
+     * Draws a polygon.
+     *
+     * @param p the polygon
+     */
+    public void drawPolygon(Polygon p) {
+        drawCalls++;
+        surface.drawPolygon(p);
+    }
+
+    /**
+     * Draws a rectangle.
+     *
+     * @param x      the left x
+     * @param y      the top y
+     * @param width  the width
+     * @param height the height
+     */
+    public void drawRectangle(int x, int y, int width, int height) {
+        drawCalls++;
+        surface.drawRectangle(x, y, width, height);
+    }
+
+    /**
+     * Draws a text.
+     *
+     * @param x        the left x
+     * @param y        the base line y
+     * @param s        the text
+     * @param fontSize the font size
+     */
+    public void drawText(int x, int y, String s, int fontSize) {
+        drawCalls++;
+        surface.drawText(x, y, s, fontSize);
+    }
+
+    /**
+     * Fills a circle.
+     *
+     * @param x the center x
+     * @param y the center y
+     * @param r the radius
+     */
+    public void fillCircle(int x, int y, int r) {
+        drawCalls++;
+        filledPixels += Math.round(Math.PI * r * r);
+        surface.fillCircle(x, y, r);
+    }
+
+    /**
+     * Fills an oval.
+     *
+     * @param x      the left x
+     * @param y      the top y
+     * @param width  the width
+     * @param height the height
+     */
+    public void fillOval(int x, int y, int width, int height) {
+        drawCalls++;
+        if (width > 0 && height > 0) {
+            filledPixels += Math.round(Math.PI * width * height / 4);
+        }
+        surface.fillOval(x, y, width, height);
+    }
+
+    /**
+     * Fills a polygon.
+     *
+     * @param p the polygon
+     */
+    public void fillPolygon(Polygon p) {
+        drawCalls++;
+        filledPixels += area(p);
+        surface.fillPolygon(p);
+    }
+
+    /**
+     * Fills a rectangle.
+     *
+     * @param x      the left x
+     * @param y      the top y
+     * @param width  the width
+     * @param height the height
+     */
+    public void fillRectangle(int x, int y, int width, int height) {
+        drawCalls++;
+        if (width > 0 && height > 0) {
+            filledPixels += (long) width * height;
+        }
+        surface.fillRectangle(x, y, width, height);
+    }
+
+    /**
+     * Returns the height of the surface.
+     *
+     * @return the height
+     */
+    public int getHeight() {
+        return surface.getHeight();
+    }
+
+    /**
+     * Returns the width of the surface.
+     *
+     * @return the width
+     */
+    public int getWidth() {
+        return surface.getWidth();
+    }
+
+    /**
+     * Sets the color of the next calls.
+     *
+     * @param color the color
+     */
+    public void setColor(Color color) {
+        surface.setColor(color);
+    }
+
+    /**
+     * Returns the area of a polygon, by the shoelace formula.
+     *
+     * @param p the polygon
+     * @return the area in pixels
+     */
+    private static long area(Polygon p) {
+        long twice = 0;
+        for (int i = 0; i < p.npoints; i++) {
+            int j = (i + 1) % p.npoints;
+            twice += (long) p.xpoints[i] * p.ypoints[j]
+                    - (long) p.xpoints[j] * p.ypoints[i];
+        }
+        return Math.abs(twice) / 2;
+    }
+}
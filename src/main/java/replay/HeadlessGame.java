@@ -0,0 +1,90 @@
+package replay;
+
+import animation.GameLevel;
+import gameplay.LevelInformation;
+import utils.Counter;
+import utils.Finals;
+
+import java.util.List;
+
+/**
+ * Plays the levels of a game without a screen, as fast as possible, with
+ * the keys of an input source. The levels are played as the game flow plays
+ * them, with the same tick length, so a recorded game ends the same way.
+ */
+public class HeadlessGame {
+    private final List<LevelInformation> levels;
+    private final InputSource input;
+    private final long maxTicks;
+    private final double dt;
+    private final Counter score = new Counter(0);
+    private final Counter livesLeft;
+    private long ticks = 0;
+
+    /**
+     * Creates the game.
+     *
+     * @param levels   the levels in playing order
+     * @param lives    number of lives at the start
+     * @param input    the keys of the player
+     * @param maxTicks most ticks to play before giving up
+     */
+    public HeadlessGame(List<LevelInformation> levels, int lives,
+                        InputSource input, long maxTicks) {
+        this.levels = levels;
+        this.input = input;
+        this.maxTicks = maxTicks;
+        this.dt = 1.0 / Finals.getInstance().getFramesPerSec();
+        this.livesLeft = new Counter(lives);
+    }
+
+    /**
+     * Plays the game until it ends, or until the most ticks were played.
+     *
+     * @return true if the game ended, false if it was stopped
+     */
+    public boolean play() {
+        for (LevelInformation levelInfo : levels) {
+            GameLevel level = new GameLevel(levelInfo, input, null, score,
+                    livesLeft);
+            level.initialize();
+
+            // Play the turns, tick after tick
+            while (level.areBlocksLeft() && livesLeft.getValue() > 0) {
+                level.startTurn();
+                while (!level.shouldStop()) {
+                    if (ticks == maxTicks) {
+                        return false;
+                    }
+                    level.playTick(dt);
+                    ticks++;
+                }
+                level.endTurn();
+            }
+
+            // No more lives - the game is over
+            if (livesLeft.getValue() == 0) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the player's score.
+     *
+     * @return the score
+     */
+    public int getScore() {
+        return score.getValue();
+    }
+
+    /**
+     * Returns the number of ticks played.
+     *
+     * @return number of ticks
+     */
+    public long getTicks() {
+        return ticks;
+    }
+}
@@ -0,0 +1,131 @@
+package replay;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The state of the paddle keys at every tick of a game. Keys are usually held
+ * for many ticks, so the log keeps runs of ticks with the same keys.
+ */
+public class InputLog {
+    /**
+     * The left key bit.
+     */
+    public static final int LEFT = 1;
+    /**
+     * The right key bit.
+     */
+    public static final int RIGHT = 2;
+
+    private int[] runs = new int[16]; // pairs of (ticks, keys)
+    private int runCount = 0;
+    private int ticks = 0;
+
+    /**
+     * Adds a tick.
+     *
+     * @param keys the keys pressed on the tick
+     */
+    public void add(int keys) {
+        if (runCount > 0 && runs[2 * runCount - 1] == keys) {
+            runs[2 * runCount - 2]++;
+            ticks++;
+        } else {
+            addRun(1, keys);
+        }
+    }
+
+    /**
+     * Adds a run of ticks with the same keys.
+     *
+     * @param runTicks number of ticks
+     * @param keys     the keys pressed on the ticks
+     */
+    private void addRun(int runTicks, int keys) {
+        if (2 * runCount == runs.length) {
+            runs = Arrays.copyOf(runs, runs.length * 2);
+        }
+        runs[2 * runCount] = runTicks;
+        runs[2 * runCount + 1] = keys;
+        runCount++;
+        ticks += runTicks;
+    }
+
+    /**
+     * Returns the number of ticks.
+     *
+     * @return number of ticks
+     */
+    public int getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Returns the number of runs of ticks with the same keys.
+     *
+     * @return number of runs
+     */
+    public int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * Returns the length of a run.
+     *
+     * @param run the run number
+     * @return number of ticks of the run
+     */
+    public int getRunTicks(int run) {
+        return runs[2 * run];
+    }
+
+    /**
+     * Returns the keys of a run.
+     *
+     * @param run the run number
+     * @return the keys pressed on the run's ticks
+     */
+    public int getRunKeys(int run) {
+        return runs[2 * run + 1];
+    }
+
+    /**
+     * Writes the log.
+     *
+     * @param out the stream to write to
+     * @throws IOException problem writing
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(runCount);
+        for (int i = 0; i < runCount; i++) {
+            out.writeInt(runs[2 * i]);
+            out.writeByte(runs[2 * i + 1]);
+        }
+    }
+
+    /**
+     * Reads a log.
+     *
+     * @param in the stream to read from
+     * @return the log
+     * @throws IOException problem reading, or a damaged log
+     */
+    public static InputLog readFrom(DataInputStream in) throws IOException {
+        InputLog log = new InputLog();
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Bad input log");
+        }
+        for (int i = 0; i < count; i++) {
+            int runTicks = in.readInt();
+            int keys = in.readByte();
+            if (runTicks <= 0 || log.ticks + runTicks < 0) {
+                throw new IOException("Bad input log");
+            }
+            log.addRun(runTicks, keys);
+        }
+        return log;
+    }
+}
@@ -0,0 +1,15 @@
+package replay;
+
+import biuoop.KeyboardSensor;
+
+/**
+ * A keyboard sensor that moves on with the game simulation: the keys which
+ * move the paddle keep their state for a whole game tick, so a game can be
+ * recorded and played again exactly.
+ */
+public interface InputSource extends KeyboardSensor {
+    /**
+     * Moves to the next game tick. Called once at the start of every tick.
+     */
+    void nextTick();
+}
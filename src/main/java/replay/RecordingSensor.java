@@ -0,0 +1,62 @@
+package replay;
+
+import biuoop.KeyboardSensor;
+
+/**
+ * Reads the player's keyboard and records the paddle keys of every tick.
+ * The paddle keys are read once a tick, so the game sees exactly what is
+ * recorded.
+ */
+public class RecordingSensor implements InputSource {
+    private final KeyboardSensor keyboard;
+    private final InputLog log = new InputLog();
+    private int keys = 0;
+
+    /**
+     * Creates the sensor.
+     *
+     * @param keyboard the player's keyboard
+     */
+    public RecordingSensor(KeyboardSensor keyboard) {
+        this.keyboard = keyboard;
+    }
+
+    /**
+     * Reads and records the paddle keys for the new tick.
+     */
+    public void nextTick() {
+        keys = 0;
+        if (keyboard.isPressed(LEFT_KEY)) {
+            keys |= InputLog.LEFT;
+        }
+        if (keyboard.isPressed(RIGHT_KEY)) {
+            keys |= InputLog.RIGHT;
+        }
+        log.add(keys);
+    }
+
+    /**
+     * Checks whether a key is pressed: the paddle keys as read on this tick,
+     * any other key as it is now.
+     *
+     * @param key the key
+     * @return true if pressed
+     */
+    public boolean isPressed(String key) {
+        if (LEFT_KEY.equals(key)) {
+            return (keys & InputLog.LEFT) != 0;
+        } else if (RIGHT_KEY.equals(key)) {
+            return (keys & InputLog.RIGHT) != 0;
+        }
+        return keyboard.isPressed(key);
+    }
+
+    /**
+     * Returns the recorded keys.
+     *
+     * @return the input log
+     */
+    public InputLog getLog() {
+        return log;
+    }
+}
@@ -0,0 +1,63 @@
+package replay;
+
+/**
+ * Plays the paddle keys of a recorded game, tick by tick. No other key is
+ * ever pressed.
+ */
+public class ReplaySensor implements InputSource {
+    private final InputLog log;
+    private int run = 0;
+    private int ticksLeftInRun = 0;
+    private int keys = 0;
+    private boolean exhausted = false;
+
+    /**
+     * Creates the sensor.
+     *
+     * @param log the recorded keys
+     */
+    public ReplaySensor(InputLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Moves to the keys of the next tick.
+     */
+    public void nextTick() {
+        while (ticksLeftInRun == 0 && run < log.getRunCount()) {
+            ticksLeftInRun = log.getRunTicks(run);
+            keys = log.getRunKeys(run);
+            run++;
+        }
+        if (ticksLeftInRun == 0) {
+            exhausted = true; // the game goes on longer than the recording
+            keys = 0;
+            return;
+        }
+        ticksLeftInRun--;
+    }
+
+    /**
+     * Checks whether a key is pressed on this tick.
+     *
+     * @param key the key
+     * @return true if pressed
+     */
+    public boolean isPressed(String key) {
+        if (LEFT_KEY.equals(key)) {
+            return (keys & InputLog.LEFT) != 0;
+        } else if (RIGHT_KEY.equals(key)) {
+            return (keys & InputLog.RIGHT) != 0;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the game asked for more ticks than were recorded.
+     *
+     * @return true if it did
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+}
@@ -0,0 +1,161 @@
+package replay;
+
+import scores.ScoreInfo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A submitted score with everything needed to check it: the levels file it
+ * was played on, the lives the player started with, and the keys the player
+ * pressed on every tick.
+ */
+public class ReplaySubmission {
+    /**
+     * Extension of submission files.
+     */
+    public static final String EXTENSION = ".replay";
+    private static final int MAGIC = 0x41524B52; // "ARKR"
+    private static final int VERSION = 1;
+
+    private final ScoreInfo scoreInfo;
+    private final String levelsFile;
+    private final int lives;
+    private final InputLog log;
+
+    /**
+     * Creates the submission.
+     *
+     * @param scoreInfo  the claimed score
+     * @param levelsFile the levels file the game was played on
+     * @param lives      number of lives at the start
+     * @param log        the recorded keys
+     */
+    public ReplaySubmission(ScoreInfo scoreInfo, String levelsFile,
+                            int lives, InputLog log) {
+        this.scoreInfo = scoreInfo;
+        this.levelsFile = levelsFile;
+        this.lives = lives;
+        this.log = log;
+    }
+
+    /**
+     * Reads a submission file.
+     *
+     * @param file the file
+     * @return the submission
+     * @throws IOException problem reading, or not a submission file
+     */
+    public static ReplaySubmission load(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(file + " is not a replay submission");
+            }
+            String name = in.readUTF();
+            int score = in.readInt();
+            long timestamp = in.readLong();
+            String levelSet = in.readUTF();
+            String levels = in.readUTF();
+            int lives = in.readInt();
+            InputLog log = InputLog.readFrom(in);
+            return new ReplaySubmission(
+                    new ScoreInfo(name, score, timestamp, levelSet), levels,
+                    lives, log);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes the submission to a new file in a directory. The file appears
+     * whole, so a verification job never reads half of it.
+     *
+     * @param dir the directory
+     * @return the new file
+     * @throws IOException problem writing
+     */
+    public File saveTo(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Can't create " + dir);
+        }
+        File temp = File.createTempFile("replay-", ".tmp", dir);
+        try {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temp)));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(scoreInfo.getName());
+                out.writeInt(scoreInfo.getScore());
+                out.writeLong(scoreInfo.getTimestamp());
+                out.writeUTF(scoreInfo.getLevelSet());
+                out.writeUTF(levelsFile);
+                out.writeInt(lives);
+                log.writeTo(out);
+            } finally {
+                out.close();
+            }
+
+            // Same unique name, with the submission extension
+            String name = temp.getName();
+            File target = new File(dir, name.substring(0,
+                    name.length() - ".tmp".length()) + EXTENSION);
+            try {
+                Files.move(temp.toPath(), target.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), target.toPath());
+            }
+            return target;
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * Returns the claimed score.
+     *
+     * @return the score
+     */
+    public ScoreInfo getScoreInfo() {
+        return scoreInfo;
+    }
+
+    /**
+     * Returns the levels file the game was played on.
+     *
+     * @return the levels file name
+     */
+    public String getLevelsFile() {
+        return levelsFile;
+    }
+
+    /**
+     * Returns the number of lives at the start.
+     *
+     * @return number of lives
+     */
+    public int getLives() {
+        return lives;
+    }
+
+    /**
+     * Returns the recorded keys.
+     *
+     * @return the input log
+     */
+    public InputLog getLog() {
+        return log;
+    }
+}
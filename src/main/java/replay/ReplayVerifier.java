@@ -0,0 +1,149 @@
+package replay;
+
+import gameplay.LevelInformation;
+import io.FormatException;
+import io.LevelSpecificationReader;
+import utils.Finals;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks submitted scores by playing their recorded keys again. A score is
+ * accepted only if the replayed game ends exactly when the recording ends,
+ * with the claimed score. Games are played with the game's own number of
+ * lives; a submission claiming another number is rejected.
+ * <p>
+ * A verifier keeps the levels it read, and is used by one thread at a time.
+ */
+public class ReplayVerifier {
+    private final Map<String, List<LevelInformation>> levelsCache
+            = new HashMap<String, List<LevelInformation>>();
+
+    /**
+     * Plays a submission again and checks its score.
+     *
+     * @param submission the submission
+     * @return the result
+     */
+    public Result verify(ReplaySubmission submission) {
+        // The lives are the game's - a client could claim any number
+        int lives = Finals.getInstance().getLives();
+        if (submission.getLives() != lives) {
+            return new Result(false, "Started with " + submission.getLives()
+                    + " lives instead of " + lives, 0, 0);
+        }
+
+        List<LevelInformation> levels;
+        try {
+            levels = getLevels(submission.getLevelsFile());
+        } catch (FormatException e) {
+            return new Result(false, "Bad levels file: " + e.getMessage(),
+                    0, 0);
+        } catch (IOException e) {
+            return new Result(false, "Can't read levels file: "
+                    + e.getMessage(), 0, 0);
+        }
+
+        // Play no more ticks than recorded
+        InputLog log = submission.getLog();
+        ReplaySensor sensor = new ReplaySensor(log);
+        HeadlessGame game = new HeadlessGame(levels, lives, sensor,
+                log.getTicks());
+        boolean ended = game.play();
+        int claimed = submission.getScoreInfo().getScore();
+
+        String reason = null;
+        if (!ended) {
+            reason = "Game didn't end when the recording did";
+        } else if (game.getTicks() != log.getTicks()) {
+            reason = "Game ended " + (log.getTicks() - game.getTicks())
+                    + " ticks before the recording did";
+        } else if (game.getScore() != claimed) {
+            reason = "Score " + game.getScore() + " instead of " + claimed;
+        }
+        return new Result(reason == null, reason == null ? "OK" : reason,
+                game.getScore(), game.getTicks());
+    }
+
+    /**
+     * Returns the levels of a levels file, reading it the first time.
+     *
+     * @param levelsFile the levels file name
+     * @return the levels
+     * @throws FormatException wrong file format
+     * @throws IOException     problem with the file
+     */
+    private List<LevelInformation> getLevels(String levelsFile)
+            throws FormatException, IOException {
+        List<LevelInformation> levels = levelsCache.get(levelsFile);
+        if (levels == null) {
+            levels = new LevelSpecificationReader().fromResource(levelsFile);
+            levelsCache.put(levelsFile, levels);
+        }
+        return levels;
+    }
+
+    /**
+     * The result of checking a submission.
+     */
+    public static final class Result {
+        private final boolean accepted;
+        private final String reason;
+        private final int score;
+        private final long ticks;
+
+        /**
+         * Creates the result.
+         *
+         * @param accepted whether the score is accepted
+         * @param reason   why it was rejected, or "OK"
+         * @param score    the score of the replayed game
+         * @param ticks    number of ticks replayed
+         */
+        Result(boolean accepted, String reason, int score, long ticks) {
+            this.accepted = accepted;
+            this.reason = reason;
+            this.score = score;
+            this.ticks = ticks;
+        }
+
+        /**
+         * Returns whether the score is accepted.
+         *
+         * @return true if accepted
+         */
+        public boolean isAccepted() {
+            return accepted;
+        }
+
+        /**
+         * Returns why the score was rejected.
+         *
+         * @return the reason, "OK" if accepted
+         */
+        public String getReason() {
+            return reason;
+        }
+
+        /**
+         * Returns the score of the replayed game.
+         *
+         * @return the score
+         */
+        public int getScore() {
+            return score;
+        }
+
+        /**
+         * Returns the number of ticks replayed.
+         *
+         * @return number of ticks
+         */
+        public long getTicks() {
+            return ticks;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package replay;
+
+/**
+ * Moves the paddle back and forth across the screen: holds the left key
+ * for some ticks, then the right key for as many. No other key is ever
+ * pressed.
+ */
+public class ScriptedPaddle implements InputSource {
+    private final int sweepTicks;
+    private long tick = -1;
+
+    /**
+     * Creates the input.
+     *
+     * @param sweepTicks ticks each key is held
+     */
+    public ScriptedPaddle(int sweepTicks) {
+        if (sweepTicks < 1) {
+            throw new IllegalArgumentException("Sweep must be positive");
+        }
+        this.sweepTicks = sweepTicks;
+    }
+
+    /**
+     * Moves to the next tick.
+     */
+    public void nextTick() {
+        tick++;
+    }
+
+    /**
+     * Checks whether a key is pressed on this tick.
+     *
+     * @param key the key
+     * @return true if pressed
+     */
+    public boolean isPressed(String key) {
+        boolean left = (tick / sweepTicks) % 2 == 0;
+        if (LEFT_KEY.equals(key)) {
+            return left;
+        } else if (RIGHT_KEY.equals(key)) {
+            return !left;
+        }
+        return false;
+    }
+}
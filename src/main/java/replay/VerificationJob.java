@@ -0,0 +1,217 @@
+package replay;
+
+import scores.ScoreInfo;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verifies the submissions waiting in a queue directory, on several threads.
+ * Every thread takes the next submission from the queue and replays it with
+ * its own verifier. Checked submissions are moved to the "accepted" or the
+ * "rejected" directory inside the queue directory, so a submission is
+ * checked once even if the job is run again.
+ */
+public class VerificationJob {
+    private final File queueDir;
+    private final int threads;
+
+    /**
+     * Creates the job.
+     *
+     * @param queueDir the directory of the waiting submissions
+     * @param threads  number of verifying threads
+     */
+    public VerificationJob(File queueDir, int threads) {
+        this.queueDir = queueDir;
+        this.threads = threads;
+    }
+
+    /**
+     * Verifies all the waiting submissions.
+     *
+     * @return the job report
+     * @throws IOException          problem with the queue directory
+     * @throws InterruptedException interrupted while waiting for the threads
+     */
+    public Report run() throws IOException, InterruptedException {
+        final File acceptedDir = new File(queueDir, "accepted");
+        final File rejectedDir = new File(queueDir, "rejected");
+        if (!acceptedDir.isDirectory() && !acceptedDir.mkdirs()
+                || !rejectedDir.isDirectory() && !rejectedDir.mkdirs()) {
+            throw new IOException("Can't create the directories in "
+                    + queueDir);
+        }
+        File[] waiting = queueDir.listFiles(new FileFilter() {
+            public boolean accept(File file) {
+                return file.isFile() && file.getName()
+                        .endsWith(ReplaySubmission.EXTENSION);
+            }
+        });
+        if (waiting == null) {
+            throw new IOException("Can't list " + queueDir);
+        }
+
+        final ConcurrentLinkedQueue<File> queue
+                = new ConcurrentLinkedQueue<File>();
+        Collections.addAll(queue, waiting);
+        final List<ScoreInfo> accepted
+                = Collections.synchronizedList(new ArrayList<ScoreInfo>());
+        final AtomicInteger rejected = new AtomicInteger();
+        final AtomicLong ticks = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(threads);
+
+        // Every thread checks submissions until the queue is empty
+        long begin = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    ReplayVerifier verifier = new ReplayVerifier();
+                    try {
+                        File file;
+                        while ((file = queue.poll()) != null) {
+                            ScoreInfo scoreInfo = check(verifier, file,
+                                    acceptedDir, rejectedDir, ticks);
+                            if (scoreInfo != null) {
+                                accepted.add(scoreInfo);
+                            } else {
+                                rejected.incrementAndGet();
+                            }
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }, "verifier-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        long nanos = System.nanoTime() - begin;
+        return new Report(new ArrayList<ScoreInfo>(accepted), rejected.get(),
+                ticks.get(), nanos);
+    }
+
+    /**
+     * Checks one submission and moves it to its directory.
+     *
+     * @param verifier    the thread's verifier
+     * @param file        the submission file
+     * @param acceptedDir directory of accepted submissions
+     * @param rejectedDir directory of rejected submissions
+     * @param ticks       total of the replayed ticks, to add to
+     * @return the score if accepted, null if not
+     */
+    private static ScoreInfo check(ReplayVerifier verifier, File file,
+                                   File acceptedDir, File rejectedDir,
+                                   AtomicLong ticks) {
+        ScoreInfo scoreInfo = null;
+        String reason;
+        try {
+            ReplaySubmission submission = ReplaySubmission.load(file);
+            ReplayVerifier.Result result = verifier.verify(submission);
+            ticks.addAndGet(result.getTicks());
+            reason = result.getReason();
+            if (result.isAccepted()) {
+                scoreInfo = submission.getScoreInfo();
+            }
+        } catch (IOException e) {
+            reason = e.getMessage();
+        }
+
+        // Move it out of the queue
+        File target = new File(scoreInfo != null ? acceptedDir : rejectedDir,
+                file.getName());
+        try {
+            Files.move(file.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.out.println("Can't move " + file + ": " + e);
+        }
+        if (scoreInfo == null) {
+            System.out.println("Rejected " + file.getName() + ": " + reason);
+        }
+        return scoreInfo;
+    }
+
+    /**
+     * The results of a job run.
+     */
+    public static final class Report {
+        private final List<ScoreInfo> accepted;
+        private final int rejected;
+        private final long ticks;
+        private final long nanos;
+
+        /**
+         * Creates the report.
+         *
+         * @param accepted the accepted scores
+         * @param rejected number of rejected submissions
+         * @param ticks    number of replayed ticks
+         * @param nanos    time the job took
+         */
+        Report(List<ScoreInfo> accepted, int rejected, long ticks,
+               long nanos) {
+            this.accepted = Collections.unmodifiableList(accepted);
+            this.rejected = rejected;
+            this.ticks = ticks;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Returns the accepted scores.
+         *
+         * @return the scores
+         */
+        public List<ScoreInfo> getAccepted() {
+            return accepted;
+        }
+
+        /**
+         * Returns the number of rejected submissions.
+         *
+         * @return number of submissions
+         */
+        public int getRejected() {
+            return rejected;
+        }
+
+        /**
+         * Returns the number of replayed ticks, of all the submissions.
+         *
+         * @return number of ticks
+         */
+        public long getTicks() {
+            return ticks;
+        }
+
+        /**
+         * Returns the time the job took.
+         *
+         * @return time in nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Returns the replay speed.
+         *
+         * @return replayed ticks per second
+         */
+        public double getTicksPerSecond() {
+            return nanos == 0 ? 0 : ticks / (nanos / 1e9);
+        }
+    }
+}
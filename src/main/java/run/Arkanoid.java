@@ -8,12 +8,17 @@ import biuoop.DialogManager;
 import biuoop.KeyboardSensor;
 import gameplay.GameFlow;
 import io.FormatException;
+import io.LevelRepository;
 import io.LevelSetsReader;
+import io.ResourceLoader;
 import menu.Task;
 import scores.HighScoresTable;
+import scores.ScoresRanking;
+import scores.ScoresStore;
+import scores.ScoresWriter;
+import scores.SharedScoresFile;
 import utils.Finals;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -23,6 +28,7 @@ import java.nio.charset.Charset;
  * This class can run the arkanoid game.
  */
 public class Arkanoid {
+    private static final long QUIT_WAIT_MILLIS = 2000;
     private Finals finals = Finals.getInstance();
     private AnimationRunner runner;
     private KeyboardSensor sensor;
@@ -107,6 +113,7 @@ public class Arkanoid {
         return new Task<Void>() {
             // Quits the game
             public Void run() {
+                ScoresWriter.getInstance().flush(QUIT_WAIT_MILLIS);
                 System.exit(0);
                 return null;
             }
@@ -119,42 +126,39 @@ public class Arkanoid {
      * @return showing high scores task
      */
     private Task<Void> scoresOption() {
-        // Get the high score table file
-        File scoresFile = new File(finals.getScoresFileName());
-
-        // If the file exists - return task displaying the table
-        if (scoresFile.exists()) {
-            final HighScoresTable scoresTable
-                    = HighScoresTable.loadFromFile(scoresFile);
-
-            // Create the screen task
-            return new Task<Void>() {
-                // Create the screen animation
-                private KeyPressStoppableAnimation scoresScreen
-                        = new KeyPressStoppableAnimation(sensor,
-                        new HighScoresAnimation(scoresTable),
-                        finals.getStopAnimationKey());
-
-                // Runs the animation
-                public Void run() {
-                    runner.run(scoresScreen);
-                    return null;
-                }
-            };
-        } else { // no file to show. Only display message
-            return new Task<Void>() {
-                // Create the screen animation
-                private KeyPressStoppableAnimation scoresScreen
-                        = new KeyPressStoppableAnimation(sensor,
-                        new HighScoresAnimation(null),
-                        finals.getStopAnimationKey());
-
-                // Runs the animation
-                public Void run() {
-                    runner.run(scoresScreen);
-                    return null;
-                }
-            };
+        return new Task<Void>() {
+            // Reads the high scores and displays the table
+            public Void run() {
+                runner.run(new KeyPressStoppableAnimation(sensor,
+                        new HighScoresAnimation(readHighScores()),
+                        finals.getStopAnimationKey()));
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Copies the high scores out of the shared scores file.
+     *
+     * @return the high scores, null if there are none
+     */
+    private HighScoresTable readHighScores() {
+        final int scoresToKeep = finals.getScoresToKeep();
+        try {
+            return SharedScoresFile.getInstance().withLock(
+                    new SharedScoresFile.Action<HighScoresTable>() {
+                        public HighScoresTable run(ScoresRanking scores) {
+                            if (scores.size() == 0) {
+                                return null; // only display a message
+                            }
+                            return new HighScoresTable(scoresToKeep,
+                                    ScoresStore.fromSorted(
+                                            scores.topK(scoresToKeep)));
+                        }
+                    });
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
         }
     }
 
@@ -173,8 +177,7 @@ public class Arkanoid {
 
         // Try to open the level sets file and read from it
         try {
-            InputStream is = ClassLoader.getSystemClassLoader()
-                    .getResourceAsStream(levelSetsFilename);
+            InputStream is = ResourceLoader.open(levelSetsFilename);
             if (is == null) {
                 throw new IOException();
             }
@@ -184,7 +187,24 @@ public class Arkanoid {
             int lives = Finals.getInstance().getLives();
             GameFlow gameFlow = new GameFlow(runner, sensor, lives);
             setsMenu = new LevelSetsReader(sensor, gameFlow).fromReader(stream);
+            if (finals.isDevMode()) {
+                LevelRepository.getInstance().clearError(levelSetsFilename);
+            }
+
+        } catch (FormatException e) {
+            if (!finals.isDevMode()) {
+                throw e;
+            }
 
+            // Dev mode - show the error and let the user read the file again
+            LevelRepository.getInstance().reportError(levelSetsFilename, e);
+            setsMenu = new MenuAnimation<Task<Void>>(sensor);
+            setsMenu.addSelection("r", "Press \"r\" to reload the level sets.",
+                    new Task<Void>() {
+                        public Void run() {
+                            return null; // the main menu reads the file again
+                        }
+                    });
         } finally {
             if (stream != null) {
                 stream.close();
@@ -0,0 +1,656 @@
+package scores;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A binary scores file of fixed size records, accessed through a memory
+ * mapping. Opening the file only reads its header, whatever its size, and a
+ * new score is written in place.
+ * <p>
+ * The file has three parts:
+ * <ul>
+ * <li>header - magic, version, record size, capacity, count, a flag that
+ * is set while the index is being changed, and how much of the scores
+ * journal was added to the file</li>
+ * <li>records - one per score, in the order they were added: name slot,
+ * level set slot (UTF-8, length byte first), score and timestamp</li>
+ * <li>index - (score, record number) pairs sorted from the highest score,
+ * so rank queries are binary searches</li>
+ * </ul>
+ * When the file is full it is rewritten with twice the capacity and renamed
+ * over the old one. If the program died while changing the index, the index
+ * is rebuilt from the records when the file is opened.
+ * <p>
+ * The count is the last thing written when a score is added, so a score is
+ * either fully added or not at all. The journal position written with it is
+ * first kept aside with the count it belongs to, and taken on recovery only
+ * if that count was reached - so a journal entry is never added twice.
+ * <p>
+ * The object is not safe for use by several processes at once by itself:
+ * see {@link SharedScoresFile}.
+ */
+public class BinaryScoresFile implements ScoresRanking, Closeable {
+    private static final int MAGIC = 0x41524B53; // "ARKS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC_POS = 0;
+    private static final int VERSION_POS = 4;
+    private static final int RECORD_SIZE_POS = 8;
+    private static final int CAPACITY_POS = 12;
+    private static final int COUNT_POS = 16;
+    private static final int DIRTY_POS = 20;
+    private static final int JOURNAL_ID_POS = 24;
+    private static final int JOURNAL_APPLIED_POS = 32;
+    private static final int PENDING_COUNT_POS = 36;
+    private static final int PENDING_APPLIED_POS = 40;
+
+    static final int RECORD_SIZE = 64;
+    private static final int NAME_SLOT = 40;
+    private static final int LEVEL_SET_SLOT = 12;
+    private static final int SCORE_OFFSET = NAME_SLOT + LEVEL_SET_SLOT;
+    private static final int TIMESTAMP_OFFSET = SCORE_OFFSET + 4;
+    private static final int INDEX_ENTRY_SIZE = 8;
+
+    private static final int MIN_CAPACITY = 64;
+    private static final int COPY_CHUNK = 64 * 1024;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File file;
+    private RandomAccessFile raf;
+    private MappedByteBuffer map;
+    private Object fileKey;
+    private int capacity;
+
+    /**
+     * Opens a scores file, creating an empty one if it doesn't exist.
+     *
+     * @param file the scores file
+     * @throws IOException problem with the file, or not a scores file
+     */
+    public BinaryScoresFile(File file) throws IOException {
+        this.file = file;
+        if (!file.exists() || file.length() == 0) {
+            create(file, MIN_CAPACITY);
+        }
+        mapFile();
+        if (map.getInt(DIRTY_POS) != 0) {
+            recover();
+        }
+    }
+
+    /**
+     * Opens the binary scores file. If it doesn't exist yet and there is a
+     * text scores file, the text scores are imported into it.
+     *
+     * @param file     the binary scores file
+     * @param textFile the older text scores file
+     * @return the open scores file
+     * @throws IOException problem with one of the files
+     */
+    public static BinaryScoresFile open(File file, File textFile)
+            throws IOException {
+        boolean isNew = !file.exists();
+        BinaryScoresFile scoresFile = new BinaryScoresFile(file);
+        if (isNew && textFile != null && textFile.exists()) {
+            HighScoresTable textTable = new HighScoresTable(0);
+            textTable.load(textFile);
+            scoresFile.importFrom(textTable.getRanking());
+            scoresFile.force();
+        }
+        return scoresFile;
+    }
+
+    /**
+     * Adds all the scores of another ranking, keeping their order.
+     *
+     * @param ranking the scores to add
+     * @return number of scores added
+     */
+    public synchronized int importFrom(ScoresRanking ranking) {
+        int count = ranking.size();
+        for (ScoreInfo scoreInfo : ranking.topK(count)) {
+            append(scoreInfo);
+        }
+        return count;
+    }
+
+    /**
+     * Adds a score before the scores equal to it.
+     *
+     * @param scoreInfo the score to add
+     * @return the rank the score got, 1 for the best
+     */
+    public synchronized int insert(ScoreInfo scoreInfo) {
+        return insert(scoreInfo, true, getJournalApplied());
+    }
+
+    /**
+     * Adds a score taken from the journal, and moves the journal position
+     * together with it.
+     *
+     * @param scoreInfo the score to add
+     * @param applied   number of journal entries added, with this one
+     * @return the rank the score got, 1 for the best
+     */
+    public synchronized int insertFromJournal(ScoreInfo scoreInfo,
+                                              int applied) {
+        return insert(scoreInfo, true, applied);
+    }
+
+    /**
+     * Returns the id of the journal whose entries are being added.
+     *
+     * @return the journal id, 0 if none
+     */
+    public synchronized long getJournalId() {
+        return map.getLong(JOURNAL_ID_POS);
+    }
+
+    /**
+     * Returns the number of entries of the current journal already added.
+     *
+     * @return number of journal entries
+     */
+    public synchronized int getJournalApplied() {
+        return map.getInt(JOURNAL_APPLIED_POS);
+    }
+
+    /**
+     * Starts adding the entries of a new journal, from its first entry.
+     *
+     * @param journalId the id of the journal
+     */
+    public synchronized void startJournal(long journalId) {
+        // The position first: a crash in between still sees a new journal
+        map.putInt(PENDING_APPLIED_POS, 0);
+        map.putInt(JOURNAL_APPLIED_POS, 0);
+        map.putLong(JOURNAL_ID_POS, journalId);
+    }
+
+    /**
+     * Catches up with changes made by other processes: maps the file again
+     * if it was replaced, and recovers it if a process died while adding a
+     * score. Must be called while holding the file lock.
+     *
+     * @throws IOException problem mapping the file again
+     */
+    public synchronized void refresh() throws IOException {
+        if (isReplaced()) {
+            close();
+            mapFile();
+        }
+        if (map.getInt(DIRTY_POS) != 0) {
+            recover();
+        }
+    }
+
+    /**
+     * Adds a score after the scores equal to it.
+     *
+     * @param scoreInfo the score to add
+     * @return the rank the score got, 1 for the best
+     */
+    public synchronized int append(ScoreInfo scoreInfo) {
+        return insert(scoreInfo, false, getJournalApplied());
+    }
+
+    /**
+     * Returns the rank a score would get if added now.
+     *
+     * @param score the score
+     * @return the rank, 1 for the best
+     */
+    public synchronized int rank(int score) {
+        return findPlace(score, true) + 1;
+    }
+
+    /**
+     * Returns the score at a rank.
+     *
+     * @param rank the rank, from 1 to size()
+     * @return the score at the rank
+     * @throws IndexOutOfBoundsException no such rank
+     */
+    public synchronized ScoreInfo get(int rank) {
+        int count = size();
+        if (rank < 1 || rank > count) {
+            throw new IndexOutOfBoundsException("Rank " + rank + " of "
+                    + count);
+        }
+        return readRecord(map, recordPos(map.getInt(indexPos(rank - 1)
+                + 4)));
+    }
+
+    /**
+     * Returns the best scores.
+     *
+     * @param k number of scores to return
+     * @return the k best scores, fewer if there are not enough
+     */
+    public synchronized List<ScoreInfo> topK(int k) {
+        int n = Math.min(k, size());
+        List<ScoreInfo> top = new ArrayList<ScoreInfo>(n);
+        for (int i = 0; i < n; i++) {
+            top.add(readRecord(map, recordPos(map.getInt(indexPos(i)
+                    + 4))));
+        }
+        return top;
+    }
+
+    /**
+     * Returns the percentage of the scores which are lower than the score.
+     *
+     * @param score the score
+     * @return percentile between 0 and 100, 100 if there are no scores
+     */
+    public synchronized double percentileOf(int score) {
+        int count = size();
+        if (count == 0) {
+            return 100;
+        }
+        return 100.0 * (count - findPlace(score, false)) / count;
+    }
+
+    /**
+     * Returns the number of scores.
+     *
+     * @return number of scores
+     */
+    public synchronized int size() {
+        return map.getInt(COUNT_POS);
+    }
+
+    /**
+     * Removes all the scores. The file keeps its size.
+     */
+    public synchronized void clear() {
+        map.putInt(COUNT_POS, 0);
+    }
+
+    /**
+     * Writes the changes to the disk.
+     */
+    public synchronized void force() {
+        if (map != null) {
+            map.force();
+        }
+    }
+
+    /**
+     * Closes the file. The changes are written to the disk by the system.
+     *
+     * @throws IOException problem closing
+     */
+    public synchronized void close() throws IOException {
+        if (raf != null) {
+            raf.close();
+            raf = null;
+        }
+    }
+
+    /**
+     * Adds a score: writes its record, and moves the index entries after its
+     * place one entry forward.
+     *
+     * @param scoreInfo   the score to add
+     * @param beforeEqual true to put it before equal scores, false after
+     * @param applied     the journal position to keep with the score
+     * @return the rank the score got
+     */
+    private int insert(ScoreInfo scoreInfo, boolean beforeEqual,
+                       int applied) {
+        int count = size();
+        if (count == capacity) {
+            grow();
+        }
+        int place = findPlace(scoreInfo.getScore(), beforeEqual);
+
+        // Mark the index as changing, until all is in place
+        map.putInt(PENDING_COUNT_POS, count + 1);
+        map.putInt(PENDING_APPLIED_POS, applied);
+        map.putInt(DIRTY_POS, 1);
+        writeRecord(map, recordPos(count), scoreInfo);
+        moveIndex(place, count);
+        map.putInt(indexPos(place), scoreInfo.getScore());
+        map.putInt(indexPos(place) + 4, count);
+        map.putInt(COUNT_POS, count + 1); // the score is added from here
+        map.putInt(JOURNAL_APPLIED_POS, applied);
+        map.putInt(DIRTY_POS, 0);
+        return place + 1;
+    }
+
+    /**
+     * Finds the index place of a score, by binary search.
+     *
+     * @param score       the score
+     * @param beforeEqual true for the place before equal scores, false for
+     *                    the place after them
+     * @return number of index entries before the place
+     */
+    private int findPlace(int score, boolean beforeEqual) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int stored = map.getInt(indexPos(mid));
+            if (beforeEqual ? stored > score : stored >= score) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Moves the index entries from place to the end one entry forward. The
+     * entries are copied in chunks from the end, so nothing is overwritten
+     * before it is copied.
+     *
+     * @param place first entry to move
+     * @param count number of entries
+     */
+    private void moveIndex(int place, int count) {
+        byte[] chunk = new byte[Math.min(COPY_CHUNK,
+                (count - place) * INDEX_ENTRY_SIZE)];
+        int end = indexPos(count);
+        int start = indexPos(place);
+        while (end > start) {
+            int length = Math.min(chunk.length, end - start);
+            int from = end - length;
+            map.position(from);
+            map.get(chunk, 0, length);
+            map.position(from + INDEX_ENTRY_SIZE);
+            map.put(chunk, 0, length);
+            end = from;
+        }
+    }
+
+    /**
+     * Fixes the file after a process died while adding a score: the index is
+     * sorted again, and the journal position is moved if the score was added.
+     */
+    private void recover() {
+        rebuildIndex();
+        if (size() == map.getInt(PENDING_COUNT_POS)) {
+            map.putInt(JOURNAL_APPLIED_POS, map.getInt(PENDING_APPLIED_POS));
+        }
+        map.putInt(DIRTY_POS, 0);
+        map.force();
+    }
+
+    /**
+     * Sorts the index again from the records. Equal scores are put from the
+     * newest record, as insert() puts them.
+     */
+    private void rebuildIndex() {
+        int count = size();
+        long[] entries = new long[count];
+        for (int i = 0; i < count; i++) {
+            // Higher scores first, then newer records: sort by the negated
+            // score, then the negated record number
+            long score = map.getInt(recordPos(i) + SCORE_OFFSET);
+            entries[i] = ((-score) << 32) | (Integer.MAX_VALUE - i);
+        }
+        Arrays.sort(entries);
+        for (int i = 0; i < count; i++) {
+            int record = Integer.MAX_VALUE - (int) entries[i];
+            map.putInt(indexPos(i), map.getInt(recordPos(record)
+                    + SCORE_OFFSET));
+            map.putInt(indexPos(i) + 4, record);
+        }
+    }
+
+    /**
+     * Writes a record.
+     *
+     * @param buffer    the buffer to write to
+     * @param pos       position of the record in the buffer
+     * @param scoreInfo the score to write
+     */
+    static void writeRecord(ByteBuffer buffer, int pos, ScoreInfo scoreInfo) {
+        putString(buffer, pos, NAME_SLOT, scoreInfo.getName());
+        putString(buffer, pos + NAME_SLOT, LEVEL_SET_SLOT,
+                scoreInfo.getLevelSet());
+        buffer.putInt(pos + SCORE_OFFSET, scoreInfo.getScore());
+        buffer.putLong(pos + TIMESTAMP_OFFSET, scoreInfo.getTimestamp());
+    }
+
+    /**
+     * Reads a record.
+     *
+     * @param buffer the buffer to read from
+     * @param pos    position of the record in the buffer
+     * @return the score of the record
+     */
+    static ScoreInfo readRecord(ByteBuffer buffer, int pos) {
+        return new ScoreInfo(getString(buffer, pos),
+                buffer.getInt(pos + SCORE_OFFSET),
+                buffer.getLong(pos + TIMESTAMP_OFFSET),
+                getString(buffer, pos + NAME_SLOT));
+    }
+
+    /**
+     * Writes a string to a slot: its length and then its UTF-8 bytes. Too
+     * long strings are cut at a character boundary.
+     *
+     * @param buffer the buffer to write to
+     * @param pos    slot position
+     * @param slot   slot size, including the length byte
+     * @param text   the string
+     */
+    private static void putString(ByteBuffer buffer, int pos, int slot,
+                                  String text) {
+        ByteBuffer bytes = ByteBuffer.allocate(slot - 1);
+        CharsetEncoder encoder = UTF8.newEncoder();
+        encoder.encode(CharBuffer.wrap(text), bytes, true);
+        bytes.flip();
+        buffer.put(pos, (byte) bytes.remaining());
+        buffer.position(pos + 1);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Reads a string from a slot.
+     *
+     * @param buffer the buffer to read from
+     * @param pos    slot position
+     * @return the string
+     */
+    private static String getString(ByteBuffer buffer, int pos) {
+        byte[] bytes = new byte[buffer.get(pos) & 0xff];
+        buffer.position(pos + 1);
+        buffer.get(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    /**
+     * Returns the position of a record in the file.
+     *
+     * @param record the record number
+     * @return byte position
+     */
+    private static int recordPos(int record) {
+        return HEADER_SIZE + record * RECORD_SIZE;
+    }
+
+    /**
+     * Returns the position of an index entry in the file.
+     *
+     * @param entry the entry number
+     * @return byte position
+     */
+    private int indexPos(int entry) {
+        return recordPos(capacity) + entry * INDEX_ENTRY_SIZE;
+    }
+
+    /**
+     * Returns the file size for a capacity.
+     *
+     * @param capacity number of records
+     * @return size in bytes
+     * @throws IOException the file would be too big to map
+     */
+    private static int fileSize(long capacity) throws IOException {
+        long size = HEADER_SIZE + capacity * (RECORD_SIZE + INDEX_ENTRY_SIZE);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Scores file can't grow over "
+                    + Integer.MAX_VALUE + " bytes");
+        }
+        return (int) size;
+    }
+
+    /**
+     * Maps the file and checks its header.
+     *
+     * @throws IOException problem with the file, or not a scores file
+     */
+    private void mapFile() throws IOException {
+        raf = new RandomAccessFile(file, "rw");
+        fileKey = Files.readAttributes(file.toPath(),
+                BasicFileAttributes.class).fileKey();
+        FileChannel channel = raf.getChannel();
+        if (channel.size() < HEADER_SIZE) {
+            close();
+            throw new IOException(file + " is not a scores file");
+        }
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        capacity = map.getInt(CAPACITY_POS);
+        if (map.getInt(MAGIC_POS) != MAGIC
+                || map.getInt(VERSION_POS) != VERSION
+                || map.getInt(RECORD_SIZE_POS) != RECORD_SIZE
+                || capacity < 0 || fileSize(capacity) > channel.size()
+                || map.getInt(COUNT_POS) > capacity) {
+            close();
+            throw new IOException(file + " is not a scores file");
+        }
+    }
+
+    /**
+     * Checks whether the file was replaced since it was mapped, by a process
+     * which made it bigger.
+     *
+     * @return true if the mapped file is not the file any more
+     * @throws IOException problem reading the file attributes
+     */
+    private boolean isReplaced() throws IOException {
+        if (raf == null) {
+            return true;
+        }
+        Object currentKey = Files.readAttributes(file.toPath(),
+                BasicFileAttributes.class).fileKey();
+        if (fileKey == null || currentKey == null) {
+            // No file identity here - the capacity tells if it grew
+            return file.length() != fileSize(capacity);
+        }
+        return !fileKey.equals(currentKey);
+    }
+
+    /**
+     * Rewrites the file with twice the capacity and maps the new file.
+     */
+    private void grow() {
+        try {
+            File temp = File.createTempFile(file.getName() + ".grow-",
+                    ".tmp", file.getAbsoluteFile().getParentFile());
+            try {
+                int count = size();
+                int newCapacity = Math.max(MIN_CAPACITY, capacity * 2);
+                create(temp, newCapacity);
+
+                // Copy the records and the index to the new places
+                RandomAccessFile out = new RandomAccessFile(temp, "rw");
+                try {
+                    MappedByteBuffer newMap = out.getChannel().map(
+                            FileChannel.MapMode.READ_WRITE, 0,
+                            fileSize(newCapacity));
+                    copy(recordPos(0), newMap, recordPos(0),
+                            count * RECORD_SIZE);
+                    copy(indexPos(0), newMap, recordPos(newCapacity),
+                            count * INDEX_ENTRY_SIZE);
+                    newMap.putInt(COUNT_POS, count);
+                    newMap.putLong(JOURNAL_ID_POS, getJournalId());
+                    newMap.putInt(JOURNAL_APPLIED_POS, getJournalApplied());
+                    newMap.putInt(PENDING_COUNT_POS, count);
+                    newMap.putInt(PENDING_APPLIED_POS, getJournalApplied());
+                    newMap.force();
+                } finally {
+                    out.close();
+                }
+
+                // Replace the old file
+                close();
+                try {
+                    Files.move(temp.toPath(), file.toPath(),
+                            StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp.toPath(), file.toPath(),
+                            StandardCopyOption.REPLACE_EXISTING);
+                }
+                mapFile();
+            } finally {
+                Files.deleteIfExists(temp.toPath());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed growing " + file, e);
+        }
+    }
+
+    /**
+     * Copies bytes from this file's mapping to another mapping.
+     *
+     * @param from   position in this file
+     * @param target the target mapping
+     * @param to     position in the target
+     * @param length number of bytes
+     */
+    private void copy(int from, MappedByteBuffer target, int to, int length) {
+        ByteBuffer source = map.duplicate();
+        source.position(from);
+        source.limit(from + length);
+        target.position(to);
+        target.put(source);
+    }
+
+    /**
+     * Creates an empty scores file.
+     *
+     * @param target   the file to create
+     * @param capacity number of records it can hold
+     * @throws IOException problem writing the file
+     */
+    private static void create(File target, int capacity) throws IOException {
+        RandomAccessFile out = new RandomAccessFile(target, "rw");
+        try {
+            out.setLength(fileSize(capacity));
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC_POS, MAGIC);
+            header.putInt(VERSION_POS, VERSION);
+            header.putInt(RECORD_SIZE_POS, RECORD_SIZE);
+            header.putInt(CAPACITY_POS, capacity);
+            header.putInt(COUNT_POS, 0);
+            header.putInt(DIRTY_POS, 0);
+            out.getChannel().write(header, 0);
+            out.getChannel().force(true);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -1,25 +1,29 @@
 package scores;
 
+import profiling.ScoresSaveEvent;
 import utils.Finals;
 
-import java.io.IOException;
 import java.io.File;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.io.FileOutputStream;
-import java.io.OutputStreamWriter;
-import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
-import java.util.ArrayList;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.zip.CRC32;
 
 /**
- * Represents a table of high scores - player name + score.
+ * Represents a table of high scores - player name + score. The table keeps
+ * all the scores added to it, and shows the best of them.
  */
 public class HighScoresTable {
+    private static final String HEADER = "#arkanoid-scores v1";
+    private static final Charset UTF8 = Charset.forName("UTF-8");
     private int size;
-    private List<ScoreInfo> scores;
+    private ScoresRanking ranking;
 
     /**
      * Create an empty high-scores table with the specified size.
@@ -27,48 +31,34 @@ public class HighScoresTable {
      * @param size number of top scores to hold
      */
     public HighScoresTable(int size) {
+        this(size, new ScoresStore());
+    }
+
+    /**
+     * Create a high-scores table showing the best scores of a ranking.
+     *
+     * @param size    number of top scores to show
+     * @param ranking all the scores
+     */
+    public HighScoresTable(int size, ScoresRanking ranking) {
         this.size = size;
-        scores = new ArrayList<ScoreInfo>();
+        this.ranking = ranking;
     }
 
     /**
      * Read a table from file and return it.
      *
      * @param filename is the file to read from
-     * @return the scores table
+     * @return the scores table, null if the file can't be read
      */
     public static HighScoresTable loadFromFile(File filename) {
-        HighScoresTable scoresTable = null;
-        BufferedReader inputStream = null;
-        Charset utf8 = Charset.forName("UTF-8");
-
-        // Try to open the file and read from it
+        HighScoresTable scoresTable
+                = new HighScoresTable(Finals.getInstance().getScoresToKeep());
         try {
-            inputStream = new BufferedReader(new InputStreamReader(
-                    new FileInputStream(filename), utf8));
-
-            // Create a new table
-            scoresTable = new HighScoresTable(
-                    Finals.getInstance().getScoresToKeep());
-
-            // Read a line of score info and split it to a new entry
-            String scoreInfoStr;
-            while ((scoreInfoStr = inputStream.readLine()) != null) {
-                String[] params = scoreInfoStr.split(
-                        Finals.getInstance().getScoreDelimiter());
-                scoresTable.add(new ScoreInfo(params[0],
-                        Integer.decode(params[1])));
-            }
+            scoresTable.load(filename);
         } catch (IOException e) {
             System.out.println("Something went wrong while reading!");
-        } finally {
-            if (inputStream != null) {
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    System.out.println("Failed closing the file!");
-                }
-            }
+            return null;
         }
 
         // Return the score table
@@ -76,38 +66,22 @@ public class HighScoresTable {
     }
 
     /**
-     * Add a high-score if it fits.
+     * Add a score. All the scores are kept, the table shows the best ones.
      *
      * @param score score to add
      */
     public void add(ScoreInfo score) {
-        if (this.isToAdd(score.getScore())) {
-            this.scores.add(getRank(score.getScore()) - 1, score);
-        }
-        if (this.scores.size() > this.size) {
-            this.scores.remove(this.size);
-        }
+        this.ranking.insert(score);
     }
 
     /**
-     * Returns the place number of a score in the table.
+     * Returns the place number of a score among all the scores.
      *
      * @param score the score to be checked
      * @return proper place
      */
     public int getRank(int score) {
-        // Go over the scores and find proper place
-        int place = 1;
-        for (ScoreInfo scoreInfo : scores) {
-            if (score < scoreInfo.getScore()) {
-                place++;
-            } else {
-                return place;
-            }
-        }
-
-        // Return the last place
-        return this.scores.size() + 1;
+        return this.ranking.rank(score);
     }
 
     /**
@@ -117,15 +91,13 @@ public class HighScoresTable {
      * @return check result
      */
     public boolean isToAdd(int score) {
-        List<ScoreInfo> highScores = this.getHighScores();
-
         // If table is not full - add
-        if (highScores.size() < this.size()) {
+        if (this.ranking.size() < this.size()) {
             return true;
         }
 
         // Add if big enough
-        return highScores.get(highScores.size() - 1).getScore() <= score;
+        return this.ranking.get(this.size()).getScore() <= score;
     }
 
     /**
@@ -143,78 +115,208 @@ public class HighScoresTable {
      * @return sorted list of high scores.
      */
     public List<ScoreInfo> getHighScores() {
-        return this.scores;
+        return this.ranking.topK(this.size);
     }
 
     /**
-     * Load table data from file.
+     * Returns all the scores of the table.
+     *
+     * @return the scores ranking
+     */
+    public ScoresRanking getRanking() {
+        return this.ranking;
+    }
+
+    /**
+     * Returns a copy of the table, which is not changed by adding scores to
+     * this table.
+     *
+     * @return copy of the table
+     */
+    public HighScoresTable snapshot() {
+        return new HighScoresTable(this.size,
+                ScoresStore.fromSorted(this.ranking.topK(
+                        this.ranking.size())));
+    }
+
+    /**
+     * Load table data from file. Lines which are damaged are skipped, and the
+     * rest of the scores are loaded.
      *
      * @param filename the file to read from
      * @throws IOException any exception with the input
      */
     public void load(File filename) throws IOException {
         this.clear();
-        Charset utf8 = Charset.forName("UTF-8");
-        BufferedReader inputStream = null;
+        byte[] content = Files.readAllBytes(filename.toPath());
+        String text = new String(content, UTF8);
 
-        // Try to open the file and read from it
-        try {
-            inputStream = new BufferedReader(new InputStreamReader(
-                    new FileInputStream(filename), utf8));
-
-            // Read a line of score info and split it to a new entry
-            String scoreInfoStr;
-            while ((scoreInfoStr = inputStream.readLine()) != null) {
-                String[] params = scoreInfoStr.split(
-                        Finals.getInstance().getScoreDelimiter());
-                this.add(new ScoreInfo(params[0],
-                        Integer.decode(params[1])));
+        // Check the header, if there is one (older files have none)
+        int bodyStart = 0;
+        if (text.startsWith(HEADER)) {
+            int headerEnd = text.indexOf('\n');
+            if (headerEnd < 0) {
+                headerEnd = text.length();
             }
-        } catch (IOException e) {
-            System.out.println("Something went wrong while reading!");
-        } finally {
-            if (inputStream != null) {
+            String header = text.substring(0, headerEnd);
+            bodyStart = Math.min(headerEnd + 1, text.length());
+            if (!isChecksumValid(header, text.substring(bodyStart))) {
+                System.out.println("Scores file " + filename
+                        + " is damaged, recovering what's left");
+            }
+        }
+
+        // Read a line of score info and split it to a new entry
+        for (String line : text.substring(bodyStart).split("\n")) {
+            ScoreInfo scoreInfo = parseScoreLine(line);
+            if (scoreInfo != null) {
+                this.ranking.append(scoreInfo); // keeps the order of the file
+            } else if (!line.isEmpty()) {
+                System.out.println("Skipping damaged score line: " + line);
+            }
+        }
+    }
+
+    /**
+     * Checks the checksum written in the header against the body.
+     *
+     * @param header the header line
+     * @param body   the rest of the file
+     * @return true if the checksum matches
+     */
+    private static boolean isChecksumValid(String header, String body) {
+        String prefix = "crc32=";
+        for (String field : header.split(" ")) {
+            if (field.startsWith(prefix)) {
                 try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    System.out.println("Failed closing the file!");
+                    long expected = Long.parseLong(
+                            field.substring(prefix.length()), 16);
+                    return expected == checksum(body.getBytes(UTF8));
+                } catch (NumberFormatException e) {
+                    return false;
                 }
             }
         }
+        return false;
+    }
+
+    /**
+     * Parses one line of the scores file.
+     *
+     * @param line the line: name, delimiter, score
+     * @return the score info, null if the line is damaged
+     */
+    private static ScoreInfo parseScoreLine(String line) {
+        String delimiter = Finals.getInstance().getScoreDelimiter();
+        int split = line.lastIndexOf(delimiter);
+        if (split < 0) {
+            return null;
+        }
+        try {
+            int score = Integer.parseInt(
+                    line.substring(split + delimiter.length()).trim());
+            return new ScoreInfo(line.substring(0, split), score);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Computes the checksum of the file body.
+     *
+     * @param body the body bytes
+     * @return CRC32 of the body
+     */
+    private static long checksum(byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+        return crc.getValue();
     }
 
     /**
      * Clears the table.
      */
     public void clear() {
-        this.scores.clear();
+        this.ranking.clear();
     }
 
     /**
-     * Save table data to the specified file.
+     * Save table data to the specified file. The table is written to a
+     * temporary file, flushed to the disk and then renamed over the old file,
+     * so a crash leaves either the old table or the new one.
      *
      * @param filename file to save to
      * @throws IOException any IO exception
      */
     public void save(File filename) throws IOException {
-        Charset utf8 = Charset.forName("UTF-8");
-        PrintWriter outputStream = null;
+        ScoresSaveEvent event = new ScoresSaveEvent();
+        event.begin();
+
+        // Prepare the body and its checksum
+        StringBuilder body = new StringBuilder();
+        String delimiter = Finals.getInstance().getScoreDelimiter();
+        for (ScoreInfo scoreInfo
+                : this.ranking.topK(this.ranking.size())) {
+            body.append(scoreInfo.getName()).append(delimiter)
+                    .append(scoreInfo.getScore()).append('\n');
+        }
+        byte[] bodyBytes = body.toString().getBytes(UTF8);
+        String header = String.format("%s crc32=%08x count=%d\n", HEADER,
+                checksum(bodyBytes), this.ranking.size());
+
+        // Write everything to a temporary file next to the target
+        File dir = filename.getAbsoluteFile().getParentFile();
+        File temp = File.createTempFile(filename.getName() + ".save-", ".tmp",
+                dir);
         try {
-            outputStream = new PrintWriter(new OutputStreamWriter(
-                    new FileOutputStream(filename), utf8));
-
-            // Go over the scores and save to file
-            for (ScoreInfo scoreInfo : scores) {
-                outputStream.printf("%s%s%d\n", scoreInfo.getName(),
-                        Finals.getInstance().getScoreDelimiter(),
-                        scoreInfo.getScore());
+            FileOutputStream outputStream = new FileOutputStream(temp);
+            try {
+                outputStream.write(header.getBytes(UTF8));
+                outputStream.write(bodyBytes);
+                outputStream.getChannel().force(true);
+            } finally {
+                outputStream.close();
+            }
+
+            // Replace the old file at once
+            try {
+                Files.move(temp.toPath(), filename.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), filename.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
             }
-        } catch (IOException e) {
-            System.out.println("Something went wrong while writing!");
         } finally {
-            if (outputStream != null) {
-                outputStream.close();
+            Files.deleteIfExists(temp.toPath());
+        }
+        forceDirectory(dir);
+
+        // Record the save if the flight recorder takes it
+        event.end();
+        if (event.shouldCommit()) {
+            event.set(filename.getPath(), this.ranking.size());
+            event.commit();
+        }
+    }
+
+    /**
+     * Flushes the directory to the disk, so the rename survives a crash. Not
+     * supported on every system, so failures are ignored.
+     *
+     * @param dir the directory
+     */
+    private static void forceDirectory(File dir) {
+        try {
+            FileChannel channel = FileChannel.open(dir.toPath(),
+                    StandardOpenOption.READ);
+            try {
+                channel.force(true);
+            } finally {
+                channel.close();
             }
+        } catch (IOException e) {
+            return; // can't open directories here
         }
     }
-}
\ No newline at end of file
+}
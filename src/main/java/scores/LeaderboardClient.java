@@ -0,0 +1,438 @@
+package scores;
+
+import utils.Finals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Client of the site leaderboard service.
+ * <p>
+ * Submitted scores are collected for a moment and sent in batches by a
+ * background thread, so many finishing games make few requests. Top scores
+ * are pulled into a cache, which is used until it is too old or until one
+ * of this client's batches is accepted.
+ */
+public class LeaderboardClient {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int MAX_BATCH = 500;
+    private static final long LINGER_MILLIS = 10;
+    private static LeaderboardClient instance;
+
+    private final String baseUrl;
+    private final int timeoutMillis;
+    private final long cacheMillis;
+    private final BlockingQueue<Submission> queue
+            = new LinkedBlockingQueue<Submission>();
+    private final ExecutorService executor;
+    private volatile Leaderboard cached;
+
+    /**
+     * Creates a client and starts its sending thread.
+     *
+     * @param baseUrl       the service address, such as http://host:port
+     * @param timeoutMillis connect and read timeout of the requests
+     * @param cacheMillis   how long top scores are used before pulling
+     *                      them again
+     */
+    public LeaderboardClient(String baseUrl, int timeoutMillis,
+                             long cacheMillis) {
+        this.baseUrl = baseUrl.endsWith("/")
+                ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.timeoutMillis = timeoutMillis;
+        this.cacheMillis = cacheMillis;
+        this.executor = Executors.newCachedThreadPool(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "leaderboard-client");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.execute(new Runnable() {
+            public void run() {
+                sendBatches();
+            }
+        });
+    }
+
+    /**
+     * Returns the client of the game's leaderboard.
+     *
+     * @return the client, null if the game has no leaderboard
+     */
+    public static synchronized LeaderboardClient getInstance() {
+        Finals finals = Finals.getInstance();
+        if (LeaderboardClient.instance == null
+                && finals.getLeaderboardUrl() != null) {
+            LeaderboardClient.instance = new LeaderboardClient(
+                    finals.getLeaderboardUrl(),
+                    finals.getLeaderboardTimeoutMillis(),
+                    finals.getLeaderboardCacheMillis());
+        }
+        return LeaderboardClient.instance;
+    }
+
+    /**
+     * Submits a score with the next batch. A submission can be cancelled
+     * only until its batch is sent; once sent, cancelling it fails, and the
+     * score must not be kept elsewhere. It then fails with a
+     * {@link ScoreNotSentException} only if the score surely didn't reach
+     * the service.
+     *
+     * @param scoreInfo the score
+     * @return the score, when the service accepted it; fails if it didn't
+     */
+    public Future<ScoreInfo> submit(ScoreInfo scoreInfo) {
+        Submission submission = new Submission(scoreInfo);
+        queue.add(submission);
+        return submission.result;
+    }
+
+    /**
+     * Returns the best scores, from the cache if it's fresh.
+     *
+     * @param k number of scores
+     * @return the leaderboard
+     * @throws IOException problem with the service
+     */
+    public Leaderboard getTop(int k) throws IOException {
+        Leaderboard leaderboard = cached;
+        if (leaderboard != null && leaderboard.covers(k)
+                && System.currentTimeMillis() - leaderboard.pulledAt
+                < cacheMillis) {
+            return leaderboard.limit(k);
+        }
+        leaderboard = pullTop(k);
+        cached = leaderboard;
+        return leaderboard;
+    }
+
+    /**
+     * Returns the best scores in the background.
+     *
+     * @param k number of scores
+     * @return the leaderboard, when pulled
+     */
+    public Future<Leaderboard> fetchTop(final int k) {
+        return executor.submit(new Callable<Leaderboard>() {
+            public Leaderboard call() throws IOException {
+                return getTop(k);
+            }
+        });
+    }
+
+    /**
+     * Sends the submitted scores in batches, until the thread is stopped.
+     */
+    private void sendBatches() {
+        List<Submission> batch = new ArrayList<Submission>();
+        try {
+            while (true) {
+                // Wait for a score, then collect more for a moment
+                batch.add(queue.take());
+                long deadline = System.nanoTime()
+                        + TimeUnit.MILLISECONDS.toNanos(LINGER_MILLIS);
+                while (batch.size() < MAX_BATCH) {
+                    Submission next = queue.poll(deadline - System.nanoTime(),
+                            TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch, MAX_BATCH - batch.size());
+                send(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sends a batch and tells its submitters the result.
+     *
+     * @param batch the submissions
+     */
+    private void send(List<Submission> batch) {
+        StringBuilder body = new StringBuilder();
+        List<Submission> sent = new ArrayList<Submission>(batch.size());
+        for (Submission submission : batch) {
+            if (submission.claim()) {
+                body.append(LeaderboardServer.formatScore(
+                        submission.scoreInfo)).append('\n');
+                sent.add(submission);
+            }
+        }
+        if (sent.isEmpty()) {
+            return;
+        }
+
+        IOException error = null;
+        try {
+            post("/scores", body.toString());
+            cached = null; // the new scores may change the top
+        } catch (IOException e) {
+            error = e;
+        }
+        for (Submission submission : sent) {
+            submission.finish(error);
+        }
+    }
+
+    /**
+     * Pulls the best scores from the service.
+     *
+     * @param k number of scores
+     * @return the leaderboard
+     * @throws IOException problem with the service
+     */
+    private Leaderboard pullTop(int k) throws IOException {
+        long pulledAt = System.currentTimeMillis();
+        HttpURLConnection connection = open("/top?k=" + k);
+        InputStream in = checkStatus(connection);
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(in, UTF8));
+        try {
+            String line = reader.readLine();
+            if (line == null) {
+                throw new IOException("Empty leaderboard answer");
+            }
+            int size;
+            try {
+                size = Integer.parseInt(line.trim());
+            } catch (NumberFormatException e) {
+                throw new IOException("Bad leaderboard answer: " + line);
+            }
+            List<ScoreInfo> top = new ArrayList<ScoreInfo>();
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    top.add(LeaderboardServer.parseScore(line));
+                }
+            }
+            return new Leaderboard(top, size, k, pulledAt);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Posts a request.
+     *
+     * @param path the request path
+     * @param body the request text
+     * @throws IOException problem with the service
+     */
+    private void post(String path, String body) throws IOException {
+        HttpURLConnection connection = open(path);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type",
+                "text/plain; charset=utf-8");
+        try {
+            connection.connect();
+        } catch (IOException e) {
+            throw new ScoreNotSentException("Can't reach the leaderboard: "
+                    + e, e);
+        }
+        OutputStream out = connection.getOutputStream();
+        try {
+            out.write(body.getBytes(UTF8));
+        } finally {
+            out.close();
+        }
+
+        // No answer may still mean the scores were taken; a refusal doesn't
+        int status = connection.getResponseCode();
+        if (status != HttpURLConnection.HTTP_OK) {
+            closeError(connection);
+            throw new ScoreNotSentException("Leaderboard answered " + status);
+        }
+        connection.getInputStream().close();
+    }
+
+    /**
+     * Opens a connection to the service.
+     *
+     * @param path the request path
+     * @return the connection
+     * @throws IOException bad address
+     */
+    private HttpURLConnection open(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection)
+                new URL(baseUrl + path).openConnection();
+        connection.setConnectTimeout(timeoutMillis);
+        connection.setReadTimeout(timeoutMillis);
+        return connection;
+    }
+
+    /**
+     * Checks the answer status.
+     *
+     * @param connection the connection
+     * @return the answer body
+     * @throws IOException the service failed the request
+     */
+    private static InputStream checkStatus(HttpURLConnection connection)
+            throws IOException {
+        int status = connection.getResponseCode();
+        if (status != HttpURLConnection.HTTP_OK) {
+            closeError(connection);
+            throw new IOException("Leaderboard answered " + status);
+        }
+        return connection.getInputStream();
+    }
+
+    /**
+     * Closes the body of a failed answer, so the connection can be reused.
+     *
+     * @param connection the connection
+     * @throws IOException problem closing
+     */
+    private static void closeError(HttpURLConnection connection)
+            throws IOException {
+        InputStream error = connection.getErrorStream();
+        if (error != null) {
+            error.close();
+        }
+    }
+
+    /**
+     * A submitted score, waiting to be sent.
+     */
+    private static final class Submission {
+        private final ScoreInfo scoreInfo;
+        private final FutureTask<ScoreInfo> result;
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+        private IOException error;
+
+        /**
+         * Creates the submission.
+         *
+         * @param scoreInfo the score
+         */
+        Submission(ScoreInfo scoreInfo) {
+            this.scoreInfo = scoreInfo;
+            this.result = new FutureTask<ScoreInfo>(
+                    new Callable<ScoreInfo>() {
+                        public ScoreInfo call() throws IOException {
+                            if (error != null) {
+                                throw error; // ends the future with it
+                            }
+                            return Submission.this.scoreInfo;
+                        }
+                    }) {
+                // Either the sender or the cancel claims the submission
+                public boolean cancel(boolean mayInterruptIfRunning) {
+                    return claimed.compareAndSet(false, true)
+                            && super.cancel(mayInterruptIfRunning);
+                }
+            };
+        }
+
+        /**
+         * Claims the submission for sending, unless it was cancelled.
+         *
+         * @return true if it is to be sent
+         */
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        /**
+         * Ends the submission.
+         *
+         * @param sendError the error sending it, null if accepted
+         */
+        void finish(IOException sendError) {
+            this.error = sendError;
+            result.run();
+        }
+    }
+
+    /**
+     * A snapshot of the best scores of the leaderboard.
+     */
+    public static final class Leaderboard {
+        private final List<ScoreInfo> top;
+        private final int size;
+        private final int asked;
+        private final long pulledAt;
+
+        /**
+         * Creates the snapshot.
+         *
+         * @param top      the best scores
+         * @param size     number of all the scores
+         * @param asked    number of best scores asked for
+         * @param pulledAt time the snapshot was pulled
+         */
+        Leaderboard(List<ScoreInfo> top, int size, int asked,
+                    long pulledAt) {
+            this.top = Collections.unmodifiableList(top);
+            this.size = size;
+            this.asked = asked;
+            this.pulledAt = pulledAt;
+        }
+
+        /**
+         * Returns the best scores, from the highest.
+         *
+         * @return the best scores
+         */
+        public List<ScoreInfo> getTop() {
+            return top;
+        }
+
+        /**
+         * Returns the number of all the scores of the leaderboard.
+         *
+         * @return number of scores
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Checks whether the snapshot has the best k scores.
+         *
+         * @param k number of scores
+         * @return true if it has them, or all the scores there are
+         */
+        private boolean covers(int k) {
+            return k <= asked || top.size() == size;
+        }
+
+        /**
+         * Returns a snapshot of fewer best scores.
+         *
+         * @param k number of scores
+         * @return the snapshot
+         */
+        private Leaderboard limit(int k) {
+            if (k >= top.size()) {
+                return this;
+            }
+            return new Leaderboard(top.subList(0, k), size, k, pulledAt);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package scores;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A small HTTP leaderboard service over a shared scores file, so all the
+ * cabinets of a site share one leaderboard. It serves:
+ * <ul>
+ * <li>POST /scores - a batch of scores, one per line, added to the
+ * journal in one write</li>
+ * <li>GET /top?k=n - the number of scores, then the best n scores, one per
+ * line</li>
+ * </ul>
+ * A score line is score, timestamp, level set and name, separated by tabs;
+ * the level set and the name are URL-encoded. A batch is compacted into the
+ * scores file before it is answered, so a client always sees the scores it
+ * sent; the batches waiting meanwhile go in with the next compaction. The
+ * top scores are only read, under the lock.
+ * <p>
+ * Usage: java scores.LeaderboardServer [port [scores_file]]
+ */
+public class LeaderboardServer {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int THREADS = 4;
+    private static final int BACKLOG = 256;
+    private static final int MAX_TOP = 1000;
+
+    private final SharedScoresFile scoresFile;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Creates the service on a port of this computer.
+     *
+     * @param port       the port, 0 for any free port
+     * @param scoresFile the scores to serve
+     * @throws IOException problem opening the port
+     */
+    public LeaderboardServer(int port, SharedScoresFile scoresFile)
+            throws IOException {
+        this.scoresFile = scoresFile;
+        this.server = HttpServer.create(new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), port), BACKLOG);
+        this.executor = Executors.newFixedThreadPool(THREADS,
+                new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "leaderboard");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        server.setExecutor(executor);
+        server.createContext("/scores", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                handleSubmit(exchange);
+            }
+        });
+        server.createContext("/top", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                handleTop(exchange);
+            }
+        });
+    }
+
+    /**
+     * Runs the service from the command line, until killed.
+     *
+     * @param args the port and the scores file name
+     */
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8642;
+        try {
+            SharedScoresFile scoresFile = args.length > 1
+                    ? new SharedScoresFile(new File(args[1]), null)
+                    : SharedScoresFile.getInstance();
+            LeaderboardServer leaderboard
+                    = new LeaderboardServer(port, scoresFile);
+            leaderboard.start();
+            System.out.println("Leaderboard on port "
+                    + leaderboard.getPort());
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Starts serving, on background threads.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops serving.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    /**
+     * Returns the port the service listens on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Makes the line of a score.
+     *
+     * @param scoreInfo the score
+     * @return the line, without a line break
+     */
+    static String formatScore(ScoreInfo scoreInfo) {
+        try {
+            return scoreInfo.getScore() + "\t" + scoreInfo.getTimestamp()
+                    + "\t" + URLEncoder.encode(scoreInfo.getLevelSet(),
+                    "UTF-8")
+                    + "\t" + URLEncoder.encode(scoreInfo.getName(), "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e); // UTF-8 is always there
+        }
+    }
+
+    /**
+     * Reads the line of a score.
+     *
+     * @param line the line
+     * @return the score
+     * @throws IOException wrong line format
+     */
+    static ScoreInfo parseScore(String line) throws IOException {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 4) {
+            throw new IOException("Bad score line: " + line);
+        }
+        try {
+            return new ScoreInfo(URLDecoder.decode(fields[3], "UTF-8"),
+                    Integer.parseInt(fields[0]), Long.parseLong(fields[1]),
+                    URLDecoder.decode(fields[2], "UTF-8"));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Bad score line: " + line);
+        }
+    }
+
+    /**
+     * Adds a batch of scores to the journal, and to the scores file.
+     *
+     * @param exchange the request
+     * @throws IOException problem answering
+     */
+    private void handleSubmit(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "POST only\n");
+            return;
+        }
+        List<ScoreInfo> scores = new ArrayList<ScoreInfo>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                exchange.getRequestBody(), UTF8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    scores.add(parseScore(line));
+                }
+            }
+        } catch (IOException e) {
+            respond(exchange, 400, e.getMessage() + "\n");
+            return;
+        } finally {
+            reader.close();
+        }
+
+        try {
+            scoresFile.submitAll(scores);
+
+            // Compactions run one at a time - one takes the batches
+            // submitted while the one before it ran
+            scoresFile.compact();
+        } catch (IOException e) {
+            respond(exchange, 500, e.getMessage() + "\n");
+            return;
+        }
+        respond(exchange, 200, "ok " + scores.size() + "\n");
+    }
+
+    /**
+     * Answers with the best scores.
+     *
+     * @param exchange the request
+     * @throws IOException problem answering
+     */
+    private void handleTop(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "GET only\n");
+            return;
+        }
+        int k;
+        try {
+            k = Integer.parseInt(getParameter(exchange, "k", "10"));
+        } catch (NumberFormatException e) {
+            respond(exchange, 400, "Bad k\n");
+            return;
+        }
+        final int count = Math.max(0, Math.min(k, MAX_TOP));
+
+        // Copy the scores while locked - accepted ones are in already
+        final List<ScoreInfo> top = new ArrayList<ScoreInfo>();
+        int size;
+        try {
+            size = scoresFile.withLock(new SharedScoresFile.Action<Integer>() {
+                public Integer run(ScoresRanking scores) {
+                    top.addAll(scores.topK(count));
+                    return scores.size();
+                }
+            });
+        } catch (IOException e) {
+            respond(exchange, 500, e.getMessage() + "\n");
+            return;
+        }
+        StringBuilder body = new StringBuilder();
+        body.append(size).append('\n');
+        for (ScoreInfo scoreInfo : top) {
+            body.append(formatScore(scoreInfo)).append('\n');
+        }
+        respond(exchange, 200, body.toString());
+    }
+
+    /**
+     * Returns a query parameter of the request.
+     *
+     * @param exchange     the request
+     * @param name         the parameter name
+     * @param defaultValue value if the parameter is missing
+     * @return the parameter value
+     */
+    private static String getParameter(HttpExchange exchange, String name,
+                                       String defaultValue) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                if (pair.startsWith(name + "=")) {
+                    return pair.substring(name.length() + 1);
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Sends an answer.
+     *
+     * @param exchange the request
+     * @param status   the HTTP status
+     * @param body     the answer text
+     * @throws IOException problem sending
+     */
+    private static void respond(HttpExchange exchange, int status,
+                                String body) throws IOException {
+        byte[] bytes = body.getBytes(UTF8);
+        exchange.getResponseHeaders().set("Content-Type",
+                "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        OutputStream out = exchange.getResponseBody();
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+}
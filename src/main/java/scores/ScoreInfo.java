@@ -1,21 +1,40 @@
 package scores;
 
 /**
- * Holds a player's score information - name and score.
+ * Holds a player's score information - name and score, when it was reached
+ * and on which level set.
  */
 public class ScoreInfo {
     private String name;
     private int score;
+    private long timestamp;
+    private String levelSet;
 
     /**
-     * Creates the score information.
+     * Creates the score information, reached now on an unknown level set.
      *
      * @param name name of the player
      * @param score the score of the player
      */
     public ScoreInfo(String name, int score) {
+        this(name, score, System.currentTimeMillis(), "");
+    }
+
+    /**
+     * Creates the score information.
+     *
+     * @param name      name of the player
+     * @param score     the score of the player
+     * @param timestamp when the score was reached, in milliseconds since the
+     *                  epoch, 0 if unknown
+     * @param levelSet  key of the level set played, empty if unknown
+     */
+    public ScoreInfo(String name, int score, long timestamp,
+                     String levelSet) {
         this.name = name;
         this.score = score;
+        this.timestamp = timestamp;
+        this.levelSet = levelSet;
     }
 
     /**
@@ -35,4 +54,22 @@ public class ScoreInfo {
     public int getScore() {
         return this.score;
     }
+
+    /**
+     * Returns when the score was reached.
+     *
+     * @return milliseconds since the epoch, 0 if unknown
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * Returns the key of the level set the score was reached on.
+     *
+     * @return the level set key, empty if unknown
+     */
+    public String getLevelSet() {
+        return this.levelSet;
+    }
 }
@@ -0,0 +1,32 @@
+package scores;
+
+import java.io.IOException;
+
+/**
+ * Exception of a score submission that surely didn't reach the leaderboard -
+ * the service couldn't be reached, or it refused the scores - so the score
+ * may be kept elsewhere without being counted twice. Other submission errors
+ * may come after the service took the score.
+ */
+public class ScoreNotSentException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates the exception.
+     *
+     * @param message exception message
+     */
+    public ScoreNotSentException(String message) {
+        super(message);
+    }
+
+    /**
+     * Creates the exception with its cause.
+     *
+     * @param message exception message
+     * @param cause   the error that kept the score from being sent
+     */
+    public ScoreNotSentException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
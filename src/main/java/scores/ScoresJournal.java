@@ -0,0 +1,305 @@
+package scores;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of submitted scores, shared by all the game
+ * processes. Submitting scores is one locked write to the end of the file,
+ * so finishing games never wait for each other longer than that. The scores
+ * are later added to the scores file and the journal is emptied.
+ * <p>
+ * The file is a header - magic, version and a random id which changes every
+ * time the journal is emptied - followed by fixed size entries: a score
+ * record as in the binary scores file and its CRC-32. An entry cut by a
+ * process that died while writing it is dropped by the next writer.
+ */
+public class ScoresJournal implements Closeable {
+    private static final int MAGIC = 0x41524B4A; // "ARKJ"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int ID_POS = 8;
+    private static final int RECORD_SIZE = BinaryScoresFile.RECORD_SIZE;
+    private static final int ENTRY_SIZE = RECORD_SIZE + 8; // CRC and padding
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+
+    /**
+     * Opens a journal, creating an empty one if it doesn't exist.
+     *
+     * @param file the journal file
+     * @throws IOException problem with the file, or not a journal
+     */
+    public ScoresJournal(File file) throws IOException {
+        this.file = file;
+        this.raf = new RandomAccessFile(file, "rw");
+        this.channel = raf.getChannel();
+        FileLock lock = channel.lock();
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                writeHeader(); // new, or died before writing the header
+            } else if (readHeader().getInt(0) != MAGIC) {
+                throw new IOException(file + " is not a scores journal");
+            }
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        } finally {
+            if (channel.isOpen()) {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * Appends a score to the journal and writes it to the disk.
+     *
+     * @param scoreInfo the score
+     * @throws IOException problem writing
+     */
+    public void append(ScoreInfo scoreInfo) throws IOException {
+        appendAll(Collections.singletonList(scoreInfo));
+    }
+
+    /**
+     * Appends scores to the journal in one write, and writes them to the
+     * disk.
+     *
+     * @param scores the scores
+     * @throws IOException problem writing
+     */
+    public synchronized void appendAll(List<ScoreInfo> scores)
+            throws IOException {
+        ByteBuffer entries = ByteBuffer.allocate(scores.size() * ENTRY_SIZE);
+        int pos = 0;
+        for (ScoreInfo scoreInfo : scores) {
+            BinaryScoresFile.writeRecord(entries, pos, scoreInfo);
+            entries.putInt(pos + RECORD_SIZE, checksum(entries, pos));
+            pos += ENTRY_SIZE;
+        }
+        entries.clear();
+
+        FileLock lock = channel.lock();
+        try {
+            long end = validEnd();
+            if (end != channel.size()) {
+                channel.truncate(end); // drop an entry cut in the middle
+            }
+            while (entries.hasRemaining()) {
+                channel.write(entries, end + entries.position());
+            }
+            channel.force(false);
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Reads the entries after the given ones.
+     *
+     * @param journalId the id of the journal the skipped entries came from;
+     *                  if the journal was emptied since, nothing is skipped
+     * @param skip      number of entries to skip
+     * @return the journal id and the entries
+     * @throws IOException problem reading
+     */
+    public synchronized Entries read(long journalId, int skip)
+            throws IOException {
+        FileLock lock = channel.lock();
+        try {
+            long id = readHeader().getLong(ID_POS);
+            int first = id == journalId ? skip : 0;
+            long end = validEnd();
+            List<ScoreInfo> scores = new ArrayList<ScoreInfo>();
+            long pos = HEADER_SIZE + (long) first * ENTRY_SIZE;
+            if (pos < end) {
+                ByteBuffer data = ByteBuffer.allocate((int) (end - pos));
+                while (data.hasRemaining()) {
+                    if (channel.read(data, pos + data.position()) < 0) {
+                        break;
+                    }
+                }
+                for (int i = 0; i + ENTRY_SIZE <= data.capacity();
+                     i += ENTRY_SIZE) {
+                    scores.add(BinaryScoresFile.readRecord(data, i));
+                }
+            }
+            return new Entries(id, first, scores);
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Empties the journal, if it has no entries other than the given ones.
+     * The emptied journal gets a new id.
+     *
+     * @param journalId the id of the journal the entries came from
+     * @param count     number of entries
+     * @return the new journal id, 0 if the journal wasn't emptied
+     * @throws IOException problem writing
+     */
+    public synchronized long reset(long journalId, int count)
+            throws IOException {
+        FileLock lock = channel.lock();
+        try {
+            if (readHeader().getLong(ID_POS) != journalId
+                    || validEnd() != HEADER_SIZE + (long) count * ENTRY_SIZE) {
+                return 0; // other entries were added meanwhile
+            }
+            return writeHeader();
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Closes the journal.
+     *
+     * @throws IOException problem closing
+     */
+    public synchronized void close() throws IOException {
+        raf.close();
+    }
+
+    /**
+     * Writes a header with a new id and removes all the entries. The caller
+     * holds the lock.
+     *
+     * @return the new id
+     * @throws IOException problem writing
+     */
+    private long writeHeader() throws IOException {
+        long id = 0;
+        while (id == 0) {
+            id = RANDOM.nextLong(); // 0 stands for no journal
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putLong(ID_POS, id);
+        channel.truncate(0);
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(false);
+        return id;
+    }
+
+    /**
+     * Reads the header. The caller holds the lock.
+     *
+     * @return the header bytes
+     * @throws IOException problem reading
+     */
+    private ByteBuffer readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException(file + " is not a scores journal");
+            }
+        }
+        return header;
+    }
+
+    /**
+     * Returns the end of the last whole entry whose checksum is right. Only
+     * the last entry is checked - a bad entry can only be the last one, cut
+     * by a process that died. The caller holds the lock.
+     *
+     * @return the position after the last good entry
+     * @throws IOException problem reading
+     */
+    private long validEnd() throws IOException {
+        long entries = (channel.size() - HEADER_SIZE) / ENTRY_SIZE;
+        if (entries <= 0) {
+            return HEADER_SIZE;
+        }
+        long last = HEADER_SIZE + (entries - 1) * ENTRY_SIZE;
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+        while (entry.hasRemaining()) {
+            if (channel.read(entry, last + entry.position()) < 0) {
+                break;
+            }
+        }
+        if (entry.getInt(RECORD_SIZE) != checksum(entry, 0)) {
+            return last;
+        }
+        return last + ENTRY_SIZE;
+    }
+
+    /**
+     * Computes the checksum of an entry's record.
+     *
+     * @param entries the entries bytes
+     * @param pos     position of the entry
+     * @return CRC-32 of the record
+     */
+    private static int checksum(ByteBuffer entries, int pos) {
+        CRC32 crc = new CRC32();
+        crc.update(entries.array(), entries.arrayOffset() + pos, RECORD_SIZE);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Entries read from the journal.
+     */
+    public static final class Entries {
+        private final long journalId;
+        private final int first;
+        private final List<ScoreInfo> scores;
+
+        /**
+         * Creates the entries.
+         *
+         * @param journalId the id of the journal
+         * @param first     number of entries before them
+         * @param scores    the scores
+         */
+        Entries(long journalId, int first, List<ScoreInfo> scores) {
+            this.journalId = journalId;
+            this.first = first;
+            this.scores = scores;
+        }
+
+        /**
+         * Returns the id of the journal they were read from.
+         *
+         * @return the journal id
+         */
+        public long getJournalId() {
+            return journalId;
+        }
+
+        /**
+         * Returns the number of journal entries before them.
+         *
+         * @return number of entries
+         */
+        public int getFirst() {
+            return first;
+        }
+
+        /**
+         * Returns the scores, in the order they were submitted.
+         *
+         * @return the scores
+         */
+        public List<ScoreInfo> getScores() {
+            return scores;
+        }
+    }
+}
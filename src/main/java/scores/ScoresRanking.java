@@ -0,0 +1,72 @@
+package scores;
+
+import java.util.List;
+
+/**
+ * Scores sorted from the highest to the lowest, which can tell the rank of a
+ * score. New scores go before the scores equal to them.
+ */
+public interface ScoresRanking {
+    /**
+     * Adds a score before the scores equal to it.
+     *
+     * @param scoreInfo the score to add
+     * @return the rank the score got, 1 for the best
+     */
+    int insert(ScoreInfo scoreInfo);
+
+    /**
+     * Adds a score after the scores equal to it. Adding scores in the order
+     * of a sorted list keeps their order.
+     *
+     * @param scoreInfo the score to add
+     * @return the rank the score got, 1 for the best
+     */
+    int append(ScoreInfo scoreInfo);
+
+    /**
+     * Returns the rank a score would get if added now: one more than the
+     * number of higher scores.
+     *
+     * @param score the score
+     * @return the rank, 1 for the best
+     */
+    int rank(int score);
+
+    /**
+     * Returns the score at a rank.
+     *
+     * @param rank the rank, from 1 to size()
+     * @return the score at the rank
+     * @throws IndexOutOfBoundsException no such rank
+     */
+    ScoreInfo get(int rank);
+
+    /**
+     * Returns the best scores.
+     *
+     * @param k number of scores to return
+     * @return the k best scores, fewer if there are not enough
+     */
+    List<ScoreInfo> topK(int k);
+
+    /**
+     * Returns the percentage of the scores which are lower than the score.
+     *
+     * @param score the score
+     * @return percentile between 0 and 100, 100 if there are no scores
+     */
+    double percentileOf(int score);
+
+    /**
+     * Returns the number of scores.
+     *
+     * @return number of scores
+     */
+    int size();
+
+    /**
+     * Removes all the scores.
+     */
+    void clear();
+}
@@ -0,0 +1,336 @@
+package scores;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Keeps any number of scores sorted from the highest to the lowest, and
+ * answers rank, top-k and percentile queries in O(log n).
+ * <p>
+ * The scores are kept in an indexed skip list: every link also holds the
+ * number of scores it skips, so the place of a score is summed on the way to
+ * it. A new score goes before the scores equal to it, as in the high scores
+ * table.
+ */
+public class ScoresStore implements ScoresRanking {
+    private static final int MAX_LEVEL = 16;
+    private static final int LEVEL_ODDS = 4; // 1 of 4 nodes goes one level up
+
+    private final Node head = new Node(null, MAX_LEVEL);
+    private final Random random;
+    private int level = 1;
+    private int size = 0;
+
+    /**
+     * Creates an empty store.
+     */
+    public ScoresStore() {
+        this(new Random());
+    }
+
+    /**
+     * Creates an empty store with the given random levels generator.
+     *
+     * @param random generator of the node levels
+     */
+    public ScoresStore(Random random) {
+        this.random = random;
+        this.head.width[0] = 1;
+    }
+
+    /**
+     * Creates a store of scores which are already sorted from the highest to
+     * the lowest, in O(n).
+     *
+     * @param sorted the sorted scores
+     * @return the new store
+     * @throws IllegalArgumentException the scores are not sorted
+     */
+    public static ScoresStore fromSorted(List<ScoreInfo> sorted) {
+        ScoresStore store = new ScoresStore();
+        Node[] last = new Node[MAX_LEVEL];
+        int[] lastPos = new int[MAX_LEVEL];
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            last[i] = store.head;
+        }
+
+        // Link every node after the last node of each of its levels
+        int pos = 0;
+        for (ScoreInfo scoreInfo : sorted) {
+            if (pos > 0 && scoreInfo.getScore() > last[0].score) {
+                throw new IllegalArgumentException("Scores are not sorted");
+            }
+            pos++;
+            Node node = new Node(scoreInfo, store.randomLevel());
+            for (int i = 0; i < node.next.length; i++) {
+                last[i].next[i] = node;
+                last[i].width[i] = pos - lastPos[i];
+                last[i] = node;
+                lastPos[i] = pos;
+            }
+            store.level = Math.max(store.level, node.next.length);
+        }
+
+        // The last links of every level end after the last score
+        store.size = pos;
+        for (int i = 0; i < store.level; i++) {
+            last[i].width[i] = pos + 1 - lastPos[i];
+        }
+        return store;
+    }
+
+    /**
+     * Adds a score before the scores equal to it.
+     *
+     * @param scoreInfo the score to add
+     * @return the rank the score got, 1 for the best
+     */
+    public int insert(ScoreInfo scoreInfo) {
+        return insert(scoreInfo, true);
+    }
+
+    /**
+     * Adds a score after the scores equal to it. Adding scores in the order
+     * of a sorted list keeps their order.
+     *
+     * @param scoreInfo the score to add
+     * @return the rank the score got, 1 for the best
+     */
+    public int append(ScoreInfo scoreInfo) {
+        return insert(scoreInfo, false);
+    }
+
+    /**
+     * Returns the rank a score would get if added now: one more than the
+     * number of higher scores.
+     *
+     * @param score the score
+     * @return the rank, 1 for the best
+     */
+    public int rank(int score) {
+        return countAbove(score, true) + 1;
+    }
+
+    /**
+     * Returns the score at a rank.
+     *
+     * @param rank the rank, from 1 to size()
+     * @return the score at the rank
+     * @throws IndexOutOfBoundsException no such rank
+     */
+    public ScoreInfo get(int rank) {
+        if (rank < 1 || rank > size) {
+            throw new IndexOutOfBoundsException("Rank " + rank + " of "
+                    + size);
+        }
+        Node node = head;
+        int pos = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            while (node.next[i] != null && pos + node.width[i] <= rank) {
+                pos += node.width[i];
+                node = node.next[i];
+            }
+        }
+        return node.value;
+    }
+
+    /**
+     * Returns the best scores.
+     *
+     * @param k number of scores to return
+     * @return the k best scores, fewer if there are not enough
+     */
+    public List<ScoreInfo> topK(int k) {
+        List<ScoreInfo> top = new ArrayList<ScoreInfo>(Math.min(k, size));
+        Node node = head.next[0];
+        while (node != null && top.size() < k) {
+            top.add(node.value);
+            node = node.next[0];
+        }
+        return top;
+    }
+
+    /**
+     * Returns the percentage of the scores which are lower than the score.
+     *
+     * @param score the score
+     * @return percentile between 0 and 100, 100 if the store is empty
+     */
+    public double percentileOf(int score) {
+        if (size == 0) {
+            return 100;
+        }
+        int lower = size - countAbove(score, false);
+        return 100.0 * lower / size;
+    }
+
+    /**
+     * Returns the lowest score which is at least as good as the given
+     * percentage of the scores.
+     *
+     * @param percentile percentile between 0 and 100
+     * @return the score
+     * @throws IndexOutOfBoundsException the store is empty
+     */
+    public ScoreInfo scoreAtPercentile(double percentile) {
+        int fromBottom = (int) Math.ceil(size * percentile / 100.0);
+        int rank = Math.max(1, Math.min(size, size - fromBottom + 1));
+        return get(rank);
+    }
+
+    /**
+     * Returns the number of scores.
+     *
+     * @return number of scores
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all the scores.
+     */
+    public void clear() {
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            head.next[i] = null;
+            head.width[i] = 0;
+        }
+        head.width[0] = 1;
+        level = 1;
+        size = 0;
+    }
+
+    /**
+     * Returns all the scores, from the highest.
+     *
+     * @return list of all the scores
+     */
+    public List<ScoreInfo> toList() {
+        return topK(size);
+    }
+
+    /**
+     * Adds a score at its place.
+     *
+     * @param scoreInfo  the score to add
+     * @param beforeEqual true to put it before equal scores, false after
+     * @return the rank the score got
+     */
+    private int insert(ScoreInfo scoreInfo, boolean beforeEqual) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] updatePos = new int[MAX_LEVEL];
+        int score = scoreInfo.getScore();
+
+        // Find the last node of each level before the new place
+        Node node = head;
+        int pos = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            while (node.next[i] != null
+                    && isBefore(node.next[i].score, score,
+                    beforeEqual)) {
+                pos += node.width[i];
+                node = node.next[i];
+            }
+            update[i] = node;
+            updatePos[i] = pos;
+        }
+
+        // New levels start at the head, their links skip everything
+        int nodeLevel = randomLevel();
+        for (int i = level; i < nodeLevel; i++) {
+            update[i] = head;
+            updatePos[i] = 0;
+            head.width[i] = size + 1;
+        }
+        level = Math.max(level, nodeLevel);
+
+        // Link the node and fix the widths around it
+        Node newNode = new Node(scoreInfo, nodeLevel);
+        for (int i = 0; i < nodeLevel; i++) {
+            int before = pos - updatePos[i];
+            newNode.next[i] = update[i].next[i];
+            update[i].next[i] = newNode;
+            newNode.width[i] = update[i].width[i] - before;
+            update[i].width[i] = before + 1;
+        }
+        for (int i = nodeLevel; i < level; i++) {
+            update[i].width[i]++;
+        }
+        size++;
+        return pos + 1;
+    }
+
+    /**
+     * Counts the scores above the given one.
+     *
+     * @param score  the score
+     * @param strict true to count only higher scores, false to count equal
+     *               scores as well
+     * @return number of scores
+     */
+    private int countAbove(int score, boolean strict) {
+        Node node = head;
+        int pos = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            while (node.next[i] != null
+                    && isBefore(node.next[i].score, score,
+                    strict)) {
+                pos += node.width[i];
+                node = node.next[i];
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Checks whether a stored score comes before the given score.
+     *
+     * @param stored      the stored score
+     * @param score       the given score
+     * @param beforeEqual true if the given score goes before equal scores
+     * @return true if the stored score is first
+     */
+    private static boolean isBefore(int stored, int score,
+                                    boolean beforeEqual) {
+        return beforeEqual ? stored > score : stored >= score;
+    }
+
+    /**
+     * Picks the level of a new node.
+     *
+     * @return level between 1 and MAX_LEVEL
+     */
+    private int randomLevel() {
+        int nodeLevel = 1;
+        while (nodeLevel < MAX_LEVEL && random.nextInt(LEVEL_ODDS) == 0) {
+            nodeLevel++;
+        }
+        return nodeLevel;
+    }
+
+    /**
+     * A skip list node: a score and its links. width[i] is the number of
+     * scores the link next[i] moves forward; a link to the end moves to one
+     * after the last score.
+     */
+    private static final class Node {
+        private final ScoreInfo value;
+        private final int score; // kept here to save a jump while searching
+        private final Node[] next;
+        private final int[] width;
+
+        /**
+         * Creates a node.
+         *
+         * @param value     the score
+         * @param nodeLevel number of links
+         */
+        Node(ScoreInfo value, int nodeLevel) {
+            this.value = value;
+            this.score = value == null ? 0 : value.getScore();
+            this.next = new Node[nodeLevel];
+            this.width = new int[nodeLevel];
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package scores;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Saves high scores tables on a background thread, so the game never waits
+ * for the disk. Saves run one at a time, in the order they were asked for.
+ * Submissions to the shared scores file and its compactions run on the
+ * same thread.
+ * <p>
+ * Pending saves are finished when the program exits.
+ */
+public final class ScoresWriter {
+    private static final long EXIT_WAIT_MILLIS = 2000;
+    private static ScoresWriter instance;
+
+    private final ExecutorService executor;
+
+    /**
+     * Creates the writer and its thread.
+     */
+    private ScoresWriter() {
+        this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                // Doesn't keep the game running - flushed on exit instead
+                Thread thread = new Thread(r, "scores-writer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            public void run() {
+                flush(EXIT_WAIT_MILLIS);
+            }
+        }, "scores-writer-exit"));
+    }
+
+    /**
+     * Returns the writer of the game.
+     *
+     * @return the scores writer
+     */
+    public static synchronized ScoresWriter getInstance() {
+        if (ScoresWriter.instance == null) {
+            ScoresWriter.instance = new ScoresWriter();
+        }
+        return ScoresWriter.instance;
+    }
+
+    /**
+     * Saves the table to the file in the background. The table is copied
+     * first, so it may be changed right after the call.
+     *
+     * @param table the table to save
+     * @param file  the file to save to
+     */
+    public void save(HighScoresTable table, final File file) {
+        final HighScoresTable snapshot = table.snapshot();
+        executor.execute(new Runnable() {
+            public void run() {
+                try {
+                    snapshot.save(file);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    /**
+     * Adds the submitted scores of a shared scores file to it in the
+     * background.
+     *
+     * @param scoresFile the shared scores file
+     */
+    public void compact(final SharedScoresFile scoresFile) {
+        executor.execute(new Runnable() {
+            public void run() {
+                try {
+                    scoresFile.compact();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    /**
+     * Submits a score to a shared scores file and adds it to the scores in
+     * the background.
+     *
+     * @param scoresFile the shared scores file
+     * @param scoreInfo  the score
+     */
+    public void submit(final SharedScoresFile scoresFile,
+                       final ScoreInfo scoreInfo) {
+        executor.execute(new Runnable() {
+            public void run() {
+                try {
+                    scoresFile.submit(scoreInfo);
+                    scoresFile.compact();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs an action on the scores of a shared scores file in the
+     * background, after everything asked for before it.
+     *
+     * @param scoresFile the shared scores file
+     * @param action     the action
+     * @param <T>        type of the action result
+     * @return the action result, when it is done
+     */
+    public <T> Future<T> read(final SharedScoresFile scoresFile,
+                              final SharedScoresFile.Action<T> action) {
+        return executor.submit(new Callable<T>() {
+            public T call() throws IOException {
+                return scoresFile.withLock(action);
+            }
+        });
+    }
+
+    /**
+     * Waits until all the saves asked for so far are done.
+     *
+     * @param timeoutMillis maximal time to wait
+     * @return true if all done, false if the time ran out
+     */
+    public boolean flush(long timeoutMillis) {
+        Future<?> marker;
+        try {
+            marker = executor.submit(new Runnable() {
+                public void run() {
+                    // Runs after all the saves before it
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return true; // shut down - nothing is pending
+        }
+        try {
+            marker.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Waits for the pending saves and stops the writer thread.
+     *
+     * @param timeoutMillis maximal time to wait
+     * @return true if all the saves are done
+     */
+    public boolean shutdown(long timeoutMillis) {
+        executor.shutdown();
+        try {
+            return executor.awaitTermination(timeoutMillis,
+                    TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
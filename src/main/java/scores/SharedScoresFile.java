@@ -0,0 +1,208 @@
+package scores;
+
+import profiling.ScoresSaveEvent;
+import utils.Finals;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.List;
+
+/**
+ * The binary scores file shared by several game processes, such as the
+ * cabinets of an arcade writing to one disk.
+ * <p>
+ * Finished games submit their scores to a journal, which takes one locked
+ * write. The journal is compacted into the scores file - read, merge and
+ * write - under an exclusive lock of a separate lock file; the scores file
+ * itself can't hold the lock, since it is replaced when it grows. Readers
+ * take the same lock, and first catch up with the changes of the other
+ * processes.
+ * <p>
+ * File locks belong to the whole process, so only one object per file may
+ * be used in a process; the game uses {@link #getInstance()}.
+ */
+public class SharedScoresFile implements Closeable {
+    private static SharedScoresFile instance;
+
+    private final File tableFile;
+    private final File textFile;
+    private final ScoresJournal journal;
+    private final RandomAccessFile lockFile;
+    private BinaryScoresFile table;
+
+    /**
+     * Opens the shared scores files: the scores file, its journal and its
+     * lock file, which are named after it.
+     *
+     * @param tableFile the binary scores file
+     * @param textFile  the older text scores file to import, may be null
+     * @throws IOException problem with one of the files
+     */
+    public SharedScoresFile(File tableFile, File textFile)
+            throws IOException {
+        this.tableFile = tableFile;
+        this.textFile = textFile;
+        this.lockFile = new RandomAccessFile(
+                new File(tableFile.getPath() + ".lock"), "rw");
+        try {
+            this.journal = new ScoresJournal(
+                    new File(tableFile.getPath() + ".journal"));
+        } catch (IOException e) {
+            lockFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the shared scores file of the game, opening it the first time.
+     *
+     * @return the shared scores file
+     * @throws IOException problem opening the files
+     */
+    public static synchronized SharedScoresFile getInstance()
+            throws IOException {
+        if (SharedScoresFile.instance == null) {
+            Finals finals = Finals.getInstance();
+            SharedScoresFile.instance = new SharedScoresFile(
+                    new File(finals.getBinaryScoresFileName()),
+                    new File(finals.getScoresFileName()));
+        }
+        return SharedScoresFile.instance;
+    }
+
+    /**
+     * Submits a score. It is written to the journal right away, and shows in
+     * the scores after the next compaction.
+     *
+     * @param scoreInfo the score
+     * @throws IOException problem writing the journal
+     */
+    public void submit(ScoreInfo scoreInfo) throws IOException {
+        // Only the journal's lock - doesn't wait for a compaction
+        journal.append(scoreInfo);
+    }
+
+    /**
+     * Submits scores in one journal write.
+     *
+     * @param scores the scores
+     * @throws IOException problem writing the journal
+     */
+    public void submitAll(List<ScoreInfo> scores) throws IOException {
+        journal.appendAll(scores);
+    }
+
+    /**
+     * Adds the scores of the journal to the scores file, and empties the
+     * journal if nothing was submitted meanwhile.
+     *
+     * @return number of scores added
+     * @throws IOException problem with one of the files
+     */
+    public synchronized int compact() throws IOException {
+        ScoresSaveEvent event = new ScoresSaveEvent();
+        event.begin();
+        FileLock lock = lockFile.getChannel().lock();
+        try {
+            BinaryScoresFile scores = openTable();
+            ScoresJournal.Entries entries = journal.read(
+                    scores.getJournalId(), scores.getJournalApplied());
+            if (entries.getJournalId() != scores.getJournalId()) {
+                scores.startJournal(entries.getJournalId());
+            }
+
+            // Every score moves the journal position with it
+            int applied = entries.getFirst();
+            List<ScoreInfo> submitted = entries.getScores();
+            for (ScoreInfo scoreInfo : submitted) {
+                applied++;
+                scores.insertFromJournal(scoreInfo, applied);
+            }
+            scores.force();
+
+            // All in the scores file - start an empty journal
+            long newId = journal.reset(entries.getJournalId(), applied);
+            if (newId != 0) {
+                scores.startJournal(newId);
+                scores.force();
+            }
+
+            // Record the save if the flight recorder takes it
+            event.end();
+            if (event.shouldCommit()) {
+                event.set(tableFile.getPath(), submitted.size());
+                event.commit();
+            }
+            return submitted.size();
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Runs an action on the scores, while no other process uses them.
+     *
+     * @param action the action
+     * @param <T>    type of the action result
+     * @return the action result
+     * @throws IOException problem with the scores file
+     */
+    public synchronized <T> T withLock(Action<T> action) throws IOException {
+        FileLock lock = lockFile.getChannel().lock();
+        try {
+            return action.run(openTable());
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Closes the files.
+     *
+     * @throws IOException problem closing
+     */
+    public synchronized void close() throws IOException {
+        try {
+            if (table != null) {
+                table.close();
+            }
+            journal.close();
+        } finally {
+            lockFile.close();
+        }
+    }
+
+    /**
+     * Opens the scores file the first time, and catches up with the changes
+     * of other processes. The caller holds the lock.
+     *
+     * @return the scores file
+     * @throws IOException problem with the file
+     */
+    private BinaryScoresFile openTable() throws IOException {
+        if (table == null) {
+            table = BinaryScoresFile.open(tableFile, textFile);
+        } else {
+            table.refresh();
+        }
+        return table;
+    }
+
+    /**
+     * An action on the scores.
+     *
+     * @param <T> type of the action result
+     */
+    public interface Action<T> {
+        /**
+         * Runs the action. The scores must not be kept after it returns.
+         *
+         * @param scores the scores
+         * @return the action result
+         */
+        T run(ScoresRanking scores);
+    }
+}
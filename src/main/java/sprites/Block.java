@@ -6,6 +6,8 @@ import graphics.Point;
 import graphics.Rectangle;
 import listeners.HitListener;
 import listeners.HitNotifier;
+import profiling.FrameProfiler;
+import profiling.GameMetrics;
 import sprites.ball.Ball;
 import sprites.ball.Velocity;
 
@@ -22,6 +24,7 @@ public class Block extends Rectangle
         implements Collidable, Sprite, HitNotifier {
     private int hitPoints;
     private List<HitListener> hitListeners;
+    private HitListener[] notified = new HitListener[0];
     private Color strokeColor;
     private Fill defaultFill;
     private Fill currentFill;
@@ -52,6 +55,19 @@ public class Block extends Rectangle
         updateCurrentFill();
     }
 
+    /**
+     * Creates a new block with the same position, size, fills and hit points
+     * as the given one. The hit listeners are not copied.
+     *
+     * @param other the block to copy
+     */
+    public Block(Block other) {
+        this(new Point(other.getUpperLeft().getX(),
+                        other.getUpperLeft().getY()), other.getWidth(),
+                other.getHeight(), other.defaultFill, other.fills,
+                other.strokeColor, other.hitPoints);
+    }
+
     /**
      * Creates a black block just by position and size.
      *
@@ -232,6 +248,9 @@ public class Block extends Rectangle
     @Override
     public void addHitListener(HitListener hl) {
         this.hitListeners.add(hl);
+        if (this.notified.length < this.hitListeners.size()) {
+            this.notified = new HitListener[this.hitListeners.size()];
+        }
     }
 
     /**
@@ -250,13 +269,22 @@ public class Block extends Rectangle
      * @param hitter the ball that hit the block
      */
     public void notifyHit(Ball hitter) {
-        // Make a copy of the hitListeners before iterating over them.
-        List<HitListener> listeners =
-                new ArrayList<HitListener>(this.hitListeners);
+        long start = FrameProfiler.ENABLED ? System.nanoTime() : 0;
+        if (GameMetrics.ENABLED) {
+            GameMetrics.getInstance().hit();
+        }
+
+        // Make a copy of the hitListeners before iterating over them, to
+        // an array kept for it - a listener may remove itself
+        HitListener[] listeners = this.hitListeners.toArray(this.notified);
+        int count = this.hitListeners.size();
 
         // Notify all listeners about a hit event:
-        for (HitListener hl : listeners) {
-            hl.hitEvent(this, hitter);
+        for (int i = 0; i < count; i++) {
+            listeners[i].hitEvent(this, hitter);
+        }
+        if (FrameProfiler.ENABLED) {
+            FrameProfiler.getInstance().end(FrameProfiler.LISTENERS, start);
         }
     }
 
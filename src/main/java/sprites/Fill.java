@@ -41,8 +41,9 @@ public class Fill {
     public void fillRectangle(DrawSurface d, Rectangle rect) {
         Point pos = rect.getUpperLeft();
         if (this.isColor()) {
-            new Rectangle(pos, rect.getWidth(), rect.getHeight(), fillColor)
-                    .drawOn(d);
+            d.setColor(fillColor);
+            d.fillRectangle((int) pos.getX(), (int) pos.getY(),
+                    (int) rect.getWidth(), (int) rect.getHeight());
         } else {
             d.drawImage((int) pos.getX(), (int) pos.getY(), fillImage);
         }
@@ -55,8 +56,8 @@ public class Fill {
      */
     public void fillSurface(DrawSurface d) {
         if (this.isColor()) {
-            new Rectangle(0, 0, d.getWidth(), d.getHeight(), fillColor)
-                    .drawOn(d);
+            d.setColor(fillColor);
+            d.fillRectangle(0, 0, d.getWidth(), d.getHeight());
         } else {
             d.drawImage(0, 0, fillImage);
         }
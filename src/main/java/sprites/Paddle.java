@@ -17,9 +17,9 @@ public final class Paddle extends Rectangle implements Sprite, Collidable {
     private static final java.awt.Color BORDER_COLOR = java.awt.Color.DARK_GRAY;
 
     // Properties
-    private static Paddle instance;
     private biuoop.KeyboardSensor keyboard;
     private double step;
+    private final Rectangle collisionRectangle;
 
     /**
      * Create a new paddle with the keyboard sensor.
@@ -28,33 +28,28 @@ public final class Paddle extends Rectangle implements Sprite, Collidable {
      * @param step     paddle's speed
      * @param width    paddle's width
      */
-    private Paddle(KeyboardSensor keyboard, double step, double width) {
+    public Paddle(KeyboardSensor keyboard, double step, double width) {
         super(new Point(
                 Math.round(Finals.getInstance().getGameWidth() / 2 - width / 2),
                 Math.round(Finals.getInstance().getPaddleYStart())), width,
                 Finals.getInstance().getPaddleHeight(), Paddle.FILL_COLOR);
         this.keyboard = keyboard;
         this.step = step;
+
+        // Shares the upper left point, so it moves with the paddle
+        this.collisionRectangle = new Rectangle(getUpperLeft(), width, 1);
     }
 
     /**
-     * Returns a paddle with new width and speed. If doesn't exist - create it.
+     * Sets a new width and speed, and moves the paddle to default place.
      *
-     * @param keyboard keyboard sensor
-     * @param speed    paddle's speed
-     * @param width    paddle's width
-     * @return the paddle
+     * @param speed paddle's speed
+     * @param width paddle's width
      */
-    public static Paddle getInstance(KeyboardSensor keyboard, double speed,
-                                     double width) {
-        if (Paddle.instance == null) { // create if doesn't exist
-            Paddle.instance = new Paddle(keyboard, speed, width);
-        } else {
-            Paddle.instance.setStep(speed);
-            Paddle.instance.setWidth(width);
-            Paddle.instance.moveToDefault();
-        }
-        return instance;
+    public void reset(double speed, double width) {
+        setStep(speed);
+        setWidth(width);
+        moveToDefault();
     }
 
     /**
@@ -72,7 +67,7 @@ public final class Paddle extends Rectangle implements Sprite, Collidable {
     public void moveToDefault() {
         this.getUpperLeft()
                 .setX(Math.round(Finals.getInstance().getGameWidth() / 2
-                        - Paddle.instance.getWidth() / 2));
+                        - getWidth() / 2));
     }
 
     /**
@@ -86,13 +81,13 @@ public final class Paddle extends Rectangle implements Sprite, Collidable {
         d.setColor(Paddle.FILL_COLOR);
         d.fillRectangle((int) this.getUpperLeft().getX(),
                 (int) this.getUpperLeft().getY(),
-                (int) Paddle.instance.getWidth(), (int) this.getHeight());
+                (int) getWidth(), (int) this.getHeight());
 
         // Draw a border
         d.setColor(Paddle.BORDER_COLOR);
         d.drawRectangle((int) this.getUpperLeft().getX(),
                 (int) this.getUpperLeft().getY(),
-                (int) Paddle.instance.getWidth(), (int) this.getHeight());
+                (int) getWidth(), (int) this.getHeight());
     }
 
     /**
@@ -161,7 +156,8 @@ public final class Paddle extends Rectangle implements Sprite, Collidable {
      * @return the paddle
      */
     public Rectangle getCollisionRectangle() {
-        return new Rectangle(getUpperLeft(), getWidth(), 1);
+        this.collisionRectangle.setWidth(getWidth());
+        return this.collisionRectangle;
     }
 
     /**
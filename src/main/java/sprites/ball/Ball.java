@@ -5,6 +5,8 @@ import biuoop.DrawSurface;
 import graphics.Line;
 import graphics.Point;
 import gameplay.GameEnvironment;
+import profiling.CollisionEvent;
+import profiling.GameEvents;
 import sprites.Block;
 import sprites.Collidable;
 import sprites.Sprite;
@@ -21,6 +23,10 @@ public class Ball implements Sprite {
     private Velocity velocity;
     private GameEnvironment environment;
 
+    // Reused on every step, so moving doesn't allocate
+    private final Point nextCenter = new Point(0, 0);
+    private final Line trajectory;
+
     /**
      * Constructs a ball.
      *
@@ -33,6 +39,7 @@ public class Ball implements Sprite {
         this.radius = r;
         this.color = color;
         this.velocity = new Velocity(0, 0);
+        this.trajectory = new Line(this.center, this.center);
     }
 
     /**
@@ -108,7 +115,7 @@ public class Ball implements Sprite {
      * @param dy change in y axe
      */
     public void setVelocity(double dx, double dy) {
-        velocity = new Velocity(dx, dy);
+        velocity.set(dx, dy);
     }
 
     /**
@@ -124,7 +131,7 @@ public class Ball implements Sprite {
 
         // If no collision - move tha ball to needed place
         if (collision == null) {
-            center = velocity.applyToPoint(center, secPerMove);
+            center.set(nextCenter.getX(), nextCenter.getY());
         } else {
             handleCollision(collision);
         }
@@ -137,7 +144,7 @@ public class Ball implements Sprite {
      * @param y y coord
      */
     public void setCenter(double x, double y) {
-        center = new Point(x, y);
+        center.set(x, y);
     }
 
     /**
@@ -146,8 +153,16 @@ public class Ball implements Sprite {
      * @param collision the collision info
      */
     private void handleCollision(CollisionInfo collision) {
+        // Only a recorded collision makes an event
+        CollisionEvent event = GameEvents.isCollisionRecorded()
+                ? new CollisionEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
         Point collisionPoint = collision.collisionPoint();
         Collidable collisionObject = collision.collisionObject();
+        double distance = event != null
+                ? center.distance(collisionPoint) : 0;
         double smallDx = velocity.getX() / 100;
         double smallDy = velocity.getY() / 100;
         double collisionX = collisionPoint.getX();
@@ -164,16 +179,31 @@ public class Ball implements Sprite {
         if (collisionObject instanceof Block) {
             ((Block) collisionObject).notifyHit(this);
         }
+
+        // Record the collision if the flight recorder takes it
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.set(System.identityHashCode(this),
+                        collisionObject.getClass().getSimpleName(),
+                        distance);
+                event.commit();
+            }
+        }
     }
 
     /**
-     * Gets the trajectory of the ball from start point to next step.
+     * Gets the trajectory of the ball from start point to next step. The
+     * line is the ball's own, moved on every step.
      *
      * @param secPerMove seconds per move to apply velocity
      * @return trajectory
      */
     private Line getTrajectory(double secPerMove) {
-        return new Line(center, velocity.applyToPoint(center, secPerMove));
+        velocity.applyToPoint(center, secPerMove, nextCenter);
+        trajectory.set(center.getX(), center.getY(), nextCenter.getX(),
+                nextCenter.getY());
+        return trajectory;
     }
 
     /**
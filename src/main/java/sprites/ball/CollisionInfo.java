@@ -21,6 +21,17 @@ public class CollisionInfo {
         this.collisionObject = collisionObject;
     }
 
+    /**
+     * Changes the collision info, so one object serves many collisions.
+     *
+     * @param point  point of collision
+     * @param object the object of collision
+     */
+    public void set(Point point, Collidable object) {
+        this.collisionPoint = point;
+        this.collisionObject = object;
+    }
+
     /**
      * The point at which the collision occurs.
      *
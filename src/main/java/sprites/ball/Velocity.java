@@ -16,8 +16,18 @@ public class Velocity {
      * @param dy change in y axe
      */
     public Velocity(double dx, double dy) {
-        this.dx = Math.round(Math.round(dx * 100) / 100);
-        this.dy = Math.round(Math.round(dy * 100) / 100);
+        set(dx, dy);
+    }
+
+    /**
+     * Changes the velocity, rounding it as the constructor does.
+     *
+     * @param newDx change in x axe
+     * @param newDy change in y axe
+     */
+    public void set(double newDx, double newDy) {
+        this.dx = Math.round(Math.round(newDx * 100) / 100);
+        this.dy = Math.round(Math.round(newDy * 100) / 100);
     }
 
     /**
@@ -78,6 +88,19 @@ public class Velocity {
                 Math.round(p.getY() + (dy * seconds)));
     }
 
+    /**
+     * Applies the velocity to a point, without allocating: the result is
+     * written to a given point, which may be the applied point itself.
+     *
+     * @param p       point (x, y)
+     * @param seconds part of second made in one move
+     * @param result  the point to move to (x + dx, y + dy)
+     */
+    public void applyToPoint(Point p, double seconds, Point result) {
+        result.set(Math.round(p.getX() + (dx * seconds)),
+                Math.round(p.getY() + (dy * seconds)));
+    }
+
     /**
      * Changes speed vector's angle.
      *
@@ -51,6 +51,14 @@ public abstract class Indicator implements Sprite {
         this.xPosition = x;
     }
 
+    /**
+     * Returns the version of what the indicator shows, which changes
+     * whenever its text does.
+     *
+     * @return the version
+     */
+    public abstract int getVersion();
+
     /**
      * Notify the sprite that time has passed.
      *
@@ -6,7 +6,8 @@ import biuoop.DrawSurface;
  * Represents a level indicator at the status bar.
  */
 public class LevelIndicator extends Indicator {
-    private String levelName;
+    private String levelText;
+    private int version = 0;
 
     /**
      * Creates a level sprites.statusbar.Indicator.
@@ -14,11 +15,32 @@ public class LevelIndicator extends Indicator {
      * @param levelName level name
      */
     public LevelIndicator(String levelName) {
-        this.levelName = levelName;
+        setLevelName(levelName);
         setWidth(400);
         this.setX(0); // just to init
     }
 
+    /**
+     * Changes the displayed level name.
+     *
+     * @param name the new level name
+     */
+    public void setLevelName(String name) {
+        // Made once, not on every frame
+        this.levelText = "Level name: " + name;
+        this.version++;
+    }
+
+    /**
+     * Returns the version of the level name, changed by every new name.
+     *
+     * @return the version
+     */
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
     /**
      * Draw the sprite to the screen.
      *
@@ -28,6 +50,6 @@ public class LevelIndicator extends Indicator {
     public void drawOn(DrawSurface d) {
         // Display the level on the bar
         d.setColor(TEXT_COLOR);
-        d.drawText(getX(), START_Y, "Level name: " + levelName, TEXT_SIZE);
+        d.drawText(getX(), START_Y, levelText, TEXT_SIZE);
     }
 }
@@ -8,6 +8,8 @@ import utils.Counter;
  */
 public class LivesIndicator extends Indicator {
     private Counter livesLeft;
+    private int shownVersion;
+    private String livesStr;
 
     /**
      * Creates a lives Indicator.
@@ -18,6 +20,7 @@ public class LivesIndicator extends Indicator {
         this.livesLeft = livesCount;
         setX(0); // just to init
         setWidth(200);
+        updateText();
     }
 
     /**
@@ -29,8 +32,28 @@ public class LivesIndicator extends Indicator {
     public void drawOn(DrawSurface d) {
         // Display the score on the bar
         d.setColor(Indicator.TEXT_COLOR);
-        String scoreStr = "Lives: " + String.valueOf(livesLeft.getValue());
-        d.drawText(getX(), Indicator.START_Y, scoreStr, Indicator.TEXT_SIZE);
+        if (livesLeft.getVersion() != shownVersion) {
+            updateText();
+        }
+        d.drawText(getX(), Indicator.START_Y, livesStr, Indicator.TEXT_SIZE);
+    }
+
+    /**
+     * Makes the text of the lives. It's kept until the lives change, so the
+     * frames in between don't make strings.
+     */
+    private void updateText() {
+        shownVersion = livesLeft.getVersion();
+        livesStr = "Lives: " + String.valueOf(livesLeft.getValue());
+    }
 
+    /**
+     * Returns the version of the lives, changed by every change of them.
+     *
+     * @return the version
+     */
+    @Override
+    public int getVersion() {
+        return livesLeft.getVersion();
     }
 }
@@ -8,6 +8,8 @@ import utils.Counter;
  */
 public class ScoreIndicator extends Indicator {
     private Counter playerScore;
+    private int shownVersion;
+    private String scoreStr;
 
     /**
      * Create a score sprites.statusbar.Indicator.
@@ -18,6 +20,7 @@ public class ScoreIndicator extends Indicator {
         this.playerScore = scoreCounter;
         this.setX(0); // just to init
         this.setWidth(200);
+        updateText();
     }
 
     /**
@@ -29,12 +32,33 @@ public class ScoreIndicator extends Indicator {
     public void drawOn(DrawSurface d) {
         // Display the score on the bar
         d.setColor(Indicator.TEXT_COLOR);
-        String scoreStr
-                = "Score: " + String.valueOf(this.playerScore.getValue());
-        d.drawText(this.getX(), Indicator.START_Y, scoreStr,
+        if (this.playerScore.getVersion() != this.shownVersion) {
+            updateText();
+        }
+        d.drawText(this.getX(), Indicator.START_Y, this.scoreStr,
                 Indicator.TEXT_SIZE);
     }
 
+    /**
+     * Makes the text of the score. It's kept until the score changes, so
+     * the frames in between don't make strings.
+     */
+    private void updateText() {
+        this.shownVersion = this.playerScore.getVersion();
+        this.scoreStr = "Score: " + String.valueOf(
+                this.playerScore.getValue());
+    }
+
+    /**
+     * Returns the version of the score, changed by every change of it.
+     *
+     * @return the version
+     */
+    @Override
+    public int getVersion() {
+        return this.playerScore.getVersion();
+    }
+
     /**
      * Notify the sprite that time has passed.
      *
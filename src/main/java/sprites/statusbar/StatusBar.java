@@ -3,20 +3,40 @@ package sprites.statusbar;
 import animation.GameLevel;
 import biuoop.DrawSurface;
 import graphics.Rectangle;
+import render.CompatibleImages;
+import render.GraphicsSurface;
+import render.RedrawnImage;
 import sprites.Sprite;
 import utils.Finals;
 
+import java.awt.Graphics2D;
 import java.util.ArrayList;
 
 /**
  * Represents the status bar at top of the screen. Holds a list of indicators to
  * display.
+ * <p>
+ * The bar and its indicators are drawn on an image, which is shown on every
+ * frame; the image is drawn again only when the version of an indicator
+ * changes - a new score, lives or level name. Frames may keep the image
+ * and be shown later, so the bar has a small ring of images, made once: a
+ * changed bar is drawn on the next one, never on the shown one. A frame
+ * kept while the bar changed a whole ring of times more may show the
+ * newer bar.
  */
 public class StatusBar extends Rectangle implements Sprite {
+    private static final int INDICATORS_START = 5;
+    private static final int IMAGES = 3;
+
     private final java.awt.Color fillColor = java.awt.Color.LIGHT_GRAY;
     private final java.awt.Color borderColor = java.awt.Color.WHITE;
 
     private ArrayList<Indicator> indicators;
+    private int[] shownVersions;
+    private RedrawnImage[] images;
+    private Graphics2D[] graphics;
+    private GraphicsSurface surface;
+    private int shown = 0;
 
     /**
      * Define the status indicators.
@@ -27,6 +47,30 @@ public class StatusBar extends Rectangle implements Sprite {
         super(0, 0, Finals.getInstance().getGameWidth(),
                 Finals.getInstance().getStatusBarHeight());
         this.indicators = statusIndicators;
+        this.shownVersions = new int[statusIndicators.size()];
+
+        // Place the indicators one after the other, once
+        int currStart = INDICATORS_START;
+        for (Indicator indicator : statusIndicators) {
+            indicator.setX(currStart);
+            currStart += indicator.getWidth();
+        }
+
+        // The border goes one pixel past the width and the height
+        int width = (int) getWidth() + 1;
+        int height = (int) getHeight() + 1;
+        this.images = new RedrawnImage[IMAGES];
+        this.graphics = new Graphics2D[IMAGES];
+        this.surface = new GraphicsSurface(null, width, height);
+
+        // Draw on every image once, so their graphics are set up by now
+        for (int i = 0; i < IMAGES; i++) {
+            images[i] = CompatibleImages.createRedrawn(width, height, true);
+            graphics[i] = images[i].createGraphics();
+            shown = i;
+            surface.setGraphics(graphics[i]);
+            drawImage();
+        }
     }
 
     /**
@@ -36,24 +80,46 @@ public class StatusBar extends Rectangle implements Sprite {
      */
     @Override
     public void drawOn(DrawSurface d) {
+        if (isChanged()) {
+            shown = (shown + 1) % IMAGES;
+            surface.setGraphics(graphics[shown]);
+            drawImage();
+            images[shown].redrawn();
+        }
+        d.drawImage((int) getUpperLeft().getX(),
+                (int) getUpperLeft().getY(), images[shown]);
+    }
+
+    /**
+     * Checks whether an indicator changed since the image was drawn.
+     *
+     * @return true if changed
+     */
+    private boolean isChanged() {
+        for (int i = 0; i < indicators.size(); i++) {
+            if (indicators.get(i).getVersion() != shownVersions[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Draws the bar and its indicators on the shown image.
+     */
+    private void drawImage() {
         // Fill the bar
-        d.setColor(this.fillColor);
-        d.fillRectangle((int) getUpperLeft().getX(),
-                (int) getUpperLeft().getY(), (int) getWidth(),
-                (int) getHeight());
+        surface.setColor(this.fillColor);
+        surface.fillRectangle(0, 0, (int) getWidth(), (int) getHeight());
 
         // Draw the border
-        d.setColor(this.borderColor);
-        d.drawRectangle((int) getUpperLeft().getX(),
-                (int) getUpperLeft().getY(), (int) getWidth(),
-                (int) getHeight());
+        surface.setColor(this.borderColor);
+        surface.drawRectangle(0, 0, (int) getWidth(), (int) getHeight());
 
         // Draw all the indicators on the bar
-        int currStart = 5;
-        for (Indicator indicator : indicators) {
-            indicator.setX(currStart);
-            indicator.drawOn(d);
-            currStart += indicator.getWidth();
+        for (int i = 0; i < indicators.size(); i++) {
+            shownVersions[i] = indicators.get(i).getVersion();
+            indicators.get(i).drawOn(surface);
         }
     }
 
@@ -67,15 +133,13 @@ public class StatusBar extends Rectangle implements Sprite {
     }
 
     /**
-     * Adds the status bar and all indicators to the game.
+     * Adds the status bar to the game. The indicators are drawn by the bar,
+     * so they are not sprites of the game themselves.
      *
      * @param g game
      */
     @Override
     public void addToGame(GameLevel g) {
         g.addSprite(this);
-        for (Indicator indicator : indicators) {
-            indicator.addToGame(g);
-        }
     }
 }
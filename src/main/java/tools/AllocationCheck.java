@@ -0,0 +1,259 @@
+package tools;
+
+import animation.GameLevel;
+import biuoop.DrawSurface;
+import gameplay.LevelInformation;
+import io.FormatException;
+import render.NullRenderer;
+import replay.ScriptedPaddle;
+import utils.Counter;
+import utils.Finals;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+
+/**
+ * Checks that game frames don't allocate once the game runs, and exits
+ * with status 1 if one does, so a change that brings allocation back to
+ * the frame is caught before it makes the game stutter.
+ * <p>
+ * Usage: java tools.AllocationCheck [--set key] [--blocks n] [--balls n]
+ * [--frames n] [--warmup n]
+ * <p>
+ * Frames are played as in {@link FrameBenchmark}, and the bytes the game
+ * thread allocated in each are taken from the thread MX bean. Starting a
+ * level or a turn is not checked. A frame after the score or the lives
+ * changed may allocate the new text of the status bar, up to
+ * {@value #TEXT_BYTES} bytes; every other frame must allocate nothing. A
+ * level whose frames allocate is played again, up to
+ * {@value #MAX_PLAYS} times, and fails only if every play allocates.
+ * The warmup lets the JIT compile the frame first, as the interpreter
+ * allocates objects the compiled code doesn't.
+ * <p>
+ * To find what a failing frame allocates, run the check with a flight
+ * recording and look at its allocation samples.
+ */
+public class AllocationCheck {
+    private static final int SWEEP_TICKS = 45;
+    private static final int TEXT_BYTES = 128;
+    private static final int MAX_REPORTED = 10;
+    private static final int MAX_PLAYS = 3;
+
+    private final com.sun.management.ThreadMXBean threads;
+    private final DrawSurface surface = new NullRenderer();
+    private final double dt;
+    private final int warmup;
+    private final int frames;
+    private final long probeBytes;
+
+    /**
+     * Creates the check.
+     *
+     * @param warmup frames played before checking each level
+     * @param frames frames checked of each level
+     * @throws IOException the JVM doesn't measure allocation
+     */
+    public AllocationCheck(int warmup, int frames) throws IOException {
+        this.warmup = warmup;
+        this.frames = frames;
+        this.dt = 1.0 / Finals.getInstance().getFramesPerSec();
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) bean)
+                .isThreadAllocatedMemorySupported()) {
+            throw new IOException("The JVM doesn't measure allocation");
+        }
+        this.threads = (com.sun.management.ThreadMXBean) bean;
+        this.threads.setThreadAllocatedMemoryEnabled(true);
+
+        // The measure may allocate itself - take its cost off
+        long before = allocatedBytes();
+        this.probeBytes = allocatedBytes() - before;
+    }
+
+    /**
+     * Runs the check from the command line.
+     *
+     * @param args the options
+     */
+    public static void main(String[] args) {
+        String set = null;
+        int blocks = 1000;
+        int balls = 8;
+        int frames = 10000;
+        int warmup = 20000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--set")) {
+                set = args[i + 1];
+            } else if (args[i].equals("--blocks")) {
+                blocks = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--balls")) {
+                balls = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--frames")) {
+                frames = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--warmup")) {
+                warmup = Integer.parseInt(args[i + 1]);
+            }
+        }
+
+        boolean passed = true;
+        try {
+            AllocationCheck check = new AllocationCheck(warmup, frames);
+            if (set != null) {
+                for (LevelInformation level : FrameBenchmark.readSet(set)) {
+                    passed &= check.check(level.levelName(), level);
+                }
+            } else {
+                File dir = Files.createTempDirectory("frames").toFile();
+                try {
+                    passed = check.check(blocks + " blocks " + balls
+                                    + " balls",
+                            FrameBenchmark.generate(dir, blocks, balls));
+                } finally {
+                    FrameBenchmark.delete(dir);
+                }
+            }
+        } catch (FormatException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Plays frames of a level and checks their allocation. The level starts
+     * over when its blocks are gone, and a turn starts over when its balls
+     * are gone.
+     * <p>
+     * When the JIT throws away a compiled method, the objects its escape
+     * analysis removed are made again, and the measure itself may allocate;
+     * this happens now and then, in any frame, and less as the JIT settles.
+     * A frame that allocates in the game's code does it on every play, so
+     * a level whose frames allocated is played again, and fails only if no
+     * play is clean.
+     *
+     * @param name      name of the level in the report
+     * @param levelInfo the level
+     * @return true if no frame allocated more than allowed
+     */
+    public boolean check(String name, LevelInformation levelInfo) {
+        Pass pass = play(levelInfo);
+        int plays = 1;
+        int excused = 0;
+        while (pass.failures > 0 && plays < MAX_PLAYS) {
+            excused += pass.failures;
+            pass = play(levelInfo);
+            plays++;
+        }
+
+        System.out.printf("%s: %d frames, %d allocated the status bar"
+                + " (%d bytes), %d allocated otherwise%n", name, frames,
+                pass.textFrames, pass.textBytes, pass.failures);
+        if (pass.failures == 0 && excused > 0) {
+            System.out.printf("  %d frame(s) allocated in %d earlier"
+                    + " play(s) only - JIT events, not failures%n", excused,
+                    plays - 1);
+        } else if (pass.failures > 0) {
+            System.out.printf("  allocated in all %d plays%n", plays);
+        }
+        for (int i = 0; i < pass.reported; i++) {
+            System.out.printf("  frame %d allocated %d bytes%n",
+                    pass.reportedFrames[i], pass.reportedBytes[i]);
+        }
+        return pass.failures == 0;
+    }
+
+    /**
+     * Plays the frames of a level once and measures their allocation.
+     *
+     * @param levelInfo the level
+     * @return the measures
+     */
+    private Pass play(LevelInformation levelInfo) {
+        ScriptedPaddle paddle = new ScriptedPaddle(SWEEP_TICKS);
+        Counter score = new Counter(0);
+        Counter lives = new Counter(Integer.MAX_VALUE);
+        Pass pass = new Pass();
+        int shownScore = -1;
+        int shownLives = -1;
+        GameLevel level = null;
+        for (int i = -warmup; i < frames; i++) {
+            if (level == null || level.shouldStop()) {
+                if (level != null) {
+                    level.endTurn();
+                }
+                if (level == null || !level.areBlocksLeft()) {
+                    level = new GameLevel(levelInfo, paddle, null, score,
+                            lives);
+                    level.initialize();
+                }
+                level.startTurn();
+            }
+
+            // The frame draws the counters first - new values, new text
+            boolean newText = score.getValue() != shownScore
+                    || lives.getValue() != shownLives;
+            shownScore = score.getValue();
+            shownLives = lives.getValue();
+
+            long allocated = allocatedBytes();
+            level.doOneFrame(surface, dt);
+            long bytes = allocatedBytes() - allocated - probeBytes;
+            if (i < 0 || bytes <= 0) {
+                continue;
+            }
+            if (newText && bytes <= TEXT_BYTES) {
+                pass.textFrames++;
+                pass.textBytes += bytes;
+            } else {
+                pass.fail(i, bytes);
+            }
+        }
+        return pass;
+    }
+
+    /**
+     * Returns the bytes the current thread allocated so far.
+     *
+     * @return number of bytes
+     */
+    private long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(
+                Thread.currentThread().getId());
+    }
+
+    /**
+     * The measures of one play of a level.
+     */
+    private static final class Pass {
+        private final long[] reportedFrames = new long[MAX_REPORTED];
+        private final long[] reportedBytes = new long[MAX_REPORTED];
+        private int reported = 0;
+        private int failures = 0;
+        private int textFrames = 0;
+        private long textBytes = 0;
+
+        /**
+         * Counts a frame that allocated more than allowed.
+         *
+         * @param frame the frame number
+         * @param bytes the bytes it allocated
+         */
+        void fail(int frame, long bytes) {
+            if (reported < MAX_REPORTED) {
+                reportedFrames[reported] = frame;
+                reportedBytes[reported] = bytes;
+                reported++;
+            }
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,539 @@
+package tools;
+
+import animation.GameLevel;
+import gameplay.LevelInformation;
+import io.BlocksDefinitionReader;
+import io.BlocksFactorySource;
+import io.BlocksFromSymbolsFactory;
+import io.FormatException;
+import io.LevelSetsReader;
+import io.LevelSpecificationReader;
+import io.ResourceLoader;
+import render.NullRenderer;
+import replay.ScriptedPaddle;
+import utils.Counter;
+import utils.Finals;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Plays game frames without a screen, with a paddle that sweeps back and
+ * forth, and prints the frames per second, the frame time percentiles and
+ * the bytes allocated per frame.
+ * <p>
+ * Usage: java tools.FrameBenchmark [--set key] [--blocks n,n,..]
+ * [--balls n,n,..] [--ticks n] [--warmup n] [--label name] [--out file]
+ * <p>
+ * With "--set" the levels of a set of "level_sets.txt" are played;
+ * otherwise levels made by {@link LevelGenerator} are, for every number of
+ * blocks and every number of balls. A frame is a whole game frame - the
+ * sprites drawn on a {@link NullRenderer}, and the game moved one tick;
+ * the renderer's counters give the draw calls and filled pixels of the
+ * frames. Starting a level or a turn is not timed. With "--out" the results
+ * are also written to a file, JSON if its name ends with ".json" and CSV
+ * otherwise, so runs of different versions on the same machine can be
+ * compared.
+ */
+public class FrameBenchmark {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int SWEEP_TICKS = 45;
+    private static final String[] COLUMNS = {"label", "level", "blocks",
+            "balls", "frames", "fps", "p50_us", "p99_us", "p999_us",
+            "max_us", "bytes_per_frame", "draws_per_frame",
+            "pixels_per_frame"};
+
+    private final com.sun.management.ThreadMXBean threads;
+    private final NullRenderer surface = new NullRenderer();
+    private final double dt;
+    private final int warmup;
+    private final int ticks;
+    private long probeBytes = 0;
+
+    /**
+     * Creates the benchmark.
+     *
+     * @param warmup frames played before measuring each level
+     * @param ticks  frames measured of each level
+     */
+    public FrameBenchmark(int warmup, int ticks) {
+        this.warmup = warmup;
+        this.ticks = ticks;
+        this.dt = 1.0 / Finals.getInstance().getFramesPerSec();
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean)
+                .isThreadAllocatedMemorySupported()) {
+            this.threads = (com.sun.management.ThreadMXBean) bean;
+            this.threads.setThreadAllocatedMemoryEnabled(true);
+
+            // The measure may allocate itself - take its cost off
+            long before = allocatedBytes();
+            this.probeBytes = allocatedBytes() - before;
+        } else {
+            this.threads = null;
+        }
+    }
+
+    /**
+     * Runs the benchmark from the command line.
+     *
+     * @param args the options
+     */
+    public static void main(String[] args) {
+        String set = null;
+        int[] blocks = {100, 1000, 5000};
+        int[] balls = {1, 4, 16};
+        int ticks = 5000;
+        int warmup = 1000;
+        String label = "current";
+        String out = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--set")) {
+                set = args[i + 1];
+            } else if (args[i].equals("--blocks")) {
+                blocks = parseList(args[i + 1]);
+            } else if (args[i].equals("--balls")) {
+                balls = parseList(args[i + 1]);
+            } else if (args[i].equals("--ticks")) {
+                ticks = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--warmup")) {
+                warmup = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--label")) {
+                label = args[i + 1];
+            } else if (args[i].equals("--out")) {
+                out = args[i + 1];
+            }
+        }
+
+        FrameBenchmark benchmark = new FrameBenchmark(warmup, ticks);
+        List<Result> results = new ArrayList<Result>();
+        try {
+            printHeader();
+            if (set != null) {
+                for (LevelInformation level : readSet(set)) {
+                    results.add(print(benchmark.play(label,
+                            level.levelName(), level)));
+                }
+            } else {
+                File dir = Files.createTempDirectory("frames").toFile();
+                try {
+                    for (int blockCount : blocks) {
+                        for (int ballCount : balls) {
+                            LevelInformation level = generate(dir,
+                                    blockCount, ballCount);
+                            results.add(print(benchmark.play(label,
+                                    blockCount + " blocks " + ballCount
+                                            + " balls", level)));
+                        }
+                    }
+                } finally {
+                    delete(dir);
+                }
+            }
+            if (out != null) {
+                write(new File(out), results);
+            }
+        } catch (FormatException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Plays frames of a level and measures them. The level starts over
+     * when its blocks are gone, and a turn starts over when its balls are
+     * gone; neither is timed.
+     *
+     * @param label     name of the measured version
+     * @param name      name of the level in the results
+     * @param levelInfo the level
+     * @return the measures
+     */
+    public Result play(String label, String name, LevelInformation levelInfo) {
+        ScriptedPaddle paddle = new ScriptedPaddle(SWEEP_TICKS);
+        Counter score = new Counter(0);
+        Counter lives = new Counter(Integer.MAX_VALUE);
+        long[] frameNanos = new long[ticks];
+        long bytes = 0;
+        long draws = 0;
+        long pixels = 0;
+        GameLevel level = null;
+        for (int i = -warmup; i < ticks; i++) {
+            if (level == null || level.shouldStop()) {
+                if (level != null) {
+                    level.endTurn();
+                }
+                if (level == null || !level.areBlocksLeft()) {
+                    level = new GameLevel(levelInfo, paddle, null, score,
+                            lives);
+                    level.initialize();
+                }
+                level.startTurn();
+            }
+
+            surface.resetCounters();
+            long allocated = allocatedBytes();
+            long start = System.nanoTime();
+            level.doOneFrame(surface, dt);
+            long nanos = System.nanoTime() - start;
+            long frameBytes = allocatedBytes() - allocated - probeBytes;
+            if (i >= 0) {
+                frameNanos[i] = nanos;
+                bytes += Math.max(0, frameBytes);
+                draws += surface.getDrawCalls();
+                pixels += surface.getFilledPixels();
+            }
+        }
+
+        long total = 0;
+        for (long nanos : frameNanos) {
+            total += nanos;
+        }
+        Arrays.sort(frameNanos);
+        return new Result(label, name, levelInfo.blocks().size(),
+                levelInfo.numberOfBalls(), ticks,
+                ticks / (total / 1e9),
+                percentile(frameNanos, 50) / 1e3,
+                percentile(frameNanos, 99) / 1e3,
+                percentile(frameNanos, 99.9) / 1e3,
+                frameNanos[ticks - 1] / 1e3,
+                threads == null ? -1 : bytes / (double) ticks,
+                draws / (double) ticks, pixels / (double) ticks);
+    }
+
+    /**
+     * Returns the bytes the current thread allocated so far.
+     *
+     * @return number of bytes, 0 if the JVM doesn't tell
+     */
+    private long allocatedBytes() {
+        if (threads == null) {
+            return 0;
+        }
+        return threads.getThreadAllocatedBytes(
+                Thread.currentThread().getId());
+    }
+
+    /**
+     * Reads the levels of a level set of the game.
+     *
+     * @param key the set's key in the level sets file
+     * @return the levels
+     * @throws FormatException wrong format, or no such set
+     * @throws IOException     problem reading the files
+     */
+    static List<LevelInformation> readSet(String key)
+            throws FormatException, IOException {
+        String setsFile = Finals.getInstance().getDefaultLevelSetsFile();
+        InputStream is = ResourceLoader.open(setsFile);
+        if (is == null) {
+            throw new IOException("Missing level sets file " + setsFile);
+        }
+        Reader reader = new InputStreamReader(is, UTF8);
+        try {
+            for (String[] entry : LevelSetsReader.readEntries(reader)) {
+                if (entry[0].equals(key)) {
+                    return new LevelSpecificationReader()
+                            .fromResource(entry[2]);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        throw new FormatException("No level set " + key + " in "
+                + setsFile);
+    }
+
+    /**
+     * Generates a level and reads it.
+     *
+     * @param dir    directory to write the level files to
+     * @param blocks number of blocks
+     * @param balls  number of balls
+     * @return the level
+     * @throws FormatException wrong format
+     * @throws IOException     problem with the files
+     */
+    static LevelInformation generate(final File dir, int blocks,
+                                     int balls)
+            throws FormatException, IOException {
+        String name = blocks + "x" + balls;
+        new LevelGenerator().setOutDir(dir).setName(name).setBlocks(blocks)
+                .setBalls(balls).generate();
+
+        // The files name each other relative to the directory
+        LevelSpecificationReader levelReader = new LevelSpecificationReader();
+        levelReader.setBlocksFactorySource(new BlocksFactorySource() {
+            public BlocksFromSymbolsFactory getBlocksFactory(
+                    String blocksFile) throws FormatException, IOException {
+                Reader reader = open(new File(dir, blocksFile));
+                try {
+                    return new BlocksDefinitionReader().fromReader(reader,
+                            blocksFile);
+                } finally {
+                    reader.close();
+                }
+            }
+        });
+        String levelsFile = "generated/" + name + "_level_definitions.txt";
+        Reader reader = open(new File(dir, levelsFile));
+        try {
+            return levelReader.fromReader(reader, levelsFile).get(0);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Opens a text file.
+     *
+     * @param file the file
+     * @return the reader
+     * @throws IOException problem opening
+     */
+    private static Reader open(File file) throws IOException {
+        return new InputStreamReader(new FileInputStream(file), UTF8);
+    }
+
+    /**
+     * Deletes a directory with everything in it.
+     *
+     * @param file the directory or file
+     */
+    static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        if (!file.delete()) {
+            System.err.println("Can't delete " + file);
+        }
+    }
+
+    /**
+     * Parses a list of numbers separated by commas.
+     *
+     * @param list the list
+     * @return the numbers
+     */
+    private static int[] parseList(String list) {
+        String[] items = list.split(",");
+        int[] numbers = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            numbers[i] = Integer.parseInt(items[i].trim());
+        }
+        return numbers;
+    }
+
+    /**
+     * Returns a percentile of sorted values, by the nearest rank.
+     *
+     * @param sorted     the values, sorted
+     * @param percentile the percentile, 0 to 100
+     * @return the value
+     */
+    private static long percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * Prints the header of the results table.
+     */
+    private static void printHeader() {
+        System.out.printf("%-24s %7s %6s %9s %9s %9s %9s %9s %10s %8s"
+                + " %10s%n", "level", "blocks", "balls", "fps", "p50 us",
+                "p99 us", "p99.9 us", "max us", "B/frame", "draws",
+                "pixels");
+    }
+
+    /**
+     * Prints a result as a row of the results table.
+     *
+     * @param result the result
+     * @return the result
+     */
+    private static Result print(Result result) {
+        System.out.printf("%-24s %7d %6d %9.0f %9.1f %9.1f %9.1f %9.1f"
+                + " %10.0f %8.0f %10.0f%n", result.level, result.blocks,
+                result.balls, result.fps, result.p50, result.p99,
+                result.p999, result.max, result.bytesPerFrame,
+                result.drawsPerFrame, result.pixelsPerFrame);
+        return result;
+    }
+
+    /**
+     * Writes the results to a file, JSON or CSV by the file name.
+     *
+     * @param file    the file
+     * @param results the results
+     * @throws IOException problem writing
+     */
+    private static void write(File file, List<Result> results)
+            throws IOException {
+        boolean json = file.getName().endsWith(".json");
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(file), UTF8));
+        try {
+            if (json) {
+                writer.println("[");
+            } else {
+                writer.println(join(COLUMNS, ",", false));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                String[] values = results.get(i).values();
+                if (json) {
+                    StringBuilder line = new StringBuilder("  {");
+                    for (int c = 0; c < COLUMNS.length; c++) {
+                        line.append(c == 0 ? "" : ", ").append('"')
+                                .append(COLUMNS[c]).append("\": ")
+                                .append(c < 2 ? quote(values[c])
+                                        : values[c]);
+                    }
+                    line.append(i + 1 < results.size() ? "}," : "}");
+                    writer.println(line);
+                } else {
+                    writer.println(join(values, ",", true));
+                }
+            }
+            if (json) {
+                writer.println("]");
+            }
+        } finally {
+            writer.close();
+        }
+        if (writer.checkError()) {
+            throw new IOException("Can't write " + file);
+        }
+    }
+
+    /**
+     * Joins values, quoting the two text columns of a results row for CSV.
+     *
+     * @param values    the values
+     * @param separator the separator
+     * @param quoteText whether to quote the text columns
+     * @return the line
+     */
+    private static String join(String[] values, String separator,
+                               boolean quoteText) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            line.append(i == 0 ? "" : separator).append(quoteText && i < 2
+                    ? '"' + values[i].replace("\"", "\"\"") + '"'
+                    : values[i]);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Quotes a text value for JSON.
+     *
+     * @param text the text
+     * @return the quoted text
+     */
+    private static String quote(String text) {
+        return '"' + text.replace("\\", "\\\\").replace("\"", "\\\"")
+                + '"';
+    }
+
+    /**
+     * The measures of one level.
+     */
+    public static final class Result {
+        private final String label;
+        private final String level;
+        private final int blocks;
+        private final int balls;
+        private final int frames;
+        private final double fps;
+        private final double p50;
+        private final double p99;
+        private final double p999;
+        private final double max;
+        private final double bytesPerFrame;
+        private final double drawsPerFrame;
+        private final double pixelsPerFrame;
+
+        /**
+         * Creates the result.
+         *
+         * @param label         name of the measured version
+         * @param level         name of the level
+         * @param blocks        number of blocks
+         * @param balls         number of balls
+         * @param frames        number of frames measured
+         * @param fps           frames per second
+         * @param p50           median frame time, in microseconds
+         * @param p99           99th percentile frame time, in microseconds
+         * @param p999          99.9th percentile frame time, in
+         *                      microseconds
+         * @param max           longest frame time, in microseconds
+         * @param bytesPerFrame bytes allocated per frame, -1 if unknown
+         * @param drawsPerFrame draw calls per frame
+         * @param pixelsPerFrame pixels filled per frame
+         */
+        Result(String label, String level, int blocks, int balls,
+               int frames, double fps, double p50, double p99, double p999,
+               double max, double bytesPerFrame, double drawsPerFrame,
+               double pixelsPerFrame) {
+            this.label = label;
+            this.level = level;
+            this.blocks = blocks;
+            this.balls = balls;
+            this.frames = frames;
+            this.fps = fps;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+            this.bytesPerFrame = bytesPerFrame;
+            this.drawsPerFrame = drawsPerFrame;
+            this.pixelsPerFrame = pixelsPerFrame;
+        }
+
+        /**
+         * Returns the values of the result's columns, as text.
+         *
+         * @return the values
+         */
+        private String[] values() {
+            return new String[] {label, level, Integer.toString(blocks),
+                    Integer.toString(balls), Integer.toString(frames),
+                    format(fps), format(p50), format(p99), format(p999),
+                    format(max), format(bytesPerFrame),
+                    format(drawsPerFrame), format(pixelsPerFrame)};
+        }
+
+        /**
+         * Formats a number the same way in every locale.
+         *
+         * @param value the number
+         * @return the text
+         */
+        private static String format(double value) {
+            return String.format(Locale.ROOT, "%.1f", value);
+        }
+    }
+}
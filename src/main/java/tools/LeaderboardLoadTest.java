@@ -0,0 +1,219 @@
+package tools;
+
+import scores.LeaderboardClient;
+import scores.LeaderboardServer;
+import scores.ScoreInfo;
+import scores.SharedScoresFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives many concurrent score submissions and top scores pulls through
+ * leaderboard clients, and prints the latency percentiles.
+ * <p>
+ * Usage: java tools.LeaderboardLoadTest [--url http://host:port]
+ * [--threads n] [--scores n] [--cabinets n]
+ * <p>
+ * Without "--url" a service over a new scores file in a temporary directory
+ * is started in this process. Every thread plays a finishing game: submits
+ * a score, waits until it is accepted, and pulls the top scores. A cabinet
+ * is one client, shared by its threads, so their submissions are batched
+ * together.
+ */
+public class LeaderboardLoadTest {
+    private static final int TOP_K = 10;
+    private static final int TIMEOUT_MILLIS = 30000;
+
+    /**
+     * Runs the load test from the command line.
+     *
+     * @param args the options
+     */
+    public static void main(String[] args) {
+        String url = null;
+        int threads = 200;
+        int scores = 5000;
+        int cabinets = 8;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--url")) {
+                url = args[i + 1];
+            } else if (args[i].equals("--threads")) {
+                threads = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--scores")) {
+                scores = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--cabinets")) {
+                cabinets = Integer.parseInt(args[i + 1]);
+            }
+        }
+
+        LeaderboardServer server = null;
+        try {
+            if (url == null) {
+                File dir = Files.createTempDirectory("leaderboard").toFile();
+                server = new LeaderboardServer(0, new SharedScoresFile(
+                        new File(dir, "scores.bin"), null));
+                server.start();
+                url = "http://127.0.0.1:" + server.getPort();
+                System.out.println("Serving " + dir + " on " + url);
+            }
+            run(url, threads, scores, cabinets);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+        }
+    }
+
+    /**
+     * Runs the submitting threads and prints the results.
+     *
+     * @param url      the service address
+     * @param threads  number of threads
+     * @param scores   number of scores to submit in all
+     * @param cabinets number of clients
+     * @throws IOException          problem with the service
+     * @throws InterruptedException interrupted while waiting
+     */
+    private static void run(String url, int threads, final int scores,
+                            int cabinets)
+            throws IOException, InterruptedException {
+        final LeaderboardClient[] clients = new LeaderboardClient[cabinets];
+        for (int i = 0; i < cabinets; i++) {
+            // Cache off - every pull reaches the service
+            clients[i] = new LeaderboardClient(url, TIMEOUT_MILLIS, 0);
+        }
+        int sizeBefore = clients[0].getTop(TOP_K).getSize();
+
+        final long[] submitNanos = new long[scores];
+        final long[] pullNanos = new long[scores];
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final LeaderboardClient client = clients[t % cabinets];
+            final Random random = new Random(t);
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                        int i;
+                        while ((i = next.getAndIncrement()) < scores) {
+                            finishGame(client, random, i, submitNanos,
+                                    pullNanos, failures);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }, "load-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long nanos = System.nanoTime() - begin;
+        int sizeAfter = clients[0].getTop(TOP_K).getSize();
+
+        System.out.printf("%d scores from %d threads on %d cabinets in"
+                + " %.2f s (%.0f scores/s), %d failed%n", scores, threads,
+                cabinets, nanos / 1e9, scores / (nanos / 1e9),
+                failures.get());
+        printLatency("submit", submitNanos);
+        printLatency("top " + TOP_K, pullNanos);
+        System.out.printf("Leaderboard grew by %d scores%n",
+                sizeAfter - sizeBefore);
+    }
+
+    /**
+     * Plays one finishing game: submits a score and pulls the top scores.
+     *
+     * @param client      the cabinet's client
+     * @param random      scores generator
+     * @param i           number of the game
+     * @param submitNanos submit times to fill
+     * @param pullNanos   pull times to fill
+     * @param failures    counter of failed requests
+     * @throws InterruptedException interrupted while waiting
+     */
+    private static void finishGame(LeaderboardClient client, Random random,
+                                   int i, long[] submitNanos,
+                                   long[] pullNanos, AtomicInteger failures)
+            throws InterruptedException {
+        ScoreInfo scoreInfo = new ScoreInfo("player " + i,
+                random.nextInt(100000), System.currentTimeMillis(), "load");
+        long begin = System.nanoTime();
+        try {
+            client.submit(scoreInfo).get();
+            submitNanos[i] = System.nanoTime() - begin;
+            begin = System.nanoTime();
+            client.getTop(TOP_K);
+            pullNanos[i] = System.nanoTime() - begin;
+        } catch (ExecutionException e) {
+            failures.incrementAndGet();
+            submitNanos[i] = -1;
+            pullNanos[i] = -1;
+        } catch (IOException e) {
+            failures.incrementAndGet();
+            pullNanos[i] = -1;
+        }
+    }
+
+    /**
+     * Prints the percentiles of the successful requests' times.
+     *
+     * @param name  the request name
+     * @param nanos the request times, -1 for failed ones
+     */
+    private static void printLatency(String name, long[] nanos) {
+        List<Long> ok = new ArrayList<Long>();
+        for (long n : nanos) {
+            if (n >= 0) {
+                ok.add(n);
+            }
+        }
+        if (ok.isEmpty()) {
+            System.out.println(name + ": no successful requests");
+            return;
+        }
+        long[] sorted = new long[ok.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = ok.get(i);
+        }
+        Arrays.sort(sorted);
+        System.out.printf("%-8s p50 %7.2f ms  p95 %7.2f ms  p99 %7.2f ms"
+                + "  max %7.2f ms%n", name, percentile(sorted, 50) / 1e6,
+                percentile(sorted, 95) / 1e6, percentile(sorted, 99) / 1e6,
+                sorted[sorted.length - 1] / 1e6);
+    }
+
+    /**
+     * Returns a percentile of sorted values, by the nearest rank.
+     *
+     * @param sorted     the values, sorted
+     * @param percentile the percentile, 0 to 100
+     * @return the value
+     */
+    private static long percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
@@ -0,0 +1,528 @@
+package tools;
+
+import utils.Finals;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates big level sets for stress and scale testing. The files are written
+ * in the same format the game reads from "resources/definitions": a block
+ * definitions file, a level specification file and a level sets file.
+ * <p>
+ * Usage (all options are optional):
+ * <pre>
+ * java tools.LevelGenerator --out=generated_resources --name=stress
+ *      --blocks=10000 --density=0.8 --hit-points=1:60,2:30,3:10
+ *      --images=0.2 --balls=2 --levels=1 --seed=42
+ * </pre>
+ * The output directory must be added to the class path when running the game
+ * or the tools on the generated "&lt;name&gt;_level_sets.txt".
+ */
+public class LevelGenerator {
+    private static final int MAX_BLOCKS = 100000;
+    private static final String SUB_DIR = "generated";
+    private static final String SPACER = "-";
+    private static final String SYMBOLS
+            = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final String[] COLORS = {"red", "orange", "yellow",
+            "green", "blue", "cyan", "pink", "gray", "lightGray", "white"};
+    private static final String[] IMAGES = {"block_images/green.jpg",
+            "block_images/orange.jpg", "block_images/pink.jpg",
+            "block_images/yellow.jpg"};
+
+    private File outDir = new File("generated_resources");
+    private String name = "stress";
+    private int numBlocks = 1000;
+    private double density = 1.0;
+    private int[] hitPoints = {1};
+    private int[] hitPointsWeights = {1};
+    private double imagesRatio = 0;
+    private int numBalls = 1;
+    private int numLevels = 1;
+    private long seed = 42;
+
+    /**
+     * Runs the generator from the command line.
+     *
+     * @param args generator options, see the class documentation
+     */
+    public static void main(String[] args) {
+        LevelGenerator generator = new LevelGenerator();
+        try {
+            for (String arg : args) {
+                generator.parseOption(arg);
+            }
+            File levelSets = generator.generate();
+            System.out.println("Generated " + levelSets.getPath());
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Sets the directory to write the files to (a class path root).
+     *
+     * @param dir the output directory
+     * @return this generator
+     */
+    public LevelGenerator setOutDir(File dir) {
+        this.outDir = dir;
+        return this;
+    }
+
+    /**
+     * Sets the name used for the generated files and levels.
+     *
+     * @param setName name of the generated set
+     * @return this generator
+     */
+    public LevelGenerator setName(String setName) {
+        if (!setName.matches("[A-Za-z0-9_]+")) {
+            throw new IllegalArgumentException("Bad name: " + setName);
+        }
+        this.name = setName;
+        return this;
+    }
+
+    /**
+     * Sets the number of blocks in every level.
+     *
+     * @param blocks number of blocks (1 to 100000)
+     * @return this generator
+     */
+    public LevelGenerator setBlocks(int blocks) {
+        if (blocks < 1 || blocks > MAX_BLOCKS) {
+            throw new IllegalArgumentException("Blocks must be 1.."
+                    + MAX_BLOCKS);
+        }
+        this.numBlocks = blocks;
+        return this;
+    }
+
+    /**
+     * Sets the part of the grid cells that hold a block, the rest are spaces.
+     *
+     * @param blocksDensity density in range (0, 1]
+     * @return this generator
+     */
+    public LevelGenerator setDensity(double blocksDensity) {
+        if (blocksDensity <= 0 || blocksDensity > 1) {
+            throw new IllegalArgumentException("Density must be in (0, 1]");
+        }
+        this.density = blocksDensity;
+        return this;
+    }
+
+    /**
+     * Sets the hit points distribution, for example "1:60,2:30,3:10".
+     *
+     * @param distribution hit points and their weights
+     * @return this generator
+     */
+    public LevelGenerator setHitPoints(String distribution) {
+        String[] entries = distribution.split(",");
+        int[] points = new int[entries.length];
+        int[] weights = new int[entries.length];
+        try {
+            for (int i = 0; i < entries.length; i++) {
+                String[] entry = entries[i].split(":");
+                points[i] = Integer.parseInt(entry[0].trim());
+                weights[i] = entry.length > 1
+                        ? Integer.parseInt(entry[1].trim()) : 1;
+                if (points[i] < 1 || weights[i] < 0) {
+                    throw new NumberFormatException();
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad hit points: "
+                    + distribution);
+        }
+        this.hitPoints = points;
+        this.hitPointsWeights = weights;
+        return this;
+    }
+
+    /**
+     * Sets the part of the blocks filled with an image instead of a color.
+     *
+     * @param ratio images ratio in range [0, 1]
+     * @return this generator
+     */
+    public LevelGenerator setImagesRatio(double ratio) {
+        if (ratio < 0 || ratio > 1) {
+            throw new IllegalArgumentException("Images must be in [0, 1]");
+        }
+        this.imagesRatio = ratio;
+        return this;
+    }
+
+    /**
+     * Sets the number of balls in every level.
+     *
+     * @param balls number of balls
+     * @return this generator
+     */
+    public LevelGenerator setBalls(int balls) {
+        if (balls < 1) {
+            throw new IllegalArgumentException("Balls must be positive");
+        }
+        this.numBalls = balls;
+        return this;
+    }
+
+    /**
+     * Sets the number of levels in the generated level set.
+     *
+     * @param levels number of levels
+     * @return this generator
+     */
+    public LevelGenerator setLevels(int levels) {
+        if (levels < 1) {
+            throw new IllegalArgumentException("Levels must be positive");
+        }
+        this.numLevels = levels;
+        return this;
+    }
+
+    /**
+     * Sets the random seed. The same seed always gives the same files.
+     *
+     * @param randomSeed the seed
+     * @return this generator
+     */
+    public LevelGenerator setSeed(long randomSeed) {
+        this.seed = randomSeed;
+        return this;
+    }
+
+    /**
+     * Parses a single "--option=value" command line argument.
+     *
+     * @param arg the argument
+     */
+    private void parseOption(String arg) {
+        String[] option = arg.split("=", 2);
+        if (option.length != 2 || !option[0].startsWith("--")) {
+            throw new IllegalArgumentException("Bad option: " + arg);
+        }
+        String key = option[0].substring(2);
+        String value = option[1];
+        try {
+            if (key.equals("out")) {
+                setOutDir(new File(value));
+            } else if (key.equals("name")) {
+                setName(value);
+            } else if (key.equals("blocks")) {
+                setBlocks(Integer.parseInt(value));
+            } else if (key.equals("density")) {
+                setDensity(Double.parseDouble(value));
+            } else if (key.equals("hit-points")) {
+                setHitPoints(value);
+            } else if (key.equals("images")) {
+                setImagesRatio(Double.parseDouble(value));
+            } else if (key.equals("balls")) {
+                setBalls(Integer.parseInt(value));
+            } else if (key.equals("levels")) {
+                setLevels(Integer.parseInt(value));
+            } else if (key.equals("seed")) {
+                setSeed(Long.parseLong(value));
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad value: " + arg);
+        }
+    }
+
+    /**
+     * Writes the block definitions, the levels and the level sets files.
+     *
+     * @return the level sets file
+     * @throws IOException problem writing the files
+     * @throws IllegalArgumentException more block types than symbols
+     */
+    public File generate() throws IOException {
+        // Every block type needs a symbol - check before writing anything
+        if (hitPoints.length * getTypesPerHitPoints() > SYMBOLS.length()) {
+            throw new IllegalArgumentException("Too many hit points values");
+        }
+        File definitionsDir = new File(outDir, SUB_DIR);
+        if (!definitionsDir.isDirectory() && !definitionsDir.mkdirs()) {
+            throw new IOException("Can't create " + definitionsDir);
+        }
+
+        // Resource names are relative to the output directory
+        String blocksFile = SUB_DIR + "/" + name + "_block_definitions.txt";
+        String levelsFile = SUB_DIR + "/" + name + "_level_definitions.txt";
+        String setsFile = name + "_level_sets.txt";
+
+        int[] size = getBlockSize();
+        writeBlockDefinitions(new File(outDir, blocksFile), size);
+        writeLevels(new File(outDir, levelsFile), blocksFile, size);
+
+        // The level sets file, one set with all the generated levels
+        File levelSets = new File(outDir, setsFile);
+        Writer writer = open(levelSets);
+        try {
+            writer.write("g:Generated " + name + "\n");
+            writer.write(levelsFile + "\n");
+        } finally {
+            writer.close();
+        }
+        return levelSets;
+    }
+
+    /**
+     * Calculates the block size so the needed grid fits the blocks area.
+     *
+     * @return array of 2: block width and height
+     */
+    private int[] getBlockSize() {
+        int cells = (int) Math.ceil(numBlocks / density);
+        double cellArea = (double) getAreaWidth() * getAreaHeight() / cells;
+
+        // Blocks are twice as wide as high, as in the bundled levels
+        int height = (int) Math.max(1, Math.floor(Math.sqrt(cellArea / 2)));
+        height = Math.min(height, 25);
+        int width = height * 2;
+
+        int columns = getAreaWidth() / width;
+        int rows = (cells + columns - 1) / columns;
+        if (rows * height > getAreaHeight()) {
+            System.err.println("Warning: " + cells + " cells take " + rows
+                    + " rows, blocks go below the blocks area");
+        }
+        return new int[] {width, height};
+    }
+
+    /**
+     * Returns the width of the area the blocks are placed in.
+     *
+     * @return area width in pixels
+     */
+    private int getAreaWidth() {
+        Finals finals = Finals.getInstance();
+        return finals.getGameWidth() - 2 * finals.getMargin();
+    }
+
+    /**
+     * Returns the height of the area the blocks are placed in - the upper
+     * part of the screen, leaving the lower part for the paddle.
+     *
+     * @return area height in pixels
+     */
+    private int getAreaHeight() {
+        return Finals.getInstance().getGameHeight() * 2 / 3 - getAreaTop();
+    }
+
+    /**
+     * Returns the y coordinate the blocks start at.
+     *
+     * @return area top in pixels
+     */
+    private int getAreaTop() {
+        return Finals.getInstance().getStatusBarHeight() * 2;
+    }
+
+    /**
+     * Returns the number of block types - one per hit points and fill kind.
+     *
+     * @return number of block symbols
+     */
+    private int getTypesPerHitPoints() {
+        return imagesRatio > 0 ? 2 : 1;
+    }
+
+    /**
+     * Writes the block definitions file. Every hit points value gets a color
+     * block symbol and, if images are used, an image block symbol.
+     *
+     * @param file the file to write
+     * @param size block width and height
+     * @throws IOException problem writing
+     */
+    private void writeBlockDefinitions(File file, int[] size)
+            throws IOException {
+        Writer writer = open(file);
+        try {
+            writer.write("# Generated by tools.LevelGenerator, seed " + seed
+                    + "\n");
+            writer.write("default height:" + size[1] + " width:" + size[0]
+                    + " stroke:color(black) hit_points:1\n\n");
+            for (int i = 0; i < hitPoints.length; i++) {
+                int symbolIndex = i * getTypesPerHitPoints();
+                writer.write("bdef symbol:" + SYMBOLS.charAt(symbolIndex)
+                        + " hit_points:" + hitPoints[i] + " fill:color("
+                        + COLORS[i % COLORS.length] + ")\n");
+                if (imagesRatio > 0) {
+                    writer.write("bdef symbol:"
+                            + SYMBOLS.charAt(symbolIndex + 1)
+                            + " hit_points:" + hitPoints[i] + " fill:image("
+                            + IMAGES[i % IMAGES.length] + ")\n");
+                }
+            }
+            writer.write("\nsdef symbol:" + SPACER + " width:" + size[0]
+                    + "\n");
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Writes the level specifications file.
+     *
+     * @param file       the file to write
+     * @param blocksFile resource name of the block definitions
+     * @param size       block width and height
+     * @throws IOException problem writing
+     */
+    private void writeLevels(File file, String blocksFile, int[] size)
+            throws IOException {
+        Random random = new Random(seed);
+        Writer writer = open(file);
+        try {
+            for (int level = 1; level <= numLevels; level++) {
+                writer.write("# Generated level " + level + "\n");
+                writer.write("START_LEVEL\n");
+                writer.write("level_name:" + name + " " + numBlocks
+                        + " blocks #" + level + "\n");
+                writer.write("ball_velocities:" + getVelocities() + "\n");
+                writer.write("background:color(black)\n");
+                writer.write("paddle_speed:650\n");
+                writer.write("paddle_width:160\n");
+                writer.write("block_definitions:" + blocksFile + "\n");
+                writer.write("blocks_start_x:"
+                        + Finals.getInstance().getMargin() + "\n");
+                writer.write("blocks_start_y:" + getAreaTop() + "\n");
+                writer.write("row_height:" + size[1] + "\n");
+                writer.write("num_blocks:" + numBlocks + "\n");
+                writer.write("START_BLOCKS\n");
+                writeBlockRows(writer, random, size[0]);
+                writer.write("END_BLOCKS\n");
+                writer.write("END_LEVEL\n\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Writes the block rows of one level. Exactly numBlocks cells of the grid
+     * get a block, chosen at random; the others get a spacer.
+     *
+     * @param writer     the level file writer
+     * @param random     random generator of the level set
+     * @param blockWidth the block width
+     * @throws IOException problem writing
+     */
+    private void writeBlockRows(Writer writer, Random random, int blockWidth)
+            throws IOException {
+        int columns = getAreaWidth() / blockWidth;
+        int cells = Math.max(numBlocks, (int) Math.ceil(numBlocks / density));
+
+        // Choose the block cells by a partial Fisher-Yates shuffle
+        int[] order = new int[cells];
+        for (int i = 0; i < cells; i++) {
+            order[i] = i;
+        }
+        boolean[] isBlock = new boolean[cells];
+        for (int i = 0; i < numBlocks; i++) {
+            int j = i + random.nextInt(cells - i);
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+            isBlock[order[i]] = true;
+        }
+
+        // Write the rows
+        StringBuilder row = new StringBuilder(columns + 1);
+        for (int cell = 0; cell < cells; cell++) {
+            if (isBlock[cell]) {
+                row.append(chooseSymbol(random));
+            } else {
+                row.append(SPACER);
+            }
+            if (row.length() == columns || cell == cells - 1) {
+                writer.write(row.append('\n').toString());
+                row.setLength(0);
+            }
+        }
+    }
+
+    /**
+     * Chooses a block symbol by the hit points distribution and images ratio.
+     *
+     * @param random random generator
+     * @return the block symbol
+     */
+    private char chooseSymbol(Random random) {
+        int totalWeight = 0;
+        for (int weight : hitPointsWeights) {
+            totalWeight += weight;
+        }
+
+        // Choose the hit points by weight
+        int index = 0;
+        if (totalWeight > 0) {
+            int choice = random.nextInt(totalWeight);
+            while (choice >= hitPointsWeights[index]) {
+                choice -= hitPointsWeights[index];
+                index++;
+            }
+        }
+
+        // Choose color or image
+        int symbolIndex = index * getTypesPerHitPoints();
+        if (imagesRatio > 0 && random.nextDouble() < imagesRatio) {
+            symbolIndex++;
+        }
+        return SYMBOLS.charAt(symbolIndex);
+    }
+
+    /**
+     * Builds the ball velocities line - balls spread between -60 and 60
+     * degrees.
+     *
+     * @return the velocities as "angle,speed" pairs
+     */
+    private String getVelocities() {
+        List<String> velocities = new ArrayList<String>();
+        for (int i = 0; i < numBalls; i++) {
+            long angle = Math.round(-60 + 120.0 * (i + 0.5) / numBalls);
+            velocities.add(angle + ",500");
+        }
+        StringBuilder line = new StringBuilder();
+        for (String velocity : velocities) {
+            if (line.length() > 0) {
+                line.append(' ');
+            }
+            line.append(velocity);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Opens a UTF-8 writer to the file.
+     *
+     * @param file file to write
+     * @return the writer
+     * @throws IOException problem opening
+     */
+    private Writer open(File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), Charset.forName("UTF-8")));
+    }
+}
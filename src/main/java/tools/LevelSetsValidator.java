@@ -0,0 +1,348 @@
+package tools;
+
+import gameplay.LevelInformation;
+import io.FormatException;
+import io.LevelSetsReader;
+import io.LevelSpecificationReader;
+import utils.Finals;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Validates all the level files of a level sets file. The level files are
+ * parsed in parallel, using the game's readers, and all the problems found are
+ * reported with file, line and column.
+ * <p>
+ * Usage: java tools.LevelSetsValidator [level_sets.txt] [timeout seconds]
+ * <p>
+ * Level files, block definitions and images are looked up in the class path,
+ * the same way the game does. Exits with 1 if any problem was found.
+ */
+public class LevelSetsValidator {
+    private static final long DEFAULT_TIMEOUT_SEC = 30;
+    private static final long POLL_MILLIS = 20;
+
+    private final long timeoutNanos;
+    private final int threads;
+
+    /**
+     * Creates a validator.
+     *
+     * @param timeoutSec seconds one file may take before it is reported
+     * @param threads    number of worker threads
+     */
+    public LevelSetsValidator(long timeoutSec, int threads) {
+        this.timeoutNanos = TimeUnit.SECONDS.toNanos(timeoutSec);
+        this.threads = threads;
+    }
+
+    /**
+     * Runs the validator from the command line.
+     *
+     * @param args level sets file name and timeout in seconds
+     */
+    public static void main(String[] args) {
+        String levelSets = Finals.getInstance().getDefaultLevelSetsFile();
+        long timeout = DEFAULT_TIMEOUT_SEC;
+        if (args.length > 0) {
+            levelSets = args[0];
+        }
+        if (args.length > 1) {
+            timeout = Long.parseLong(args[1]);
+        }
+
+        LevelSetsValidator validator = new LevelSetsValidator(timeout,
+                Runtime.getRuntime().availableProcessors());
+        int errors;
+        try {
+            errors = validator.validate(levelSets);
+        } catch (FormatException e) {
+            System.out.println(e.getDescription());
+            errors = 1;
+        } catch (IOException e) {
+            System.out.println(levelSets + ": " + e);
+            errors = 1;
+        }
+        System.out.println(errors + " problem(s) found");
+        System.exit(errors == 0 ? 0 : 1);
+    }
+
+    /**
+     * Validates the level sets file and all the level files in it, and
+     * prints the problems and the timing of every file.
+     *
+     * @param levelSetsFile the level sets file name
+     * @return number of problems found
+     * @throws IOException     problem reading the level sets file
+     * @throws FormatException wrong level sets file format
+     */
+    public int validate(String levelSetsFile)
+            throws IOException, FormatException {
+        // Collect the level files, each one is checked once
+        Set<String> levelFiles = new LinkedHashSet<String>();
+        Reader reader = new InputStreamReader(openLevelSets(levelSetsFile),
+                Charset.forName("UTF-8"));
+        try {
+            for (String[] levelSet : LevelSetsReader.readEntries(reader)) {
+                levelFiles.add(levelSet[2]);
+            }
+        } finally {
+            reader.close();
+        }
+
+        // Parse all the files on the worker pool
+        ExecutorService pool = Executors.newFixedThreadPool(threads,
+                new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        // A stuck parse must not keep the process alive
+                        Thread thread = new Thread(r, "level-validator");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        List<FileCheck> checks = new ArrayList<FileCheck>();
+        long submitted = System.nanoTime();
+        for (String levelFile : levelFiles) {
+            FileCheck check = new FileCheck(levelFile);
+            check.future = pool.submit(check);
+            checks.add(check);
+        }
+        waitForChecks(checks, pool, submitted);
+
+        // Report problems and timing
+        int problems = 0;
+        for (FileCheck check : checks) {
+            for (String problem : check.getProblems()) {
+                System.out.println(problem);
+                problems++;
+            }
+        }
+        System.out.println();
+        for (FileCheck check : checks) {
+            System.out.printf("%10.2f ms  %-50s %s%n",
+                    check.getMillis(), check.fileName, check.getSummary());
+        }
+        return problems;
+    }
+
+    /**
+     * Waits until all the checks are done or ran out of time, and stops the
+     * pool. A check that runs longer than the timeout is cancelled and
+     * reported. Checks queued behind hung workers would never start, so all
+     * the checks must also end by a deadline counted from their submission:
+     * a timeout for every round of files the workers take. When it passes,
+     * the checks left are cancelled and reported too.
+     *
+     * @param checks    the submitted checks
+     * @param pool      the pool running them
+     * @param submitted the time of the submission, in nanoseconds
+     */
+    private void waitForChecks(List<FileCheck> checks, ExecutorService pool,
+                               long submitted) {
+        long rounds = (checks.size() + threads - 1) / threads;
+        long deadline = submitted + rounds * timeoutNanos;
+        try {
+            boolean running = true;
+            while (running) {
+                running = false;
+                long now = System.nanoTime();
+                for (FileCheck check : checks) {
+                    if (check.future.isDone()) {
+                        continue;
+                    }
+                    long start = check.startNanos;
+                    if (now - deadline > 0
+                            || (start != 0 && now - start > timeoutNanos)) {
+                        check.timedOut = true;
+                        check.future.cancel(true);
+                    } else {
+                        running = true;
+                    }
+                }
+                if (running) {
+                    Thread.sleep(POLL_MILLIS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Opens the level sets file - from the disk if it exists there, from the
+     * class path otherwise.
+     *
+     * @param levelSetsFile the file name
+     * @return stream of the file
+     * @throws IOException the file was not found
+     */
+    private static InputStream openLevelSets(String levelSetsFile)
+            throws IOException {
+        File file = new File(levelSetsFile);
+        if (file.isFile()) {
+            return new FileInputStream(file);
+        }
+        InputStream is = ClassLoader.getSystemClassLoader()
+                .getResourceAsStream(levelSetsFile);
+        if (is == null) {
+            throw new IOException("Can't find " + levelSetsFile);
+        }
+        return is;
+    }
+
+    /**
+     * Parsing and checking of one level file.
+     */
+    private class FileCheck implements Callable<Void> {
+        private final String fileName;
+        // A cancelled parse may still add problems while they are reported
+        private final List<FormatException> problems = Collections
+                .synchronizedList(new ArrayList<FormatException>());
+        private volatile long startNanos = 0;
+        private volatile long endNanos = 0;
+        private volatile boolean timedOut = false;
+        private int levels = 0;
+        private Future<Void> future;
+
+        /**
+         * Creates the check.
+         *
+         * @param fileName level file to check
+         */
+        FileCheck(String fileName) {
+            this.fileName = fileName;
+        }
+
+        /**
+         * Parses the file and collects its problems.
+         *
+         * @return nothing
+         * @throws Exception any error while parsing
+         */
+        public Void call() throws Exception {
+            startNanos = System.nanoTime();
+            try {
+                InputStream is = ClassLoader.getSystemClassLoader()
+                        .getResourceAsStream(fileName);
+                if (is == null) {
+                    throw new FormatException("Missing level file", fileName,
+                            -1, -1);
+                }
+                Reader reader = new InputStreamReader(is,
+                        Charset.forName("UTF-8"));
+                try {
+                    LevelSpecificationReader levelReader
+                            = new LevelSpecificationReader();
+                    levelReader.collectProblems(problems,
+                            Finals.getInstance().getGameWidth());
+                    List<LevelInformation> parsed
+                            = levelReader.fromReader(reader, fileName);
+                    levels = parsed.size();
+                } finally {
+                    reader.close();
+                }
+            } finally {
+                endNanos = System.nanoTime();
+            }
+            return null;
+        }
+
+        /**
+         * Returns the problems of the file, including the error that stopped
+         * the parsing.
+         *
+         * @return problem descriptions
+         */
+        List<String> getProblems() {
+            List<String> descriptions = new ArrayList<String>();
+            String error = getError();
+            if (error != null) {
+                descriptions.add(error);
+            }
+            synchronized (problems) {
+                for (FormatException problem : problems) {
+                    descriptions.add(problem.getDescription());
+                }
+            }
+            return descriptions;
+        }
+
+        /**
+         * Returns the error that stopped the parsing.
+         *
+         * @return error description, null if parsed successfully
+         */
+        private String getError() {
+            if (timedOut && startNanos == 0) {
+                return fileName + ": parsing never started, the workers"
+                        + " were busy";
+            }
+            if (timedOut) {
+                return fileName + ": parsing timed out after "
+                        + TimeUnit.NANOSECONDS.toSeconds(timeoutNanos)
+                        + " seconds";
+            }
+            try {
+                future.get(0, TimeUnit.MILLISECONDS);
+                return null;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof FormatException) {
+                    return ((FormatException) cause).getDescription();
+                }
+                return fileName + ": " + cause;
+            } catch (TimeoutException e) {
+                return fileName + ": parsing did not finish";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return fileName + ": interrupted";
+            } catch (CancellationException e) {
+                return fileName + ": cancelled";
+            }
+        }
+
+        /**
+         * Returns the time the parsing took.
+         *
+         * @return milliseconds
+         */
+        double getMillis() {
+            long end = endNanos != 0 ? endNanos : System.nanoTime();
+            return startNanos == 0 ? 0 : (end - startNanos) / 1e6;
+        }
+
+        /**
+         * Returns a short result for the timing table.
+         *
+         * @return summary
+         */
+        String getSummary() {
+            if (getError() != null) {
+                return "FAILED";
+            }
+            return levels + " level(s), " + problems.size() + " problem(s)";
+        }
+    }
+}
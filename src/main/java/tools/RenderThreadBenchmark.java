@@ -0,0 +1,280 @@
+package tools;
+
+import animation.Animation;
+import animation.AnimationRunner;
+import animation.GameLevel;
+import animation.Screen;
+import biuoop.DialogManager;
+import biuoop.DrawSurface;
+import biuoop.KeyboardSensor;
+import biuoop.Sleeper;
+import gameplay.LevelInformation;
+import io.FormatException;
+import render.NullRenderer;
+import replay.ScriptedPaddle;
+import utils.Counter;
+import utils.Finals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays a level through the animation runner on a screen whose show is
+ * slow now and then, once with the frames shown by the game thread and once
+ * with a render thread, and compares how steady the game ticks are.
+ * <p>
+ * Usage: java tools.RenderThreadBenchmark [--set key] [--blocks n]
+ * [--balls n] [--ticks n] [--show-ms n] [--spike-ms n] [--spike-every n]
+ * <p>
+ * The screen draws nothing; its show takes "--show-ms", and every
+ * "--spike-every" frames "--spike-ms" instead, like a blit held up by the
+ * window system. The time between the starts of consecutive game ticks is
+ * measured, as the game thread sees it, with the runner's usual waits
+ * between the frames.
+ */
+public class RenderThreadBenchmark {
+    private static final int SWEEP_TICKS = 45;
+
+    private final LevelInformation levelInfo;
+    private final int ticks;
+    private final long showNanos;
+    private final long spikeNanos;
+    private final int spikeEvery;
+
+    /**
+     * Creates the benchmark.
+     *
+     * @param levelInfo  the level to play
+     * @param ticks      number of game ticks measured
+     * @param showMillis usual show time
+     * @param spikeMillis show time of the slow shows
+     * @param spikeEvery frames between slow shows
+     */
+    public RenderThreadBenchmark(LevelInformation levelInfo, int ticks,
+                                 int showMillis, int spikeMillis,
+                                 int spikeEvery) {
+        this.levelInfo = levelInfo;
+        this.ticks = ticks;
+        this.showNanos = TimeUnit.MILLISECONDS.toNanos(showMillis);
+        this.spikeNanos = TimeUnit.MILLISECONDS.toNanos(spikeMillis);
+        this.spikeEvery = spikeEvery;
+    }
+
+    /**
+     * Runs the benchmark from the command line.
+     *
+     * @param args the options
+     */
+    public static void main(String[] args) {
+        String set = null;
+        int blocks = 1000;
+        int balls = 4;
+        int ticks = 1200;
+        int showMillis = 4;
+        int spikeMillis = 45;
+        int spikeEvery = 20;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--set")) {
+                set = args[i + 1];
+            } else if (args[i].equals("--blocks")) {
+                blocks = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--balls")) {
+                balls = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--ticks")) {
+                ticks = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--show-ms")) {
+                showMillis = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--spike-ms")) {
+                spikeMillis = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--spike-every")) {
+                spikeEvery = Integer.parseInt(args[i + 1]);
+            }
+        }
+
+        try {
+            LevelInformation level;
+            if (set != null) {
+                level = FrameBenchmark.readSet(set).get(0);
+            } else {
+                File dir = Files.createTempDirectory("frames").toFile();
+                try {
+                    level = FrameBenchmark.generate(dir, blocks, balls);
+                } finally {
+                    FrameBenchmark.delete(dir);
+                }
+            }
+            RenderThreadBenchmark benchmark = new RenderThreadBenchmark(
+                    level, ticks, showMillis, spikeMillis, spikeEvery);
+            System.out.printf("%-14s %7s %8s %8s %8s %8s %8s %7s %7s%n",
+                    "mode", "ticks", "mean ms", "sd ms", "p50 ms", "p99 ms",
+                    "max ms", "shown", "skipped");
+            benchmark.play(false);
+            benchmark.play(true);
+        } catch (FormatException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Plays the level in one mode and prints the tick times.
+     *
+     * @param renderThread true to show the frames from a render thread
+     */
+    public void play(boolean renderThread) {
+        SlowScreen screen = new SlowScreen();
+        AnimationRunner runner = new AnimationRunner(screen, new Sleeper() {
+            public void sleepFor(long millis) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+            }
+        }, Finals.getInstance().getFramesPerSec(), renderThread);
+        TimedLevel timed = new TimedLevel(runner);
+        runner.run(timed);
+
+        // Times between the starts of consecutive ticks
+        long[] intervals = new long[ticks - 1];
+        double sum = 0;
+        for (int i = 0; i < intervals.length; i++) {
+            intervals[i] = timed.starts[i + 1] - timed.starts[i];
+            sum += intervals[i];
+        }
+        double mean = sum / intervals.length;
+        double squares = 0;
+        for (long interval : intervals) {
+            squares += (interval - mean) * (interval - mean);
+        }
+        Arrays.sort(intervals);
+        System.out.printf("%-14s %7d %8.2f %8.2f %8.2f %8.2f %8.2f %7d %7d%n",
+                renderThread ? "render thread" : "game thread", ticks,
+                mean / 1e6, Math.sqrt(squares / intervals.length) / 1e6,
+                intervals[intervals.length / 2] / 1e6,
+                intervals[(int) Math.ceil(intervals.length * 0.99) - 1] / 1e6,
+                intervals[intervals.length - 1] / 1e6, screen.shown,
+                runner.getSkippedFrames());
+    }
+
+    /**
+     * The level, played turn after turn, which keeps the start time of every
+     * tick.
+     */
+    private final class TimedLevel implements Animation {
+        private final AnimationRunner runner;
+        private final ScriptedPaddle paddle = new ScriptedPaddle(SWEEP_TICKS);
+        private final Counter score = new Counter(0);
+        private final Counter lives = new Counter(Integer.MAX_VALUE);
+        private final long[] starts = new long[ticks];
+        private GameLevel level = null;
+        private int tick = 0;
+
+        /**
+         * Creates the timed level.
+         *
+         * @param runner the runner of the level
+         */
+        TimedLevel(AnimationRunner runner) {
+            this.runner = runner;
+        }
+
+        /**
+         * Plays a tick of the level, starting a turn or the level over
+         * when needed.
+         *
+         * @param d  the surface
+         * @param dt seconds of the tick
+         */
+        public void doOneFrame(DrawSurface d, double dt) {
+            starts[tick++] = System.nanoTime();
+            if (level == null || level.shouldStop()) {
+                if (level != null) {
+                    level.endTurn();
+                }
+                if (level == null || !level.areBlocksLeft()) {
+                    level = new GameLevel(levelInfo, paddle, runner, score,
+                            lives);
+                    level.initialize();
+                }
+                level.startTurn();
+            }
+            level.doOneFrame(d, dt);
+        }
+
+        /**
+         * Checks whether all the ticks were played.
+         *
+         * @return true when done
+         */
+        public boolean shouldStop() {
+            return tick == ticks;
+        }
+    }
+
+    /**
+     * A screen that draws nothing, and takes its time to show a frame.
+     */
+    private final class SlowScreen implements Screen {
+        private final DrawSurface surface = new NullRenderer();
+        private int shown = 0;
+
+        /**
+         * Returns the surface, which draws nothing.
+         *
+         * @return the surface
+         */
+        public DrawSurface getDrawSurface() {
+            return surface;
+        }
+
+        /**
+         * Takes the show time of the frame.
+         *
+         * @param d the surface
+         */
+        public void show(DrawSurface d) {
+            shown++;
+            long nanos = shown % spikeEvery == 0 ? spikeNanos : showNanos;
+            long end = System.nanoTime() + nanos;
+            for (long left = nanos; left > 0; left = end - System.nanoTime()) {
+                LockSupport.parkNanos(left);
+            }
+        }
+
+        /**
+         * Returns a keyboard with no key pressed.
+         *
+         * @return the keyboard sensor
+         */
+        public KeyboardSensor getKeyboardSensor() {
+            return new KeyboardSensor() {
+                public boolean isPressed(String key) {
+                    return false;
+                }
+            };
+        }
+
+        /**
+         * Waits the time; no key is ever pressed.
+         *
+         * @param timeoutMillis most time to wait
+         */
+        public void awaitKey(long timeoutMillis) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(
+                    timeoutMillis));
+        }
+
+        /**
+         * Returns no dialogs; the benchmark asks no questions.
+         *
+         * @return null
+         */
+        public DialogManager getDialogManager() {
+            return null;
+        }
+    }
+}
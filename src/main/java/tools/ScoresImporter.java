@@ -0,0 +1,71 @@
+package tools;
+
+import scores.BinaryScoresFile;
+import scores.HighScoresTable;
+import scores.ScoresRanking;
+import scores.SharedScoresFile;
+import utils.Finals;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Imports a text high scores file into the binary scores file. The scores
+ * are added after the scores already in the binary file, at their places,
+ * while holding the lock of the file, so running games may keep playing.
+ * <p>
+ * Usage: java tools.ScoresImporter [text_file [binary_file]]
+ */
+public class ScoresImporter {
+
+    /**
+     * Runs the import from the command line.
+     *
+     * @param args the text scores file and the binary scores file names
+     */
+    public static void main(String[] args) {
+        Finals finals = Finals.getInstance();
+        File textFile = new File(args.length > 0 ? args[0]
+                : finals.getScoresFileName());
+        File binaryFile = new File(args.length > 1 ? args[1]
+                : finals.getBinaryScoresFileName());
+        if (!textFile.exists()) {
+            System.out.println("No scores file " + textFile);
+            System.exit(1);
+        }
+
+        try {
+            long start = System.nanoTime();
+
+            // Read all the text scores, not only the high ones
+            HighScoresTable textTable = new HighScoresTable(0);
+            textTable.load(textFile);
+
+            // Add them while no running game uses the file
+            final ScoresRanking imported = textTable.getRanking();
+            SharedScoresFile scoresFile = new SharedScoresFile(binaryFile,
+                    null);
+            try {
+                int total = scoresFile.withLock(
+                        new SharedScoresFile.Action<Integer>() {
+                            public Integer run(ScoresRanking scores) {
+                                BinaryScoresFile binary
+                                        = (BinaryScoresFile) scores;
+                                binary.importFrom(imported);
+                                binary.force();
+                                return binary.size();
+                            }
+                        });
+                long nanos = System.nanoTime() - start;
+                System.out.printf("Imported %d scores into %s (%d in total)"
+                        + " in %.2f ms%n", imported.size(), binaryFile,
+                        total, nanos / 1e6);
+            } finally {
+                scoresFile.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
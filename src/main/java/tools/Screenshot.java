@@ -0,0 +1,153 @@
+package tools;
+
+import animation.GameLevel;
+import gameplay.LevelInformation;
+import io.FormatException;
+import render.ImageRenderer;
+import render.NullRenderer;
+import replay.ScriptedPaddle;
+import utils.Counter;
+import utils.Finals;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Plays a level of a level set without a screen, and writes its last frame
+ * to a PNG file, or compares it with a reference image.
+ * <p>
+ * Usage: java tools.Screenshot --set key [--level n] [--ticks n]
+ * [--out file] [--compare file]
+ * <p>
+ * The level is played for "--ticks" ticks with the paddle of the replays,
+ * so the same tree gives the same frame every time. The frames before the
+ * last are drawn on a {@link NullRenderer}, and the last on an
+ * {@link ImageRenderer}. With "--compare", the number of pixels that
+ * differ from the reference image is printed, and the tool exits with
+ * status 1 if any does. Texts are drawn with the fonts of the machine, so a
+ * reference image is only good for the machine and JDK that made it.
+ */
+public class Screenshot {
+    private static final int SWEEP_TICKS = 45;
+
+    /**
+     * Runs the tool from the command line.
+     *
+     * @param args the options
+     */
+    public static void main(String[] args) {
+        String set = null;
+        int levelNumber = 1;
+        int ticks = 120;
+        File out = null;
+        File compare = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--set")) {
+                set = args[i + 1];
+            } else if (args[i].equals("--level")) {
+                levelNumber = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--ticks")) {
+                ticks = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--out")) {
+                out = new File(args[i + 1]);
+            } else if (args[i].equals("--compare")) {
+                compare = new File(args[i + 1]);
+            }
+        }
+        if (set == null || (out == null && compare == null)) {
+            System.err.println("Usage: java tools.Screenshot --set key"
+                    + " [--level n] [--ticks n] [--out file]"
+                    + " [--compare file]");
+            System.exit(2);
+        }
+
+        try {
+            List<LevelInformation> levels = FrameBenchmark.readSet(set);
+            if (levelNumber < 1 || levelNumber > levels.size()) {
+                throw new FormatException("No level " + levelNumber
+                        + " in set " + set);
+            }
+            ImageRenderer renderer = shoot(levels.get(levelNumber - 1),
+                    ticks);
+            System.out.printf("%d draw calls, %d pixels filled%n",
+                    renderer.getDrawCalls(), renderer.getFilledPixels());
+            if (out != null) {
+                renderer.writePng(out);
+            }
+            if (compare != null) {
+                BufferedImage reference = ImageIO.read(compare);
+                if (reference == null) {
+                    throw new IOException("Can't read image " + compare);
+                }
+                long differing = compare(renderer.getImage(), reference);
+                System.out.printf("%d pixels differ from %s%n", differing,
+                        compare);
+                if (differing != 0) {
+                    System.exit(1);
+                }
+            }
+        } catch (FormatException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Plays a level and draws its last frame on an image.
+     *
+     * @param levelInfo the level
+     * @param ticks     number of ticks played, the last one drawn
+     * @return the renderer of the last frame, with its counters
+     */
+    public static ImageRenderer shoot(LevelInformation levelInfo,
+                                      int ticks) {
+        Finals finals = Finals.getInstance();
+        double dt = 1.0 / finals.getFramesPerSec();
+        NullRenderer skipped = new NullRenderer();
+        ImageRenderer renderer = new ImageRenderer(finals.getGameWidth(),
+                finals.getGameHeight());
+        GameLevel level = new GameLevel(levelInfo,
+                new ScriptedPaddle(SWEEP_TICKS), null, new Counter(0),
+                new Counter(Integer.MAX_VALUE));
+        level.initialize();
+        level.startTurn();
+        for (int i = 1; i < ticks && !level.shouldStop(); i++) {
+            level.doOneFrame(skipped, dt);
+        }
+        level.doOneFrame(renderer, dt);
+        return renderer;
+    }
+
+    /**
+     * Counts the pixels that differ between two images. Pixels of one
+     * image outside the other all differ.
+     *
+     * @param image     an image
+     * @param reference the other image
+     * @return number of differing pixels
+     */
+    public static long compare(BufferedImage image,
+                               BufferedImage reference) {
+        int width = Math.min(image.getWidth(), reference.getWidth());
+        int height = Math.min(image.getHeight(), reference.getHeight());
+        long differing = (long) image.getWidth() * image.getHeight()
+                + (long) reference.getWidth() * reference.getHeight()
+                - 2L * width * height;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                // Alpha is not compared - a PNG may keep it or not
+                if (((image.getRGB(x, y) ^ reference.getRGB(x, y))
+                        & 0xFFFFFF) != 0) {
+                    differing++;
+                }
+            }
+        }
+        return differing;
+    }
+}
@@ -0,0 +1,153 @@
+package tools;
+
+import io.FormatException;
+import io.ImageCache;
+import io.LevelSetsReader;
+import io.LevelSpecificationReader;
+import utils.Finals;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Measures the start up of the game - loading all the levels of the level
+ * sets file, as the game does before showing the menu - and prints how long
+ * every image took and whether it came from the image cache.
+ * <p>
+ * Usage: java tools.StartupReport [--compare] [level_sets.txt]
+ * <p>
+ * With "--compare" the image cache is cleared and the start up is measured in
+ * two new processes: the first one decodes the images and fills the cache,
+ * the second one reads them from the cache.
+ */
+public class StartupReport {
+
+    /**
+     * Runs the report from the command line.
+     *
+     * @param args "--compare" and the level sets file name
+     */
+    public static void main(String[] args) {
+        boolean compare = false;
+        String levelSets = Finals.getInstance().getDefaultLevelSetsFile();
+        for (String arg : args) {
+            if (arg.equals("--compare")) {
+                compare = true;
+            } else {
+                levelSets = arg;
+            }
+        }
+
+        try {
+            if (compare) {
+                ImageCache.getInstance().clear();
+                runLaunch("Launch 1 - empty cache", levelSets);
+                runLaunch("Launch 2 - filled cache", levelSets);
+            } else {
+                long start = System.nanoTime();
+                int levels = loadLevels(levelSets);
+                long nanos = System.nanoTime() - start;
+                for (String line : ImageCache.getInstance().getReport()) {
+                    System.out.println(line);
+                }
+                System.out.printf("Loaded %d levels in %.2f ms%n", levels,
+                        nanos / 1e6);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } catch (FormatException e) {
+            System.out.println(e.getDescription());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Loads all the levels of all the level sets.
+     *
+     * @param levelSetsFile the level sets file name
+     * @return number of levels loaded
+     * @throws IOException     problem with a file
+     * @throws FormatException wrong file format
+     */
+    private static int loadLevels(String levelSetsFile)
+            throws IOException, FormatException {
+        int levels = 0;
+        for (String[] levelSet : LevelSetsReader.readEntries(
+                open(levelSetsFile))) {
+            Reader reader = open(levelSet[2]);
+            try {
+                levels += new LevelSpecificationReader()
+                        .fromReader(reader, levelSet[2]).size();
+            } finally {
+                reader.close();
+            }
+        }
+        return levels;
+    }
+
+    /**
+     * Opens a resource from the class path.
+     *
+     * @param resource the resource name
+     * @return reader of the resource
+     * @throws IOException the resource was not found
+     */
+    private static Reader open(String resource) throws IOException {
+        InputStream is = ClassLoader.getSystemClassLoader()
+                .getResourceAsStream(resource);
+        if (is == null) {
+            throw new IOException("Can't find " + resource);
+        }
+        return new InputStreamReader(is, Charset.forName("UTF-8"));
+    }
+
+    /**
+     * Measures the start up in a new process and prints its report. The
+     * process gets this one's -Darkanoid.* properties, so it measures the
+     * same configuration.
+     *
+     * @param title     title of the launch
+     * @param levelSets the level sets file name
+     * @throws IOException          problem running the process
+     * @throws InterruptedException interrupted while waiting
+     */
+    private static void runLaunch(String title, String levelSets)
+            throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator
+                + "bin" + File.separator + "java";
+        List<String> command = new ArrayList<String>();
+        command.add(java);
+        for (String name : new TreeSet<String>(
+                System.getProperties().stringPropertyNames())) {
+            if (name.startsWith("arkanoid.")) {
+                command.add("-D" + name + "=" + System.getProperty(name));
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(StartupReport.class.getName());
+        command.add(levelSets);
+
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true).start();
+        BufferedReader output = new BufferedReader(new InputStreamReader(
+                process.getInputStream(), Charset.forName("UTF-8")));
+        System.out.println(title);
+        String line;
+        while ((line = output.readLine()) != null) {
+            System.out.println("  " + line);
+        }
+        process.waitFor();
+    }
+}
@@ -0,0 +1,98 @@
+package tools;
+
+import profiling.StutterDump;
+import utils.Finals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Prints the frame histories saved when the game stuttered.
+ * <p>
+ * Usage: java tools.StutterReport [stutter_file ...]
+ * <p>
+ * Without files, the newest file of the stutters directory is printed.
+ * Frames over the stutter threshold are marked with "*".
+ */
+public class StutterReport {
+    /**
+     * Prints the stutter files from the command line.
+     *
+     * @param args the stutter files
+     */
+    public static void main(String[] args) {
+        File[] files;
+        if (args.length > 0) {
+            files = new File[args.length];
+            for (int i = 0; i < args.length; i++) {
+                files[i] = new File(args[i]);
+            }
+        } else {
+            File newest = findNewest(
+                    new File(Finals.getInstance().getStutterDir()));
+            if (newest == null) {
+                System.out.println("No stutter files");
+                return;
+            }
+            files = new File[] {newest};
+        }
+
+        for (File file : files) {
+            try {
+                print(file, StutterDump.load(file));
+            } catch (IOException e) {
+                System.out.println("Can't read " + file + ": " + e);
+            }
+        }
+    }
+
+    /**
+     * Finds the newest stutter file of a directory.
+     *
+     * @param dir the directory
+     * @return the file, null if there are none
+     */
+    private static File findNewest(File dir) {
+        String[] names = dir.list();
+        if (names == null) {
+            return null;
+        }
+        Arrays.sort(names); // the names sort by time
+        for (int i = names.length - 1; i >= 0; i--) {
+            if (names[i].startsWith("stutter-")
+                    && names[i].endsWith(".bin")) {
+                return new File(dir, names[i]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Prints a frame history.
+     *
+     * @param file the file it came from
+     * @param dump the history
+     */
+    private static void print(File file, StutterDump dump) {
+        int threshold = dump.getThresholdMicros();
+        System.out.printf("%s: stutter at %s, threshold %.1f ms, %d frames%n",
+                file, new Date(dump.getWallTime()), threshold / 1000.0,
+                dump.getFrames());
+        System.out.println("      start ms  interval ms   work ms  sprites"
+                + "  balls  queries  gcs  gc ms");
+        for (int i = 0; i < dump.getFrames(); i++) {
+            int interval = dump.getIntervalMicros(i);
+            boolean stutter = interval > threshold
+                    || dump.getWorkMicros(i) > threshold;
+            System.out.printf("%s %11.2f %12s %9.2f %8d %6d %8d %4d %6d%n",
+                    stutter ? "*" : " ", dump.getStartNanos(i) / 1e6,
+                    interval == 0 ? "-" : String.format("%.2f",
+                            interval / 1000.0),
+                    dump.getWorkMicros(i) / 1000.0, dump.getSprites(i),
+                    dump.getBalls(i), dump.getCollisions(i),
+                    dump.getGcCount(i), dump.getGcMillis(i));
+        }
+    }
+}
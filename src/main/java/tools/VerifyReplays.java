@@ -0,0 +1,67 @@
+package tools;
+
+import replay.VerificationJob;
+import scores.ScoreInfo;
+import scores.SharedScoresFile;
+import utils.Finals;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Verifies the submitted games waiting in the replay queue, on all the
+ * processors, and prints the replay speed.
+ * <p>
+ * Usage: java tools.VerifyReplays [--dir queue_dir] [--threads n]
+ * [--submit]
+ * <p>
+ * With "--submit" the accepted scores are added to the game's shared scores
+ * file.
+ */
+public class VerifyReplays {
+    /**
+     * Runs the verification from the command line.
+     *
+     * @param args the options
+     */
+    public static void main(String[] args) {
+        String dir = Finals.getInstance().getReplayQueueDir();
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean submit = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--submit")) {
+                submit = true;
+            } else if (args[i].equals("--dir") && i + 1 < args.length) {
+                dir = args[++i];
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            }
+        }
+
+        try {
+            VerificationJob.Report report
+                    = new VerificationJob(new File(dir), threads).run();
+            System.out.printf("%d accepted, %d rejected on %d threads in"
+                    + " %.2f s: %d ticks, %.0f ticks/s%n",
+                    report.getAccepted().size(), report.getRejected(),
+                    threads, report.getNanos() / 1e9, report.getTicks(),
+                    report.getTicksPerSecond());
+            for (ScoreInfo scoreInfo : report.getAccepted()) {
+                System.out.println("Accepted " + scoreInfo.getName() + " "
+                        + scoreInfo.getScore());
+            }
+
+            if (submit && !report.getAccepted().isEmpty()) {
+                SharedScoresFile scoresFile = SharedScoresFile.getInstance();
+                scoresFile.submitAll(report.getAccepted());
+                scoresFile.compact();
+                scoresFile.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -2,9 +2,14 @@ package utils;
 
 /**
  * A simple class used for counting things.
+ * <p>
+ * Every change of the count stamps the counter with a new version, so
+ * whoever shows the count can tell it changed by comparing a single
+ * number, and keep what it made of the count until then.
  */
 public class Counter {
     private int count;
+    private int version = 0;
 
     /**
      * Constructs a new counter.
@@ -22,6 +27,9 @@ public class Counter {
      */
     public void increase(int number) {
         this.count += number;
+        if (number != 0) {
+            this.version++;
+        }
     }
 
     /**
@@ -31,6 +39,9 @@ public class Counter {
      */
     public void decrease(int number) {
         this.count -= number;
+        if (number != 0) {
+            this.version++;
+        }
     }
 
     /**
@@ -41,4 +52,13 @@ public class Counter {
     public int getValue() {
         return this.count;
     }
-}
\ No newline at end of file
+
+    /**
+     * Get the version of the count, which changes whenever the count does.
+     *
+     * @return current version
+     */
+    public int getVersion() {
+        return this.version;
+    }
+}
@@ -15,9 +15,20 @@ public final class Finals {
     private final int scoresToKeep = 5;
     private final String scoreDelimiter = "_:_";
     private final String scoresFileName = "highscores";
+    private final String binaryScoresFileName = "highscores.bin";
+    private final String replayQueueDir = "replays";
     private final String stopAnimationKey = "space";
+    private final String profilerKey = "f";
     private final String defaultLevelSets = "level_sets.txt";
     private final int lives = 7;
+    private final String imageCacheDir = "image_cache";
+    private final long imageCacheMaxBytes = 64L * 1024 * 1024;
+    private final String devResourceDir = "src/main/resources";
+    private final int leaderboardTimeoutMillis = 500;
+    private final long leaderboardCacheMillis = 5000;
+    private final int stutterMillis = 100;
+    private final int stutterHistoryFrames = 240;
+    private final String stutterDir = "stutters";
 
     /**
      * Creates the instance.
@@ -56,6 +67,15 @@ public final class Finals {
         return scoresFileName;
     }
 
+    /**
+     * Returns the name of the binary scores file.
+     *
+     * @return the name of the binary scores file
+     */
+    public String getBinaryScoresFileName() {
+        return binaryScoresFileName;
+    }
+
     /**
      * Returns the delimiter between name & score.
      *
@@ -137,6 +157,15 @@ public final class Finals {
         return stopAnimationKey;
     }
 
+    /**
+     * Gets the key that shows or hides the frame times, when profiling.
+     *
+     * @return the profiler key
+     */
+    public String getProfilerKey() {
+        return profilerKey;
+    }
+
     /**
      * Gets lives number for the game.
      *
@@ -154,4 +183,185 @@ public final class Finals {
     public String getDefaultLevelSetsFile() {
         return defaultLevelSets;
     }
+
+    /**
+     * Returns the directory of the submitted games waiting to be verified.
+     *
+     * @return the replay queue directory
+     */
+    public String getReplayQueueDir() {
+        return replayQueueDir;
+    }
+
+    /**
+     * Returns the directory of the decoded images cache.
+     *
+     * @return the image cache directory
+     */
+    public String getImageCacheDir() {
+        return imageCacheDir;
+    }
+
+    /**
+     * Returns the maximal total size of the decoded images cache.
+     *
+     * @return size in bytes
+     */
+    public long getImageCacheMaxBytes() {
+        return imageCacheMaxBytes;
+    }
+
+    /**
+     * Checks whether decoded images are cached on disk. Turned off by running
+     * with -Darkanoid.imageCache=false.
+     *
+     * @return true if the cache is used
+     */
+    public boolean isImageCacheEnabled() {
+        return !"false".equals(System.getProperty("arkanoid.imageCache"));
+    }
+
+    /**
+     * Checks whether the game runs in dev mode: resources are read from the
+     * disk and reloaded when changed. Turned on by running with
+     * -Darkanoid.dev=true.
+     *
+     * @return true in dev mode
+     */
+    public boolean isDevMode() {
+        return Boolean.getBoolean("arkanoid.dev");
+    }
+
+    /**
+     * Checks whether the frames are shown from a render thread, so the game
+     * thread only records them. Turned on by running with
+     * -Darkanoid.renderThread=true.
+     *
+     * @return true to show the frames from a render thread
+     */
+    public boolean isRenderThread() {
+        return Boolean.getBoolean("arkanoid.renderThread");
+    }
+
+    /**
+     * Checks whether screens that wait for a key, like the menus, stop
+     * being drawn while they don't change. On unless the game runs with
+     * -Darkanoid.idleRender=false.
+     *
+     * @return true to stop drawing unchanged screens
+     */
+    public boolean isIdleRender() {
+        return !"false".equals(System.getProperty("arkanoid.idleRender"));
+    }
+
+    /**
+     * Returns the number of buffers of the game window's page flipping.
+     * With 0, the default, the game window is biuoop's; with 2 or 3 it is a
+     * {@link animation.CanvasScreen} flipping that many buffers. Set by
+     * running with -Darkanoid.buffers=n.
+     *
+     * @return number of buffers, 0 for biuoop's window
+     */
+    public int getScreenBuffers() {
+        return Integer.getInteger("arkanoid.buffers", 0);
+    }
+
+    /**
+     * Returns the directory the frames are captured to. Set by running with
+     * -Darkanoid.capture=dir.
+     *
+     * @return the directory, null to capture no frames
+     */
+    public String getCaptureDir() {
+        return System.getProperty("arkanoid.capture");
+    }
+
+    /**
+     * Returns the format of the captured frames: "png" for PNG files, or
+     * "raw" for a raw RGB stream. Set by running with
+     * -Darkanoid.captureFormat=format.
+     *
+     * @return the format
+     */
+    public String getCaptureFormat() {
+        return System.getProperty("arkanoid.captureFormat", "png");
+    }
+
+    /**
+     * Returns the resources directory watched in dev mode. Can be changed by
+     * running with -Darkanoid.resourceDir=path.
+     *
+     * @return the resources directory
+     */
+    public String getDevResourceDir() {
+        return System.getProperty("arkanoid.resourceDir", devResourceDir);
+    }
+
+    /**
+     * Returns the address of the site leaderboard service, set by running
+     * with -Darkanoid.leaderboard=http://host:port.
+     *
+     * @return the leaderboard address, null if there is no leaderboard
+     */
+    public String getLeaderboardUrl() {
+        return System.getProperty("arkanoid.leaderboard");
+    }
+
+    /**
+     * Returns the port this game serves the site leaderboard on, set by
+     * running with -Darkanoid.leaderboardPort=port.
+     *
+     * @return the port, 0 if this game doesn't serve the leaderboard
+     */
+    public int getLeaderboardPort() {
+        return Integer.getInteger("arkanoid.leaderboardPort", 0);
+    }
+
+    /**
+     * Returns the frame time from which a frame is a stutter, whose frame
+     * history is saved; set by running with -Darkanoid.stutterMillis=time.
+     *
+     * @return time in milliseconds, 0 to save no history
+     */
+    public int getStutterMillis() {
+        return Integer.getInteger("arkanoid.stutterMillis", stutterMillis);
+    }
+
+    /**
+     * Returns the number of frames saved before a stutter.
+     *
+     * @return number of frames
+     */
+    public int getStutterHistoryFrames() {
+        return stutterHistoryFrames;
+    }
+
+    /**
+     * Returns the directory the frame histories of stutters are saved to.
+     *
+     * @return the stutters directory
+     */
+    public String getStutterDir() {
+        return stutterDir;
+    }
+
+    /**
+     * Returns the longest time the game waits for the leaderboard before
+     * using the local scores.
+     *
+     * @return time in milliseconds
+     */
+    public int getLeaderboardTimeoutMillis() {
+        return leaderboardTimeoutMillis;
+    }
+
+    /**
+     * Returns how long leaderboard snapshots are used before pulling them
+     * again.
+     *
+     * @return time in milliseconds
+     */
+    public long getLeaderboardCacheMillis() {
+        return leaderboardCacheMillis;
+    }
 }